@@ -2,6 +2,7 @@ package com.example.represc.data;
 
 import java.time.Duration;
 import java.util.Optional;
+import java.util.UUID;
 
 /**
  * @author Schmetz Arnaud
@@ -23,6 +24,9 @@ public class Countdown {
     private String description; //facultative
     private Duration duration;
 
+    private EscapeGame game; // The EscapeGame it belongs to, null if none.
+    private UUID key; // Its UUID in game.
+
     /**
      * @precondition {@code duration != null && !duration.isNegative() && !name.isBlank() && !name.isEmpty() && name != null}.
      * @effects initialises this with the given name, and duration.
@@ -65,6 +69,7 @@ public class Countdown {
         assert !name.isBlank() : "Countdown: Trying to set the name of a Countdown with a blank String name.";
 
         this.name = name;
+        fireChange(ModelChange.Kind.COUNTDOWN_NAME, null, name);
     }
 
     /**
@@ -85,12 +90,14 @@ public class Countdown {
         assert description != null : "setDescription: trying to set the description of the Countdown, but parameter " +
                 "description is null.";
         this.description = description;
+        fireChange(ModelChange.Kind.COUNTDOWN_DESCRIPTION, null, description);
     }
     /**
      * @effects Sets the description of the Countdown to be {@code null}
      * **/
     public void deleteDescription(){
         this.description = null;
+        fireChange(ModelChange.Kind.COUNTDOWN_DESCRIPTION, null, null);
     }
 
     /**
@@ -108,6 +115,26 @@ public class Countdown {
         assert !duration.isNegative() : "setDuration: The duration of the countdown must be positive";
 
         this.duration = duration;
+        fireChange(ModelChange.Kind.COUNTDOWN_DURATION, null, duration);
+    }
+
+    /**
+     * @effects {@code this} now belongs to {@code game}, as its Countdown having {@code key} as UUID, and tells it about
+     * its changes.
+     */
+    void attach(EscapeGame game, UUID key){
+        this.game = game;
+        this.key = key;
+    }
+    /**
+     * @effects {@code this} doesn't belong to any EscapeGame anymore.
+     */
+    void detach(){
+        game = null;
+        key = null;
+    }
+    private void fireChange(ModelChange.Kind kind, UUID subject, Object value){
+        if (game != null) game.fireChange(kind, key, subject, value);
     }
 
     public String toString(){
@@ -0,0 +1,121 @@
+package com.example.represc.data;
+
+import java.util.ArrayList;
+import java.util.UUID;
+
+/**
+ * @author Schmetz Arnaud
+ * @version 1.0
+ *
+ * @overview ElementReferences are the references a Hint {@link Hint} or a Problem {@link Problem} makes to Physical
+ * Elements {@link PhysicalElement}: the handles of their UUIDs in an IdTable {@link IdTable}, kept in an IntSet
+ * {@link IntSet}, so looking for, adding or removing a reference takes constant time.
+ * The table is the one of the EscapeGame the Hint or Problem belongs to, so the references can directly index the
+ * arrays of that EscapeGame. A Hint or Problem which doesn't belong to any EscapeGame yet interns its references in a
+ * table of its own, and binds them to the table of its EscapeGame once it is added to it.
+ *
+ * @specfield ids: IdTable // The table the references are interned in.
+ * @specfield handles: IntSet // The handles of the referenced UUIDs in {@code ids}, in the order they were added.
+ */
+final class ElementReferences {
+
+    private IdTable<PhysicalElement> ids;
+    private IntSet handles = new IntSet();
+
+    /**
+     * @precondition {@code ids != null}
+     * @postcondition Initialises {@code this} without any reference, interning them in {@code ids}.
+     */
+    ElementReferences(IdTable<PhysicalElement> ids) {
+        assert ids != null : "ElementReferences: Trying to intern references in a null IdTable.";
+        this.ids = ids;
+    }
+
+    /**
+     * @precondition {@code id != null}
+     * @effects Adds the reference to {@code id} at the end of the references, if there is none yet.
+     * @return Returns the handle of {@code id} if it has been added, IdTable.NONE if it was already there.
+     */
+    int add(UUID id) {
+        int handle = ids.intern(id);
+        return handles.add(handle) ? handle : IdTable.NONE;
+    }
+
+    /**
+     * @precondition {@code id != null}
+     * @effects Removes the reference to {@code id}, the order of the other ones being kept.
+     * @return Returns the handle of {@code id} if there was a reference to it, IdTable.NONE otherwise.
+     */
+    int remove(UUID id) {
+        int handle = ids.find(id);
+        return handles.remove(handle) ? handle : IdTable.NONE;
+    }
+
+    /**
+     * @precondition {@code id != null}
+     * @return Returns true if there is a reference to {@code id}.
+     */
+    boolean contains(UUID id) {
+        return handles.contains(ids.find(id));
+    }
+
+    int size() {
+        return handles.size();
+    }
+
+    boolean isEmpty() {
+        return handles.isEmpty();
+    }
+
+    /**
+     * @return Returns the referenced UUIDs, in order.
+     */
+    ArrayList<UUID> toUUIDs() {
+        ArrayList<UUID> list = new ArrayList<>(handles.size());
+        for (int handle : handles.toArray()) list.add(ids.getId(handle));
+        return list;
+    }
+
+    /**
+     * @return Returns a copy of the handles of the references, in order.
+     */
+    int[] toHandles() {
+        return handles.toArray();
+    }
+
+    /**
+     * @return Returns the table the references are interned in.
+     */
+    IdTable<PhysicalElement> getTable() {
+        return ids;
+    }
+
+    /**
+     * @precondition {@code table != null}
+     * @effects Interns the references in {@code table} from now on, the existing ones being interned in it again if it
+     * is not their table already.
+     */
+    void bind(IdTable<PhysicalElement> table) {
+        assert table != null : "bind: Trying to bind references to a null IdTable.";
+        if (table == ids) return;
+
+        IntSet bound = new IntSet();
+        for (int handle : handles.toArray()) bound.add(table.intern(ids.getId(handle)));
+        handles = bound;
+        ids = table;
+    }
+
+    /**
+     * @precondition {@code game != null}
+     * @return Returns true if every reference is to a Physical Element of {@code game}.
+     */
+    boolean allIn(EscapeGame game) {
+        IdTable<PhysicalElement> table = game.getPhysicalElementTable();
+        for (int handle : handles.toArray()) {
+            boolean present = table == ids ? table.get(handle) != null
+                    : game.containsPhysicalElement(ids.getId(handle));
+            if (!present) return false;
+        }
+        return true;
+    }
+}
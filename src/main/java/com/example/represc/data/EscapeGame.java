@@ -2,37 +2,53 @@ package com.example.represc.data;
 
 import java.time.Duration;
 import java.util.ArrayList;
-import java.util.HashMap;
+import java.util.Arrays;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
 
+/**
+ * @author Schmetz Arnaud
+ * @version 1.0
+ *
+ * @overview An EscapeGame is one escape game: its Physical Elements {@link PhysicalElement}, Hints {@link Hint},
+ * Problems {@link Problem} and Countdowns {@link Countdown}, each one known by its UUID. Any number of EscapeGames can
+ * exist at once, each one owned by the views, loaders or validators it was given to. An EscapeGame is not thread safe:
+ * it must only be used by one thread at a time.
+ *
+ * @specfield name: String // The name of the escape game. null until it is set.
+ * @specfield physicalElements: IdTable of PhysicalElement // The Physical Elements, each one held by the handle of its
+ * UUID. Verification and simulation refer to the Physical Elements by those handles, which index arrays.
+ * @specfield hintsCiting: array of IntSet // For each Physical Element handle, the handles of the Hints citing it.
+ * @specfield problemsCiting: array of IntSet // For each Physical Element handle, the handles of the Problems citing it.
+ * @specfield listeners: list of ModelListener // Told about every change made to the EscapeGame and its elements.
+ */
 public class EscapeGame {
-    private static EscapeGame instance = null;
+    private String name;
+    private String description; //facultative
+    private String difficulty; //facultative
+    private Integer playersMinimum; //facultative
+    private Integer playersMaximum; //facultative
+    private Duration estimatedDuration; //facultative
 
-    private static String name;
-    private static String description; //facultative
-    private static String difficulty; //facultative
-    private static Integer playersMinimum; //facultative
-    private static Integer playersMaximum; //facultative
-    private static Duration estimatedDuration; //facultative
+    // Each kind of element is known by its handle in its own IdTable, which also holds the elements.
+    private IdTable<PhysicalElement> physicalElements = new IdTable<>(); //facultative
+    private IdTable<Event> events = new IdTable<>(); //facultative
+    private IdTable<Hint> hints = new IdTable<>(); //facultative
+    private IdTable<Problem> problems = new IdTable<>(); //facultative
+    private IdTable<Countdown> countdowns = new IdTable<>(); //facultative
 
-    private static HashMap<UUID, PhysicalElement> physicalElements; //facultative
-    private static HashMap<UUID, Event> events; //facultative
-    private static HashMap<UUID, Hint> hints; //facultative
-    private static HashMap<UUID, Problem> problems; //facultative
-    private static HashMap<UUID, Countdown> countdowns; //facultative
+    // The handles of the Hints and Problems citing each Physical Element, indexed by the handle of the Physical Element.
+    private IntSet[] hintsCiting = new IntSet[0];
+    private IntSet[] problemsCiting = new IntSet[0];
 
+    private final CopyOnWriteArrayList<ModelListener> listeners = new CopyOnWriteArrayList<>();
 
-    static public EscapeGame getEscapeGame(){
-        if (instance==null) {instance = new EscapeGame();}
-        return instance;
-    }
 
     /**
-     * @precondition {@code name != null && !name.isEmpty() && !name.isBlank()}
-     * @postcondition initialises {@code this} with the given {@code name}value.;
+     * @postcondition Initialises {@code this} as an empty escape game, without a name yet.
      * */
-    private EscapeGame(){
+    public EscapeGame(){
     }
 
 
@@ -52,6 +68,7 @@ public class EscapeGame {
         assert !name.isBlank() : "trying to set a State name with a blank String name";
 
         this.name = name;
+        fireChange(ModelChange.Kind.GAME_NAME, null, null, name);
     }
 
 
@@ -72,12 +89,14 @@ public class EscapeGame {
                 "but leaving description parameter null.";
 
         this.description = description;
+        fireChange(ModelChange.Kind.GAME_DESCRIPTION, null, null, description);
     }
     /**
      * @effects Sets the description of the EscapeGame to be {@code null}.
      * **/
     public void deleteDescription(){
         description = null;
+        fireChange(ModelChange.Kind.GAME_DESCRIPTION, null, null, null);
     }
 
 
@@ -97,13 +116,15 @@ public class EscapeGame {
         assert difficulty != null : "setDifficulty: Trying to set the difficulty of an EscapeGame, " +
                 "but leaving description parameter null.";
 
-        EscapeGame.difficulty = difficulty;
+        this.difficulty = difficulty;
+        fireChange(ModelChange.Kind.GAME_DIFFICULTY, null, null, difficulty);
     }
     /**
      * @effects Sets the description of the EscapeGame to be {@code null}.
      * **/
     public void deleteDifficulty(){
         difficulty = null;
+        fireChange(ModelChange.Kind.GAME_DIFFICULTY, null, null, null);
     }
 
     /**
@@ -122,12 +143,14 @@ public class EscapeGame {
         assert newMinimum >= 0 : "setPlayersMinimum: Trying to set a minimum of Player as a negative integer";
         assert playersMaximum == null || newMinimum <= playersMaximum : "setPlayersMinimum: Trying to set a minimum of Player bigger than the current maximum.";
         playersMinimum = newMinimum;
+        fireChange(ModelChange.Kind.GAME_PLAYERS_MINIMUM, null, null, newMinimum);
     }
     /**
      * @effects Sets {@code this.playersMinimum} to be null.
      */
     public void deletePlayersMinimum(){
         playersMinimum = null;
+        fireChange(ModelChange.Kind.GAME_PLAYERS_MINIMUM, null, null, null);
     }
 
     /**
@@ -147,12 +170,14 @@ public class EscapeGame {
         assert playersMinimum == null || newMaximum >= playersMinimum : "setPlayersMaximum: Trying to set a maximum of " +
                 "Players smaller than the current minimum.";
         playersMaximum = newMaximum;
+        fireChange(ModelChange.Kind.GAME_PLAYERS_MAXIMUM, null, null, newMaximum);
     }
     /**
      * @effects Sets {@code this.playersMaximum} to be null.
      */
     public void deletePlayersMaximum(){
         playersMaximum = null;
+        fireChange(ModelChange.Kind.GAME_PLAYERS_MAXIMUM, null, null, null);
     }
 
     /**
@@ -169,6 +194,7 @@ public class EscapeGame {
 
         playersMaximum = maximum;
         playersMinimum = minimum;
+        fireChange(ModelChange.Kind.GAME_PLAYERS_RANGE, null, null, new int[]{minimum, maximum});
     }
 
 
@@ -190,80 +216,131 @@ public class EscapeGame {
                 "a negative duration";
 
         estimatedDuration = duration;
+        fireChange(ModelChange.Kind.GAME_ESTIMATED_DURATION, null, null, duration);
     }
     /**
      * @effects Sets {@code this.estimatedDuration} to be null.
      */
     public void deleteEstimatedDuration(){
         estimatedDuration = null;
+        fireChange(ModelChange.Kind.GAME_ESTIMATED_DURATION, null, null, null);
     }
 
 
     /**
      * @precondition {@code toAdd != null}.
-     * @postcondition initialises physicalElements to an empty Arraylist if it is null, then
-     * adds {@code toAdd} to {@code physicalElements}.
+     * @postcondition Adds {@code toAdd} to {@code physicalElements}, under a new random UUID.
      * @return Returns the UUId which is now the key of {@code toAdd} in {@code physicalElements}.
      */
     public UUID addPhysicalElement(PhysicalElement toAdd){
         assert toAdd != null : "addPhysicalElement: Trying to add a Physical Element which is null to the EscapeGame.";
 
-        UUID id = UUID.randomUUID();
+        return addPhysicalElement(UUID.randomUUID(), toAdd);
+    }
+    /**
+     * @precondition {@code id != null && toAdd != null} and {@code id} is not already the key of a Physical Element of the
+     * Escape Game.
+     * @postcondition Adds {@code toAdd} to {@code physicalElements}, with {@code id} as its key. Used to restore an Escape Game
+     * whose UUIDs are already known, like a saved one.
+     * @return Returns {@code id}.
+     */
+    public UUID addPhysicalElement(UUID id, PhysicalElement toAdd){
+        assert id != null : "addPhysicalElement: Trying to add a Physical Element with a null UUID to the EscapeGame.";
+        assert toAdd != null : "addPhysicalElement: Trying to add a Physical Element which is null to the EscapeGame.";
+        assert !containsPhysicalElement(id) : "addPhysicalElement: The UUID is already used by a Physical Element of " +
+                "the EscapeGame.";
 
-        if (physicalElements == null) physicalElements = new HashMap<>();
-        physicalElements.put(id, toAdd);
+        physicalElements.set(physicalElements.intern(id), toAdd);
+        toAdd.attach(this, id);
+        fireChange(ModelChange.Kind.ELEMENT_ADDED, id, null, toAdd);
         return id;
     }
     /**
-     * @precondtion {@code physicalElements != null && toDelete != null && physicalElements.containsKey(toDelete)}.
-     * @postcondition Deletes the Physical Element, which has the id toDelete from the Escape Game.
+     * @precondtion {@code toDelete != null && containsPhysicalElement(toDelete)}.
+     * @postcondition Deletes the Physical Element, which has the id toDelete from the Escape Game, after deleting it
+     * from the Hints and Problems citing it.
      */
     public void deletePhysicalElement(UUID toDelete){
         assert toDelete != null : "deletePhysicalElement: the UUID of the Physical Element to delete cannot be null.";
-        assert physicalElements != null :"deletePhysicalElement: Trying to delete a Physical Element of the Escape Game" +
-                "but physicalElements is null.";
-        assert physicalElements.containsKey(toDelete) : "deletePhysicalElement: The UUID toDelete is not the key of any " +
+        assert containsPhysicalElement(toDelete) : "deletePhysicalElement: The UUID toDelete is not the key of any " +
                 "one of the Physical Element of the Escape Game.";
 
-        physicalElements.remove(toDelete);
+        int handle = physicalElements.find(toDelete);
+        for (int hint : citing(hintsCiting, handle)) hints.get(hint).deletePhysicalElement(toDelete);
+        for (int problem : citing(problemsCiting, handle)) problems.get(problem).deletePhysicalElement(toDelete);
+        physicalElements.set(handle, null).detach();
+        fireChange(ModelChange.Kind.ELEMENT_DELETED, toDelete, null, null);
     }
     /**
-     * @precondition {@code key != null && physicalElements != null && physicalElements.containsKey(key)}
+     * @precondition {@code key != null && containsPhysicalElement(key)}
      * @return Returns the Physical Element of the EscapeGame, which is linked to the UUID {@code key} in physicalElements.
      */
     public PhysicalElement getPhysicalElement(UUID key){
         assert key != null : "getPhysicalElement: Trying to retrieve a Physical Element of the Escape Game with a UUID " +
                 "which is null";
-        assert physicalElements != null : "getPhysicalElement: Trying to retrieve a Physical Element of the Escape Game" +
-                "but physicalElements is null.";
-        assert physicalElements.containsKey(key) : "getPhysicalElement: Trying to retrieve a Physical Element of the Escape " +
+        assert containsPhysicalElement(key) : "getPhysicalElement: Trying to retrieve a Physical Element of the Escape " +
                 "Game with a UUID which is not present in physicalElements";
 
         return physicalElements.get(key);
     }
+    /**
+     * @precondition {@code handle} is the handle of a Physical Element of the EscapeGame.
+     * @return Returns the Physical Element of the EscapeGame having the handle {@code handle}.
+     */
+    public PhysicalElement getPhysicalElement(int handle){
+        assert physicalElements.get(handle) != null : "getPhysicalElement: Trying to retrieve a Physical Element of " +
+                "the Escape Game with a handle which is not the one of any of its Physical Elements.";
+
+        return physicalElements.get(handle);
+    }
+    /**
+     * @precondition {@code key != null}
+     * @return Returns the handle of the Physical Element having the UUID {@code key}, or -1 if it is not a Physical
+     * Element of the EscapeGame. The handle of a Physical Element never changes, and is never given to another one,
+     * until the EscapeGame is cleared.
+     */
+    public int getPhysicalElementHandle(UUID key){
+        assert key != null : "getPhysicalElementHandle: Trying to retrieve the handle of a null UUID.";
+
+        int handle = physicalElements.find(key);
+        if (physicalElements.get(handle) == null) return IdTable.NONE;
+        return handle;
+    }
+    /**
+     * @precondition {@code 0 <= handle < getPhysicalElementHandleLimit()}
+     * @return Returns the UUID having the handle {@code handle}, even if its Physical Element has been deleted since.
+     */
+    public UUID getPhysicalElementUUID(int handle){
+        assert handle >= 0 && handle < physicalElements.size() : "getPhysicalElementUUID: " + handle + " is not a " +
+                "handle of the Escape Game.";
+
+        return physicalElements.getId(handle);
+    }
+    /**
+     * @return Returns the number of handles given to Physical Elements so far: every handle is lower than it, so it is
+     * the length of an array indexed by handles.
+     */
+    public int getPhysicalElementHandleLimit(){
+        return physicalElements.size();
+    }
     /**
      * @return Returns an empty Optional if the Escape Room has no Physical Element. Returns an Optional containing an ArrayList
      * of the UUIDs of all its Physical elements otherwise.
      */
     public Optional<ArrayList<UUID>> getAllPhysicalElementsUUID(){
-        if (physicalElements == null) return Optional.empty();
-
-        ArrayList<UUID> list = new ArrayList<>();
-        for (var element : physicalElements.entrySet()){
-            list.add(element.getKey());
-        }
-        return Optional.of(list);
+        return allUUIDs(physicalElements);
     }
     /**
      * @return Returns an empty Optional if the Escape Room has no Physical Element. Returns an Optional containing an ArrayList
      * of all its Physical Elements otherwise.
      */
     public Optional<ArrayList<PhysicalElement>> getAllPhysicalElements(){
-        if (physicalElements == null) return Optional.empty();
+        if (physicalElements.count() == 0) return Optional.empty();
 
-        ArrayList<PhysicalElement> list = new ArrayList<>();
-        for (var element : physicalElements.entrySet()){
-            list.add(element.getValue());
+        ArrayList<PhysicalElement> list = new ArrayList<>(physicalElements.count());
+        for (int handle = 0; handle < physicalElements.size(); handle++){
+            PhysicalElement element = physicalElements.get(handle);
+            if (element != null) list.add(element);
         }
         return Optional.of(list);
     }
@@ -274,7 +351,431 @@ public class EscapeGame {
      */
     public boolean containsPhysicalElement(UUID key){
         assert key != null : "containsPhysicalElement: Trying to kow if a null UUID is a Physical Element of the Escape Game.";
-        if (physicalElements == null) return false;
-        return physicalElements.containsKey(key);
+        return physicalElements.get(key) != null;
+    }
+
+
+    /**
+     * @precondition {@code toAdd != null}.
+     * @postcondition Adds {@code toAdd} to {@code hints}, under a new random UUID.
+     * @return Returns the UUID which is now the key of {@code toAdd} in {@code hints}.
+     */
+    public UUID addHint(Hint toAdd){
+        assert toAdd != null : "addHint: Trying to add a Hint which is null to the EscapeGame.";
+
+        return addHint(UUID.randomUUID(), toAdd);
+    }
+    /**
+     * @precondition {@code id != null && toAdd != null} and {@code id} is not already the key of a Hint of the
+     * Escape Game.
+     * @postcondition Adds {@code toAdd} to {@code hints}, with {@code id} as its key. Used to restore an Escape Game
+     * whose UUIDs are already known, like a saved one.
+     * @return Returns {@code id}.
+     */
+    public UUID addHint(UUID id, Hint toAdd){
+        assert id != null : "addHint: Trying to add a Hint with a null UUID to the EscapeGame.";
+        assert toAdd != null : "addHint: Trying to add a Hint which is null to the EscapeGame.";
+        assert !containsHint(id) : "addHint: The UUID is already used by a Hint of " +
+                "the EscapeGame.";
+
+        hints.set(hints.intern(id), toAdd);
+        toAdd.attach(this, id);
+        for (int element : toAdd.getPhysicalElementHandles()) cites(toAdd, id, element, true);
+        fireChange(ModelChange.Kind.HINT_ADDED, id, null, toAdd);
+        return id;
+    }
+    /**
+     * @precondition {@code toDelete != null && containsHint(toDelete)}.
+     * @postcondition Deletes the Hint, which has the id toDelete from the Escape Game.
+     */
+    public void deleteHint(UUID toDelete){
+        assert toDelete != null : "deleteHint: the UUID of the Hint to delete cannot be null.";
+        assert containsHint(toDelete) : "deleteHint: The UUID toDelete is not the key of any " +
+                "one of the Hints of the Escape Game.";
+
+        Hint hint = hints.get(toDelete);
+        for (int element : hint.getPhysicalElementHandles()) cites(hint, toDelete, element, false);
+        hints.set(hints.find(toDelete), null).detach();
+        fireChange(ModelChange.Kind.HINT_DELETED, toDelete, null, null);
+    }
+    /**
+     * @precondition {@code key != null && containsHint(key)}
+     * @return Returns the Hint of the EscapeGame, which is linked to the UUID {@code key} in hints.
+     */
+    public Hint getHint(UUID key){
+        assert key != null : "getHint: Trying to retrieve a Hint of the Escape Game with a UUID which is null";
+        assert containsHint(key) : "getHint: Trying to retrieve a Hint of the Escape Game with " +
+                "a UUID which is not present in hints";
+
+        return hints.get(key);
+    }
+    /**
+     * @return Returns an empty Optional if the Escape Room has no Hint. Returns an Optional containing an ArrayList
+     * of the UUIDs of all its Hints otherwise.
+     */
+    public Optional<ArrayList<UUID>> getAllHintsUUID(){
+        return allUUIDs(hints);
+    }
+    /**
+     * @precondition {@code key != null}.
+     * @return Returns true if the UUID key is used as the key of a Hint of the Escape Game and false otherwise.
+     */
+    public boolean containsHint(UUID key){
+        assert key != null : "containsHint: Trying to know if a null UUID is a Hint of the Escape Game.";
+        return hints.get(key) != null;
+    }
+
+
+    /**
+     * @precondition {@code toAdd != null}.
+     * @postcondition Adds {@code toAdd} to {@code problems}, under a new random UUID.
+     * @return Returns the UUID which is now the key of {@code toAdd} in {@code problems}.
+     */
+    public UUID addProblem(Problem toAdd){
+        assert toAdd != null : "addProblem: Trying to add a Problem which is null to the EscapeGame.";
+
+        return addProblem(UUID.randomUUID(), toAdd);
+    }
+    /**
+     * @precondition {@code id != null && toAdd != null} and {@code id} is not already the key of a Problem of the
+     * Escape Game.
+     * @postcondition Adds {@code toAdd} to {@code problems}, with {@code id} as its key. Used to restore an Escape Game
+     * whose UUIDs are already known, like a saved one.
+     * @return Returns {@code id}.
+     */
+    public UUID addProblem(UUID id, Problem toAdd){
+        assert id != null : "addProblem: Trying to add a Problem with a null UUID to the EscapeGame.";
+        assert toAdd != null : "addProblem: Trying to add a Problem which is null to the EscapeGame.";
+        assert !containsProblem(id) : "addProblem: The UUID is already used by a Problem of " +
+                "the EscapeGame.";
+
+        problems.set(problems.intern(id), toAdd);
+        toAdd.attach(this, id);
+        for (int element : toAdd.getPhysicalElementHandles()) cites(toAdd, id, element, true);
+        fireChange(ModelChange.Kind.PROBLEM_ADDED, id, null, toAdd);
+        return id;
+    }
+    /**
+     * @precondition {@code toDelete != null && containsProblem(toDelete)}.
+     * @postcondition Deletes the Problem, which has the id toDelete from the Escape Game.
+     */
+    public void deleteProblem(UUID toDelete){
+        assert toDelete != null : "deleteProblem: the UUID of the Problem to delete cannot be null.";
+        assert containsProblem(toDelete) : "deleteProblem: The UUID toDelete is not the key " +
+                "of any one of the Problems of the Escape Game.";
+
+        Problem problem = problems.get(toDelete);
+        for (int element : problem.getPhysicalElementHandles()) cites(problem, toDelete, element, false);
+        problems.set(problems.find(toDelete), null).detach();
+        fireChange(ModelChange.Kind.PROBLEM_DELETED, toDelete, null, null);
+    }
+    /**
+     * @precondition {@code key != null && containsProblem(key)}
+     * @return Returns the Problem of the EscapeGame, which is linked to the UUID {@code key} in problems.
+     */
+    public Problem getProblem(UUID key){
+        assert key != null : "getProblem: Trying to retrieve a Problem of the Escape Game with a UUID which is null";
+        assert containsProblem(key) : "getProblem: Trying to retrieve a Problem of the " +
+                "Escape Game with a UUID which is not present in problems";
+
+        return problems.get(key);
+    }
+    /**
+     * @return Returns an empty Optional if the Escape Room has no Problem. Returns an Optional containing an ArrayList
+     * of the UUIDs of all its Problems otherwise.
+     */
+    public Optional<ArrayList<UUID>> getAllProblemsUUID(){
+        return allUUIDs(problems);
+    }
+    /**
+     * @precondition {@code key != null}.
+     * @return Returns true if the UUID key is used as the key of a Problem of the Escape Game and false otherwise.
+     */
+    public boolean containsProblem(UUID key){
+        assert key != null : "containsProblem: Trying to know if a null UUID is a Problem of the Escape Game.";
+        return problems.get(key) != null;
+    }
+
+
+    /**
+     * @precondition {@code toAdd != null}.
+     * @postcondition Adds {@code toAdd} to {@code countdowns}, under a new random UUID.
+     * @return Returns the UUID which is now the key of {@code toAdd} in {@code countdowns}.
+     */
+    public UUID addCountdown(Countdown toAdd){
+        assert toAdd != null : "addCountdown: Trying to add a Countdown which is null to the EscapeGame.";
+
+        return addCountdown(UUID.randomUUID(), toAdd);
+    }
+    /**
+     * @precondition {@code id != null && toAdd != null} and {@code id} is not already the key of a Countdown of the
+     * Escape Game.
+     * @postcondition Adds {@code toAdd} to {@code countdowns}, with {@code id} as its key. Used to restore an Escape Game
+     * whose UUIDs are already known, like a saved one.
+     * @return Returns {@code id}.
+     */
+    public UUID addCountdown(UUID id, Countdown toAdd){
+        assert id != null : "addCountdown: Trying to add a Countdown with a null UUID to the EscapeGame.";
+        assert toAdd != null : "addCountdown: Trying to add a Countdown which is null to the EscapeGame.";
+        assert !containsCountdown(id) : "addCountdown: The UUID is already used by a Countdown of " +
+                "the EscapeGame.";
+
+        countdowns.set(countdowns.intern(id), toAdd);
+        toAdd.attach(this, id);
+        fireChange(ModelChange.Kind.COUNTDOWN_ADDED, id, null, toAdd);
+        return id;
+    }
+    /**
+     * @precondition {@code toDelete != null && containsCountdown(toDelete)}.
+     * @postcondition Deletes the Countdown, which has the id toDelete from the Escape Game.
+     */
+    public void deleteCountdown(UUID toDelete){
+        assert toDelete != null : "deleteCountdown: the UUID of the Countdown to delete cannot be null.";
+        assert containsCountdown(toDelete) : "deleteCountdown: The UUID toDelete is not " +
+                "the key of any one of the Countdowns of the Escape Game.";
+
+        countdowns.set(countdowns.find(toDelete), null).detach();
+        fireChange(ModelChange.Kind.COUNTDOWN_DELETED, toDelete, null, null);
+    }
+    /**
+     * @precondition {@code key != null && containsCountdown(key)}
+     * @return Returns the Countdown of the EscapeGame, which is linked to the UUID {@code key} in countdowns.
+     */
+    public Countdown getCountdown(UUID key){
+        assert key != null : "getCountdown: Trying to retrieve a Countdown of the Escape Game with a UUID which is null";
+        assert containsCountdown(key) : "getCountdown: Trying to retrieve a Countdown of " +
+                "the Escape Game with a UUID which is not present in countdowns";
+
+        return countdowns.get(key);
+    }
+    /**
+     * @return Returns an empty Optional if the Escape Room has no Countdown. Returns an Optional containing an ArrayList
+     * of the UUIDs of all its Countdowns otherwise.
+     */
+    public Optional<ArrayList<UUID>> getAllCountdownsUUID(){
+        return allUUIDs(countdowns);
+    }
+    /**
+     * @precondition {@code key != null}.
+     * @return Returns true if the UUID key is used as the key of a Countdown of the Escape Game and false otherwise.
+     */
+    public boolean containsCountdown(UUID key){
+        assert key != null : "containsCountdown: Trying to know if a null UUID is a Countdown of the Escape Game.";
+        return countdowns.get(key) != null;
+    }
+
+
+    /**
+     * @precondition {@code toAdd != null}.
+     * @postcondition Adds {@code toAdd} to {@code events}, under a new random UUID.
+     * @return Returns the UUID which is now the key of {@code toAdd} in {@code events}.
+     */
+    public UUID addEvent(Event toAdd){
+        assert toAdd != null : "addEvent: Trying to add an Event which is null to the EscapeGame.";
+
+        return addEvent(UUID.randomUUID(), toAdd);
+    }
+    /**
+     * @precondition {@code id != null && toAdd != null} and {@code id} is not already the key of an Event of the Escape
+     * Game.
+     * @postcondition Adds {@code toAdd} to {@code events}, with {@code id} as its key. Used to restore an Escape Game
+     * whose UUIDs are already known, like a saved one.
+     * @return Returns {@code id}.
+     */
+    public UUID addEvent(UUID id, Event toAdd){
+        assert id != null : "addEvent: Trying to add an Event with a null UUID to the EscapeGame.";
+        assert toAdd != null : "addEvent: Trying to add an Event which is null to the EscapeGame.";
+        assert !containsEvent(id) : "addEvent: The UUID is already used by an Event of the EscapeGame.";
+
+        events.set(events.intern(id), toAdd);
+        toAdd.attach(this, id);
+        fireChange(ModelChange.Kind.EVENT_ADDED, id, null, toAdd);
+        return id;
+    }
+    /**
+     * @precondition {@code toDelete != null && containsEvent(toDelete)}.
+     * @postcondition Deletes the Event, which has the id toDelete from the Escape Game.
+     */
+    public void deleteEvent(UUID toDelete){
+        assert toDelete != null : "deleteEvent: the UUID of the Event to delete cannot be null.";
+        assert containsEvent(toDelete) : "deleteEvent: The UUID toDelete is not the key of any one of the Events of " +
+                "the Escape Game.";
+
+        events.set(events.find(toDelete), null).detach();
+        fireChange(ModelChange.Kind.EVENT_DELETED, toDelete, null, null);
+    }
+    /**
+     * @precondition {@code key != null && containsEvent(key)}
+     * @return Returns the Event of the EscapeGame, which is linked to the UUID {@code key} in events.
+     */
+    public Event getEvent(UUID key){
+        assert key != null : "getEvent: Trying to retrieve an Event of the Escape Game with a UUID which is null";
+        assert containsEvent(key) : "getEvent: Trying to retrieve an Event of the Escape Game with a UUID which is " +
+                "not present in events";
+
+        return events.get(key);
+    }
+    /**
+     * @return Returns an empty Optional if the Escape Room has no Event. Returns an Optional containing an ArrayList of
+     * the UUIDs of all its Events otherwise.
+     */
+    public Optional<ArrayList<UUID>> getAllEventsUUID(){
+        return allUUIDs(events);
+    }
+    /**
+     * @precondition {@code key != null}.
+     * @return Returns true if the UUID key is used as the key of an Event of the Escape Game and false otherwise.
+     */
+    public boolean containsEvent(UUID key){
+        assert key != null : "containsEvent: Trying to know if a null UUID is an Event of the Escape Game.";
+        return events.get(key) != null;
+    }
+
+
+    /**
+     * @effects Empties the EscapeGame: every attribute, facultative or not, is set back to {@code null}. The
+     * ModelListeners stay registered.
+     */
+    public void clear(){
+        getAllPhysicalElements().ifPresent(elements -> elements.forEach(PhysicalElement::detach));
+        for (int handle = 0; handle < hints.size(); handle++) if (hints.get(handle) != null) hints.get(handle).detach();
+        for (int handle = 0; handle < problems.size(); handle++) if (problems.get(handle) != null) problems.get(handle).detach();
+        for (int handle = 0; handle < countdowns.size(); handle++) if (countdowns.get(handle) != null) countdowns.get(handle).detach();
+        for (int handle = 0; handle < events.size(); handle++) if (events.get(handle) != null) events.get(handle).detach();
+
+        name = null;
+        description = null;
+        difficulty = null;
+        playersMinimum = null;
+        playersMaximum = null;
+        estimatedDuration = null;
+
+        physicalElements = new IdTable<>();
+        events = new IdTable<>();
+        hints = new IdTable<>();
+        problems = new IdTable<>();
+        countdowns = new IdTable<>();
+        hintsCiting = new IntSet[0];
+        problemsCiting = new IntSet[0];
+        fireChange(ModelChange.Kind.GAME_CLEARED, null, null, null);
+    }
+
+
+    /**
+     * @precondition {@code element != null}
+     * @return Returns an empty Optional if no Hint of the EscapeGame cites the Physical Element having the UUID
+     * {@code element}. Returns an Optional containing an ArrayList of the UUIDs of the Hints citing it otherwise.
+     */
+    public Optional<ArrayList<UUID>> getHintsCiting(UUID element){
+        assert element != null : "getHintsCiting: Trying to retrieve the Hints citing a null UUID.";
+        return citingUUIDs(hints, hintsCiting, physicalElements.find(element));
+    }
+    /**
+     * @precondition {@code element != null}
+     * @return Returns an empty Optional if no Problem of the EscapeGame cites the Physical Element having the UUID
+     * {@code element}. Returns an Optional containing an ArrayList of the UUIDs of the Problems citing it otherwise.
+     */
+    public Optional<ArrayList<UUID>> getProblemsCiting(UUID element){
+        assert element != null : "getProblemsCiting: Trying to retrieve the Problems citing a null UUID.";
+        return citingUUIDs(problems, problemsCiting, physicalElements.find(element));
+    }
+
+    /**
+     * @effects Records that the Hint {@code hint}, having the UUID {@code key}, cites the Physical Element having the
+     * handle {@code element} if {@code cites} is true, or doesn't cite it anymore otherwise. Called by the Hints of the
+     * EscapeGame when their Physical Elements change.
+     * @precondition {@code element} is the handle of a Physical Element of the EscapeGame, and {@code key} the UUID of
+     * a Hint of the EscapeGame.
+     */
+    void cites(Hint hint, UUID key, int element, boolean cites){
+        assert element >= 0 : "cites: The Hint cites a Physical Element which is not in the EscapeGame.";
+        assert hints.find(key) >= 0 : "cites: The Hint is not in the EscapeGame.";
+        hintsCiting = cites(hintsCiting, element, hints.find(key), cites);
+    }
+    /**
+     * @effects Records that the Problem {@code problem}, having the UUID {@code key}, cites the Physical Element having
+     * the handle {@code element} if {@code cites} is true, or doesn't cite it anymore otherwise. Called by the Problems
+     * of the EscapeGame when their Physical Elements change.
+     * @precondition {@code element} is the handle of a Physical Element of the EscapeGame, and {@code key} the UUID of
+     * a Problem of the EscapeGame.
+     */
+    void cites(Problem problem, UUID key, int element, boolean cites){
+        assert element >= 0 : "cites: The Problem cites a Physical Element which is not in the EscapeGame.";
+        assert problems.find(key) >= 0 : "cites: The Problem is not in the EscapeGame.";
+        problemsCiting = cites(problemsCiting, element, problems.find(key), cites);
+    }
+
+    private static IntSet[] cites(IntSet[] index, int element, int citing, boolean cites){
+        if (cites) {
+            if (element >= index.length) index = Arrays.copyOf(index, Math.max(element + 1, index.length * 2));
+            if (index[element] == null) index[element] = new IntSet();
+            index[element].add(citing);
+        } else if (element < index.length && index[element] != null) {
+            index[element].remove(citing);
+            if (index[element].isEmpty()) index[element] = null;
+        }
+        return index;
+    }
+
+    private static int[] citing(IntSet[] index, int element){
+        if (element < 0 || element >= index.length || index[element] == null) return new int[0];
+        return index[element].toArray();
+    }
+
+    private static Optional<ArrayList<UUID>> citingUUIDs(IdTable<?> table, IntSet[] index, int element){
+        int[] handles = citing(index, element);
+        if (handles.length == 0) return Optional.empty();
+
+        ArrayList<UUID> list = new ArrayList<>(handles.length);
+        for (int handle : handles) list.add(table.getId(handle));
+        return Optional.of(list);
+    }
+
+    /**
+     * @return Returns the table of the Physical Elements, in which Hints and Problems intern their references.
+     */
+    IdTable<PhysicalElement> getPhysicalElementTable(){
+        return physicalElements;
+    }
+
+    /**
+     * @return Returns an empty Optional if {@code table} holds no value, and an Optional containing an ArrayList of
+     * the UUIDs of the handles holding one otherwise, in the order of the handles.
+     */
+    private static Optional<ArrayList<UUID>> allUUIDs(IdTable<?> table){
+        if (table.count() == 0) return Optional.empty();
+
+        ArrayList<UUID> list = new ArrayList<>(table.count());
+        for (int handle = 0; handle < table.size(); handle++){
+            if (table.get(handle) != null) list.add(table.getId(handle));
+        }
+        return Optional.of(list);
+    }
+
+
+    /**
+     * @precondition {@code listener != null}
+     * @postcondition {@code listener} is told about every change made to the EscapeGame and to its elements from now on,
+     * until it is removed.
+     */
+    public void addModelListener(ModelListener listener){
+        assert listener != null : "addModelListener: Trying to add a null ModelListener.";
+        listeners.add(listener);
+    }
+    /**
+     * @effects {@code listener} is not told about the changes made to the EscapeGame anymore.
+     */
+    public void removeModelListener(ModelListener listener){
+        listeners.remove(listener);
+    }
+
+    /**
+     * @effects Tells every ModelListener about the change of the given kind, target, subject and value. Called by the
+     * EscapeGame and its elements right after each change.
+     */
+    void fireChange(ModelChange.Kind kind, UUID target, UUID subject, Object value){
+        if (listeners.isEmpty()) return;
+        ModelChange change = new ModelChange(kind, target, subject, value);
+        for (ModelListener listener : listeners) listener.modelChanged(change);
     }
 }
\ No newline at end of file
@@ -1,16 +1,240 @@
 package com.example.represc.data;
 
 import java.util.ArrayList;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.UUID;
 
+/**
+ * @author Schmetz Arnaud
+ * @version 1.0
+ *
+ * @overview An Event is something the escape game does on its own once its Trigger {@link Trigger} holds, like a door
+ * opening when every lock of the room is open: it switches some Physical Elements {@link PhysicalElement} to some of
+ * their States, its Actions.
+ *
+ * @specfield name: String // The name of the Event as a String. Must be neither, null, empty, nor blank.
+ * @specfield actions: ArrayList of Action // What the Event does, in order.
+ *
+ * // facultative
+ * @specfield description: String // The description of the Event as a String.
+ * @specfield trigger: Trigger // The condition under which the Event happens. An Event without Trigger never happens.
+ *
+ * @invariant {@code name != null && !name.isEmpty() && !name.isBlank()}
+ * @invariant {@code actions != null} and none of its Actions is null.
+ */
 public class Event {
     private String name;
     private String description; //facultative
-    //private JSONLogic triggers;
+    private Trigger trigger; //facultative
 
-    private ArrayList<Action> actions;
+    private ArrayList<Action> actions = new ArrayList<>();
 
-    public class Action{
+    private EscapeGame game; // The EscapeGame it belongs to, null if none.
+    private UUID key; // Its UUID in game.
 
+    /**
+     * @overview An Action switches a Physical Element to one of its States.
+     *
+     * @specfield element: UUID // The UUID of the Physical Element switched.
+     * @specfield state: UUID // The UUID of the State it is switched to.
+     */
+    public static final class Action {
+        private final UUID element;
+        private final UUID state;
 
+        /**
+         * @precondition {@code element != null && state != null}
+         * @postcondition Initialises {@code this} to switch the Physical Element {@code element} to its State
+         * {@code state}.
+         */
+        public Action(UUID element, UUID state) {
+            assert element != null : "Action: Trying to create an Action on a null Physical Element.";
+            assert state != null : "Action: Trying to create an Action switching to a null State.";
+
+            this.element = element;
+            this.state = state;
+        }
+
+        public UUID getElement() {
+            return element;
+        }
+
+        public UUID getState() {
+            return state;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof Action && element.equals(((Action) o).element) && state.equals(((Action) o).state);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(element, state);
+        }
+
+        public String toString() {
+            return "Action : { element: " + element + ", state: " + state + " }";
+        }
+    }
+
+    /**
+     * @precondition {@code name != null && !name.isEmpty() && !name.isBlank()}
+     * @postcondition Initialises this with the given name, without Trigger nor Action.
+     */
+    public Event(String name){
+        assert name != null : "Event: Trying to create an Event with a null String name.";
+        assert !name.isEmpty() : "Event: Trying to create an Event with an empty String name.";
+        assert !name.isBlank() : "Event: Trying to create an Event with a blank String name.";
+
+        this.name = name;
+    }
+    /**
+     * @precondition {@code name != null && !name.isEmpty() && !name.isBlank() && description != null}
+     * @postcondition Initialises this with the given name and description, without Trigger nor Action.
+     */
+    public Event(String name, String description){
+        this(name);
+        assert description != null : "Event: Trying to create an Event with a description, but description value is " +
+                "null.";
+
+        this.description = description;
+    }
+
+    /**
+     * @return Returns the name of the Event as a String.
+     */
+    public String getName() {
+        return name;
+    }
+    /**
+     * @precondition {@code name != null && !name.isEmpty() && !name.isBlank()}
+     * @postcondition Sets the name of the Event to be the String {@code name}.
+     */
+    public void setName(String name) {
+        assert name != null : "setName: Trying to set the name of an Event with a null String.";
+        assert !name.isEmpty() : "setName: Trying to set the name of an Event with an empty String name.";
+        assert !name.isBlank() : "setName: Trying to set the name of an Event with a blank String name.";
+
+        this.name = name;
+        fireChange(ModelChange.Kind.EVENT_NAME, null, name);
+    }
+
+    /**
+     * @return Returns the description of the Event as an Optional, containing a String, or being empty if
+     * {@code description} is null.
+     */
+    public Optional<String> getDescription() {
+        return Optional.ofNullable(description);
+    }
+    /**
+     * @precondition {@code description != null}
+     * @postcondition Sets the description of the Event to be the String {@code description}.
+     */
+    public void setDescription(String description) {
+        assert description != null : "setDescription: Trying to set the description of the Event, but parameter " +
+                "description is null.";
+
+        this.description = description;
+        fireChange(ModelChange.Kind.EVENT_DESCRIPTION, null, description);
+    }
+    /**
+     * @effects Sets the description of the Event to be {@code null}.
+     */
+    public void deleteDescription(){
+        this.description = null;
+        fireChange(ModelChange.Kind.EVENT_DESCRIPTION, null, null);
+    }
+
+    /**
+     * @return Returns the Trigger of the Event as an Optional, being empty if the Event has none.
+     */
+    public Optional<Trigger> getTrigger() {
+        return Optional.ofNullable(trigger);
+    }
+    /**
+     * @precondition {@code trigger != null}
+     * @postcondition Sets the Trigger of the Event to be {@code trigger}.
+     */
+    public void setTrigger(Trigger trigger) {
+        assert trigger != null : "setTrigger: Trying to set the Trigger of the Event to null.";
+
+        this.trigger = trigger;
+        fireChange(ModelChange.Kind.EVENT_TRIGGER, null, trigger);
+    }
+    /**
+     * @effects Removes the Trigger of the Event, which then never happens.
+     */
+    public void deleteTrigger() {
+        this.trigger = null;
+        fireChange(ModelChange.Kind.EVENT_TRIGGER, null, null);
+    }
+
+    /**
+     * @return Returns an ArrayList of the Actions of the Event, in order. Modifying it doesn't modify the Event.
+     */
+    public ArrayList<Action> getActions() {
+        return new ArrayList<>(actions);
+    }
+    /**
+     * @precondition {@code toAdd != null}
+     * @postcondition Adds {@code toAdd} after the Actions of the Event.
+     */
+    public void addAction(Action toAdd) {
+        assert toAdd != null : "addAction: Trying to add a null Action to an Event.";
+
+        actions.add(toAdd);
+        fireChange(ModelChange.Kind.EVENT_ACTION_ADDED, toAdd.getElement(), toAdd);
+    }
+    /**
+     * @precondition {@code 0 <= index < getActions().size()}
+     * @postcondition Deletes the Action at {@code index} from the Actions of the Event.
+     */
+    public void deleteAction(int index) {
+        assert index >= 0 && index < actions.size() : "deleteAction: There is no Action at that index in the Event.";
+
+        Action deleted = actions.remove(index);
+        fireChange(ModelChange.Kind.EVENT_ACTION_DELETED, deleted.getElement(), index);
+    }
+
+    /**
+     * @effects {@code this} now belongs to {@code game}, as its Event having {@code key} as UUID, and tells it about its
+     * changes.
+     */
+    void attach(EscapeGame game, UUID key){
+        this.game = game;
+        this.key = key;
+    }
+    /**
+     * @effects {@code this} doesn't belong to any EscapeGame anymore.
+     */
+    void detach(){
+        game = null;
+        key = null;
+    }
+    private void fireChange(ModelChange.Kind kind, UUID subject, Object value){
+        if (game != null) game.fireChange(kind, key, subject, value);
+    }
+
+    public String toString(){
+        StringBuilder s = new StringBuilder("Event : {\n\t");
+        s.append("name: ").append(name);
+        if (description != null){
+            s.append(",\n\tdescription: ").append(description);
+        }
+        if (trigger != null){
+            s.append(",\n\ttrigger: ").append(trigger);
+        }
+        s.append(",\n\tactions: ").append(actions);
+        s.append(" }");
+        return s.toString();
+    }
+    public boolean repOK(){
+        if (name == null || name.isEmpty() || name.isBlank()) return false;
+        if (actions == null) return false;
+        for (Action action : actions) if (action == null) return false;
+
+        return true;
     }
 }
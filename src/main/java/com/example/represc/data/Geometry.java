@@ -0,0 +1,203 @@
+package com.example.represc.data;
+
+import com.example.represc.utils.SvgPathTokenizer;
+
+import java.util.Arrays;
+
+/**
+ * @author Schmetz Arnaud
+ * @version 1.0
+ *
+ * @overview A Geometry is the shape of a Physical Element {@link PhysicalElement}: an SVG path, already parsed. Each
+ * command of the path is kept as its letter (absolute or relative), and all the numbers they take one after the other
+ * in a single float array, as split by SvgPathTokenizer {@link SvgPathTokenizer}. It doesn't depend on JavaFX, the
+ * views turn it into an SVGPath when they draw it.
+ * A Geometry is immutable, so it can be shared and read by any thread without being copied.
+ *
+ * @specfield commands: byte[] // The letters of the commands of the path, in order.
+ * @specfield coordinates: float[] // The numbers taken by the commands, in order.
+ * @specfield minX, minY, maxX, maxY: float // The bounding box of the path, in absolute coordinates. It contains every
+ * point the path goes through, and the control points of its curves; arcs are only bounded by their end points. It is
+ * all zeros for an empty path.
+ *
+ * @invariant {@code coordinates.length} is the sum of {@code SvgPathTokenizer.argumentCount(c)} for every {@code c} of
+ * {@code commands}, and every {@code c} is an SVG path command.
+ * @invariant {@code minX <= maxX && minY <= maxY}
+ */
+public final class Geometry {
+
+    private static final Geometry EMPTY = new Geometry(new byte[0], new float[0]);
+
+    private final byte[] commands;
+    private final float[] coordinates;
+    private final float minX;
+    private final float minY;
+    private final float maxX;
+    private final float maxY;
+
+    private Geometry(byte[] commands, float[] coordinates) {
+        this.commands = commands;
+        this.coordinates = coordinates;
+
+        // Walks the path to follow the current point through the relative commands.
+        float x = 0, y = 0, startX = 0, startY = 0;
+        float lowX = Float.POSITIVE_INFINITY, lowY = Float.POSITIVE_INFINITY;
+        float highX = Float.NEGATIVE_INFINITY, highY = Float.NEGATIVE_INFINITY;
+        int c = 0;
+        for (byte command : commands) {
+            boolean relative = command >= 'a';
+            float originX = relative ? x : 0;
+            float originY = relative ? y : 0;
+            int arguments = SvgPathTokenizer.argumentCount(command);
+            switch (command) {
+                case 'H', 'h' -> x = originX + coordinates[c];
+                case 'V', 'v' -> y = originY + coordinates[c];
+                case 'A', 'a' -> {
+                    x = originX + coordinates[c + 5];
+                    y = originY + coordinates[c + 6];
+                }
+                case 'Z', 'z' -> {
+                    x = startX;
+                    y = startY;
+                }
+                default -> {
+                    // Every pair of numbers is a point: the control points first, the end point last.
+                    for (int i = c; i < c + arguments - 2; i += 2) {
+                        lowX = Math.min(lowX, originX + coordinates[i]);
+                        highX = Math.max(highX, originX + coordinates[i]);
+                        lowY = Math.min(lowY, originY + coordinates[i + 1]);
+                        highY = Math.max(highY, originY + coordinates[i + 1]);
+                    }
+                    x = originX + coordinates[c + arguments - 2];
+                    y = originY + coordinates[c + arguments - 1];
+                }
+            }
+            if (command == 'M' || command == 'm') {
+                startX = x;
+                startY = y;
+            }
+            lowX = Math.min(lowX, x);
+            highX = Math.max(highX, x);
+            lowY = Math.min(lowY, y);
+            highY = Math.max(highY, y);
+            c += arguments;
+        }
+        boolean empty = commands.length == 0;
+        this.minX = empty ? 0 : lowX;
+        this.minY = empty ? 0 : lowY;
+        this.maxX = empty ? 0 : highX;
+        this.maxY = empty ? 0 : highY;
+    }
+
+    /**
+     * @precondition {@code pathData != null}
+     * @return Returns the Geometry of the SVG path data {@code pathData}.
+     * @throws IllegalArgumentException if {@code pathData} is not valid SVG path data.
+     */
+    public static Geometry parse(String pathData) {
+        assert pathData != null : "parse: Trying to parse null path data.";
+        SvgPathTokenizer.Tokens tokens = SvgPathTokenizer.tokenize(pathData);
+        if (tokens.getCommands().length == 0) return EMPTY;
+        return new Geometry(tokens.getCommands(), tokens.getCoordinates());
+    }
+
+    /**
+     * @precondition {@code commands != null && coordinates != null}, and the arrays must not be modified afterwards:
+     * the Geometry keeps them.
+     * @return Returns the Geometry made of the commands {@code commands} and their numbers {@code coordinates}.
+     * @throws IllegalArgumentException if {@code commands} are not SVG path commands taking the numbers of
+     * {@code coordinates}.
+     */
+    public static Geometry of(byte[] commands, float[] coordinates) {
+        assert commands != null && coordinates != null : "of: Trying to create a Geometry from null arrays.";
+        int expected = 0;
+        for (byte command : commands) {
+            int arguments = SvgPathTokenizer.argumentCount(command);
+            if (arguments < 0) throw new IllegalArgumentException("Unknown SVG path command " + command + ".");
+            expected += arguments;
+        }
+        if (expected != coordinates.length) {
+            throw new IllegalArgumentException("The commands take " + expected + " numbers, not " +
+                    coordinates.length + ".");
+        }
+        if (commands.length == 0) return EMPTY;
+        return new Geometry(commands, coordinates);
+    }
+
+    /**
+     * @return Returns the number of commands of the path.
+     */
+    public int getCommandCount() {
+        return commands.length;
+    }
+    /**
+     * @precondition {@code 0 <= index < getCommandCount()}
+     * @return Returns the letter of the command number {@code index}.
+     */
+    public byte getCommand(int index) {
+        return commands[index];
+    }
+    /**
+     * @return Returns the number of numbers taken by all the commands of the path.
+     */
+    public int getCoordinateCount() {
+        return coordinates.length;
+    }
+    /**
+     * @precondition {@code 0 <= index < getCoordinateCount()}
+     * @return Returns the number number {@code index}.
+     */
+    public float getCoordinate(int index) {
+        return coordinates[index];
+    }
+
+    public float getMinX() {
+        return minX;
+    }
+    public float getMinY() {
+        return minY;
+    }
+    public float getMaxX() {
+        return maxX;
+    }
+    public float getMaxY() {
+        return maxY;
+    }
+    public float getWidth() {
+        return maxX - minX;
+    }
+    public float getHeight() {
+        return maxY - minY;
+    }
+
+    /**
+     * @return Returns about how many bytes the Geometry takes in memory.
+     */
+    public long size() {
+        return 48 + commands.length + 4L * coordinates.length;
+    }
+
+    /**
+     * @return Returns the SVG path data of the Geometry.
+     */
+    public String toPathData() {
+        return SvgPathTokenizer.format(commands, coordinates);
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        if (this == other) return true;
+        if (!(other instanceof Geometry)) return false;
+        Geometry geometry = (Geometry) other;
+        return Arrays.equals(commands, geometry.commands) && Arrays.equals(coordinates, geometry.coordinates);
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * Arrays.hashCode(commands) + Arrays.hashCode(coordinates);
+    }
+
+    public String toString() {
+        return toPathData();
+    }
+}
@@ -1,7 +1,5 @@
 package com.example.represc.data;
 
-import javafx.geometry.Point2D;
-
 import java.util.ArrayList;
 import java.util.Optional;
 import java.util.UUID;
@@ -19,7 +17,7 @@ import java.util.UUID;
  *
  * // facultative
  * @specfield description: String // The description of the Hint as a String.
- * @specfield position: Point2D // The position of the hint, relative to the map. {@link com.example.represc.gui.GameMap}
+ * @specfield position: Position // The position of the hint, relative to the map. {@link com.example.represc.gui.GameMap}
  * x and y must be positive, but both can exceed the actual size of the GameMap, as it would grow itself (todo).
  * @specfield physicalElements: ArrayList of UUIDs // The list of all the UUIDs of the Physical Elements which are linked
  * to the hint.
@@ -34,8 +32,11 @@ import java.util.UUID;
 public class Hint {
     private String name;
     private String description; //facultative
-    private Point2D position; //facultative
-    private ArrayList<UUID> physicalElements; //facultative
+    private Position position; //facultative
+    private ElementReferences physicalElements; //facultative
+
+    private EscapeGame game; // The EscapeGame it belongs to, null if none.
+    private UUID key; // Its UUID in game.
 
 
     /**
@@ -66,6 +67,7 @@ public class Hint {
         assert !name.isBlank() : "setName: trying to change the Hint's name to a blank String name";
 
         this.name = name;
+        fireChange(ModelChange.Kind.HINT_NAME, null, name);
     }
 
 
@@ -89,12 +91,14 @@ public class Hint {
         assert description != null : "setDescription: trying to set the description of the Hint, but parameter description " +
                 "is null.";
         this.description = description;
+        fireChange(ModelChange.Kind.HINT_DESCRIPTION, null, description);
     }
     /**
      * @effects Sets the description of the Hint to {@code null}.
      * **/
     public void deleteDescription(){
         description = null;
+        fireChange(ModelChange.Kind.HINT_DESCRIPTION, null, null);
     }
 
     /**
@@ -103,7 +107,7 @@ public class Hint {
      * OR
      * being empty if {@code position} is null.
      */
-    public Optional<Point2D> getPosition(){
+    public Optional<Position> getPosition(){
         if(position == null){
             return Optional.empty();
         }
@@ -111,31 +115,46 @@ public class Hint {
     }
     /**
      * @precondition {@code position.getX() >= 0 && position.getY() >=0}
-     * @postcondition Sets the position of the Hint to be the Point2D {@code position}.
+     * @postcondition Sets the position of the Hint to be the Position {@code position}.
      */
-    public void setPosition(Point2D position){
+    public void setPosition(Position position){
         assert position.getX() >= 0 && position.getY() >=0: "setPosition: Trying to set the position of an hint with a " +
                 "negative x and/or y value.";
 
         this.position = position;
+        fireChange(ModelChange.Kind.HINT_POSITION, null, position);
     }
     /**
      * @effects Sets the position of the Hint to {@code null}.
      * **/
     public void deletePosition(){
         position = null;
+        fireChange(ModelChange.Kind.HINT_POSITION, null, null);
     }
 
     /**
-     * @effects Adds the UUID {@code toAdd} of a Physical Element, into {@code physicalElements}.
+     * @effects Adds the UUID {@code toAdd} of a Physical Element, into {@code physicalElements}, if it is not there
+     * already.
      */
     public void addPhysicalElement(UUID toAdd){
         assert toAdd != null : "addPhysicalElement: Tries to add a Physical Element to a Problem with a null UUID";
-        assert EscapeGame.getEscapeGame().containsPhysicalElement(toAdd): "addPhysicalElement: Tries to add a Physical " +
+        assert game == null || game.containsPhysicalElement(toAdd): "addPhysicalElement: Tries to add a Physical " +
                 "Element to a Hint, with a UUID which is not in the list of Physical Elements of the Escape Game.";
 
-        if (physicalElements == null) { physicalElements = new ArrayList<>();}
-        physicalElements.add(toAdd);
+        if (physicalElements == null) physicalElements = new ElementReferences(newTable());
+        int handle = physicalElements.add(toAdd);
+        if (handle == IdTable.NONE) return;
+        if (game != null) game.cites(this, key, handle, true);
+        fireChange(ModelChange.Kind.HINT_ELEMENT_ADDED, toAdd, null);
+    }
+    /**
+     * @precondition {@code id != null}
+     * @return Returns true if the Physical Element having the UUID {@code id} is one of the Physical Elements of the
+     * Hint.
+     */
+    public boolean containsPhysicalElement(UUID id){
+        assert id != null : "containsPhysicalElement: Trying to know if a Hint has a Physical Element with a null UUID.";
+        return physicalElements != null && physicalElements.contains(id);
     }
     /**
      * @return Returns an empty Optional if the Hint has no Physical Elements. Returns an Optional containing an
@@ -144,8 +163,18 @@ public class Hint {
     public Optional<ArrayList<UUID>> getPhysicalElements() {
         if (physicalElements == null) return Optional.empty();
 
-        ArrayList<UUID> toReturn = new ArrayList<>(physicalElements);
-        return Optional.of(toReturn);
+        return Optional.of(physicalElements.toUUIDs());
+    }
+    /**
+     * @precondition {@code this} belongs to an EscapeGame.
+     * @return Returns the handles, in the EscapeGame {@link EscapeGame#getPhysicalElementHandle(UUID)}, of all the
+     * Physical Elements of the Hint. The array is empty if it has none.
+     */
+    public int[] getPhysicalElementHandles() {
+        assert game != null : "getPhysicalElementHandles: The Hint doesn't belong to any EscapeGame.";
+
+        if (physicalElements == null) return new int[0];
+        return physicalElements.toHandles();
     }
     /**
      * @precondition {@code physicalElements.contains(toDelete) && physicalElements != null}
@@ -158,8 +187,37 @@ public class Hint {
         assert physicalElements.contains(toDelete) : "deletePhysicalElement: Trying to delete a Physical Element from " +
                 "the Physical Elements list of a Hint, which doesn't contain that Physical Element UUID.";
 
-        physicalElements.remove(toDelete);
+        int handle = physicalElements.remove(toDelete);
         if (physicalElements.isEmpty()) physicalElements = null;
+        if (game != null) game.cites(this, key, handle, false);
+        fireChange(ModelChange.Kind.HINT_ELEMENT_DELETED, toDelete, null);
+    }
+
+    /**
+     * @effects {@code this} now belongs to {@code game}, as its Hint having {@code key} as UUID, and tells it about
+     * its changes.
+     */
+    void attach(EscapeGame game, UUID key){
+        this.game = game;
+        this.key = key;
+        if (physicalElements != null) physicalElements.bind(game.getPhysicalElementTable());
+    }
+    /**
+     * @effects {@code this} doesn't belong to any EscapeGame anymore.
+     */
+    void detach(){
+        game = null;
+        key = null;
+    }
+    /**
+     * @return Returns the table in which new references are interned: the one of the EscapeGame of {@code this}, or a
+     * table of its own if it doesn't belong to any.
+     */
+    private IdTable<PhysicalElement> newTable(){
+        return game == null ? new IdTable<>() : game.getPhysicalElementTable();
+    }
+    private void fireChange(ModelChange.Kind kind, UUID subject, Object value){
+        if (game != null) game.fireChange(kind, key, subject, value);
     }
 
     public String toString(){
@@ -173,26 +231,26 @@ public class Hint {
         }
         if(physicalElements != null){
             s.append(",\n\tphysicalElements: [");
-            physicalElements.forEach((id) -> s.append(id).append(", "));
+            physicalElements.toUUIDs().forEach((id) -> s.append(id).append(", "));
             s.setLength(s.length() - 2);
             s.append("]");
         }
         s.append(" }");
         return s.toString();
     }
-    public boolean repOK(){
+    /**
+     * @precondition {@code game != null}
+     * @return Returns true if {@code this} respects its invariants, its Physical Elements being looked for in
+     * {@code game}.
+     */
+    public boolean repOK(EscapeGame game){
+        assert game != null : "repOK: Trying to check a Hint against a null EscapeGame.";
+
         if (physicalElements != null) {
-            if(physicalElements.isEmpty()){ return false; }
-            Optional<ArrayList<UUID>> actualPhysicalElements = EscapeGame.getEscapeGame().getAllPhysicalElementsUUID();
-                if (actualPhysicalElements.isEmpty()){ return false; }
-                else {
-                    for (var element : physicalElements){
-                        if (element == null) return false;
-                        if (!actualPhysicalElements.get().contains(element)) return false;
-                    }
-                }
-            }
-        if (position.getX() <= 0 && position.getY() <=0) return false;
+            if (physicalElements.isEmpty()) return false;
+            if (!physicalElements.allIn(game)) return false;
+        }
+        if (position != null && position.getX() <= 0 && position.getY() <=0) return false;
         if (name == null || name.isBlank() || name.isEmpty()) return false;
         return true;
     }
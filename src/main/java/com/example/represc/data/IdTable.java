@@ -0,0 +1,151 @@
+package com.example.represc.data;
+
+import java.util.Arrays;
+import java.util.UUID;
+
+/**
+ * @author Schmetz Arnaud
+ * @version 1.0
+ *
+ * @overview An IdTable interns UUIDs into handles: small ints, given in order from 0, which can index arrays. Each
+ * handle may hold a value, the object known by that UUID. A UUID keeps its handle for the whole life of the table,
+ * even once its value is removed, so a handle kept somewhere else never ends up meaning another UUID.
+ * The UUIDs are stored as pairs of longs, in a hash table using open addressing, so interning or finding one allocates
+ * nothing. An IdTable is not thread safe.
+ *
+ * @specfield ids: array of UUID // The UUID of each handle, {@code ids[h]} being the one of handle h.
+ * @specfield values: array of T // The value held by each handle, null if none.
+ * @specfield count: int // The number of handles holding a value.
+ *
+ * @invariant every UUID appears at most once in {@code ids}.
+ */
+final class IdTable<T> {
+
+    static final int NONE = -1;
+
+    private long[] mostSignificantBits = new long[8];
+    private long[] leastSignificantBits = new long[8];
+    private Object[] values = new Object[8];
+    private int size = 0; // The number of handles given.
+    private int count = 0;
+
+    // The hash table: handle + 1 for each used slot, 0 for the free ones. Never more than half full.
+    private int[] slots = new int[16];
+
+    /**
+     * @precondition {@code id != null}
+     * @return Returns the handle of {@code id}, giving it the next handle if it doesn't have one yet.
+     */
+    int intern(UUID id) {
+        assert id != null : "intern: Trying to intern a null UUID.";
+
+        long most = id.getMostSignificantBits();
+        long least = id.getLeastSignificantBits();
+        int slot = slotOf(most, least);
+        if (slots[slot] != 0) return slots[slot] - 1;
+
+        if (size == mostSignificantBits.length) {
+            int capacity = size * 2;
+            mostSignificantBits = Arrays.copyOf(mostSignificantBits, capacity);
+            leastSignificantBits = Arrays.copyOf(leastSignificantBits, capacity);
+            values = Arrays.copyOf(values, capacity);
+        }
+        int handle = size++;
+        mostSignificantBits[handle] = most;
+        leastSignificantBits[handle] = least;
+        slots[slot] = handle + 1;
+        if (size * 2 > slots.length) rehash();
+        return handle;
+    }
+
+    /**
+     * @precondition {@code id != null}
+     * @return Returns the handle of {@code id}, or NONE if it has none.
+     */
+    int find(UUID id) {
+        assert id != null : "find: Trying to find a null UUID.";
+
+        return slots[slotOf(id.getMostSignificantBits(), id.getLeastSignificantBits())] - 1;
+    }
+
+    /**
+     * @precondition {@code 0 <= handle < size()}
+     * @return Returns the UUID of {@code handle}.
+     */
+    UUID getId(int handle) {
+        assert handle >= 0 && handle < size : "getId: " + handle + " is not a handle of the table.";
+
+        return new UUID(mostSignificantBits[handle], leastSignificantBits[handle]);
+    }
+
+    /**
+     * @return Returns the number of handles given so far. Every handle is lower than it.
+     */
+    int size() {
+        return size;
+    }
+
+    /**
+     * @return Returns the number of handles holding a value.
+     */
+    int count() {
+        return count;
+    }
+
+    /**
+     * @return Returns the value held by {@code handle}, or null if it holds none or is not a handle of the table.
+     */
+    @SuppressWarnings("unchecked")
+    T get(int handle) {
+        if (handle < 0 || handle >= size) return null;
+        return (T) values[handle];
+    }
+
+    /**
+     * @return Returns the value held by the handle of {@code id}, or null if it has none.
+     */
+    T get(UUID id) {
+        return get(find(id));
+    }
+
+    /**
+     * @precondition {@code 0 <= handle < size()}
+     * @effects {@code handle} now holds {@code value}, or nothing if {@code value} is null.
+     * @return Returns the value it held before, null if none.
+     */
+    T set(int handle, T value) {
+        assert handle >= 0 && handle < size : "set: " + handle + " is not a handle of the table.";
+
+        T previous = get(handle);
+        values[handle] = value;
+        if (previous == null && value != null) count++;
+        else if (previous != null && value == null) count--;
+        return previous;
+    }
+
+    private int slotOf(long most, long least) {
+        int mask = slots.length - 1;
+        int slot = hash(most, least) & mask;
+        while (slots[slot] != 0) {
+            int handle = slots[slot] - 1;
+            if (mostSignificantBits[handle] == most && leastSignificantBits[handle] == least) return slot;
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    private void rehash() {
+        slots = new int[slots.length * 2];
+        int mask = slots.length - 1;
+        for (int handle = 0; handle < size; handle++) {
+            int slot = hash(mostSignificantBits[handle], leastSignificantBits[handle]) & mask;
+            while (slots[slot] != 0) slot = (slot + 1) & mask;
+            slots[slot] = handle + 1;
+        }
+    }
+
+    private static int hash(long most, long least) {
+        long h = (most ^ least) * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+}
@@ -0,0 +1,141 @@
+package com.example.represc.data;
+
+import java.util.Arrays;
+
+/**
+ * @author Schmetz Arnaud
+ * @version 1.0
+ *
+ * @overview An IntSet is a set of non-negative ints which remembers the order they were added in. Adding, removing and
+ * looking for an int take constant time: the ints are kept in an array in order, and a hash table using open
+ * addressing gives the position of each one in that array. Removing an int leaves a hole in the array, which is
+ * filled when the array is compacted, once it is more than half made of holes. An IntSet is not thread safe.
+ *
+ * @specfield elements: sequence of int // The ints of the set, in the order they were added.
+ *
+ * @invariant every int of {@code elements} is {@code >= 0} and appears only once.
+ */
+final class IntSet {
+
+    private static final int HOLE = -1;
+
+    private int[] elements = new int[4]; // The ints in order, with HOLEs where some were removed.
+    private int end = 0; // The number of cells of elements used, holes included.
+    private int count = 0;
+
+    // The hash table: position in elements + 1 for each used slot, 0 for the free ones. Never more than half full.
+    private int[] slots = new int[8];
+
+    /**
+     * @precondition {@code value >= 0}
+     * @effects Adds {@code value} at the end of {@code elements} if it is not in the set yet.
+     * @return Returns true if {@code value} has been added.
+     */
+    boolean add(int value) {
+        assert value >= 0 : "add: Trying to add a negative int to an IntSet.";
+
+        if (slots[slotOf(value)] != 0) return false;
+        if (end == elements.length) {
+            if (count * 2 <= end) compact();
+            else elements = Arrays.copyOf(elements, end * 2);
+        }
+        elements[end++] = value;
+        count++;
+        if (count * 2 > slots.length) rehash(slots.length * 2);
+        else slots[slotOf(value)] = end;
+        return true;
+    }
+
+    /**
+     * @effects Removes {@code value} from the set, the order of the other ints being kept.
+     * @return Returns true if {@code value} was in the set.
+     */
+    boolean remove(int value) {
+        if (value < 0) return false;
+        int slot = slotOf(value);
+        if (slots[slot] == 0) return false;
+
+        elements[slots[slot] - 1] = HOLE;
+        count--;
+        deleteSlot(slot);
+        if (count == 0) end = 0;
+        return true;
+    }
+
+    boolean contains(int value) {
+        return value >= 0 && slots[slotOf(value)] != 0;
+    }
+
+    int size() {
+        return count;
+    }
+
+    boolean isEmpty() {
+        return count == 0;
+    }
+
+    /**
+     * @return Returns the ints of the set, in the order they were added.
+     */
+    int[] toArray() {
+        int[] array = new int[count];
+        int i = 0;
+        for (int position = 0; position < end; position++) {
+            if (elements[position] != HOLE) array[i++] = elements[position];
+        }
+        return array;
+    }
+
+    private int slotOf(int value) {
+        int mask = slots.length - 1;
+        int slot = hash(value) & mask;
+        while (slots[slot] != 0 && elements[slots[slot] - 1] != value) slot = (slot + 1) & mask;
+        return slot;
+    }
+
+    /**
+     * @effects Frees {@code slot}, moving back the following slots of its cluster which would not be found anymore.
+     */
+    private void deleteSlot(int slot) {
+        int mask = slots.length - 1;
+        int hole = slot;
+        int next = (hole + 1) & mask;
+        while (slots[next] != 0) {
+            int home = hash(elements[slots[next] - 1]) & mask;
+            if (((next - home) & mask) >= ((next - hole) & mask)) {
+                slots[hole] = slots[next];
+                hole = next;
+            }
+            next = (next + 1) & mask;
+        }
+        slots[hole] = 0;
+    }
+
+    /**
+     * @effects Moves the ints to the start of {@code elements}, removing the holes.
+     */
+    private void compact() {
+        int live = 0;
+        for (int position = 0; position < end; position++) {
+            if (elements[position] != HOLE) elements[live++] = elements[position];
+        }
+        end = live;
+        rehash(slots.length);
+    }
+
+    private void rehash(int capacity) {
+        slots = new int[capacity];
+        int mask = capacity - 1;
+        for (int position = 0; position < end; position++) {
+            if (elements[position] == HOLE) continue;
+            int slot = hash(elements[position]) & mask;
+            while (slots[slot] != 0) slot = (slot + 1) & mask;
+            slots[slot] = position + 1;
+        }
+    }
+
+    private static int hash(int value) {
+        int h = value * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+}
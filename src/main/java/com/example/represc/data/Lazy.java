@@ -0,0 +1,189 @@
+package com.example.represc.data;
+
+import com.example.represc.utils.BoundedCache;
+import com.example.represc.utils.SvgPathTokenizer;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * @author Schmetz Arnaud
+ * @version 1.0
+ *
+ * @overview A Lazy is a value which may not be in memory yet. It is used by the Physical Elements
+ * {@link PhysicalElement} of big escape games for their shapes and descriptions, which are only needed once they are
+ * shown: a lazy one is kept in a compact form (compressed bytes, or an offset in a file already mapped in memory) and
+ * only built by {@code get()}. The values built that way are kept in a cache shared by all the Lazy values, holding at
+ * most {@code CACHE_SIZE} bytes, so showing a few elements again and again doesn't rebuild them, while going through
+ * all of them doesn't keep them all in memory.
+ * A Lazy is immutable, and so must be its value.
+ */
+public abstract class Lazy<T> {
+
+    /**
+     * @overview The maximal size, in bytes, of the values kept by the cache.
+     */
+    public static final long CACHE_SIZE = 8 * 1024 * 1024;
+
+    /**
+     * @overview The Strings shorter than that are not worth compressing.
+     */
+    static final int COMPRESSION_THRESHOLD = 128;
+
+    private static final BoundedCache<Lazy<?>, Object> CACHE = new BoundedCache<>(CACHE_SIZE);
+
+    /**
+     * @return Returns the value, building it if it is not in memory.
+     */
+    @SuppressWarnings("unchecked")
+    public T get() {
+        T value = (T) CACHE.get(this);
+        if (value == null) {
+            value = load();
+            CACHE.put(this, value, size(value));
+        }
+        return value;
+    }
+
+    /**
+     * @return Returns the value, built from its compact form. Called by {@code get()} when it is not in the cache.
+     */
+    protected abstract T load();
+
+    /**
+     * @return Returns about how many bytes {@code value} takes in memory.
+     */
+    protected abstract long size(T value);
+
+    /**
+     * @precondition {@code value != null}
+     * @return Returns a Lazy which is already in memory: {@code value} itself.
+     */
+    public static <T> Lazy<T> of(T value) {
+        assert value != null : "of: Trying to create a Lazy from a null value.";
+        return new Loaded<>(value);
+    }
+
+    /**
+     * @precondition {@code value != null}
+     * @return Returns a Lazy keeping {@code value} compressed until it is needed. Short Strings, or Strings which don't
+     * compress, are kept as they are.
+     */
+    public static Lazy<String> compress(String value) {
+        assert value != null : "compress: Trying to compress a null String.";
+        if (value.length() < COMPRESSION_THRESHOLD) return new Loaded<>(value);
+
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+        deflater.setInput(bytes);
+        deflater.finish();
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream(bytes.length / 2);
+        byte[] chunk = new byte[4096];
+        while (!deflater.finished()) compressed.write(chunk, 0, deflater.deflate(chunk));
+        deflater.end();
+
+        if (compressed.size() >= bytes.length) return new Loaded<>(value);
+        return new Compressed(compressed.toByteArray(), bytes.length);
+    }
+
+    /**
+     * @precondition {@code pathData != null}
+     * @return Returns a Lazy keeping {@code pathData} as {@code compress} does, and only parsing it into a Geometry
+     * when it is needed. Only the syntax of {@code pathData} is checked now, so that its parsing can't fail later on.
+     * @throws IllegalArgumentException if {@code pathData} is not valid SVG path data.
+     */
+    public static Lazy<Geometry> shape(String pathData) {
+        assert pathData != null : "shape: Trying to create a shape from null path data.";
+        SvgPathTokenizer.validate(pathData);
+        return new Shape(compress(pathData));
+    }
+
+    /**
+     * @overview A Lazy which is always in memory, it doesn't use the cache.
+     */
+    private static final class Loaded<T> extends Lazy<T> {
+        private final T value;
+
+        private Loaded(T value) {
+            this.value = value;
+        }
+
+        @Override
+        public T get() {
+            return value;
+        }
+
+        @Override
+        protected T load() {
+            return value;
+        }
+
+        @Override
+        protected long size(T value) {
+            return 0;
+        }
+    }
+
+    /**
+     * @overview A String kept as its UTF-8 bytes, deflated.
+     */
+    private static final class Compressed extends Lazy<String> {
+        private final byte[] bytes;
+        private final int length;
+
+        private Compressed(byte[] bytes, int length) {
+            this.bytes = bytes;
+            this.length = length;
+        }
+
+        @Override
+        protected String load() {
+            Inflater inflater = new Inflater();
+            inflater.setInput(bytes);
+            byte[] inflated = new byte[length];
+            try {
+                int done = 0;
+                while (done < length && !inflater.finished()) done += inflater.inflate(inflated, done, length - done);
+            } catch (DataFormatException e) {
+                throw new IllegalStateException("A compressed String is corrupted.", e);
+            } finally {
+                inflater.end();
+            }
+            return new String(inflated, StandardCharsets.UTF_8);
+        }
+
+        @Override
+        protected long size(String value) {
+            return 2L * value.length();
+        }
+    }
+
+    /**
+     * @overview A Geometry kept as its SVG path data, itself kept by a Lazy String which is read without going through
+     * the cache, so that only the Geometry is cached.
+     */
+    private static final class Shape extends Lazy<Geometry> {
+        private final Lazy<String> pathData;
+
+        private Shape(Lazy<String> pathData) {
+            this.pathData = pathData;
+        }
+
+        @Override
+        protected Geometry load() {
+            return Geometry.parse(pathData.load());
+        }
+
+        @Override
+        protected long size(Geometry value) {
+            return value.size();
+        }
+    }
+
+    public String toString() {
+        return String.valueOf(get());
+    }
+}
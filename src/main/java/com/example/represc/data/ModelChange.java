@@ -0,0 +1,93 @@
+package com.example.represc.data;
+
+import java.util.UUID;
+
+/**
+ * @author Schmetz Arnaud
+ * @version 1.0
+ *
+ * @overview A ModelChange describes one change made to the EscapeGame {@link EscapeGame} or to one of its elements, by
+ * one call to one of their mutators. Each Kind corresponds to one mutator, so replaying the changes in order, calling
+ * the same mutators with the same arguments, rebuilds the same EscapeGame.
+ *
+ * @specfield kind: Kind // What has changed, which is also the mutator which was called.
+ * @specfield target: UUID // The UUID, in the EscapeGame, of the Physical Element, Hint, Problem, Countdown or Event
+ * which has changed. null for changes of the EscapeGame itself.
+ * @specfield subject: UUID // The UUID of the State (for the STATE_ and INITIAL_STATE kinds) or of the Physical Element
+ * (for the _ELEMENT_ADDED and _ELEMENT_DELETED kinds of Hints and Problems, and the _ACTION_ kinds of Events) concerned
+ * by the change. null otherwise.
+ * @specfield value: Object // The new value, null when it was deleted. For the _ADDED kinds, the added object itself,
+ * which may change afterwards: listeners needing its content must copy it right away.
+ */
+public class ModelChange {
+
+    public enum Kind {
+        GAME_CLEARED,
+        GAME_NAME, GAME_DESCRIPTION, GAME_DIFFICULTY,
+        GAME_PLAYERS_MINIMUM, GAME_PLAYERS_MAXIMUM, GAME_PLAYERS_RANGE, // GAME_PLAYERS_RANGE has an int[]{min, max}
+        GAME_ESTIMATED_DURATION,
+
+        ELEMENT_ADDED, ELEMENT_DELETED,
+        ELEMENT_NAME, ELEMENT_DESCRIPTION, ELEMENT_SHAPE, ELEMENT_ACCESSIBLE, ELEMENT_TYPE,
+        STATE_ADDED, STATE_DELETED, STATES_CLEARED,
+        INITIAL_STATE, INITIAL_STATE_REPLACED,
+        STATE_NAME, STATE_DESCRIPTION, STATE_ACCESSIBLE,
+
+        HINT_ADDED, HINT_DELETED,
+        HINT_NAME, HINT_DESCRIPTION, HINT_POSITION, HINT_ELEMENT_ADDED, HINT_ELEMENT_DELETED,
+
+        PROBLEM_ADDED, PROBLEM_DELETED,
+        PROBLEM_NAME, PROBLEM_DESCRIPTION, PROBLEM_ELEMENT_ADDED, PROBLEM_ELEMENT_DELETED,
+
+        COUNTDOWN_ADDED, COUNTDOWN_DELETED,
+        COUNTDOWN_NAME, COUNTDOWN_DESCRIPTION, COUNTDOWN_DURATION,
+
+        EVENT_ADDED, EVENT_DELETED,
+        EVENT_NAME, EVENT_DESCRIPTION, EVENT_TRIGGER,
+        EVENT_ACTION_ADDED, EVENT_ACTION_DELETED // EVENT_ACTION_DELETED has the index of the Action deleted
+    }
+
+    private final Kind kind;
+    private final UUID target;
+    private final UUID subject;
+    private final Object value;
+
+    /**
+     * @precondition {@code kind != null}
+     * @postcondition Initialises {@code this} with the given kind, target, subject and value.
+     */
+    public ModelChange(Kind kind, UUID target, UUID subject, Object value){
+        assert kind != null : "ModelChange: Trying to create a ModelChange with a null kind.";
+
+        this.kind = kind;
+        this.target = target;
+        this.subject = subject;
+        this.value = value;
+    }
+
+    public Kind getKind() {
+        return kind;
+    }
+
+    public UUID getTarget() {
+        return target;
+    }
+
+    public UUID getSubject() {
+        return subject;
+    }
+
+    public Object getValue() {
+        return value;
+    }
+
+    public String toString(){
+        StringBuilder s = new StringBuilder("ModelChange : {\n\t");
+        s.append("kind: ").append(kind);
+        if (target != null) s.append(",\n\ttarget: ").append(target);
+        if (subject != null) s.append(",\n\tsubject: ").append(subject);
+        if (value != null) s.append(",\n\tvalue: ").append(value);
+        s.append(" }");
+        return s.toString();
+    }
+}
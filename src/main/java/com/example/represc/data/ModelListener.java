@@ -0,0 +1,16 @@
+package com.example.represc.data;
+
+/**
+ * @author Schmetz Arnaud
+ * @version 1.0
+ *
+ * @overview A ModelListener is told about every change made to the EscapeGame {@link EscapeGame} it listens to, and to
+ * every element of it. It is called on the thread which made the change, right after the change was made.
+ */
+public interface ModelListener {
+
+    /**
+     * @effects Is told that {@code change} has just been made.
+     */
+    void modelChanged(ModelChange change);
+}
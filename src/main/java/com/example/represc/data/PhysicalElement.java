@@ -1,7 +1,6 @@
 package com.example.represc.data;
 
 import com.example.represc.utils.commonPhysicalElements.ElementType;
-import javafx.scene.shape.SVGPath;
 
 import java.util.*;
 
@@ -15,14 +14,15 @@ import java.util.*;
  * or any other physical object, which would then have the {@code CUSTOM} type {@link ElementType}.
  *
  * @specfield name: String // The name of the Physical Element. Must be neither, null, empty, nor blank.
- * @specfield shape: SVGPath // The shape of the Physical Element, its origin point is the origin of the map,
- * // thus meaning no position attribute is required to describe a Physical Element. Must be not null.
+ * @specfield shape: Geometry // The shape of the Physical Element {@link Geometry}, its origin point is the origin of
+ * // the map, thus meaning no position attribute is required to describe a Physical Element. Must be not null.
+ * // It is kept as a Lazy {@link Lazy}, which, for big escape games, is only built when the shape is asked for.
  * @specfield accessible: boolean // Expresses if the Physical Element is initially accessible to the player(s),
  * // at the beginning of the game. A Physical Element is accessible if one or multiple player(s) can interact with it.
  * @specfield type: ElementType // The type of the physical element. Must be not null. {@link ElementType}
  *
  * // facultative
- * @specfield description: String // The description of the Physical Element.
+ * @specfield description: String // The description of the Physical Element. Kept as a Lazy, like shape.
  * @specfield initialState: UUID // The initial State of the Physical Element.
  * @specfield states: HashMap: UUID to State // The list of states of the Physical Element.
  *
@@ -38,14 +38,17 @@ import java.util.*;
 public class PhysicalElement {
 
     private String name;
-    private String description; //facultative
-    private SVGPath shape;
+    private Lazy<String> description; //facultative
+    private Lazy<Geometry> shape;
     private boolean accessible;
     private ElementType type;
 
     private UUID initialState; //facultative
     private HashMap<UUID,State> states ; //facultative
 
+    private EscapeGame game; // The EscapeGame it belongs to, null if none.
+    private UUID key; // Its UUID in game.
+
 
     /**
      * @overview A State is the state a Physical Element can have. States are primarily a tool used by Events {@link Event},
@@ -67,6 +70,9 @@ public class PhysicalElement {
         private String description; //facultative
         private boolean accessible;
 
+        private PhysicalElement owner; // The Physical Element it is a State of, null if none.
+        private UUID key; // Its UUID in owner.
+
         /**
          * @precondition {@code name != null && !name.isEmpty() && !name.isBlank()}
          * @postcondition initialises {@code this} with the given {@code name} and {@code accessible} values;
@@ -79,6 +85,18 @@ public class PhysicalElement {
             this.name = name;
             this.accessible = accessible;
         }
+
+        private void attach(PhysicalElement owner, UUID key){
+            this.owner = owner;
+            this.key = key;
+        }
+        private void detach(){
+            owner = null;
+            key = null;
+        }
+        private void fireChange(ModelChange.Kind kind, Object value){
+            if (owner != null) owner.fireChange(kind, key, value);
+        }
         /**
          * @precondition {@code name != null && !name.isEmpty() && !name.isBlank() && description != null}
          * @postcondition initialises {@code this} with the given {@code name}, {@code accessible} and {@code description} values;
@@ -107,6 +125,7 @@ public class PhysicalElement {
             assert !name.isBlank() : "trying to set a State name with a blank String name";
 
             this.name = name;
+            fireChange(ModelChange.Kind.STATE_NAME, name);
         }
 
         /**
@@ -129,12 +148,14 @@ public class PhysicalElement {
             assert description != null : "setDescription: Trying to set a description, but leaving description parameter null.";
 
             this.description = description;
+            fireChange(ModelChange.Kind.STATE_DESCRIPTION, description);
         }
         /**
          * @effects Sets the description of the State to {@code null}.
          * **/
         public void deleteDescription(){
             description = null;
+            fireChange(ModelChange.Kind.STATE_DESCRIPTION, null);
         }
 
         /**
@@ -148,6 +169,7 @@ public class PhysicalElement {
          * **/
         public void setAccessible(boolean accessible) {
             this.accessible = accessible;
+            fireChange(ModelChange.Kind.STATE_ACCESSIBLE, accessible);
         }
 
         public String toString(){
@@ -174,7 +196,7 @@ public class PhysicalElement {
      * @postcondition initialise {@code this} with the given name, shape, accessible, type and {@code states} with
      * an empty Hashmap.
      * **/
-    public PhysicalElement(String name, SVGPath shape, boolean accessible, ElementType type){
+    public PhysicalElement(String name, Geometry shape, boolean accessible, ElementType type){
         assert name != null : "PhysicalElement: trying to create a Physical Element with a null String name";
         assert !name.isEmpty() : "PhysicalElement: trying to create a Physical Element with an empty String name";
         assert !name.isBlank() : "PhysicalElement: trying to create a Physical Element with a blank String name";
@@ -182,7 +204,7 @@ public class PhysicalElement {
         assert type != null : "PhysicalElement: trying to create a Physical Element with a null type";
 
         this.name = name;
-        this.shape = shape;
+        this.shape = Lazy.of(shape);
         this.accessible = accessible;
         this.type = type;
     }
@@ -193,10 +215,30 @@ public class PhysicalElement {
      * @postcondition initialise this with the given name, shape, accessible, type and description and
      * {@code states} with an empty Hashmap.
      * **/
-    public PhysicalElement(String name, SVGPath shape, boolean accessible, ElementType type, String description){
+    public PhysicalElement(String name, Geometry shape, boolean accessible, ElementType type, String description){
         this(name, shape, accessible, type);
         assert description != null : "PhysicalElement: Trying to create a Physical ELement with a description, but " +
                 "description parameter is null.";
+        this.description = Lazy.of(description);
+    }
+    /**
+     * @precondition {@code name != null && !name.isEmpty() && !name.isBlank() && shape != null && type != null}
+     * @postcondition initialise this with the given name, shape, accessible, type and description (null if the
+     * Physical Element has none). The shape and the description are only built from {@code shape} and
+     * {@code description} when they are asked for. Used to load big escape games.
+     * **/
+    public PhysicalElement(String name, Lazy<Geometry> shape, boolean accessible, ElementType type,
+                           Lazy<String> description){
+        assert name != null : "PhysicalElement: trying to create a Physical Element with a null String name";
+        assert !name.isEmpty() : "PhysicalElement: trying to create a Physical Element with an empty String name";
+        assert !name.isBlank() : "PhysicalElement: trying to create a Physical Element with a blank String name";
+        assert shape != null : "PhysicalElement: trying to create a physical Element with a null shape";
+        assert type != null : "PhysicalElement: trying to create a Physical Element with a null type";
+
+        this.name = name;
+        this.shape = shape;
+        this.accessible = accessible;
+        this.type = type;
         this.description = description;
     }
 
@@ -217,6 +259,7 @@ public class PhysicalElement {
         assert !name.isBlank() : "trying to set a Physical Element name with a blank String name";
 
         this.name = name;
+        fireChange(ModelChange.Kind.ELEMENT_NAME, null, name);
     }
     /**
      * @precondition {@code description != null}
@@ -225,7 +268,8 @@ public class PhysicalElement {
     public void setDescription(String description) {
         assert description != null : "setDescription: trying to set the description of a Physical Element, but parameter " +
                 "description is null.";
-        this.description = description;
+        this.description = Lazy.of(description);
+        fireChange(ModelChange.Kind.ELEMENT_DESCRIPTION, null, description);
     }
     /**
      * @return Returns the description of the Physical Element as an Optional, containing a String, or being empty if
@@ -233,7 +277,7 @@ public class PhysicalElement {
      * **/
     public Optional<String> getDescription() {
         if (this.description!=null){
-            return Optional.of(this.description);
+            return Optional.of(this.description.get());
         }
         return Optional.empty();
     }
@@ -242,25 +286,39 @@ public class PhysicalElement {
      * **/
     public void deleteDescription(){
         description = null;
+        fireChange(ModelChange.Kind.ELEMENT_DESCRIPTION, null, null);
     }
 
     /**
-     * @return Returns a copy of the shape of the Physical Element as a SVGPath.
+     * @return Returns the shape of the Physical Element as a Geometry, which is immutable and thus not copied.
+     * **/
+    public Geometry getShape() {
+        return shape.get();
+    }
+    /**
+     * @return Returns the shape of the Physical Element as a Lazy, without building it, so that another thread can.
      * **/
-    public SVGPath getShape() {
-        SVGPath toReturn  = new SVGPath();
-        toReturn.setContent(shape.getContent());
-        return toReturn;
+    public Lazy<Geometry> getLazyShape() {
+        return shape;
+    }
 
+    /**
+     * @return Returns an Optional containing the description of the Physical Element as a Lazy, without building it,
+     * so that another thread can, or an empty Optional if it has none.
+     * **/
+    public Optional<Lazy<String>> getLazyDescription() {
+        return Optional.ofNullable(description);
     }
+
     /**
      * @precondition {@code shape != null}
-     * @postcondition Sets the shape of the Physical Element with the SVGPath {@code shape}.
+     * @postcondition Sets the shape of the Physical Element with the Geometry {@code shape}.
      * **/
-    public void setShape(SVGPath shape) {
+    public void setShape(Geometry shape) {
         assert shape!= null : "setShape: Trying to set the shape of a Physical Element with a null value";
 
-        this.shape = shape;
+        this.shape = Lazy.of(shape);
+        fireChange(ModelChange.Kind.ELEMENT_SHAPE, null, shape);
     }
 
     /**
@@ -274,6 +332,7 @@ public class PhysicalElement {
      * **/
     public void setAccessible(boolean accessible) {
         this.accessible = accessible;
+        fireChange(ModelChange.Kind.ELEMENT_ACCESSIBLE, null, accessible);
     }
 
     /**
@@ -289,6 +348,7 @@ public class PhysicalElement {
     public void setType(ElementType type) {
         assert type != null : "Trying to set the type of a Physical Element with a null value.";
         this.type = type;
+        fireChange(ModelChange.Kind.ELEMENT_TYPE, null, type);
     }
 
     /**
@@ -348,8 +408,20 @@ public class PhysicalElement {
      * @return Returns the UUID of the added State {@code toAdd}.
      * **/
     public UUID addState(State toAdd) {
+        return addState(UUID.randomUUID(), toAdd);
+    }
+    /**
+     * @precondition {@code id != null && toAdd != null} and {@code id} is not already the UUID of a State of the
+     * Physical Element.
+     * @postcondition Adds the State {@code toAdd} to the list of states of the Physical Element, with {@code id} as its
+     * UUID. If that element doesn't have any State, initializes {@code initialState} to {@code id}.
+     * @return Returns {@code id}.
+     * **/
+    public UUID addState(UUID id, State toAdd) {
+        assert id != null : "addState: Trying to add a State with a null UUID.";
         assert toAdd != null : "addState: Trying to add a State which is null.";
-        UUID id = UUID.randomUUID();
+        assert states == null || !states.containsKey(id) : "addState: The UUID is already used by a State of the " +
+                "Physical Element.";
 
         if (states == null){
             states = new HashMap<>();
@@ -357,6 +429,8 @@ public class PhysicalElement {
             initialState = id;
         } else {
             states.put(id, toAdd);}
+        toAdd.attach(this, id);
+        fireChange(ModelChange.Kind.STATE_ADDED, id, toAdd);
         return id;
     }
     /**
@@ -376,6 +450,7 @@ public class PhysicalElement {
         assert states.containsKey(key): "setInitialState: This UUID is not the UUID of any of the Physical " +
                 "Element's states.";
         this.initialState = key;
+        fireChange(ModelChange.Kind.INITIAL_STATE, key, null);
     }
 
     /**
@@ -386,7 +461,8 @@ public class PhysicalElement {
         assert toDelete != null : "deleteState: the UUID of the State to delete cannot be null.";
         assert states.containsKey(toDelete) : "deleteState: The State to delete is not one of the states of this object.";
         assert initialState != toDelete : "deleteState: The State to delete cannot be the initialState.";
-        this.states.remove(toDelete);
+        this.states.remove(toDelete).detach();
+        fireChange(ModelChange.Kind.STATE_DELETED, toDelete, null);
     }
     /**
      * @precondition {@code newInitial != null && newInitial != initialState && states.containsKey(newInitial) &&
@@ -402,8 +478,9 @@ public class PhysicalElement {
         assert states.size() > 1 : "deleteInitialState: The state is the last one possessed by the Physical Element " +
                 "( use deleteOnlyState() ).";
 
-        states.remove(initialState);
+        states.remove(initialState).detach();
         initialState = newInitial;
+        fireChange(ModelChange.Kind.INITIAL_STATE_REPLACED, newInitial, null);
     }
     /**
      * @precondition {@code states.size() == 1}.
@@ -412,8 +489,29 @@ public class PhysicalElement {
     public void deleteOnlyState(){
         assert states.size() == 1 : "deleteOnlyState(): trying to delete a State, which is not the last one, from a " +
                 "Physical Element.";
+        states.values().forEach(State::detach);
         states = null;
         initialState = null;
+        fireChange(ModelChange.Kind.STATES_CLEARED, null, null);
+    }
+
+    /**
+     * @effects {@code this} now belongs to {@code game}, as its Physical Element having {@code key} as UUID, and tells
+     * it about its changes and the changes of its States.
+     */
+    void attach(EscapeGame game, UUID key){
+        this.game = game;
+        this.key = key;
+    }
+    /**
+     * @effects {@code this} doesn't belong to any EscapeGame anymore.
+     */
+    void detach(){
+        game = null;
+        key = null;
+    }
+    private void fireChange(ModelChange.Kind kind, UUID subject, Object value){
+        if (game != null) game.fireChange(kind, key, subject, value);
     }
 
     public String toString(){
@@ -422,7 +520,7 @@ public class PhysicalElement {
         if (description != null){
             s.append(",\n\tdescription: ").append(description);
         }
-        s.append(",\n\tshape: ").append(shape.getContent());
+        s.append(",\n\tshape: ").append(shape.get());
         s.append(",\n\taccessible: ").append(accessible);
         s.append(",\n\ttype: ").append(type);
 
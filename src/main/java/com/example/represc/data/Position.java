@@ -0,0 +1,50 @@
+package com.example.represc.data;
+
+/**
+ * @author Schmetz Arnaud
+ * @version 1.0
+ *
+ * @overview A Position is a point of the map of an escape game, where a Hint {@link Hint} is shown. It doesn't depend
+ * on JavaFX, so that the data model can be loaded, saved and verified without it.
+ * A Position is immutable.
+ *
+ * @specfield x: double // The abscissa of the point.
+ * @specfield y: double // The ordinate of the point.
+ */
+public final class Position {
+
+    private final double x;
+    private final double y;
+
+    /**
+     * @postcondition Initialises {@code this} to the point ({@code x}, {@code y}).
+     */
+    public Position(double x, double y) {
+        this.x = x;
+        this.y = y;
+    }
+
+    public double getX() {
+        return x;
+    }
+    public double getY() {
+        return y;
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        if (this == other) return true;
+        if (!(other instanceof Position)) return false;
+        Position position = (Position) other;
+        return Double.compare(x, position.x) == 0 && Double.compare(y, position.y) == 0;
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * Double.hashCode(x) + Double.hashCode(y);
+    }
+
+    public String toString() {
+        return "(" + x + ", " + y + ")";
+    }
+}
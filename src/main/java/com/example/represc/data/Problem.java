@@ -29,7 +29,10 @@ public class Problem {
 
     private String name;
     private String description; //facultative
-    private ArrayList<UUID> physicalElements; //facultative
+    private ElementReferences physicalElements; //facultative
+
+    private EscapeGame game; // The EscapeGame it belongs to, null if none.
+    private UUID key; // Its UUID in game.
 
 
     /**
@@ -60,6 +63,7 @@ public class Problem {
         assert !name.isBlank() : "trying to set a Problem's name with a blank String name";
 
         this.name = name;
+        fireChange(ModelChange.Kind.PROBLEM_NAME, null, name);
     }
 
 
@@ -83,27 +87,40 @@ public class Problem {
         assert description != null : "setDescription: trying to set the description of a Problem, but parameter description " +
                 "is null.";
         this.description = description;
+        fireChange(ModelChange.Kind.PROBLEM_DESCRIPTION, null, description);
     }
     /**
      * @effects Sets the description of the Problem to {@code null}.
      * **/
     public void deleteDescription(){
         description = null;
+        fireChange(ModelChange.Kind.PROBLEM_DESCRIPTION, null, null);
     }
 
     /**
      * @precondition {@toAdd != null}
-     * @postcondition Adds the Physical Element {@code toAdd} to the list of Physical Elements of the Problem.
-     * If that Problem doesn't have any Physical Element, initialize the ArrayList {@code physicalElements}.
-     * to the UUID of {@code toAdd}.
+     * @postcondition Adds the Physical Element {@code toAdd} to the Physical Elements of the Problem, if it is not
+     * one of them already.
      */
     public void addPhysicalElement(UUID toAdd){
         assert toAdd != null : "addPhysicalElement: Tries to add a Physical Element to a Problem with a null UUID";
-        assert EscapeGame.getEscapeGame().containsPhysicalElement(toAdd): "addPhysicalElement: Tries to add a Physical " +
+        assert game == null || game.containsPhysicalElement(toAdd): "addPhysicalElement: Tries to add a Physical " +
                 "Element to a Problem, with a UUID which is not in the list of Physical Elements of the Escape Game.";
 
-        if (physicalElements == null) physicalElements = new ArrayList<>();
-        physicalElements.add(toAdd);
+        if (physicalElements == null) physicalElements = new ElementReferences(newTable());
+        int handle = physicalElements.add(toAdd);
+        if (handle == IdTable.NONE) return;
+        if (game != null) game.cites(this, key, handle, true);
+        fireChange(ModelChange.Kind.PROBLEM_ELEMENT_ADDED, toAdd, null);
+    }
+    /**
+     * @precondition {@code id != null}
+     * @return Returns true if the Physical Element having the UUID {@code id} is one of the Physical Elements of the
+     * Problem.
+     */
+    public boolean containsPhysicalElement(UUID id){
+        assert id != null : "containsPhysicalElement: Trying to know if a Problem has a Physical Element with a null UUID.";
+        return physicalElements != null && physicalElements.contains(id);
     }
     /**
      * @return Returns an empty Optional if the Problem has no Physical Elements. Returns an Optional containing an ArrayList
@@ -112,8 +129,18 @@ public class Problem {
     public Optional<ArrayList<UUID>> getPhysicalElementsUUID() {
         if (physicalElements == null) return Optional.empty();
 
-        ArrayList<UUID> toReturn = new ArrayList<>(physicalElements);
-        return Optional.of(toReturn);
+        return Optional.of(physicalElements.toUUIDs());
+    }
+    /**
+     * @precondition {@code this} belongs to an EscapeGame.
+     * @return Returns the handles, in the EscapeGame {@link EscapeGame#getPhysicalElementHandle(UUID)}, of all the
+     * Physical Elements of the Problem. The array is empty if it has none.
+     */
+    public int[] getPhysicalElementHandles() {
+        assert game != null : "getPhysicalElementHandles: The Problem doesn't belong to any EscapeGame.";
+
+        if (physicalElements == null) return new int[0];
+        return physicalElements.toHandles();
     }
     /**
      * @precondition {@code physicalElements.contains(toDelete) && physicalElements != null}
@@ -125,8 +152,37 @@ public class Problem {
                 "Elements list of a Problem, which is empty";
         assert physicalElements.contains(toDelete) : "deletePhysicalElement: Trying to delete a Physical Element from " +
                 "the Physical Elements list of a Problem, which doesn't contain that Physical Element UUID.";
-        physicalElements.remove(toDelete);
+        int handle = physicalElements.remove(toDelete);
         if (physicalElements.isEmpty()) physicalElements = null;
+        if (game != null) game.cites(this, key, handle, false);
+        fireChange(ModelChange.Kind.PROBLEM_ELEMENT_DELETED, toDelete, null);
+    }
+
+    /**
+     * @effects {@code this} now belongs to {@code game}, as its Problem having {@code key} as UUID, and tells it about
+     * its changes.
+     */
+    void attach(EscapeGame game, UUID key){
+        this.game = game;
+        this.key = key;
+        if (physicalElements != null) physicalElements.bind(game.getPhysicalElementTable());
+    }
+    /**
+     * @effects {@code this} doesn't belong to any EscapeGame anymore.
+     */
+    void detach(){
+        game = null;
+        key = null;
+    }
+    /**
+     * @return Returns the table in which new references are interned: the one of the EscapeGame of {@code this}, or a
+     * table of its own if it doesn't belong to any.
+     */
+    private IdTable<PhysicalElement> newTable(){
+        return game == null ? new IdTable<>() : game.getPhysicalElementTable();
+    }
+    private void fireChange(ModelChange.Kind kind, UUID subject, Object value){
+        if (game != null) game.fireChange(kind, key, subject, value);
     }
 
     public String toString(){
@@ -137,25 +193,24 @@ public class Problem {
         }
         if (physicalElements != null){
             s.append(",\n\tphysicalElements: [");
-            physicalElements.forEach((id) -> s.append(id).append(", "));
+            physicalElements.toUUIDs().forEach((id) -> s.append(id).append(", "));
             s.setLength(s.length() - 2);
             s.append("]");
         }
         s.append(" }");
         return s.toString();
     }
-    public boolean repOK(){
+    /**
+     * @precondition {@code game != null}
+     * @return Returns true if {@code this} respects its invariants, its Physical Elements being looked for in
+     * {@code game}.
+     */
+    public boolean repOK(EscapeGame game){
+        assert game != null : "repOK: Trying to check a Problem against a null EscapeGame.";
+
         if (physicalElements != null) {
-            if(physicalElements.isEmpty()) {return false;}
-
-            Optional<ArrayList<UUID>> actualPhysicalElements = EscapeGame.getEscapeGame().getAllPhysicalElementsUUID();
-            if (actualPhysicalElements.isEmpty()){ return false; }
-            else {
-                for (var element : physicalElements){
-                    if (element == null) return false;
-                    if (!actualPhysicalElements.get().contains(element)) return false;
-                }
-            }
+            if (physicalElements.isEmpty()) return false;
+            if (!physicalElements.allIn(game)) return false;
         }
         if (name == null || name.isBlank() || name.isEmpty()) return false;
         return true;
@@ -0,0 +1,432 @@
+package com.example.represc.data;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.function.Function;
+import java.util.function.UnaryOperator;
+
+/**
+ * @author Schmetz Arnaud
+ * @version 1.0
+ *
+ * @overview A Trigger is the condition under which an Event {@link Event} happens: a JSONLogic predicate about the
+ * Physical Elements of the escape game, like {@code {"==": [{"var": "<element>"}, "<state>"]}}.
+ * A variable {@code {"var": "<element>"}} is the UUID of the current State of the Physical Element having the UUID
+ * {@code <element>}, {@code {"var": "<element>.accessible"}} whether it is accessible. The operators are {@code ==},
+ * {@code ===}, {@code !=}, {@code !==}, {@code !}, {@code !!}, {@code and}, {@code or}, {@code if}, {@code ?:} and
+ * {@code in}, whose second argument is an array of values or a string.
+ * The text is parsed once, when the Trigger is created, into a tree of Nodes, which the verifiers and the simulator
+ * compile once more for the configurations they explore; a Trigger is not modified once created.
+ *
+ * @specfield source: String // The JSONLogic text of the Trigger.
+ * @specfield root: Node // The parsed predicate.
+ * @specfield elements: set of UUID // The Physical Elements the predicate reads.
+ */
+public final class Trigger {
+
+    public static final String ACCESSIBLE = ".accessible";
+
+    /**
+     * @overview A Node is one part of the predicate of a Trigger: a Literal, a Variable or an Operation.
+     */
+    public abstract static class Node {
+        private Node() {
+        }
+    }
+
+    /**
+     * @overview A Literal is a constant of the predicate: a Boolean, a Double, a String, null, or an unmodifiable List
+     * of such constants.
+     */
+    public static final class Literal extends Node {
+        private final Object value;
+
+        private Literal(Object value) {
+            this.value = value;
+        }
+
+        public Object getValue() {
+            return value;
+        }
+    }
+
+    /**
+     * @overview A Variable is the current State of a Physical Element or, if {@code isAccessible()}, whether it is
+     * accessible.
+     */
+    public static final class Variable extends Node {
+        private final UUID element;
+        private final boolean accessible;
+
+        private Variable(UUID element, boolean accessible) {
+            this.element = element;
+            this.accessible = accessible;
+        }
+
+        public UUID getElement() {
+            return element;
+        }
+
+        public boolean isAccessible() {
+            return accessible;
+        }
+    }
+
+    /**
+     * @overview An Operation is an operator applied to its arguments.
+     */
+    public static final class Operation extends Node {
+        private final String operator;
+        private final List<Node> arguments;
+
+        private Operation(String operator, List<Node> arguments) {
+            this.operator = operator;
+            this.arguments = Collections.unmodifiableList(arguments);
+        }
+
+        public String getOperator() {
+            return operator;
+        }
+
+        public List<Node> getArguments() {
+            return arguments;
+        }
+    }
+
+    private final String source;
+    private final Node root;
+    private final Set<UUID> elements;
+
+    private Trigger(String source, Node root, Set<UUID> elements) {
+        this.source = source;
+        this.root = root;
+        this.elements = Collections.unmodifiableSet(elements);
+    }
+
+    /**
+     * @precondition {@code source != null}
+     * @return Returns the Trigger whose JSONLogic text is {@code source}.
+     * @throws IllegalArgumentException if {@code source} is not valid JSON, uses an operator which is not supported,
+     * gives an operator a wrong number of arguments, or names a variable which is not a Physical Element.
+     */
+    public static Trigger parse(String source) {
+        assert source != null : "parse: Trying to parse a null Trigger.";
+
+        Parser parser = new Parser(source, Trigger::toUUID, UnaryOperator.identity());
+        Node root = parser.parse();
+        return new Trigger(source, root, parser.elements);
+    }
+
+    /**
+     * @precondition {@code source != null && elements != null && constants != null}
+     * @return Returns the Trigger whose JSONLogic text is {@code source}, where each variable is named, without its
+     * {@code ACCESSIBLE} suffix, by what {@code elements} gives the UUID of, and each string constant is what
+     * {@code constants} gives the constant of. The source of the Trigger returned is written again from its Nodes, so
+     * that it names the Physical Elements and the constants as they are in the escape game.
+     * @throws IllegalArgumentException if {@code source} is not valid JSON, uses an operator which is not supported,
+     * gives an operator a wrong number of arguments, or names a variable {@code elements} gives null for.
+     */
+    public static Trigger parse(String source, Function<String, UUID> elements, UnaryOperator<String> constants) {
+        assert source != null : "parse: Trying to parse a null Trigger.";
+        assert elements != null && constants != null : "parse: Trying to parse a Trigger with null names.";
+
+        Parser parser = new Parser(source, elements, constants);
+        Node root = parser.parse();
+        StringBuilder text = new StringBuilder();
+        format(root, text);
+        return new Trigger(text.toString(), root, parser.elements);
+    }
+
+    private static UUID toUUID(String name) {
+        try {
+            return UUID.fromString(name);
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    /**
+     * @effects Appends to {@code text} the JSONLogic text of {@code node}.
+     */
+    private static void format(Node node, StringBuilder text) {
+        if (node instanceof Variable) {
+            Variable variable = (Variable) node;
+            text.append("{\"var\":");
+            formatConstant(variable.element + (variable.accessible ? ACCESSIBLE : ""), text);
+            text.append('}');
+        } else if (node instanceof Operation) {
+            Operation operation = (Operation) node;
+            text.append('{');
+            formatConstant(operation.operator, text);
+            text.append(":[");
+            for (int i = 0; i < operation.arguments.size(); i++) {
+                if (i > 0) text.append(',');
+                format(operation.arguments.get(i), text);
+            }
+            text.append("]}");
+        } else {
+            formatConstant(((Literal) node).value, text);
+        }
+    }
+
+    private static void formatConstant(Object value, StringBuilder text) {
+        if (value instanceof String) {
+            text.append('"');
+            for (char c : ((String) value).toCharArray()) {
+                if (c == '"' || c == '\\') text.append('\\').append(c);
+                else if (c < ' ') text.append(String.format("\\u%04x", (int) c));
+                else text.append(c);
+            }
+            text.append('"');
+        } else if (value instanceof List) {
+            text.append('[');
+            List<?> values = (List<?>) value;
+            for (int i = 0; i < values.size(); i++) {
+                if (i > 0) text.append(',');
+                formatConstant(values.get(i), text);
+            }
+            text.append(']');
+        } else if (value instanceof Double && (Double) value == Math.rint((Double) value)
+                && Math.abs((Double) value) < 1e15) {
+            text.append((long) (double) (Double) value);
+        } else {
+            text.append(value); // A Boolean, another Double, or null.
+        }
+    }
+
+    public String getSource() {
+        return source;
+    }
+
+    public Node getRoot() {
+        return root;
+    }
+
+    /**
+     * @return Returns the UUIDs of the Physical Elements read by the Trigger, in the order they first appear.
+     */
+    public Set<UUID> getElements() {
+        return elements;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return o instanceof Trigger && source.equals(((Trigger) o).source);
+    }
+
+    @Override
+    public int hashCode() {
+        return source.hashCode();
+    }
+
+    public String toString() {
+        return source;
+    }
+
+    /**
+     * @overview A Parser reads the predicate of a Trigger, one character at a time.
+     */
+    private static final class Parser {
+        private final String text;
+        private final Function<String, UUID> names;
+        private final UnaryOperator<String> constants;
+        private int position = 0;
+        private final LinkedHashSet<UUID> elements = new LinkedHashSet<>();
+
+        private Parser(String text, Function<String, UUID> names, UnaryOperator<String> constants) {
+            this.text = text;
+            this.names = names;
+            this.constants = constants;
+        }
+
+        /**
+         * @return Returns the root of the whole text.
+         */
+        private Node parse() {
+            Node root = rule();
+            skipWhitespace();
+            if (position < text.length()) throw error("Unexpected text after the predicate");
+            return root;
+        }
+
+        /**
+         * @return Returns the Node of the rule starting at {@code position}: an operation, a literal, or an array of
+         * literals.
+         */
+        private Node rule() {
+            skipWhitespace();
+            if (peek() != '{') return new Literal(literal());
+
+            position++;
+            skipWhitespace();
+            String operator = string();
+            skipWhitespace();
+            expect(':');
+            skipWhitespace();
+            ArrayList<Node> arguments = new ArrayList<>();
+            if (operator.equals("var")) {
+                Node variable = variable();
+                skipWhitespace();
+                expect('}');
+                return variable;
+            }
+            if (peek() == '[') {
+                position++;
+                skipWhitespace();
+                if (peek() != ']') {
+                    arguments.add(rule());
+                    for (skipWhitespace(); peek() == ','; skipWhitespace()) {
+                        position++;
+                        arguments.add(rule());
+                    }
+                }
+                expect(']');
+            } else {
+                arguments.add(rule()); // {"!": x} stands for {"!": [x]}.
+            }
+            skipWhitespace();
+            expect('}');
+            checkArity(operator, arguments);
+            return new Operation(operator, arguments);
+        }
+
+        private Node variable() {
+            boolean array = peek() == '[';
+            if (array) {
+                position++;
+                skipWhitespace();
+            }
+            if (peek() != '"') throw error("A variable must be named by a string");
+            String name = string();
+            if (array) {
+                skipWhitespace();
+                expect(']');
+            }
+            boolean accessible = name.endsWith(ACCESSIBLE);
+            if (accessible) name = name.substring(0, name.length() - ACCESSIBLE.length());
+            UUID element = names.apply(name);
+            if (element == null) throw error("The variable \"" + name + "\" is not a Physical Element");
+            elements.add(element);
+            return new Variable(element, accessible);
+        }
+
+        private void checkArity(String operator, List<Node> arguments) {
+            int count = arguments.size();
+            boolean valid = switch (operator) {
+                case "==", "===", "!=", "!==" -> count == 2;
+                case "!", "!!" -> count == 1;
+                case "and", "or", "if" -> count >= 1;
+                case "?:" -> count == 3;
+                case "in" -> count == 2 && arguments.get(1) instanceof Literal
+                        && (((Literal) arguments.get(1)).value instanceof List
+                        || ((Literal) arguments.get(1)).value instanceof String);
+                default -> throw error("The operator \"" + operator + "\" is not supported");
+            };
+            if (!valid) throw error("Wrong arguments for the operator \"" + operator + "\"");
+        }
+
+        private Object literal() {
+            char c = peek();
+            if (c == '"') return constants.apply(string());
+            if (c == '[') {
+                position++;
+                ArrayList<Object> values = new ArrayList<>();
+                skipWhitespace();
+                if (peek() != ']') {
+                    values.add(literalInArray());
+                    for (skipWhitespace(); peek() == ','; skipWhitespace()) {
+                        position++;
+                        values.add(literalInArray());
+                    }
+                }
+                expect(']');
+                return Collections.unmodifiableList(values);
+            }
+            if (text.startsWith("true", position)) {
+                position += 4;
+                return Boolean.TRUE;
+            }
+            if (text.startsWith("false", position)) {
+                position += 5;
+                return Boolean.FALSE;
+            }
+            if (text.startsWith("null", position)) {
+                position += 4;
+                return null;
+            }
+            int start = position;
+            while (position < text.length() && "+-0123456789.eE".indexOf(text.charAt(position)) >= 0) position++;
+            try {
+                return Double.parseDouble(text.substring(start, position));
+            } catch (NumberFormatException e) {
+                position = start;
+                throw error("Unexpected character");
+            }
+        }
+
+        private Object literalInArray() {
+            skipWhitespace();
+            if (peek() == '{') throw error("Only constants can be in an array");
+            return literal();
+        }
+
+        private String string() {
+            expect('"');
+            StringBuilder s = new StringBuilder();
+            for (char c; (c = next()) != '"'; ) {
+                if (c != '\\') {
+                    s.append(c);
+                    continue;
+                }
+                switch (c = next()) {
+                    case 'b' -> s.append('\b');
+                    case 'f' -> s.append('\f');
+                    case 'n' -> s.append('\n');
+                    case 'r' -> s.append('\r');
+                    case 't' -> s.append('\t');
+                    case 'u' -> {
+                        if (position + 4 > text.length()) throw error("Unterminated escape");
+                        try {
+                            s.append((char) Integer.parseInt(text.substring(position, position + 4), 16));
+                        } catch (NumberFormatException e) {
+                            throw error("Malformed escape");
+                        }
+                        position += 4;
+                    }
+                    default -> s.append(c);
+                }
+            }
+            return s.toString();
+        }
+
+        private void skipWhitespace() {
+            while (position < text.length() && Character.isWhitespace(text.charAt(position))) position++;
+        }
+
+        private char peek() {
+            if (position == text.length()) throw error("Unexpected end of the predicate");
+            return text.charAt(position);
+        }
+
+        private char next() {
+            char c = peek();
+            position++;
+            return c;
+        }
+
+        private void expect(char expected) {
+            if (next() != expected) {
+                position--;
+                throw error("Expected '" + expected + "'");
+            }
+        }
+
+        private IllegalArgumentException error(String message) {
+            return new IllegalArgumentException(message + " at character " + position + " of the Trigger.");
+        }
+    }
+}
@@ -1,5 +1,8 @@
 package com.example.represc.gui;
 
+import com.example.represc.data.EscapeGame;
+import com.example.represc.data.Geometry;
+import com.example.represc.data.PhysicalElement;
 import javafx.event.ActionEvent;
 import javafx.event.EventHandler;
 import javafx.scene.Cursor;
@@ -11,13 +14,19 @@ import javafx.scene.input.ScrollEvent;
 import javafx.scene.layout.Pane;
 import javafx.scene.layout.StackPane;
 import javafx.scene.layout.VBox;
+import javafx.scene.paint.Color;
 import javafx.scene.shape.Line;
 import javafx.scene.shape.Polyline;
 import javafx.scene.shape.SVGPath;
 import javafx.scene.transform.Scale;
 
+import java.util.ArrayList;
+
 public class GameMap extends StackPane {
 
+    // The escape game shown on the map
+    private final EscapeGame escapeGame;
+
     // 1 unit = 1 cm (arbitrary);
     private static final Integer mapSize = 100000;
 
@@ -52,7 +61,13 @@ public class GameMap extends StackPane {
 
 
 
-    public GameMap() {
+    /**
+     * @precondition {@code escapeGame != null}
+     * @postcondition Initialises {@code this} as the map of {@code escapeGame}.
+     */
+    public GameMap(EscapeGame escapeGame) {
+        assert escapeGame != null : "GameMap: Trying to create the map of a null EscapeGame.";
+        this.escapeGame = escapeGame;
         //getStyleClass().add();
         setFocusTraversable(false);
 
@@ -272,10 +287,27 @@ public class GameMap extends StackPane {
             horizontalLine += gridUnit;
         }
     }
+    /**
+     * @effects Draws the shapes of all the Physical Elements of {@code escapeGame} on the map.
+     */
     public void populate() {
+        content.getChildren().clear();
+        for (PhysicalElement element : escapeGame.getAllPhysicalElements().orElseGet(ArrayList::new)) {
+            SVGPath shape = toSVGPath(element.getShape());
+            shape.setFill(Color.TRANSPARENT);
+            shape.setStroke(Color.BLACK);
+            content.getChildren().add(shape);
+        }
+    }
 
-
-        return;
+    /**
+     * @return Returns a new SVGPath drawing {@code geometry}. The views are the only place where the shapes of the
+     * model become JavaFX nodes.
+     */
+    static SVGPath toSVGPath(Geometry geometry) {
+        SVGPath path = new SVGPath();
+        path.setContent(geometry.toPathData());
+        return path;
     }
 
 
@@ -1,25 +1,41 @@
 package com.example.represc.gui;
 
+import com.example.represc.data.EscapeGame;
+import com.example.represc.persistence.BinarySnapshot;
+import com.example.represc.persistence.PersistenceService;
+import com.example.represc.verification.ConsistencyChecker;
+import com.example.represc.verification.Violation;
+import com.example.represc.verification.ViolationListener;
+import javafx.collections.FXCollections;
+import javafx.collections.ObservableList;
+import javafx.concurrent.Task;
 import javafx.fxml.FXML;
 import javafx.fxml.FXMLLoader;
 import javafx.fxml.Initializable;
 import javafx.geometry.Pos;
 import javafx.scene.Parent;
 import javafx.scene.Scene;
+import javafx.scene.control.Alert;
 import javafx.scene.control.Button;
 import javafx.scene.control.Label;
+import javafx.scene.control.ListCell;
+import javafx.scene.control.ListView;
+import javafx.scene.control.ProgressBar;
 import javafx.scene.control.ScrollPane;
 import javafx.scene.control.Tab;
 import javafx.scene.image.Image;
 import javafx.scene.image.ImageView;
 import javafx.scene.layout.*;
+import javafx.stage.FileChooser;
 import javafx.stage.Modality;
 import javafx.stage.Stage;
 
+import java.io.File;
 import java.io.IOException;
 import java.net.URL;
 import java.util.Locale;
 import java.util.ResourceBundle;
+import java.util.UUID;
 
 public class MainView implements Initializable {
 
@@ -27,13 +43,22 @@ public class MainView implements Initializable {
     @FXML private Tab verifyTab;
     @FXML private Tab simulateTab;
     @FXML private ScrollPane mapContainer;
+    @FXML private Button saveButton;
+    @FXML private HBox saveProgressBox;
+    @FXML private ProgressBar saveProgress;
+    @FXML private Button cancelSaveButton;
 
+    private ResourceBundle resourceBundle;
+
+    private EscapeGame escapeGame;
     private GameMap gameMap;
+    private ConsistencyChecker consistencyChecker;
 
 
 
     @FXML
     public void initialize(URL url, ResourceBundle resourceBundle){
+        this.resourceBundle = resourceBundle;
 
         VBox representHeader = new VBox();
         VBox verifyHeader = new VBox();
@@ -61,12 +86,99 @@ public class MainView implements Initializable {
         representTab.setGraphic(representHeader);
         verifyTab.setGraphic(verifyHeader);
         simulateTab.setGraphic(simulateHeader);
+    }
 
-        gameMap = new GameMap();
+    /**
+     * @precondition {@code escapeGame != null}
+     * @postcondition The view shows and edits {@code escapeGame}, its Violations being listed in the verify tab while
+     * it is edited.
+     */
+    public void setEscapeGame(EscapeGame escapeGame) {
+        assert escapeGame != null : "setEscapeGame: Trying to show a null EscapeGame.";
+
+        if (consistencyChecker != null) consistencyChecker.close();
+        this.escapeGame = escapeGame;
+        gameMap = new GameMap(escapeGame);
         representTab.setContent(gameMap);
+
+        consistencyChecker = new ConsistencyChecker(escapeGame);
+        ObservableList<Violation> violations = FXCollections.observableArrayList(consistencyChecker.getViolations());
+        consistencyChecker.addViolationListener(new ViolationListener() {
+            @Override
+            public void violationFound(Violation violation) {
+                violations.add(violation);
+            }
+
+            @Override
+            public void violationFixed(Violation violation) {
+                violations.remove(violation);
+            }
+        });
+        ListView<Violation> violationList = new ListView<>(violations);
+        violationList.setPlaceholder(new Label(resourceBundle.getString("violation.none")));
+        violationList.setCellFactory(list -> new ListCell<>() {
+            @Override
+            protected void updateItem(Violation violation, boolean empty) {
+                super.updateItem(violation, empty);
+                setText(empty || violation == null ? null : describe(violation));
+            }
+        });
+        verifyTab.setContent(violationList);
+    }
+
+    /**
+     * @return Returns the text describing {@code violation} to the user, followed by the name of what breaks the rule.
+     */
+    private String describe(Violation violation) {
+        String text = resourceBundle.getString("violation." + violation.getKind());
+        UUID target = violation.getTarget();
+        String name = null;
+        if (target == null) return text;
+        else if (escapeGame.containsPhysicalElement(target)) name = escapeGame.getPhysicalElement(target).getName();
+        else if (escapeGame.containsHint(target)) name = escapeGame.getHint(target).getName();
+        else if (escapeGame.containsProblem(target)) name = escapeGame.getProblem(target).getName();
+        else if (escapeGame.containsCountdown(target)) name = escapeGame.getCountdown(target).getName();
+        return name == null || name.isBlank() ? text : text + " : " + name;
     }
 
 
+    /**
+     * @effects Asks the user where to save the escape game, then saves it on the background, showing the progress
+     * of the save. The escape game can still be edited while it is being saved, those changes are not part of the save.
+     */
+    @FXML
+    private void save() {
+        FileChooser fileChooser = new FileChooser();
+        fileChooser.setTitle(resourceBundle.getString("main.save.title"));
+        fileChooser.getExtensionFilters().addAll(new FileChooser.ExtensionFilter("JSON", "*.json"),
+                new FileChooser.ExtensionFilter("REPR-ESC", "*" + BinarySnapshot.EXTENSION));
+        File file = fileChooser.showSaveDialog(saveButton.getScene().getWindow());
+        if (file == null) return;
+
+        Task<Void> saving = PersistenceService.getPersistenceService().save(escapeGame, file.toPath());
+        saveButton.setDisable(true);
+        saveProgress.progressProperty().bind(saving.progressProperty());
+        saveProgressBox.setVisible(true);
+        cancelSaveButton.setOnAction(event -> saving.cancel());
+
+        saving.setOnSucceeded(event -> hideSaveProgress());
+        saving.setOnCancelled(event -> hideSaveProgress());
+        saving.setOnFailed(event -> {
+            hideSaveProgress();
+            Alert alert = new Alert(Alert.AlertType.WARNING);
+            alert.setTitle(resourceBundle.getString("warning"));
+            alert.setHeaderText(resourceBundle.getString("main.error.save"));
+            alert.setContentText(saving.getException().getMessage());
+            alert.showAndWait();
+        });
+    }
+
+    private void hideSaveProgress() {
+        saveProgress.progressProperty().unbind();
+        saveProgressBox.setVisible(false);
+        saveButton.setDisable(false);
+    }
+
     @FXML
     private void newRoom() throws IOException {
         Locale locale = new Locale("fr", "BE");
@@ -1,6 +1,7 @@
 package com.example.represc.gui;
 
 import com.example.represc.data.EscapeGame;
+import com.example.represc.persistence.Autosave;
 import com.example.represc.utils.Settings;
 import javafx.event.ActionEvent;
 import javafx.fxml.FXML;
@@ -21,6 +22,7 @@ import java.util.ResourceBundle;
  */
 public class NewEscape  {
     private Stage stage;
+    private EscapeGame escapeGame;
 
     @FXML
     private TextField nameField;
@@ -39,6 +41,15 @@ public class NewEscape  {
     private Spinner durationMinutesSpinner;
 
 
+    /**
+     * @precondition {@code escapeGame != null}
+     * @postcondition The escape game created by the user is written into {@code escapeGame}.
+     */
+    public void setEscapeGame(EscapeGame escapeGame) {
+        assert escapeGame != null : "setEscapeGame: Trying to create the new escape game into a null EscapeGame.";
+        this.escapeGame = escapeGame;
+    }
+
     /**
      * @overview Checks the input of the user, if the ionput is acceptable, closes the "NEwEscape" Stage after creating
      * the nes Escape Game. If the input is not acceptable, fires a warning message about the invalid inputs.
@@ -48,18 +59,19 @@ public class NewEscape  {
 
         // if the inputs are acceptable, creates the new Escape Game and closes the "NewEscape" Stage (window).
         if (inputsOk()) {
-            EscapeGame.getEscapeGame().setName(nameField.getText());
+            escapeGame.setName(nameField.getText());
             if (!descriptionField.getText().trim().isEmpty()){
-                EscapeGame.getEscapeGame().setDescription(descriptionField.getText().trim());
+                escapeGame.setDescription(descriptionField.getText().trim());
             }
             if (!difficultyField.getText().trim().isEmpty()){
-                EscapeGame.getEscapeGame().setDifficulty(difficultyField.getText().trim());
+                escapeGame.setDifficulty(difficultyField.getText().trim());
             }
-            EscapeGame.getEscapeGame().setPlayersMinimum((int) minPlayersSpinner.getValue());
-            EscapeGame.getEscapeGame().setPlayersMaximum((int) maxPlayersSpinner.getValue());
+            escapeGame.setPlayersMinimum((int) minPlayersSpinner.getValue());
+            escapeGame.setPlayersMaximum((int) maxPlayersSpinner.getValue());
             Duration duration = Duration.ofHours((int)durationHoursSpinner.getValue())
                     .plus(Duration.ofMinutes((int) durationMinutesSpinner.getValue()));
-            EscapeGame.getEscapeGame().setEstimatedDuration(duration);
+            escapeGame.setEstimatedDuration(duration);
+            Autosave.getAutosave().start(escapeGame);
 
             stage = (Stage) ((Node) event.getSource()).getScene().getWindow();
             stage.close();
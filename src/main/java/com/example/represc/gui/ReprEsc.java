@@ -1,5 +1,6 @@
 package com.example.represc.gui;
 
+import com.example.represc.persistence.Autosave;
 import javafx.application.Application;
 import javafx.fxml.FXMLLoader;
 import javafx.scene.Scene;
@@ -41,6 +42,14 @@ public class ReprEsc extends Application {
         stage.show();
     }
 
+    /**
+     * @effects Stops the autosave: the application was closed normally, there is nothing to recover.
+     */
+    @Override
+    public void stop() {
+        Autosave.getAutosave().stop();
+    }
+
     public static void main(String[] args) {
 
         getSettings().setLocale(new Locale("fr"));
@@ -1,8 +1,13 @@
 package com.example.represc.gui;
 
+import com.example.represc.data.EscapeGame;
+import com.example.represc.persistence.Autosave;
+import com.example.represc.persistence.BinarySnapshot;
+import com.example.represc.persistence.PersistenceService;
 import com.example.represc.utils.Settings;
 import javafx.animation.Interpolator;
 import javafx.animation.TranslateTransition;
+import javafx.concurrent.Task;
 import javafx.event.ActionEvent;
 import javafx.fxml.FXML;
 import javafx.fxml.FXMLLoader;
@@ -12,16 +17,24 @@ import javafx.scene.Parent;
 import javafx.scene.Scene;
 import javafx.scene.SnapshotParameters;
 import javafx.scene.canvas.Canvas;
+import javafx.scene.control.Alert;
+import javafx.scene.control.Button;
+import javafx.scene.control.ProgressBar;
 import javafx.scene.canvas.GraphicsContext;
 import javafx.scene.image.Image;
+import javafx.scene.layout.HBox;
+import javafx.scene.layout.VBox;
 import javafx.scene.paint.Color;
 import javafx.scene.paint.ImagePattern;
 import javafx.scene.shape.Rectangle;
+import javafx.stage.FileChooser;
 import javafx.stage.Modality;
 import javafx.stage.Stage;
 import javafx.stage.StageStyle;
+import javafx.stage.Window;
 import javafx.util.Duration;
 
+import java.io.File;
 import java.io.IOException;
 import java.net.URL;
 import java.util.Objects;
@@ -36,12 +49,23 @@ import java.util.ResourceBundle;
  *
  * @specfield mainStage: Stage // The Stage of the view.
  * @specfield backGrid: Rectangle // Serves as way to display the moving grid on the view. might not be optimal but not important.
+ * @specfield loadProgress: ProgressBar // Shows the progress of the loading of an escape game.
  */
 public class WelcomeView implements Initializable {
 
     private Stage mainStage;
     @FXML
     private Rectangle backGrid;
+    @FXML
+    private VBox loadButtons;
+    @FXML
+    private HBox loadProgressBox;
+    @FXML
+    private ProgressBar loadProgress;
+    @FXML
+    private Button cancelLoadButton;
+    @FXML
+    private Button resumeButton;
 
 
     @FXML
@@ -60,6 +84,11 @@ public class WelcomeView implements Initializable {
         translate.setCycleCount(TranslateTransition.INDEFINITE);
         translate.setInterpolator(Interpolator.LINEAR);
         translate.play();
+
+        // The escape game left by a crash can be resumed.
+        boolean recoverable = Autosave.getAutosave().canRecover();
+        resumeButton.setVisible(recoverable);
+        resumeButton.setManaged(recoverable);
     }
 
     /**
@@ -83,23 +112,22 @@ public class WelcomeView implements Initializable {
     }
 
     /**
-     * @effects Loads the "MainView" on the background and the "NewEscape" view on the foreground.
+     * @effects Loads the "MainView" of a new EscapeGame on the background and the "NewEscape" view, filling that
+     * EscapeGame, on the foreground.
      * @throws IOException
      */
     @FXML protected void switchToMainViewNew(ActionEvent event) throws IOException {
         // Loads the Mainview in the background
         ResourceBundle bundle = ResourceBundle.getBundle("bundles.strings", Settings.getSettings().getLocale());
-        Parent root = FXMLLoader.load(Objects.requireNonNull(getClass().getResource("/mainView.fxml")), bundle);
-        mainStage = (Stage) ((Node)event.getSource()).getScene().getWindow();
-        Scene mainScene = new Scene(root);
-        mainStage.setScene(mainScene);
-        mainStage.show();
-        mainStage.setMaximized(true);
-        mainScene.getStylesheets().add("Main.css");
+        EscapeGame escapeGame = new EscapeGame();
+        showMainView((Stage) ((Node)event.getSource()).getScene().getWindow(), bundle, escapeGame);
 
         // Loads the "new Escape game" window on the foreground
         Stage newEscapeStage = new Stage();
-        Parent newEscapeRoot = FXMLLoader.load(Objects.requireNonNull(getClass().getResource("/newEscape.fxml")), bundle);
+        FXMLLoader newEscapeLoader = new FXMLLoader(Objects.requireNonNull(getClass().getResource("/newEscape.fxml")),
+                bundle);
+        Parent newEscapeRoot = newEscapeLoader.load();
+        newEscapeLoader.<NewEscape>getController().setEscapeGame(escapeGame);
         Scene newEscapeScene = new Scene(newEscapeRoot);
         newEscapeStage.setScene(newEscapeScene);
         newEscapeStage.initModality(Modality.WINDOW_MODAL);
@@ -110,13 +138,84 @@ public class WelcomeView implements Initializable {
     }
 
     /**
-     * @effects Loads the "MainView" and
+     * @effects Asks the user for a saved escape game, loads it and switches to the "MainView" showing it. If the file
+     * can't be loaded, warns the user and stays on the welcome view.
      * @throws IOException
      */
     @FXML protected void switchToMainViewLoad(ActionEvent event) throws IOException {
         ResourceBundle bundle = ResourceBundle.getBundle("bundles.strings", Settings.getSettings().getLocale());
-        Parent root = FXMLLoader.load(Objects.requireNonNull(getClass().getResource("/mainView.fxml")), bundle);
-        mainStage = (Stage) ((Node)event.getSource()).getScene().getWindow();
+        Window window = ((Node)event.getSource()).getScene().getWindow();
+
+        FileChooser fileChooser = new FileChooser();
+        fileChooser.setTitle(bundle.getString("welcome.load.title"));
+        fileChooser.getExtensionFilters().addAll(new FileChooser.ExtensionFilter("JSON", "*.json"),
+                new FileChooser.ExtensionFilter("REPR-ESC", "*" + BinarySnapshot.EXTENSION));
+        File file = fileChooser.showOpenDialog(window);
+        if (file == null) return;
+
+        // Loads the file on the background, the welcome view stays responsive and shows the progress.
+        showLoading(PersistenceService.getPersistenceService().load(file.toPath()), (Stage) window, bundle);
+    }
+
+    /**
+     * @effects Recovers the escape game which was being edited when the application crashed, and switches to the
+     * "MainView" showing it. If it can't be recovered, warns the user and stays on the welcome view.
+     */
+    @FXML protected void resume(ActionEvent event) {
+        ResourceBundle bundle = ResourceBundle.getBundle("bundles.strings", Settings.getSettings().getLocale());
+        Stage stage = (Stage) ((Node)event.getSource()).getScene().getWindow();
+        showLoading(PersistenceService.getPersistenceService().recover(), stage, bundle);
+    }
+
+    /**
+     * @effects Shows the progress of {@code loading} and switches to the "MainView" of the EscapeGame it loaded once it
+     * succeeded, starting the autosave of that EscapeGame.
+     */
+    private void showLoading(Task<EscapeGame> loading, Stage stage, ResourceBundle bundle) {
+        loadButtons.setDisable(true);
+        loadProgress.progressProperty().bind(loading.progressProperty());
+        loadProgressBox.setVisible(true);
+        cancelLoadButton.setOnAction(cancelEvent -> loading.cancel());
+
+        loading.setOnSucceeded(workerEvent -> {
+            hideLoadProgress();
+            try {
+                showMainView(stage, bundle, loading.getValue());
+                Autosave.getAutosave().start(loading.getValue());
+            } catch (IOException e) {
+                warnLoadFailed(bundle, e.getMessage());
+            }
+        });
+        loading.setOnFailed(workerEvent -> {
+            hideLoadProgress();
+            warnLoadFailed(bundle, loading.getException().getMessage());
+        });
+        loading.setOnCancelled(workerEvent -> hideLoadProgress());
+    }
+
+    private void hideLoadProgress() {
+        loadProgress.progressProperty().unbind();
+        loadProgressBox.setVisible(false);
+        loadButtons.setDisable(false);
+    }
+
+    private void warnLoadFailed(ResourceBundle bundle, String reason) {
+        Alert alert = new Alert(Alert.AlertType.WARNING);
+        alert.setTitle(bundle.getString("warning"));
+        alert.setHeaderText(bundle.getString("welcome.error.load"));
+        alert.setContentText(reason);
+        alert.showAndWait();
+    }
+
+    /**
+     * @effects Replaces the scene of {@code stage} by the "MainView" of {@code escapeGame}.
+     * @throws IOException
+     */
+    private void showMainView(Stage stage, ResourceBundle bundle, EscapeGame escapeGame) throws IOException {
+        FXMLLoader loader = new FXMLLoader(Objects.requireNonNull(getClass().getResource("/mainView.fxml")), bundle);
+        Parent root = loader.load();
+        loader.<MainView>getController().setEscapeGame(escapeGame);
+        mainStage = stage;
         Scene mainScene = new Scene(root);
         mainStage.setScene(mainScene);
         mainStage.show();
@@ -0,0 +1,270 @@
+package com.example.represc.persistence;
+
+import com.example.represc.data.EscapeGame;
+import com.example.represc.data.ModelChange;
+import com.example.represc.data.ModelListener;
+import com.example.represc.utils.Settings;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * @author Schmetz Arnaud
+ * @version 1.0
+ *
+ * @overview Autosave keeps the escape game being edited safe from crashes. Once started on an EscapeGame, every change
+ * made to it is appended to a journal {@link Journal}, which is forced to the disk by small batches. When the journal
+ * grows over {@code COMPACTION_THRESHOLD} bytes, it is compacted: a new journal is started at once and a binary snapshot
+ * {@link BinarySnapshot} of the EscapeGame, as it was at that point, is written on the background, after which the
+ * older snapshot and journals are deleted.
+ *
+ * The autosave directory holds "snapshot-G.rpsc" and "journal-G.log" files. The journal of generation G records the
+ * changes made after the snapshot of generation G was taken, so the EscapeGame is recovered by loading the most recent
+ * snapshot, then replaying its journal and the more recent ones in order. A snapshot and the journals before it are only
+ * deleted once the next snapshot is on the disk, so there is always a snapshot to start from.
+ *
+ * Autosave is stopped, and its files deleted, when the application is closed normally: the files only remain after a
+ * crash, and the escape game can then be recovered.
+ *
+ * @specfield instance: Autosave // {@code instance} is a variable used to implement Autosave as a Singleton.
+ * @specfield game: EscapeGame // The EscapeGame being recorded, null when Autosave is stopped.
+ * @specfield directory: Path // The directory of the files of the autosave.
+ * @specfield journal: Journal // The journal the changes are appended to, null when Autosave is stopped.
+ * @specfield generation: long // The generation of {@code journal}.
+ */
+public class Autosave implements ModelListener {
+
+    static final long COMPACTION_THRESHOLD = 4 * 1024 * 1024;
+
+    private static final Pattern FILE_NAME = Pattern.compile("(snapshot|journal)-(\\d+)\\.(rpsc|log)");
+    private static final System.Logger LOGGER = System.getLogger(Autosave.class.getName());
+
+    private static Autosave instance = null;
+
+    private final ScheduledExecutorService journalExecutor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "represc-journal");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final ExecutorService compactionExecutor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "represc-compaction");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private EscapeGame game = null;
+    private Path directory;
+    private Journal journal = null;
+    private long generation = 0;
+    private Future<?> compaction = null;
+
+    static public Autosave getAutosave(){
+        if (instance == null) instance = new Autosave();
+        return instance;
+    }
+
+    private Autosave(){
+    }
+
+    /**
+     * @return Returns true if the autosave directory holds an escape game which can be recovered, meaning the
+     * application wasn't closed normally the last time it was used.
+     */
+    public boolean canRecover(){
+        try {
+            return !listGenerations(Settings.getSettings().getAutosaveDirectory(), "snapshot").isEmpty();
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    /**
+     * @precondition Autosave is stopped.
+     * @effects {@code monitor} is told about the progress of the snapshot load.
+     * @return Returns a new EscapeGame holding the escape game left in the autosave directory: the most recent
+     * snapshot which can be read, followed by the changes recorded in the journals after it.
+     * @throws IOException if there is nothing to recover or it can't be read.
+     */
+    public EscapeGame recover(ProgressMonitor monitor) throws IOException {
+        assert journal == null : "recover: Trying to recover an escape game while Autosave is running.";
+
+        Path from = Settings.getSettings().getAutosaveDirectory();
+        List<Long> snapshots = listGenerations(from, "snapshot");
+        if (snapshots.isEmpty()) throw new IOException("There is no escape game to recover.");
+
+        IOException failure = null;
+        for (int i = snapshots.size() - 1; i >= 0; i--) {
+            long snapshot = snapshots.get(i);
+            try {
+                EscapeGame recovered = BinarySnapshot.load(snapshotFile(from, snapshot), monitor);
+                for (long journalGeneration : listGenerations(from, "journal")) {
+                    if (journalGeneration >= snapshot) Journal.replay(journalFile(from, journalGeneration), recovered);
+                }
+                return recovered;
+            } catch (IOException e) {
+                if (failure == null) failure = e;
+                else failure.addSuppressed(e);
+            }
+        }
+        throw failure;
+    }
+
+    /**
+     * @precondition {@code game != null}, {@code game} has a name, and must be called on the JavaFX application thread.
+     * @effects Stops recording any other EscapeGame, then starts recording {@code game} from its current content: a
+     * first snapshot is written on the background and every later change is journaled. Any previous autosave is
+     * deleted once that snapshot is written. If the autosave directory can't be written, Autosave stays stopped.
+     */
+    public void start(EscapeGame game){
+        assert game != null : "start: Trying to autosave a null EscapeGame.";
+
+        stop();
+        this.game = game;
+        directory = Settings.getSettings().getAutosaveDirectory();
+        try {
+            Files.createDirectories(directory);
+            List<Long> snapshots = listGenerations(directory, "snapshot");
+            List<Long> journals = listGenerations(directory, "journal");
+            generation = Math.max(snapshots.isEmpty() ? 0 : snapshots.get(snapshots.size() - 1),
+                    journals.isEmpty() ? 0 : journals.get(journals.size() - 1));
+            compact();
+            game.addModelListener(this);
+        } catch (IOException e) {
+            LOGGER.log(System.Logger.Level.WARNING, "The escape game can't be autosaved in " + directory, e);
+            journal = null;
+            this.game = null;
+        }
+    }
+
+    /**
+     * @precondition Must be called on the JavaFX application thread.
+     * @effects Stops recording the changes of the EscapeGame, waits for the files being written, then deletes every
+     * file of the autosave.
+     */
+    public void stop(){
+        if (game != null) game.removeModelListener(this);
+        game = null;
+        if (journal == null) return;
+        close(journal);
+        journal = null;
+        awaitCompaction();
+        try {
+            deleteGenerationsBefore(Long.MAX_VALUE);
+        } catch (IOException e) {
+            LOGGER.log(System.Logger.Level.WARNING, "The autosave in " + directory + " can't be deleted", e);
+        }
+    }
+
+    /**
+     * @effects Appends {@code change} to the journal, and compacts the journal if it has grown too big. If the journal
+     * can't be written anymore, stops recording the changes and keeps the files written so far.
+     */
+    @Override
+    public void modelChanged(ModelChange change) {
+        if (journal == null) return;
+        journal.append(change);
+        try {
+            if (journal.getFailure() != null) throw journal.getFailure();
+            if (journal.size() > COMPACTION_THRESHOLD && (compaction == null || compaction.isDone())) compact();
+        } catch (IOException e) {
+            LOGGER.log(System.Logger.Level.WARNING, "The escape game can't be autosaved anymore", e);
+            game.removeModelListener(this);
+            game = null;
+            close(journal);
+            journal = null;
+        }
+    }
+
+    /**
+     * @precondition Must be called on the JavaFX application thread, and the previous compaction must be done.
+     * @effects Starts the journal of the next generation, then writes the snapshot of that generation and deletes the
+     * older files on the background.
+     */
+    private void compact() throws IOException {
+        EscapeGameSnapshot snapshot = EscapeGameSnapshot.of(game);
+        long next = generation + 1;
+        Journal previous = journal;
+        journal = Journal.create(journalFile(directory, next), next, journalExecutor);
+        generation = next;
+
+        compaction = compactionExecutor.submit(() -> {
+            if (previous != null) close(previous);
+            try {
+                BinarySnapshot.save(snapshot, snapshotFile(directory, next), ProgressMonitor.NONE);
+                deleteGenerationsBefore(next);
+            } catch (IOException e) {
+                // The older snapshot and journals are kept, the escape game can still be recovered from them.
+                LOGGER.log(System.Logger.Level.WARNING, "The autosave snapshot can't be written", e);
+            }
+        });
+    }
+
+    private void awaitCompaction(){
+        if (compaction == null) return;
+        try {
+            compaction.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            LOGGER.log(System.Logger.Level.WARNING, "The autosave compaction failed", e.getCause());
+        }
+        compaction = null;
+    }
+
+    private static void close(Journal journal){
+        try {
+            journal.close();
+        } catch (IOException e) {
+            LOGGER.log(System.Logger.Level.WARNING, "The journal " + journal.getFile() + " can't be closed", e);
+        }
+    }
+
+    /**
+     * @effects Deletes the snapshots and journals of the generations lower than {@code limit}.
+     */
+    private void deleteGenerationsBefore(long limit) throws IOException {
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory)) {
+            for (Path file : files) {
+                Matcher matcher = FILE_NAME.matcher(file.getFileName().toString());
+                if (matcher.matches() && Long.parseLong(matcher.group(2)) < limit) Files.deleteIfExists(file);
+            }
+        }
+    }
+
+    /**
+     * @return Returns, in increasing order, the generations of the files of the kind {@code kind} ("snapshot" or
+     * "journal") in {@code directory}.
+     */
+    private static List<Long> listGenerations(Path directory, String kind) throws IOException {
+        ArrayList<Long> generations = new ArrayList<>();
+        if (!Files.isDirectory(directory)) return generations;
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory)) {
+            for (Path file : files) {
+                Matcher matcher = FILE_NAME.matcher(file.getFileName().toString());
+                if (matcher.matches() && matcher.group(1).equals(kind)) generations.add(Long.parseLong(matcher.group(2)));
+            }
+        }
+        Collections.sort(generations);
+        return generations;
+    }
+
+    private static Path snapshotFile(Path directory, long generation){
+        return directory.resolve("snapshot-" + generation + BinarySnapshot.EXTENSION);
+    }
+
+    private static Path journalFile(Path directory, long generation){
+        return directory.resolve("journal-" + generation + ".log");
+    }
+}
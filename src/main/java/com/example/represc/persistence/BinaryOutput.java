@@ -0,0 +1,128 @@
+package com.example.represc.persistence;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.UUID;
+
+/**
+ * @author Schmetz Arnaud
+ * @version 1.0
+ *
+ * @overview A BinaryOutput writes primitive values, big-endian, to a FileChannel through a buffer. Unlike a stream, it
+ * can go back to a value already written and overwrite it, which is how the length of a section is written once the
+ * section is complete.
+ *
+ * @specfield channel: FileChannel // The channel written to.
+ * @specfield buffer: ByteBuffer // The bytes written but not yet sent to {@code channel}.
+ */
+final class BinaryOutput implements Closeable {
+
+    private final FileChannel channel;
+    private final ByteBuffer buffer = ByteBuffer.allocateDirect(1 << 16);
+
+    BinaryOutput(FileChannel channel) {
+        assert channel != null : "BinaryOutput: Trying to write to a null channel.";
+        this.channel = channel;
+    }
+
+    /**
+     * @return Returns the position in the file of the next byte to be written.
+     */
+    long position() throws IOException {
+        return channel.position() + buffer.position();
+    }
+
+    void writeByte(int value) throws IOException {
+        ensure(1);
+        buffer.put((byte) value);
+    }
+
+    void writeBoolean(boolean value) throws IOException {
+        writeByte(value ? 1 : 0);
+    }
+
+    void writeInt(int value) throws IOException {
+        ensure(4);
+        buffer.putInt(value);
+    }
+
+    void writeLong(long value) throws IOException {
+        ensure(8);
+        buffer.putLong(value);
+    }
+
+    void writeFloat(float value) throws IOException {
+        ensure(4);
+        buffer.putFloat(value);
+    }
+
+    /**
+     * @effects Writes {@code value} as two longs, its most significant bits first.
+     */
+    void writeUUID(UUID value) throws IOException {
+        writeLong(value.getMostSignificantBits());
+        writeLong(value.getLeastSignificantBits());
+    }
+
+    /**
+     * @effects Writes {@code value} as its length in bytes followed by its UTF-8 bytes, or as -1 if it is null.
+     */
+    void writeString(String value) throws IOException {
+        if (value == null) {
+            writeInt(-1);
+            return;
+        }
+        writeBytes(value.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * @effects Writes the length of {@code bytes} followed by {@code bytes}.
+     */
+    void writeBytes(byte[] bytes) throws IOException {
+        writeInt(bytes.length);
+        int offset = 0;
+        while (offset < bytes.length) {
+            ensure(1);
+            int count = Math.min(buffer.remaining(), bytes.length - offset);
+            buffer.put(bytes, offset, count);
+            offset += count;
+        }
+    }
+
+    /**
+     * @precondition {@code position} is the position of a long already written.
+     * @effects Overwrites the long written at {@code position} with {@code value}.
+     */
+    void patchLong(long position, long value) throws IOException {
+        flush();
+        ByteBuffer patch = ByteBuffer.allocate(8).putLong(0, value);
+        while (patch.hasRemaining()) channel.write(patch, position + patch.position());
+    }
+
+    void flush() throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) channel.write(buffer);
+        buffer.clear();
+    }
+
+    /**
+     * @effects Writes the buffered bytes and forces the file to the disk.
+     */
+    void force() throws IOException {
+        flush();
+        channel.force(true);
+    }
+
+    @Override
+    public void close() throws IOException {
+        flush();
+        channel.close();
+    }
+
+    private void ensure(int bytes) throws IOException {
+        if (buffer.remaining() < bytes) flush();
+    }
+}
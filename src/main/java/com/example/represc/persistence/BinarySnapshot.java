@@ -0,0 +1,583 @@
+package com.example.represc.persistence;
+
+import com.example.represc.data.Countdown;
+import com.example.represc.data.EscapeGame;
+import com.example.represc.data.Event;
+import com.example.represc.data.Hint;
+import com.example.represc.data.Geometry;
+import com.example.represc.data.Lazy;
+import com.example.represc.data.PhysicalElement;
+import com.example.represc.data.Position;
+import com.example.represc.data.Problem;
+import com.example.represc.data.Trigger;
+import com.example.represc.persistence.EscapeGameSnapshot.CountdownSnapshot;
+import com.example.represc.persistence.EscapeGameSnapshot.ElementSnapshot;
+import com.example.represc.persistence.EscapeGameSnapshot.EventSnapshot;
+import com.example.represc.persistence.EscapeGameSnapshot.HintSnapshot;
+import com.example.represc.persistence.EscapeGameSnapshot.ProblemSnapshot;
+import com.example.represc.persistence.EscapeGameSnapshot.StateSnapshot;
+import com.example.represc.utils.commonPhysicalElements.ElementType;
+
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.UUID;
+import java.util.concurrent.CancellationException;
+
+/**
+ * @author Schmetz Arnaud
+ * @version 1.0
+ *
+ * @overview BinarySnapshot saves and loads escape games in a compact binary container, next to the "REPR-ESC Spec JSON"
+ * format. It is meant for autosaves and other files which must be reopened quickly: nothing has to be parsed but the
+ * SVG paths, which are stored already tokenized, and the file is read through a memory mapped FileChannel.
+ *
+ * A file is made of a header followed by sections (all numbers are big-endian):
+ * <pre>
+ * file      := MAGIC:int VERSION:int sectionCount:int section*
+ * section   := tag:int length:long payload          // length is the size of payload in bytes
+ * uuid      := mostSignificantBits:long leastSignificantBits:long
+ * string    := length:int utf8Bytes                 // length is -1 for a missing (null) string
+ * shape     := commandCount:int commandLetters coordinateCount:int coordinates:float*
+ *
+ * GAME       := name description difficulty playersMinimum:int playersMaximum:int estimatedDurationSeconds:long
+ *                                                   // -1 for missing numbers
+ * ELEMENTS   := count:int (uuid name description shape accessible:byte type:string)*
+ * STATES     := count:int (elementUuid initialStateUuid stateCount:int (uuid name description accessible:byte)*)*
+ * HINTS      := count:int (uuid name description hasPosition:byte [x:double y:double] count:int elementUuid*)*
+ * PROBLEMS   := count:int (uuid name description count:int elementUuid*)*
+ * COUNTDOWNS := count:int (uuid name description seconds:long nanos:int)*
+ * EVENTS     := count:int (uuid name description trigger:string count:int (elementUuid stateUuid)*)*
+ *                                                   // trigger is the JSONLogic source, missing if there is none
+ * </pre>
+ * Sections are written in the order above, the ones referencing Physical Elements coming after ELEMENTS. A reader skips
+ * the sections it doesn't know, so sections can be added without changing the version; the version only changes when
+ * the layout of an existing section does.
+ *
+ * A lazy load doesn't read the shapes and descriptions of the Physical Elements: they are kept as offsets in the
+ * mapped file {@link Lazy} and only read when they are asked for. The file stays mapped as long as one of them
+ * is in use, so it must only be replaced by moving another file over it, as the saves do, never written in place.
+ */
+public class BinarySnapshot {
+
+    /**
+     * @overview The extension of the files written by BinarySnapshot.
+     */
+    public static final String EXTENSION = ".rpsc";
+
+    static final int MAGIC = 0x52505343; // "RPSC"
+    static final int VERSION = 1;
+
+    static final int GAME = 1;
+    static final int ELEMENTS = 2;
+    static final int STATES = 3;
+    static final int HINTS = 4;
+    static final int PROBLEMS = 5;
+    static final int COUNTDOWNS = 6;
+    static final int EVENTS = 7;
+
+    private BinarySnapshot() {
+    }
+
+    /**
+     * @precondition {@code game != null && file != null} and must be called by the thread owning {@code game}.
+     * @effects Saves the current content of {@code game} into {@code file}.
+     * @throws IOException if the file can't be written.
+     */
+    public static void save(EscapeGame game, Path file) throws IOException {
+        save(EscapeGameSnapshot.of(game), file, ProgressMonitor.NONE);
+    }
+
+    /**
+     * @precondition {@code snapshot != null && file != null && monitor != null}
+     * @effects Saves {@code snapshot} into {@code file}, telling {@code monitor} how many elements out of
+     * {@code snapshot.size()} have been written. The file is written next to {@code file} then moved over it, so
+     * {@code file} is left untouched if the save fails or {@code monitor} is cancelled.
+     * @throws IOException if the file can't be written.
+     */
+    static void save(EscapeGameSnapshot snapshot, Path file, ProgressMonitor monitor) throws IOException {
+        assert snapshot != null : "save: Trying to save a null snapshot.";
+        assert file != null : "save: Trying to save an escape game to a null path.";
+        assert monitor != null : "save: Trying to save an escape game with a null ProgressMonitor.";
+
+        Path absolute = file.toAbsolutePath();
+        Path temporary = Files.createTempFile(absolute.getParent(), absolute.getFileName().toString(), ".tmp");
+        try {
+            try (BinaryOutput out = new BinaryOutput(FileChannel.open(temporary, StandardOpenOption.WRITE,
+                    StandardOpenOption.TRUNCATE_EXISTING))) {
+                write(snapshot, out, monitor);
+                out.force();
+            }
+            try {
+                Files.move(temporary, absolute, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temporary, absolute, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } finally {
+            Files.deleteIfExists(temporary);
+        }
+    }
+
+    /**
+     * @precondition {@code file != null}
+     * @return Returns a new EscapeGame holding the escape game saved in {@code file}.
+     * @throws IOException if the file can't be read or is not a valid snapshot.
+     */
+    public static EscapeGame load(Path file) throws IOException {
+        return load(file, ProgressMonitor.NONE);
+    }
+
+    /**
+     * @precondition {@code file != null && monitor != null}
+     * @effects Tells {@code monitor} how many bytes of the file have been read. If {@code monitor} is cancelled, a
+     * CancellationException is thrown.
+     * @return Returns a new EscapeGame holding the escape game saved in {@code file}.
+     * @throws IOException if the file can't be read or is not a valid snapshot.
+     */
+    public static EscapeGame load(Path file, ProgressMonitor monitor) throws IOException {
+        return load(file, monitor, false);
+    }
+
+    /**
+     * @precondition {@code file != null && monitor != null}
+     * @effects Same as {@code load(file, monitor)}, leaving the shapes and descriptions of the Physical Elements in the
+     * mapped file until they are asked for if {@code lazy} is true.
+     * @throws IOException if the file can't be read or is not a valid snapshot.
+     */
+    public static EscapeGame load(Path file, ProgressMonitor monitor, boolean lazy) throws IOException {
+        assert file != null : "load: Trying to load an escape game from a null path.";
+        assert monitor != null : "load: Trying to load an escape game with a null ProgressMonitor.";
+
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            if (channel.size() > Integer.MAX_VALUE) throw new IOException("The snapshot is too big to be mapped.");
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            return read(buffer, monitor, lazy);
+        } catch (IOException | RuntimeException e) {
+            if (e instanceof BufferUnderflowException || e instanceof IllegalArgumentException) {
+                throw new IOException("The snapshot " + file + " is truncated or corrupted.", e);
+            }
+            throw e;
+        }
+    }
+
+
+    private static void write(EscapeGameSnapshot snapshot, BinaryOutput out, ProgressMonitor monitor)
+            throws IOException {
+        long total = snapshot.size();
+        long done = 0;
+
+        out.writeInt(MAGIC);
+        out.writeInt(VERSION);
+        out.writeInt(7);
+
+        long section = beginSection(out, GAME);
+        out.writeString(snapshot.name);
+        out.writeString(snapshot.description);
+        out.writeString(snapshot.difficulty);
+        out.writeInt(snapshot.playersMinimum == null ? -1 : snapshot.playersMinimum);
+        out.writeInt(snapshot.playersMaximum == null ? -1 : snapshot.playersMaximum);
+        out.writeLong(snapshot.estimatedDuration == null ? -1 : snapshot.estimatedDuration.getSeconds());
+        endSection(out, section);
+
+        section = beginSection(out, ELEMENTS);
+        out.writeInt(snapshot.elements.size());
+        for (ElementSnapshot element : snapshot.elements) {
+            out.writeUUID(element.id);
+            out.writeString(element.name);
+            out.writeString(element.description());
+            Geometry shape = element.shape();
+            out.writeInt(shape.getCommandCount());
+            for (int i = 0; i < shape.getCommandCount(); i++) out.writeByte(shape.getCommand(i));
+            out.writeInt(shape.getCoordinateCount());
+            for (int i = 0; i < shape.getCoordinateCount(); i++) out.writeFloat(shape.getCoordinate(i));
+            out.writeBoolean(element.accessible);
+            out.writeString(element.type.name());
+            report(monitor, ++done, total);
+        }
+        endSection(out, section);
+
+        section = beginSection(out, STATES);
+        int withStates = 0;
+        for (ElementSnapshot element : snapshot.elements) if (!element.states.isEmpty()) withStates++;
+        out.writeInt(withStates);
+        for (ElementSnapshot element : snapshot.elements) {
+            if (element.states.isEmpty()) continue;
+            out.writeUUID(element.id);
+            out.writeUUID(element.initialState);
+            out.writeInt(element.states.size());
+            for (StateSnapshot state : element.states) {
+                out.writeUUID(state.id);
+                out.writeString(state.name);
+                out.writeString(state.description);
+                out.writeBoolean(state.accessible);
+            }
+        }
+        endSection(out, section);
+
+        section = beginSection(out, HINTS);
+        out.writeInt(snapshot.hints.size());
+        for (HintSnapshot hint : snapshot.hints) {
+            out.writeUUID(hint.id);
+            out.writeString(hint.name);
+            out.writeString(hint.description);
+            out.writeBoolean(hint.position != null);
+            if (hint.position != null) {
+                out.writeLong(Double.doubleToLongBits(hint.position.getX()));
+                out.writeLong(Double.doubleToLongBits(hint.position.getY()));
+            }
+            out.writeInt(hint.elements.size());
+            for (UUID element : hint.elements) out.writeUUID(element);
+            report(monitor, ++done, total);
+        }
+        endSection(out, section);
+
+        section = beginSection(out, PROBLEMS);
+        out.writeInt(snapshot.problems.size());
+        for (ProblemSnapshot problem : snapshot.problems) {
+            out.writeUUID(problem.id);
+            out.writeString(problem.name);
+            out.writeString(problem.description);
+            out.writeInt(problem.elements.size());
+            for (UUID element : problem.elements) out.writeUUID(element);
+            report(monitor, ++done, total);
+        }
+        endSection(out, section);
+
+        section = beginSection(out, COUNTDOWNS);
+        out.writeInt(snapshot.countdowns.size());
+        for (CountdownSnapshot countdown : snapshot.countdowns) {
+            out.writeUUID(countdown.id);
+            out.writeString(countdown.name);
+            out.writeString(countdown.description);
+            out.writeLong(countdown.duration.getSeconds());
+            out.writeInt(countdown.duration.getNano());
+            report(monitor, ++done, total);
+        }
+        endSection(out, section);
+
+        section = beginSection(out, EVENTS);
+        out.writeInt(snapshot.events.size());
+        for (EventSnapshot event : snapshot.events) {
+            out.writeUUID(event.id);
+            out.writeString(event.name);
+            out.writeString(event.description);
+            out.writeString(event.trigger == null ? null : event.trigger.getSource());
+            out.writeInt(event.actions.size());
+            for (Event.Action action : event.actions) {
+                out.writeUUID(action.getElement());
+                out.writeUUID(action.getState());
+            }
+            report(monitor, ++done, total);
+        }
+        endSection(out, section);
+    }
+
+    /**
+     * @effects Writes the header of a section whose length is not known yet.
+     * @return Returns the position of the length of the section.
+     */
+    private static long beginSection(BinaryOutput out, int tag) throws IOException {
+        out.writeInt(tag);
+        long lengthPosition = out.position();
+        out.writeLong(0);
+        return lengthPosition;
+    }
+
+    private static void endSection(BinaryOutput out, long lengthPosition) throws IOException {
+        out.patchLong(lengthPosition, out.position() - lengthPosition - 8);
+    }
+
+    private static EscapeGame read(ByteBuffer buffer, ProgressMonitor monitor, boolean lazy) throws IOException {
+        if (buffer.remaining() < 12 || buffer.getInt() != MAGIC) throw new IOException("Not an escape game snapshot.");
+        int version = buffer.getInt();
+        if (version > VERSION) {
+            throw new IOException("The snapshot has version " + version + ", only versions up to " + VERSION +
+                    " can be read.");
+        }
+        int sectionCount = buffer.getInt();
+
+        EscapeGame game = new EscapeGame();
+        boolean elementsRead = false;
+        for (int i = 0; i < sectionCount; i++) {
+            int tag = buffer.getInt();
+            long length = buffer.getLong();
+            if (length < 0 || length > buffer.remaining()) throw new IOException("Corrupted section length.");
+            int end = buffer.position() + (int) length;
+
+            if (!elementsRead && (tag == STATES || tag == HINTS || tag == PROBLEMS)) {
+                throw new IOException("A section references Physical Elements before they are defined.");
+            }
+            ByteBuffer payload = buffer.slice(buffer.position(), (int) length);
+            switch (tag) {
+                case GAME -> readGame(payload, game);
+                case ELEMENTS -> { readElements(payload, game, lazy); elementsRead = true; }
+                case STATES -> readStates(payload, game);
+                case HINTS -> readHints(payload, game);
+                case PROBLEMS -> readProblems(payload, game);
+                case COUNTDOWNS -> readCountdowns(payload, game);
+                case EVENTS -> readEvents(payload, game);
+                default -> { } // Sections added by later versions are skipped.
+            }
+            buffer.position(end);
+            report(monitor, end, buffer.limit());
+        }
+        if (game.getName() == null) throw new IOException("The snapshot has no escape game name.");
+        return game;
+    }
+
+    private static void readGame(ByteBuffer in, EscapeGame game) {
+        game.setName(readString(in));
+        String description = readString(in);
+        if (description != null) game.setDescription(description);
+        String difficulty = readString(in);
+        if (difficulty != null) game.setDifficulty(difficulty);
+        int minimum = in.getInt();
+        int maximum = in.getInt();
+        if (minimum >= 0 && maximum >= 0) game.setPlayersRange(minimum, maximum);
+        else if (minimum >= 0) game.setPlayersMinimum(minimum);
+        else if (maximum >= 0) game.setPlayersMaximum(maximum);
+        long seconds = in.getLong();
+        if (seconds >= 0) game.setEstimatedDuration(Duration.ofSeconds(seconds));
+    }
+
+    private static void readElements(ByteBuffer in, EscapeGame game, boolean lazy) throws IOException {
+        int count = in.getInt();
+        for (int i = 0; i < count; i++) {
+            UUID id = readUUID(in);
+            String name = readString(in);
+            if (lazy) {
+                Lazy<String> description = MappedString.skip(in);
+                Lazy<Geometry> shape = MappedGeometry.skip(in);
+                boolean accessible = in.get() != 0;
+                game.addPhysicalElement(id, new PhysicalElement(name, shape, accessible, readType(in), description));
+                continue;
+            }
+            String description = readString(in);
+            byte[] commands = new byte[in.getInt()];
+            in.get(commands);
+            float[] coordinates = new float[in.getInt()];
+            in.asFloatBuffer().get(coordinates);
+            in.position(in.position() + coordinates.length * 4);
+            boolean accessible = in.get() != 0;
+            ElementType type = readType(in);
+
+            Geometry shape = Geometry.of(commands, coordinates);
+            game.addPhysicalElement(id, description == null
+                    ? new PhysicalElement(name, shape, accessible, type)
+                    : new PhysicalElement(name, shape, accessible, type, description));
+        }
+    }
+
+    private static void readStates(ByteBuffer in, EscapeGame game) throws IOException {
+        int count = in.getInt();
+        for (int i = 0; i < count; i++) {
+            UUID elementId = readUUID(in);
+            if (!game.containsPhysicalElement(elementId)) throw new IOException("States of an unknown Physical Element.");
+            PhysicalElement element = game.getPhysicalElement(elementId);
+            UUID initialState = readUUID(in);
+            int stateCount = in.getInt();
+            for (int j = 0; j < stateCount; j++) {
+                UUID id = readUUID(in);
+                String name = readString(in);
+                String description = readString(in);
+                boolean accessible = in.get() != 0;
+                element.addState(id, description == null
+                        ? new PhysicalElement.State(name, accessible)
+                        : new PhysicalElement.State(name, accessible, description));
+            }
+            if (!element.doesContainState(initialState)) throw new IOException("Unknown initial state.");
+            element.setInitialState(initialState);
+        }
+    }
+
+    private static void readHints(ByteBuffer in, EscapeGame game) throws IOException {
+        int count = in.getInt();
+        for (int i = 0; i < count; i++) {
+            UUID id = readUUID(in);
+            Hint hint = new Hint(readString(in));
+            String description = readString(in);
+            if (description != null) hint.setDescription(description);
+            if (in.get() != 0) {
+                double x = Double.longBitsToDouble(in.getLong());
+                double y = Double.longBitsToDouble(in.getLong());
+                hint.setPosition(new Position(x, y));
+            }
+            int references = in.getInt();
+            for (int j = 0; j < references; j++) hint.addPhysicalElement(readReference(in, game));
+            game.addHint(id, hint);
+        }
+    }
+
+    private static void readProblems(ByteBuffer in, EscapeGame game) throws IOException {
+        int count = in.getInt();
+        for (int i = 0; i < count; i++) {
+            UUID id = readUUID(in);
+            Problem problem = new Problem(readString(in));
+            String description = readString(in);
+            if (description != null) problem.setDescription(description);
+            int references = in.getInt();
+            for (int j = 0; j < references; j++) problem.addPhysicalElement(readReference(in, game));
+            game.addProblem(id, problem);
+        }
+    }
+
+    private static void readCountdowns(ByteBuffer in, EscapeGame game) {
+        int count = in.getInt();
+        for (int i = 0; i < count; i++) {
+            UUID id = readUUID(in);
+            String name = readString(in);
+            String description = readString(in);
+            Duration duration = Duration.ofSeconds(in.getLong(), in.getInt());
+            game.addCountdown(id, description == null
+                    ? new Countdown(name, duration)
+                    : new Countdown(name, duration, description));
+        }
+    }
+
+    private static void readEvents(ByteBuffer in, EscapeGame game) throws IOException {
+        int count = in.getInt();
+        for (int i = 0; i < count; i++) {
+            UUID id = readUUID(in);
+            Event event = new Event(readString(in));
+            String description = readString(in);
+            if (description != null) event.setDescription(description);
+            String trigger = readString(in);
+            if (trigger != null) event.setTrigger(parseTrigger(trigger));
+            int actions = in.getInt();
+            for (int j = 0; j < actions; j++) event.addAction(new Event.Action(readUUID(in), readUUID(in)));
+            game.addEvent(id, event);
+        }
+    }
+
+    /**
+     * @return Returns the Trigger whose source is {@code source}.
+     * @throws IOException if {@code source} is not a valid Trigger.
+     */
+    static Trigger parseTrigger(String source) throws IOException {
+        try {
+            return Trigger.parse(source);
+        } catch (IllegalArgumentException e) {
+            throw new IOException("Invalid Trigger: " + e.getMessage());
+        }
+    }
+
+    private static UUID readReference(ByteBuffer in, EscapeGame game) throws IOException {
+        UUID element = readUUID(in);
+        if (!game.containsPhysicalElement(element)) throw new IOException("Reference to an unknown Physical Element.");
+        return element;
+    }
+
+    private static ElementType readType(ByteBuffer in) throws IOException {
+        String type = readString(in);
+        try {
+            return ElementType.valueOf(type);
+        } catch (IllegalArgumentException | NullPointerException e) {
+            throw new IOException("Unknown Physical Element type \"" + type + "\".");
+        }
+    }
+
+    static UUID readUUID(ByteBuffer in) {
+        return new UUID(in.getLong(), in.getLong());
+    }
+
+    static String readString(ByteBuffer in) {
+        int length = in.getInt();
+        if (length < 0) return null;
+        byte[] bytes = new byte[length];
+        in.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * @overview A string of a mapped snapshot, read when it is needed.
+     */
+    private static final class MappedString extends Lazy<String> {
+        private final ByteBuffer buffer;
+        private final int offset;
+        private final int length;
+
+        private MappedString(ByteBuffer buffer, int offset, int length) {
+            this.buffer = buffer;
+            this.offset = offset;
+            this.length = length;
+        }
+
+        /**
+         * @effects Skips the string at the position of {@code in}.
+         * @return Returns the Lazy of the string skipped, or null if it was a missing string.
+         */
+        static Lazy<String> skip(ByteBuffer in) {
+            int length = in.getInt();
+            if (length < 0) return null;
+            MappedString string = new MappedString(in, in.position(), length);
+            in.position(in.position() + length);
+            return string;
+        }
+
+        @Override
+        protected String load() {
+            byte[] bytes = new byte[length];
+            buffer.get(offset, bytes);
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+
+        @Override
+        protected long size(String value) {
+            return 2L * value.length();
+        }
+    }
+
+    /**
+     * @overview The shape of a mapped snapshot, read when it is needed.
+     */
+    private static final class MappedGeometry extends Lazy<Geometry> {
+        private final ByteBuffer buffer;
+        private final int offset;
+
+        private MappedGeometry(ByteBuffer buffer, int offset) {
+            this.buffer = buffer;
+            this.offset = offset;
+        }
+
+        /**
+         * @effects Skips the shape at the position of {@code in}.
+         * @return Returns the Lazy of the shape skipped.
+         */
+        static Lazy<Geometry> skip(ByteBuffer in) {
+            MappedGeometry shape = new MappedGeometry(in, in.position());
+            in.position(in.position() + 4 + in.getInt(in.position()));
+            if (in.remaining() < 4) throw new IllegalArgumentException("Truncated shape.");
+            in.position(in.position() + 4 + 4 * in.getInt(in.position()));
+            return shape;
+        }
+
+        @Override
+        protected Geometry load() {
+            ByteBuffer in = buffer.duplicate().position(offset);
+            byte[] commands = new byte[in.getInt()];
+            in.get(commands);
+            float[] coordinates = new float[in.getInt()];
+            in.asFloatBuffer().get(coordinates);
+            return Geometry.of(commands, coordinates);
+        }
+
+        @Override
+        protected long size(Geometry value) {
+            return value.size();
+        }
+    }
+
+    private static void report(ProgressMonitor monitor, long done, long total) {
+        if (monitor.isCancelled()) throw new CancellationException("The operation on the snapshot was cancelled.");
+        monitor.progress(done, total);
+    }
+}
@@ -0,0 +1,603 @@
+package com.example.represc.persistence;
+
+import com.example.represc.data.Countdown;
+import com.example.represc.data.EscapeGame;
+import com.example.represc.data.Event;
+import com.example.represc.data.Hint;
+import com.example.represc.data.Geometry;
+import com.example.represc.data.Lazy;
+import com.example.represc.data.PhysicalElement;
+import com.example.represc.data.Position;
+import com.example.represc.data.Problem;
+import com.example.represc.data.Trigger;
+import com.example.represc.utils.commonPhysicalElements.ElementType;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.UUID;
+import java.util.concurrent.CancellationException;
+
+/**
+ * @author Schmetz Arnaud
+ * @version 1.0
+ *
+ * @overview An EscapeGameLoader reads an escape game saved following the "REPR-ESC Spec JSON" format into a new
+ * EscapeGame {@link EscapeGame}, in a single pass over the file. The file is read token by token with a
+ * JsonReader {@link JsonReader}, and every Physical Element, Hint, Problem, Countdown and Event is created as soon as
+ * it has been read, so no representation of the whole document is ever kept in memory.
+ * Since the order of the properties of a JSON object is not significant, the references to Physical Elements and States
+ * made by Hints, Problems and Events are only resolved once the whole file has been read.
+ *
+ * In lazy mode, the descriptions of the Physical Elements are kept compressed until they are asked for
+ * {@link Lazy}, which is meant for big escape games of which only a part is shown, or none at all (verification,
+ * simulation).
+ * Each load builds its own EscapeGame, so several escape games can be loaded at once on different threads.
+ *
+ * @specfield game: EscapeGame // The EscapeGame being filled.
+ * @specfield lazy: boolean // Whether the descriptions of the Physical Elements are kept compressed.
+ * @specfield elementIds: HashMap: String to UUID // Maps the Id of each Physical Element in the file to the UUID it has
+ * been given in the EscapeGame.
+ * @specfield pendingHints: HashMap: Hint to ArrayList of String // The Ids of the Physical Elements referenced by each
+ * Hint, not resolved yet.
+ * @specfield pendingProblems: HashMap: Problem to ArrayList of String // The Ids of the Physical Elements referenced by
+ * each Problem, not resolved yet.
+ * @specfield stateIds: HashMap: String to HashMap: String to UUID // Maps the Id of each State in the file, per Id of
+ * its Physical Element, to the UUID it has been given in the EscapeGame.
+ * @specfield pendingEvents: HashMap: Event to PendingEvent // The Trigger and the Actions of each Event, naming the
+ * Physical Elements and States by their Ids, not resolved yet.
+ */
+public class EscapeGameLoader {
+
+    private final EscapeGame game = new EscapeGame();
+    private final HashMap<String, UUID> elementIds = new HashMap<>();
+    private final HashMap<Hint, ArrayList<String>> pendingHints = new HashMap<>();
+    private final HashMap<Problem, ArrayList<String>> pendingProblems = new HashMap<>();
+    private final HashMap<String, HashMap<String, UUID>> stateIds = new HashMap<>();
+    private final LinkedHashMap<Event, PendingEvent> pendingEvents = new LinkedHashMap<>();
+
+    private final ProgressMonitor monitor;
+    private final long totalWork;
+    private final boolean lazy;
+
+    private EscapeGameLoader(ProgressMonitor monitor, long totalWork, boolean lazy) {
+        this.monitor = monitor;
+        this.totalWork = totalWork;
+        this.lazy = lazy;
+    }
+
+    /**
+     * @precondition {@code file != null}
+     * @return Returns a new EscapeGame holding the escape game saved in {@code file}.
+     * @throws IOException if the file can't be read or doesn't follow the specification.
+     */
+    public static EscapeGame load(Path file) throws IOException {
+        return load(file, ProgressMonitor.NONE);
+    }
+
+    /**
+     * @precondition {@code file != null && monitor != null}
+     * @effects Tells {@code monitor} how many characters of the file have been read. If {@code monitor} is cancelled,
+     * a CancellationException is thrown.
+     * @return Returns a new EscapeGame holding the escape game saved in {@code file}.
+     * @throws IOException if the file can't be read or doesn't follow the specification.
+     */
+    public static EscapeGame load(Path file, ProgressMonitor monitor) throws IOException {
+        return load(file, monitor, false);
+    }
+
+    /**
+     * @precondition {@code file != null && monitor != null}
+     * @effects Same as {@code load(file, monitor)}, keeping the descriptions of the Physical Elements
+     * compressed until they are asked for if {@code lazy} is true.
+     * @throws IOException if the file can't be read or doesn't follow the specification.
+     */
+    public static EscapeGame load(Path file, ProgressMonitor monitor, boolean lazy) throws IOException {
+        assert file != null : "load: Trying to load an escape game from a null path.";
+        assert monitor != null : "load: Trying to load an escape game with a null ProgressMonitor.";
+        try (Reader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            return load(reader, monitor, Files.size(file), lazy);
+        }
+    }
+
+    /**
+     * @precondition {@code in != null}
+     * @return Returns a new EscapeGame holding the escape game read from {@code in}.
+     * @throws IOException if {@code in} can't be read or doesn't follow the specification.
+     */
+    public static EscapeGame load(Reader in) throws IOException {
+        return load(in, ProgressMonitor.NONE, -1);
+    }
+
+    /**
+     * @precondition {@code in != null && monitor != null}
+     * @effects Tells {@code monitor} how many characters, out of {@code totalCharacters}, have been read.
+     * @return Returns a new EscapeGame holding the escape game read from {@code in}.
+     * @throws IOException if {@code in} can't be read or doesn't follow the specification.
+     */
+    public static EscapeGame load(Reader in, ProgressMonitor monitor, long totalCharacters) throws IOException {
+        return load(in, monitor, totalCharacters, false);
+    }
+
+    private static EscapeGame load(Reader in, ProgressMonitor monitor, long totalCharacters, boolean lazy)
+            throws IOException {
+        assert in != null : "load: Trying to load an escape game from a null Reader.";
+        assert monitor != null : "load: Trying to load an escape game with a null ProgressMonitor.";
+        EscapeGameLoader loader = new EscapeGameLoader(monitor, totalCharacters, lazy);
+        loader.read(new JsonReader(in));
+        return loader.game;
+    }
+
+    /**
+     * @effects Tells the monitor how far the reading has gone.
+     * @throws CancellationException if the monitor has been cancelled.
+     */
+    private void report(JsonReader reader) {
+        if (monitor.isCancelled()) throw new CancellationException("Loading of the escape game cancelled.");
+        monitor.progress(reader.getCharactersRead(), totalWork);
+    }
+
+    /**
+     * @effects Reads the whole document of {@code reader} into {@code game}.
+     */
+    void read(JsonReader reader) throws IOException {
+        String name = null;
+        Integer playersMinimum = null;
+        Integer playersMaximum = null;
+
+        reader.beginObject();
+        while (reader.hasNext()) {
+            String property = reader.nextName();
+            switch (property) {
+                case "Name" -> name = reader.nextString();
+                case "Description" -> game.setDescription(reader.nextString());
+                case "Difficulty" -> game.setDifficulty(reader.nextString());
+                case "Players minimum" -> playersMinimum = reader.nextInt();
+                // "Players maxmum" is the spelling of the specification draft.
+                case "Players maximum", "Players maxmum" -> playersMaximum = reader.nextInt();
+                case "Estimated duration" -> {
+                    long minutes = reader.nextLong();
+                    if (minutes < 0) throw new IOException("\"Estimated duration\" must be positive.");
+                    game.setEstimatedDuration(Duration.ofMinutes(minutes));
+                }
+                case "Physical elements" -> readPhysicalElements(reader, game);
+                case "Hints" -> readHints(reader, game);
+                case "Problems" -> readProblems(reader, game);
+                case "Countdowns" -> readCountdowns(reader, game);
+                case "Events" -> readEvents(reader, game);
+                default -> reader.skipValue(); // Unknown properties
+            }
+        }
+        reader.endObject();
+        if (reader.peek() != JsonReader.Token.END_DOCUMENT) {
+            throw new IOException("Unexpected content after the escape game " + reader.getLocation());
+        }
+
+        if (name == null || name.isBlank()) throw new IOException("The escape game has no \"Name\".");
+        game.setName(name);
+        setPlayers(game, playersMinimum, playersMaximum);
+        resolveReferences();
+        monitor.progress(reader.getCharactersRead(), reader.getCharactersRead());
+    }
+
+    private void setPlayers(EscapeGame game, Integer minimum, Integer maximum) throws IOException {
+        if (minimum != null && minimum < 0) throw new IOException("\"Players minimum\" must be positive.");
+        if (maximum != null && maximum < 0) throw new IOException("\"Players maximum\" must be positive.");
+        if (minimum != null && maximum != null) {
+            if (minimum > maximum) throw new IOException("\"Players minimum\" is bigger than \"Players maximum\".");
+            game.setPlayersRange(minimum, maximum);
+        } else if (minimum != null) {
+            game.setPlayersMinimum(minimum);
+        } else if (maximum != null) {
+            game.setPlayersMaximum(maximum);
+        }
+    }
+
+    private void readPhysicalElements(JsonReader reader, EscapeGame game) throws IOException {
+        reader.beginObject();
+        while (reader.hasNext()) {
+            String id = reader.nextName();
+            if (elementIds.containsKey(id)) throw new IOException("Duplicated Physical Element Id \"" + id + "\".");
+            HashMap<String, UUID> states = new HashMap<>();
+            elementIds.put(id, game.addPhysicalElement(readPhysicalElement(reader, id, states)));
+            stateIds.put(id, states);
+            report(reader);
+        }
+        reader.endObject();
+    }
+
+    /**
+     * @effects Puts in {@code stateUUIDs} the UUID given to each State of the Physical Element, by its Id.
+     * @return Returns the Physical Element {@code id} read from {@code reader}.
+     */
+    private PhysicalElement readPhysicalElement(JsonReader reader, String id, HashMap<String, UUID> stateUUIDs)
+            throws IOException {
+        String name = null;
+        String description = null;
+        String shape = null;
+        Boolean accessible = null;
+        ElementType type = null;
+        PhysicalElement.State[] states = null;
+        String[] stateIds = null;
+        String initialState = null;
+
+        reader.beginObject();
+        while (reader.hasNext()) {
+            switch (reader.nextName()) {
+                case "Name" -> name = reader.nextString();
+                case "Description" -> description = reader.nextString();
+                case "Shape" -> shape = reader.nextString();
+                case "Accessible" -> accessible = reader.nextBoolean();
+                case "Type" -> type = parseType(reader.nextString());
+                case "States" -> {
+                    ArrayList<String> ids = new ArrayList<>();
+                    ArrayList<PhysicalElement.State> read = new ArrayList<>();
+                    reader.beginObject();
+                    while (reader.hasNext()) {
+                        String stateId = reader.nextName();
+                        if (stateId.equals("Initial state")) {
+                            initialState = reader.nextString();
+                        } else {
+                            ids.add(stateId);
+                            read.add(readState(reader, stateId));
+                        }
+                    }
+                    reader.endObject();
+                    stateIds = ids.toArray(new String[0]);
+                    states = read.toArray(new PhysicalElement.State[0]);
+                }
+                default -> reader.skipValue(); // "Position" is deduced from the shape
+            }
+        }
+        reader.endObject();
+
+        // The specification has no "Name" for physical elements, the Id is used instead.
+        if (name == null) name = id;
+        if (shape == null) throw new IOException("The Physical Element \"" + id + "\" has no \"Shape\".");
+        if (accessible == null) throw new IOException("The Physical Element \"" + id + "\" has no \"Accessible\".");
+        if (type == null) throw new IOException("The Physical Element \"" + id + "\" has no \"Type\".");
+
+        PhysicalElement element;
+        try {
+            if (lazy) {
+                // Only the syntax of the shape is checked, it is parsed when it is first shown.
+                element = new PhysicalElement(name, Lazy.shape(shape), accessible, type,
+                        description == null ? null : Lazy.compress(description));
+            } else {
+                Geometry geometry = Geometry.parse(shape);
+                element = description == null
+                        ? new PhysicalElement(name, geometry, accessible, type)
+                        : new PhysicalElement(name, geometry, accessible, type, description);
+            }
+        } catch (IllegalArgumentException e) {
+            throw new IOException("The \"Shape\" of the Physical Element \"" + id + "\" is invalid: " + e.getMessage());
+        }
+
+        if (states != null && states.length > 0) {
+            UUID initialUUID = null;
+            for (int i = 0; i < states.length; i++) {
+                UUID stateUUID = element.addState(states[i]);
+                stateUUIDs.put(stateIds[i], stateUUID);
+                if (stateIds[i].equals(initialState)) initialUUID = stateUUID;
+            }
+            if (initialState != null && initialUUID == null) {
+                throw new IOException("The initial state \"" + initialState + "\" of the Physical Element \"" + id +
+                        "\" is not one of its states.");
+            }
+            if (initialUUID != null) element.setInitialState(initialUUID);
+        }
+        return element;
+    }
+
+    private PhysicalElement.State readState(JsonReader reader, String id) throws IOException {
+        String name = null;
+        String description = null;
+        Boolean accessible = null;
+
+        reader.beginObject();
+        while (reader.hasNext()) {
+            switch (reader.nextName()) {
+                case "Name" -> name = reader.nextString();
+                case "Description" -> description = reader.nextString();
+                case "Accessible" -> accessible = reader.nextBoolean();
+                default -> reader.skipValue();
+            }
+        }
+        reader.endObject();
+
+        if (name == null || name.isBlank()) throw new IOException("The State \"" + id + "\" has no \"Name\".");
+        if (accessible == null) throw new IOException("The State \"" + id + "\" has no \"Accessible\".");
+        return description == null
+                ? new PhysicalElement.State(name, accessible)
+                : new PhysicalElement.State(name, accessible, description);
+    }
+
+    private void readHints(JsonReader reader, EscapeGame game) throws IOException {
+        reader.beginObject();
+        while (reader.hasNext()) {
+            String id = reader.nextName();
+            String name = null;
+            String description = null;
+            Position position = null;
+            ArrayList<String> references = null;
+
+            reader.beginObject();
+            while (reader.hasNext()) {
+                switch (reader.nextName()) {
+                    case "Name" -> name = reader.nextString();
+                    case "Description" -> description = reader.nextString();
+                    case "Position" -> position = readPosition(reader, id);
+                    case "Physical elements" -> references = readIds(reader);
+                    default -> reader.skipValue();
+                }
+            }
+            reader.endObject();
+
+            if (name == null || name.isBlank()) throw new IOException("The Hint \"" + id + "\" has no \"Name\".");
+            Hint hint = new Hint(name);
+            if (description != null) hint.setDescription(description);
+            if (position != null) hint.setPosition(position);
+            if (references != null && !references.isEmpty()) pendingHints.put(hint, references);
+            game.addHint(hint);
+            report(reader);
+        }
+        reader.endObject();
+    }
+
+    private void readProblems(JsonReader reader, EscapeGame game) throws IOException {
+        reader.beginObject();
+        while (reader.hasNext()) {
+            String id = reader.nextName();
+            String name = null;
+            String description = null;
+            ArrayList<String> references = null;
+
+            reader.beginObject();
+            while (reader.hasNext()) {
+                switch (reader.nextName()) {
+                    case "Name" -> name = reader.nextString();
+                    case "Description" -> description = reader.nextString();
+                    case "Physical elements" -> references = readIds(reader);
+                    default -> reader.skipValue();
+                }
+            }
+            reader.endObject();
+
+            if (name == null || name.isBlank()) throw new IOException("The Problem \"" + id + "\" has no \"Name\".");
+            Problem problem = new Problem(name);
+            if (description != null) problem.setDescription(description);
+            if (references != null && !references.isEmpty()) pendingProblems.put(problem, references);
+            game.addProblem(problem);
+            report(reader);
+        }
+        reader.endObject();
+    }
+
+    private void readCountdowns(JsonReader reader, EscapeGame game) throws IOException {
+        reader.beginObject();
+        while (reader.hasNext()) {
+            String id = reader.nextName();
+            String name = null;
+            String description = null;
+            Long minutes = null;
+
+            reader.beginObject();
+            while (reader.hasNext()) {
+                switch (reader.nextName()) {
+                    case "Name" -> name = reader.nextString();
+                    case "Description" -> description = reader.nextString();
+                    case "Duration" -> minutes = reader.nextLong();
+                    default -> reader.skipValue();
+                }
+            }
+            reader.endObject();
+
+            if (name == null || name.isBlank()) throw new IOException("The Countdown \"" + id + "\" has no \"Name\".");
+            if (minutes == null || minutes < 0) {
+                throw new IOException("The Countdown \"" + id + "\" has no positive \"Duration\".");
+            }
+            game.addCountdown(description == null
+                    ? new Countdown(name, Duration.ofMinutes(minutes))
+                    : new Countdown(name, Duration.ofMinutes(minutes), description));
+            report(reader);
+        }
+        reader.endObject();
+    }
+
+    /**
+     * @overview The Trigger and the Actions of an Event as they are read, naming the Physical Elements and States by
+     * their Ids.
+     */
+    private static final class PendingEvent {
+        private final String id;
+        private final String trigger; // The JSONLogic text of the Trigger, null if the Event has none.
+        private final ArrayList<String[]> actions; // As {element, state}.
+
+        private PendingEvent(String id, String trigger, ArrayList<String[]> actions) {
+            this.id = id;
+            this.trigger = trigger;
+            this.actions = actions;
+        }
+    }
+
+    private void readEvents(JsonReader reader, EscapeGame game) throws IOException {
+        reader.beginObject();
+        while (reader.hasNext()) {
+            String id = reader.nextName();
+            String name = null;
+            String description = null;
+            String trigger = null;
+            ArrayList<String[]> actions = new ArrayList<>();
+
+            reader.beginObject();
+            while (reader.hasNext()) {
+                switch (reader.nextName()) {
+                    case "Name" -> name = reader.nextString();
+                    case "Description" -> description = reader.nextString();
+                    case "Triggers" -> trigger = readRule(reader);
+                    case "Actions" -> {
+                        reader.beginArray();
+                        while (reader.hasNext()) actions.add(readAction(reader, id));
+                        reader.endArray();
+                    }
+                    default -> reader.skipValue();
+                }
+            }
+            reader.endObject();
+
+            if (name == null || name.isBlank()) throw new IOException("The Event \"" + id + "\" has no \"Name\".");
+            Event event = new Event(name);
+            if (description != null) event.setDescription(description);
+            pendingEvents.put(event, new PendingEvent(id, trigger, actions));
+            game.addEvent(event);
+            report(reader);
+        }
+        reader.endObject();
+    }
+
+    /**
+     * @return Returns the JSONLogic text of the rule {@code reader} is on, given either inline or as a string.
+     */
+    private static String readRule(JsonReader reader) throws IOException {
+        if (reader.peek() == JsonReader.Token.STRING) return reader.nextString();
+        StringWriter text = new StringWriter();
+        JsonWriter json = new JsonWriter(text);
+        copy(reader, json);
+        json.flush();
+        return text.toString();
+    }
+
+    private static void copy(JsonReader reader, JsonWriter json) throws IOException {
+        switch (reader.peek()) {
+            case BEGIN_OBJECT -> {
+                reader.beginObject();
+                json.beginObject();
+                while (reader.hasNext()) {
+                    json.name(reader.nextName());
+                    copy(reader, json);
+                }
+                reader.endObject();
+                json.endObject();
+            }
+            case BEGIN_ARRAY -> {
+                reader.beginArray();
+                json.beginArray();
+                while (reader.hasNext()) copy(reader, json);
+                reader.endArray();
+                json.endArray();
+            }
+            case STRING -> json.value(reader.nextString());
+            case NUMBER -> json.value(reader.nextDouble());
+            case BOOLEAN -> json.value(reader.nextBoolean());
+            case NULL -> {
+                reader.nextNull();
+                json.nullValue();
+            }
+            default -> throw new IOException("A value is expected " + reader.getLocation() + ".");
+        }
+    }
+
+    private String[] readAction(JsonReader reader, String id) throws IOException {
+        String element = null;
+        String state = null;
+        reader.beginObject();
+        while (reader.hasNext()) {
+            switch (reader.nextName()) {
+                case "Physical element" -> element = reader.nextString();
+                case "State" -> state = reader.nextString();
+                default -> reader.skipValue();
+            }
+        }
+        reader.endObject();
+        if (element == null || state == null) {
+            throw new IOException("An Action of the Event \"" + id + "\" has no \"Physical element\" or \"State\".");
+        }
+        return new String[]{element, state};
+    }
+
+    private Position readPosition(JsonReader reader, String id) throws IOException {
+        reader.beginArray();
+        double x = reader.nextDouble();
+        double y = reader.nextDouble();
+        reader.endArray();
+        if (x < 0 || y < 0) throw new IOException("The \"Position\" of \"" + id + "\" must be positive.");
+        return new Position(x, y);
+    }
+
+    private ArrayList<String> readIds(JsonReader reader) throws IOException {
+        ArrayList<String> ids = new ArrayList<>();
+        reader.beginArray();
+        while (reader.hasNext()) ids.add(reader.nextString());
+        reader.endArray();
+        return ids;
+    }
+
+    /**
+     * @return Returns the ElementType named {@code type} in the file. "GAME MASTER" is the name the specification
+     * gives to the {@code STAFF} type.
+     */
+    private static ElementType parseType(String type) throws IOException {
+        String normalized = type.trim().toUpperCase(Locale.ROOT).replace(' ', '_');
+        if (normalized.equals("GAME_MASTER")) return ElementType.STAFF;
+        try {
+            return ElementType.valueOf(normalized);
+        } catch (IllegalArgumentException e) {
+            throw new IOException("Unknown Physical Element type \"" + type + "\".");
+        }
+    }
+
+    /**
+     * @effects Adds to every Hint and Problem read the UUIDs of the Physical Elements they reference, and to every
+     * Event read its Trigger and its Actions.
+     */
+    private void resolveReferences() throws IOException {
+        for (var entry : pendingHints.entrySet()) {
+            for (String id : entry.getValue()) entry.getKey().addPhysicalElement(resolve(id));
+        }
+        for (var entry : pendingProblems.entrySet()) {
+            for (String id : entry.getValue()) entry.getKey().addPhysicalElement(resolve(id));
+        }
+        if (pendingEvents.isEmpty()) return;
+
+        HashMap<String, String> states = new HashMap<>(); // The text of the UUID of each State, by its Id.
+        for (HashMap<String, UUID> owned : stateIds.values()) {
+            // A State Id used by several Physical Elements can't be told apart, it is left as it is.
+            owned.forEach((id, uuid) -> states.merge(id, uuid.toString(), (a, b) -> id));
+        }
+        for (var entry : pendingEvents.entrySet()) {
+            Event event = entry.getKey();
+            PendingEvent pending = entry.getValue();
+            if (pending.trigger != null) {
+                try {
+                    event.setTrigger(Trigger.parse(pending.trigger, elementIds::get,
+                            constant -> states.getOrDefault(constant, constant)));
+                } catch (IllegalArgumentException e) {
+                    throw new IOException("The \"Triggers\" of the Event \"" + pending.id + "\" is invalid: "
+                            + e.getMessage());
+                }
+            }
+            for (String[] action : pending.actions) {
+                UUID state = stateIds.get(action[0]) == null ? null : stateIds.get(action[0]).get(action[1]);
+                if (state == null) {
+                    throw new IOException("The Event \"" + pending.id + "\" switches to the unknown State \""
+                            + action[1] + "\" of \"" + action[0] + "\".");
+                }
+                event.addAction(new Event.Action(resolve(action[0]), state));
+            }
+        }
+    }
+
+    private UUID resolve(String id) throws IOException {
+        UUID uuid = elementIds.get(id);
+        if (uuid == null) throw new IOException("Reference to an unknown Physical Element \"" + id + "\".");
+        return uuid;
+    }
+}
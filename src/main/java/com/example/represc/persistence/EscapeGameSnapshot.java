@@ -0,0 +1,222 @@
+package com.example.represc.persistence;
+
+import com.example.represc.data.Countdown;
+import com.example.represc.data.EscapeGame;
+import com.example.represc.data.Event;
+import com.example.represc.data.Geometry;
+import com.example.represc.data.Hint;
+import com.example.represc.data.Lazy;
+import com.example.represc.data.PhysicalElement;
+import com.example.represc.data.Position;
+import com.example.represc.data.Problem;
+import com.example.represc.data.Trigger;
+import com.example.represc.utils.commonPhysicalElements.ElementType;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * @author Schmetz Arnaud
+ * @version 1.0
+ *
+ * @overview An EscapeGameSnapshot is an immutable copy of the content of the EscapeGame {@link EscapeGame}, taken at
+ * one point in time. It is taken on the thread owning the EscapeGame (the JavaFX application thread), and can then be
+ * written by another thread while the user keeps editing the EscapeGame.
+ * Only references to immutable objects (String, UUID, Duration, Position, Geometry, Lazy, Trigger, Action) are shared
+ * with the EscapeGame.
+ * The shapes and descriptions of the Physical Elements are kept as their Lazy values, so that taking a snapshot of a
+ * big escape game loaded lazily doesn't build them all on the thread owning it: the thread writing the snapshot builds
+ * them one at a time, through {@code shape()} and {@code description()}.
+ *
+ * @specfield name, description, difficulty, playersMinimum, playersMaximum, estimatedDuration // The attributes of the
+ * EscapeGame, null if it doesn't have them.
+ * @specfield elements, hints, problems, countdowns, events: List // The copies of all the Physical Elements, Hints,
+ * Problems, Countdowns and Events of the EscapeGame.
+ */
+final class EscapeGameSnapshot {
+
+    final String name;
+    final String description;
+    final String difficulty;
+    final Integer playersMinimum;
+    final Integer playersMaximum;
+    final Duration estimatedDuration;
+
+    final List<ElementSnapshot> elements;
+    final List<HintSnapshot> hints;
+    final List<ProblemSnapshot> problems;
+    final List<CountdownSnapshot> countdowns;
+    final List<EventSnapshot> events;
+
+    static final class ElementSnapshot {
+        final UUID id;
+        final String name;
+        private final Lazy<String> description; // Null if the Physical Element has none.
+        private final Lazy<Geometry> shape;
+        final boolean accessible;
+        final ElementType type;
+        final UUID initialState;
+        final List<StateSnapshot> states;
+
+        private ElementSnapshot(UUID id, PhysicalElement element) {
+            this.id = id;
+            this.name = element.getName();
+            this.description = element.getLazyDescription().orElse(null);
+            this.shape = element.getLazyShape();
+            this.accessible = element.isAccessible();
+            this.type = element.getType();
+            this.initialState = element.getInitialStateUUID().orElse(null);
+
+            ArrayList<StateSnapshot> copies = new ArrayList<>();
+            for (UUID stateId : element.getAllStatesUUID().orElseGet(ArrayList::new)) {
+                copies.add(new StateSnapshot(stateId, element.getState(stateId)));
+            }
+            this.states = List.copyOf(copies);
+        }
+
+        /**
+         * @return Returns the description of the Physical Element, building it if needed, or null if it has none.
+         */
+        String description() {
+            return description == null ? null : description.get();
+        }
+
+        /**
+         * @return Returns the shape of the Physical Element, building it if needed.
+         */
+        Geometry shape() {
+            return shape.get();
+        }
+    }
+
+    static final class StateSnapshot {
+        final UUID id;
+        final String name;
+        final String description;
+        final boolean accessible;
+
+        private StateSnapshot(UUID id, PhysicalElement.State state) {
+            this.id = id;
+            this.name = state.getName();
+            this.description = state.getDescription().orElse(null);
+            this.accessible = state.isAccessible();
+        }
+    }
+
+    static final class HintSnapshot {
+        final UUID id;
+        final String name;
+        final String description;
+        final Position position;
+        final List<UUID> elements;
+
+        private HintSnapshot(UUID id, Hint hint) {
+            this.id = id;
+            this.name = hint.getName();
+            this.description = hint.getDescription().orElse(null);
+            this.position = hint.getPosition().orElse(null);
+            this.elements = List.copyOf(hint.getPhysicalElements().orElseGet(ArrayList::new));
+        }
+    }
+
+    static final class ProblemSnapshot {
+        final UUID id;
+        final String name;
+        final String description;
+        final List<UUID> elements;
+
+        private ProblemSnapshot(UUID id, Problem problem) {
+            this.id = id;
+            this.name = problem.getName();
+            this.description = problem.getDescription().orElse(null);
+            this.elements = List.copyOf(problem.getPhysicalElementsUUID().orElseGet(ArrayList::new));
+        }
+    }
+
+    static final class CountdownSnapshot {
+        final UUID id;
+        final String name;
+        final String description;
+        final Duration duration;
+
+        private CountdownSnapshot(UUID id, Countdown countdown) {
+            this.id = id;
+            this.name = countdown.getName();
+            this.description = countdown.getDescription().orElse(null);
+            this.duration = countdown.getDuration();
+        }
+    }
+
+    static final class EventSnapshot {
+        final UUID id;
+        final String name;
+        final String description;
+        final Trigger trigger; // null if the Event has none.
+        final List<Event.Action> actions;
+
+        private EventSnapshot(UUID id, Event event) {
+            this.id = id;
+            this.name = event.getName();
+            this.description = event.getDescription().orElse(null);
+            this.trigger = event.getTrigger().orElse(null);
+            this.actions = List.copyOf(event.getActions());
+        }
+    }
+
+    private EscapeGameSnapshot(EscapeGame game) {
+        name = game.getName();
+        description = game.getDescription().orElse(null);
+        difficulty = game.getDifficulty().orElse(null);
+        playersMinimum = game.getPlayersMinimum().orElse(null);
+        playersMaximum = game.getPlayersMaximum().orElse(null);
+        estimatedDuration = game.getEstimatedDuration().orElse(null);
+
+        ArrayList<ElementSnapshot> elementCopies = new ArrayList<>();
+        for (UUID id : game.getAllPhysicalElementsUUID().orElseGet(ArrayList::new)) {
+            elementCopies.add(new ElementSnapshot(id, game.getPhysicalElement(id)));
+        }
+        elements = List.copyOf(elementCopies);
+
+        ArrayList<HintSnapshot> hintCopies = new ArrayList<>();
+        for (UUID id : game.getAllHintsUUID().orElseGet(ArrayList::new)) {
+            hintCopies.add(new HintSnapshot(id, game.getHint(id)));
+        }
+        hints = List.copyOf(hintCopies);
+
+        ArrayList<ProblemSnapshot> problemCopies = new ArrayList<>();
+        for (UUID id : game.getAllProblemsUUID().orElseGet(ArrayList::new)) {
+            problemCopies.add(new ProblemSnapshot(id, game.getProblem(id)));
+        }
+        problems = List.copyOf(problemCopies);
+
+        ArrayList<CountdownSnapshot> countdownCopies = new ArrayList<>();
+        for (UUID id : game.getAllCountdownsUUID().orElseGet(ArrayList::new)) {
+            countdownCopies.add(new CountdownSnapshot(id, game.getCountdown(id)));
+        }
+        countdowns = List.copyOf(countdownCopies);
+
+        ArrayList<EventSnapshot> eventCopies = new ArrayList<>();
+        for (UUID id : game.getAllEventsUUID().orElseGet(ArrayList::new)) {
+            eventCopies.add(new EventSnapshot(id, game.getEvent(id)));
+        }
+        events = List.copyOf(eventCopies);
+    }
+
+    /**
+     * @precondition Must be called by the thread owning {@code game}.
+     * @return Returns a snapshot of the current content of {@code game}.
+     */
+    static EscapeGameSnapshot of(EscapeGame game) {
+        assert game != null : "of: Trying to take a snapshot of a null EscapeGame.";
+        return new EscapeGameSnapshot(game);
+    }
+
+    /**
+     * @return Returns the number of Physical Elements, Hints, Problems, Countdowns and Events in the snapshot.
+     */
+    long size() {
+        return (long) elements.size() + hints.size() + problems.size() + countdowns.size() + events.size();
+    }
+}
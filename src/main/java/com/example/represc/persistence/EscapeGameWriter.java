@@ -0,0 +1,266 @@
+package com.example.represc.persistence;
+
+import com.example.represc.data.EscapeGame;
+import com.example.represc.data.Event;
+import com.example.represc.data.Geometry;
+import com.example.represc.data.Trigger;
+import com.example.represc.persistence.EscapeGameSnapshot.CountdownSnapshot;
+import com.example.represc.persistence.EscapeGameSnapshot.ElementSnapshot;
+import com.example.represc.persistence.EscapeGameSnapshot.EventSnapshot;
+import com.example.represc.persistence.EscapeGameSnapshot.HintSnapshot;
+import com.example.represc.persistence.EscapeGameSnapshot.ProblemSnapshot;
+import com.example.represc.persistence.EscapeGameSnapshot.StateSnapshot;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CancellationException;
+
+/**
+ * @author Schmetz Arnaud
+ * @version 1.0
+ *
+ * @overview An EscapeGameWriter saves an EscapeGameSnapshot {@link EscapeGameSnapshot} following the "REPR-ESC Spec
+ * JSON" format, so it can be read back by the EscapeGameLoader {@link EscapeGameLoader}.
+ * The Id of every element of the file is derived from its UUID in the EscapeGame, which makes it unique across the
+ * file and usable as a Java variable name, as the specification requires. The Triggers of the Events are written in
+ * the JSONLogic format, naming the Physical Elements and States by these Ids too.
+ * Files are first written next to their destination, then moved over it, so a failed or cancelled save never
+ * damages a previous save.
+ *
+ * @specfield monitor: ProgressMonitor // Told how many elements have been written so far.
+ */
+public class EscapeGameWriter {
+
+    private final ProgressMonitor monitor;
+    private final long totalWork;
+    private long workDone = 0;
+
+    private EscapeGameWriter(ProgressMonitor monitor, long totalWork) {
+        this.monitor = monitor;
+        this.totalWork = totalWork;
+    }
+
+    /**
+     * @precondition {@code game != null && file != null} and must be called by the thread owning {@code game}.
+     * @effects Saves the current content of {@code game} into {@code file}.
+     * @throws IOException if the file can't be written or {@code game} has no name.
+     */
+    public static void save(EscapeGame game, Path file) throws IOException {
+        save(EscapeGameSnapshot.of(game), file, ProgressMonitor.NONE);
+    }
+
+    /**
+     * @precondition {@code snapshot != null && file != null && monitor != null}
+     * @effects Saves {@code snapshot} into {@code file}, telling {@code monitor} how many elements out of
+     * {@code snapshot.size()} have been written. If {@code monitor} is cancelled, {@code file} is left untouched and a
+     * CancellationException is thrown.
+     * @throws IOException if the file can't be written or the snapshot has no name.
+     */
+    static void save(EscapeGameSnapshot snapshot, Path file, ProgressMonitor monitor) throws IOException {
+        assert snapshot != null : "save: Trying to save a null snapshot.";
+        assert file != null : "save: Trying to save an escape game to a null path.";
+        assert monitor != null : "save: Trying to save an escape game with a null ProgressMonitor.";
+
+        Path absolute = file.toAbsolutePath();
+        Path temporary = Files.createTempFile(absolute.getParent(), absolute.getFileName().toString(), ".tmp");
+        try {
+            try (Writer out = Files.newBufferedWriter(temporary, StandardCharsets.UTF_8)) {
+                new EscapeGameWriter(monitor, snapshot.size()).write(snapshot, new JsonWriter(out));
+            }
+            try {
+                Files.move(temporary, absolute, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temporary, absolute, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } finally {
+            Files.deleteIfExists(temporary);
+        }
+    }
+
+    /**
+     * @return Returns the Id used in saved files for the element of the EscapeGame having the UUID {@code id}.
+     */
+    static String idOf(String kind, UUID id) {
+        return kind + "_" + Long.toHexString(id.getMostSignificantBits()) + "_"
+                + Long.toHexString(id.getLeastSignificantBits());
+    }
+
+    private void write(EscapeGameSnapshot snapshot, JsonWriter json) throws IOException {
+        if (snapshot.name == null) throw new IOException("An escape game must have a name to be saved.");
+
+        json.beginObject();
+        json.name("Name").value(snapshot.name);
+        if (snapshot.description != null) json.name("Description").value(snapshot.description);
+        if (snapshot.difficulty != null) json.name("Difficulty").value(snapshot.difficulty);
+        if (snapshot.playersMinimum != null) json.name("Players minimum").value(snapshot.playersMinimum);
+        if (snapshot.playersMaximum != null) json.name("Players maximum").value(snapshot.playersMaximum);
+        if (snapshot.estimatedDuration != null) {
+            json.name("Estimated duration").value(snapshot.estimatedDuration.toMinutes());
+        }
+
+        json.name("Physical elements").beginObject();
+        for (ElementSnapshot element : snapshot.elements) {
+            writeElement(element, json);
+            report();
+        }
+        json.endObject();
+
+        if (!snapshot.hints.isEmpty()) {
+            json.name("Hints").beginObject();
+            for (HintSnapshot hint : snapshot.hints) {
+                json.name(idOf("hint", hint.id)).beginObject();
+                json.name("Name").value(hint.name);
+                if (hint.description != null) json.name("Description").value(hint.description);
+                if (hint.position != null) {
+                    json.name("Position").beginArray().value(hint.position.getX()).value(hint.position.getY()).endArray();
+                }
+                if (!hint.elements.isEmpty()) {
+                    json.name("Physical elements").beginArray();
+                    for (UUID element : hint.elements) json.value(idOf("element", element));
+                    json.endArray();
+                }
+                json.endObject();
+                report();
+            }
+            json.endObject();
+        }
+
+        if (!snapshot.problems.isEmpty()) {
+            json.name("Problems").beginObject();
+            for (ProblemSnapshot problem : snapshot.problems) {
+                json.name(idOf("problem", problem.id)).beginObject();
+                json.name("Name").value(problem.name);
+                if (problem.description != null) json.name("Description").value(problem.description);
+                if (!problem.elements.isEmpty()) {
+                    json.name("Physical elements").beginArray();
+                    for (UUID element : problem.elements) json.value(idOf("element", element));
+                    json.endArray();
+                }
+                json.endObject();
+                report();
+            }
+            json.endObject();
+        }
+
+        if (!snapshot.countdowns.isEmpty()) {
+            json.name("Countdowns").beginObject();
+            for (CountdownSnapshot countdown : snapshot.countdowns) {
+                json.name(idOf("countdown", countdown.id)).beginObject();
+                json.name("Name").value(countdown.name);
+                if (countdown.description != null) json.name("Description").value(countdown.description);
+                json.name("Duration").value(countdown.duration.toMinutes());
+                json.endObject();
+                report();
+            }
+            json.endObject();
+        }
+
+        if (!snapshot.events.isEmpty()) {
+            Map<String, String> states = new HashMap<>(); // The Id of each State, by the text of its UUID.
+            for (ElementSnapshot element : snapshot.elements) {
+                for (StateSnapshot state : element.states) states.put(state.id.toString(), idOf("state", state.id));
+            }
+            json.name("Events").beginObject();
+            for (EventSnapshot event : snapshot.events) {
+                json.name(idOf("event", event.id)).beginObject();
+                json.name("Name").value(event.name);
+                if (event.description != null) json.name("Description").value(event.description);
+                if (event.trigger != null) {
+                    json.name("Triggers");
+                    writeRule(event.trigger.getRoot(), states, json);
+                }
+                json.name("Actions").beginArray();
+                for (Event.Action action : event.actions) {
+                    json.beginObject();
+                    json.name("Physical element").value(idOf("element", action.getElement()));
+                    json.name("State").value(idOf("state", action.getState()));
+                    json.endObject();
+                }
+                json.endArray();
+                json.endObject();
+                report();
+            }
+            json.endObject();
+        }
+
+        json.endObject();
+        json.flush();
+    }
+
+    /**
+     * @effects Writes {@code node} following the JSONLogic format, naming each Physical Element by its Id, and each
+     * string constant which is the UUID of a State by the Id {@code states} gives it.
+     */
+    private static void writeRule(Trigger.Node node, Map<String, String> states, JsonWriter json) throws IOException {
+        if (node instanceof Trigger.Variable) {
+            Trigger.Variable variable = (Trigger.Variable) node;
+            String id = idOf("element", variable.getElement());
+            json.beginObject().name("var").value(variable.isAccessible() ? id + Trigger.ACCESSIBLE : id).endObject();
+        } else if (node instanceof Trigger.Operation) {
+            Trigger.Operation operation = (Trigger.Operation) node;
+            json.beginObject().name(operation.getOperator()).beginArray();
+            for (Trigger.Node argument : operation.getArguments()) writeRule(argument, states, json);
+            json.endArray().endObject();
+        } else {
+            writeConstant(((Trigger.Literal) node).getValue(), states, json);
+        }
+    }
+
+    private static void writeConstant(Object value, Map<String, String> states, JsonWriter json) throws IOException {
+        if (value == null) {
+            json.nullValue();
+        } else if (value instanceof Boolean) {
+            json.value((boolean) (Boolean) value);
+        } else if (value instanceof Double) {
+            json.value((double) (Double) value);
+        } else if (value instanceof String) {
+            json.value(states.getOrDefault(value, (String) value));
+        } else {
+            json.beginArray();
+            for (Object element : (List<?>) value) writeConstant(element, states, json);
+            json.endArray();
+        }
+    }
+
+    private void writeElement(ElementSnapshot element, JsonWriter json) throws IOException {
+        json.name(idOf("element", element.id)).beginObject();
+        json.name("Name").value(element.name);
+        String description = element.description();
+        if (description != null) json.name("Description").value(description);
+        Geometry shape = element.shape();
+        json.name("Shape").value(shape.toPathData());
+        // The specification wants the centre of the element, as integers.
+        json.name("Position").beginArray()
+                .value(Math.round((shape.getMinX() + shape.getMaxX()) / 2.0))
+                .value(Math.round((shape.getMinY() + shape.getMaxY()) / 2.0)).endArray();
+        json.name("Accessible").value(element.accessible);
+        json.name("Type").value(element.type.name());
+        if (!element.states.isEmpty()) {
+            json.name("States").beginObject();
+            json.name("Initial state").value(idOf("state", element.initialState));
+            for (StateSnapshot state : element.states) {
+                json.name(idOf("state", state.id)).beginObject();
+                json.name("Name").value(state.name);
+                if (state.description != null) json.name("Description").value(state.description);
+                json.name("Accessible").value(state.accessible);
+                json.endObject();
+            }
+            json.endObject();
+        }
+        json.endObject();
+    }
+
+    private void report() {
+        if (monitor.isCancelled()) throw new CancellationException("Saving of the escape game cancelled.");
+        monitor.progress(++workDone, totalWork);
+    }
+}
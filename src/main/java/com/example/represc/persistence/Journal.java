@@ -0,0 +1,692 @@
+package com.example.represc.persistence;
+
+import com.example.represc.data.Countdown;
+import com.example.represc.data.EscapeGame;
+import com.example.represc.data.Event;
+import com.example.represc.data.Geometry;
+import com.example.represc.data.Hint;
+import com.example.represc.data.ModelChange;
+import com.example.represc.data.PhysicalElement;
+import com.example.represc.data.Position;
+import com.example.represc.data.Problem;
+import com.example.represc.data.Trigger;
+import com.example.represc.utils.commonPhysicalElements.ElementType;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.UUID;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.CRC32;
+
+/**
+ * @author Schmetz Arnaud
+ * @version 1.0
+ *
+ * @overview A Journal is an append-only file recording, in order, the changes {@link ModelChange} made to the
+ * EscapeGame since a snapshot {@link BinarySnapshot} of it was taken. Loading the snapshot then replaying the journal
+ * rebuilds the EscapeGame as it was when the last record was written.
+ *
+ * A journal is made of a header followed by records (all numbers are big-endian, uuid, string and shape are encoded as
+ * in BinarySnapshot):
+ * <pre>
+ * file    := MAGIC:int VERSION:int generation:long record*
+ * record  := length:int crc:int payload            // crc is the CRC-32 of payload, length its size in bytes
+ * payload := kind:byte [target:uuid] [subject:uuid] value   // each uuid is preceded by a byte telling if it is there
+ * </pre>
+ * The value depends on the kind: nothing, a string, an int (-1 for null), a boolean, a duration (seconds:long
+ * nanos:int, seconds is -1 for null), a shape, a position (present:byte [x:double y:double]), the source of a Trigger,
+ * the State of an added Action (its Physical Element is the subject), or the whole added Physical Element, State, Hint,
+ * Problem, Countdown or Event.
+ *
+ * Changes are encoded right away, on the thread making them, then written and forced to the disk by batches on the
+ * executor: every {@code FLUSH_INTERVAL} milliseconds, or as soon as {@code BATCH_SIZE} bytes are waiting. A crash
+ * loses at most the last batch, and leaves at worst a torn record at the end of the file: its length or its CRC doesn't
+ * match, so it is dropped, with everything after it, when the journal is replayed.
+ *
+ * @specfield file: Path // The file of the journal.
+ * @specfield generation: long // The generation of the snapshot the journal follows.
+ * @specfield pending: bytes // The records encoded but not yet written to {@code file}.
+ * @specfield size: long // The size {@code file} will have once {@code pending} is written.
+ * @specfield failure: IOException // The error which stopped the journal from writing, null if none.
+ */
+final class Journal implements Closeable {
+
+    static final int MAGIC = 0x52504a4c; // "RPJL"
+    static final int VERSION = 1;
+    static final int HEADER_SIZE = 16;
+
+    static final long FLUSH_INTERVAL = 200;
+    static final int BATCH_SIZE = 64 * 1024;
+    static final int MAXIMUM_RECORD_SIZE = 64 * 1024 * 1024;
+
+    private static final ModelChange.Kind[] KINDS = ModelChange.Kind.values();
+
+    private final Path file;
+    private final long generation;
+    private final FileChannel channel;
+    private final ScheduledExecutorService executor;
+    private final ScheduledFuture<?> periodicFlush;
+
+    private final Object pendingLock = new Object();
+    private ByteArrayOutputStream pending = new ByteArrayOutputStream(BATCH_SIZE);
+    private boolean flushRequested = false;
+    private long size;
+    private volatile IOException failure = null;
+
+    private Journal(Path file, long generation, FileChannel channel, ScheduledExecutorService executor) {
+        this.file = file;
+        this.generation = generation;
+        this.channel = channel;
+        this.executor = executor;
+        this.size = HEADER_SIZE;
+        this.periodicFlush = executor.scheduleWithFixedDelay(this::flushQuietly, FLUSH_INTERVAL, FLUSH_INTERVAL,
+                TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * @precondition {@code file != null && executor != null} and {@code file} doesn't exist.
+     * @effects Creates the journal {@code file}, following the snapshot of generation {@code generation}, and forces its
+     * header to the disk. Its records are written by {@code executor}.
+     * @return Returns the created Journal.
+     * @throws IOException if the file can't be created.
+     */
+    static Journal create(Path file, long generation, ScheduledExecutorService executor) throws IOException {
+        assert file != null : "create: Trying to create a journal with a null path.";
+        assert executor != null : "create: Trying to create a journal with a null executor.";
+
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE);
+        try {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).putInt(MAGIC).putInt(VERSION).putLong(generation);
+            header.flip();
+            while (header.hasRemaining()) channel.write(header);
+            channel.force(true);
+        } catch (IOException e) {
+            channel.close();
+            throw e;
+        }
+        return new Journal(file, generation, channel, executor);
+    }
+
+    Path getFile() {
+        return file;
+    }
+
+    long getGeneration() {
+        return generation;
+    }
+
+    /**
+     * @return Returns the size the file of the journal has once every record appended is written.
+     */
+    long size() {
+        synchronized (pendingLock) {
+            return size;
+        }
+    }
+
+    /**
+     * @return Returns the error which stopped the journal from writing its records, or null if there was none.
+     */
+    IOException getFailure() {
+        return failure;
+    }
+
+    /**
+     * @precondition {@code change != null}, must be called on the thread which made {@code change}, right after it was
+     * made.
+     * @effects Encodes {@code change} and adds it to the records waiting to be written.
+     */
+    void append(ModelChange change) {
+        assert change != null : "append: Trying to append a null change to a journal.";
+
+        ByteArrayOutputStream payload = new ByteArrayOutputStream(64);
+        try {
+            encode(change, new DataOutputStream(payload));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e); // Writing to memory doesn't fail.
+        }
+        byte[] bytes = payload.toByteArray();
+        CRC32 crc = new CRC32();
+        crc.update(bytes);
+
+        synchronized (pendingLock) {
+            DataOutputStream out = new DataOutputStream(pending);
+            try {
+                out.writeInt(bytes.length);
+                out.writeInt((int) crc.getValue());
+                out.write(bytes);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            size += 8 + bytes.length;
+            if (pending.size() >= BATCH_SIZE && !flushRequested) {
+                flushRequested = true;
+                executor.execute(this::flushQuietly);
+            }
+        }
+    }
+
+    /**
+     * @effects Writes the records waiting to be written and forces them to the disk.
+     * @throws IOException if they can't be written, or if an earlier batch couldn't.
+     */
+    void flush() throws IOException {
+        synchronized (channel) {
+            if (failure != null) throw failure;
+            ByteArrayOutputStream batch;
+            synchronized (pendingLock) {
+                batch = pending;
+                if (batch.size() == 0) return;
+                pending = new ByteArrayOutputStream(BATCH_SIZE);
+                flushRequested = false;
+            }
+            try {
+                ByteBuffer buffer = ByteBuffer.wrap(batch.toByteArray());
+                while (buffer.hasRemaining()) channel.write(buffer);
+                channel.force(false);
+            } catch (IOException e) {
+                failure = e;
+                throw e;
+            }
+        }
+    }
+
+    /**
+     * @effects Writes and forces the remaining records, then closes the file. The journal must not be used anymore.
+     * @throws IOException if the remaining records can't be written.
+     */
+    @Override
+    public void close() throws IOException {
+        periodicFlush.cancel(false);
+        try {
+            flush();
+        } finally {
+            channel.close();
+        }
+    }
+
+    private void flushQuietly() {
+        try {
+            flush();
+        } catch (IOException e) {
+            periodicFlush.cancel(false); // failure is kept, the owner of the journal checks it.
+        }
+    }
+
+
+    /**
+     * @precondition {@code file != null && game != null}, {@code game} must hold the snapshot the journal follows (or the
+     * result of replaying the journals before it) and must not be used by any other thread.
+     * @effects Applies to {@code game}, in order, every change recorded in the journal {@code file}. A torn or
+     * corrupted record ends the journal: it is cut off the file with everything after it.
+     * @return Returns the generation of the snapshot the journal follows.
+     * @throws IOException if the file can't be read, is not a journal, or records a change which doesn't fit
+     * {@code game}.
+     */
+    static long replay(Path file, EscapeGame game) throws IOException {
+        assert file != null : "replay: Trying to replay a journal from a null path.";
+        assert game != null : "replay: Trying to replay a journal on a null EscapeGame.";
+
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            if (channel.size() > Integer.MAX_VALUE) throw new IOException("The journal " + file + " is too big.");
+            ByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if (buffer.remaining() < HEADER_SIZE || buffer.getInt() != MAGIC) {
+                throw new IOException(file + " is not a journal.");
+            }
+            int version = buffer.getInt();
+            if (version > VERSION) {
+                throw new IOException("The journal has version " + version + ", only versions up to " + VERSION +
+                        " can be read.");
+            }
+            long generation = buffer.getLong();
+
+            CRC32 crc = new CRC32();
+            int end = buffer.position();
+            while (buffer.remaining() >= 8) {
+                int length = buffer.getInt();
+                int checksum = buffer.getInt();
+                if (length < 1 || length > MAXIMUM_RECORD_SIZE || length > buffer.remaining()) break;
+                ByteBuffer payload = buffer.slice(buffer.position(), length);
+                crc.reset();
+                crc.update(payload.duplicate());
+                if ((int) crc.getValue() != checksum) break;
+
+                try {
+                    apply(payload, game);
+                } catch (RuntimeException | AssertionError e) {
+                    throw new IOException("The journal " + file + " doesn't match its snapshot.", e);
+                }
+                buffer.position(buffer.position() + length);
+                end = buffer.position();
+            }
+            if (end < channel.size()) {
+                channel.truncate(end);
+                channel.force(true);
+            }
+            return generation;
+        }
+    }
+
+
+    private static void encode(ModelChange change, DataOutputStream out) throws IOException {
+        out.writeByte(change.getKind().ordinal());
+        writeOptionalUUID(out, change.getTarget());
+        writeOptionalUUID(out, change.getSubject());
+
+        Object value = change.getValue();
+        switch (change.getKind()) {
+            case GAME_NAME, GAME_DESCRIPTION, GAME_DIFFICULTY, ELEMENT_NAME, ELEMENT_DESCRIPTION, STATE_NAME,
+                    STATE_DESCRIPTION, HINT_NAME, HINT_DESCRIPTION, PROBLEM_NAME, PROBLEM_DESCRIPTION, COUNTDOWN_NAME,
+                    COUNTDOWN_DESCRIPTION, EVENT_NAME, EVENT_DESCRIPTION -> writeString(out, (String) value);
+            case GAME_PLAYERS_MINIMUM, GAME_PLAYERS_MAXIMUM -> out.writeInt(value == null ? -1 : (Integer) value);
+            case EVENT_ACTION_DELETED -> out.writeInt((Integer) value);
+            case GAME_PLAYERS_RANGE -> {
+                int[] range = (int[]) value;
+                out.writeInt(range[0]);
+                out.writeInt(range[1]);
+            }
+            case GAME_ESTIMATED_DURATION, COUNTDOWN_DURATION -> writeDuration(out, (Duration) value);
+            case ELEMENT_SHAPE -> writeShape(out, (Geometry) value);
+            case ELEMENT_ACCESSIBLE, STATE_ACCESSIBLE -> out.writeBoolean((Boolean) value);
+            case ELEMENT_TYPE -> writeString(out, ((ElementType) value).name());
+            case ELEMENT_ADDED -> writeElement(out, (PhysicalElement) value);
+            case STATE_ADDED -> writeState(out, (PhysicalElement.State) value);
+            case HINT_POSITION -> writePosition(out, (Position) value);
+            case HINT_ADDED -> {
+                Hint hint = (Hint) value;
+                writeString(out, hint.getName());
+                writeString(out, hint.getDescription().orElse(null));
+                writePosition(out, hint.getPosition().orElse(null));
+                writeReferences(out, hint.getPhysicalElements().orElseGet(ArrayList::new));
+            }
+            case PROBLEM_ADDED -> {
+                Problem problem = (Problem) value;
+                writeString(out, problem.getName());
+                writeString(out, problem.getDescription().orElse(null));
+                writeReferences(out, problem.getPhysicalElementsUUID().orElseGet(ArrayList::new));
+            }
+            case COUNTDOWN_ADDED -> {
+                Countdown countdown = (Countdown) value;
+                writeString(out, countdown.getName());
+                writeString(out, countdown.getDescription().orElse(null));
+                writeDuration(out, countdown.getDuration());
+            }
+            case EVENT_TRIGGER -> writeString(out, value == null ? null : ((Trigger) value).getSource());
+            case EVENT_ACTION_ADDED -> writeUUID(out, ((Event.Action) value).getState());
+            case EVENT_ADDED -> {
+                Event event = (Event) value;
+                writeString(out, event.getName());
+                writeString(out, event.getDescription().orElse(null));
+                writeString(out, event.getTrigger().map(Trigger::getSource).orElse(null));
+                ArrayList<Event.Action> actions = event.getActions();
+                out.writeInt(actions.size());
+                for (Event.Action action : actions) {
+                    writeUUID(out, action.getElement());
+                    writeUUID(out, action.getState());
+                }
+            }
+            case GAME_CLEARED, ELEMENT_DELETED, STATE_DELETED, STATES_CLEARED, INITIAL_STATE, INITIAL_STATE_REPLACED,
+                    HINT_DELETED, HINT_ELEMENT_ADDED, HINT_ELEMENT_DELETED, PROBLEM_DELETED, PROBLEM_ELEMENT_ADDED,
+                    PROBLEM_ELEMENT_DELETED, COUNTDOWN_DELETED, EVENT_DELETED -> {
+                // The kind and UUIDs say everything.
+            }
+            default -> throw new IOException("Unsupported change kind " + change.getKind() + ".");
+        }
+    }
+
+    private static void writeElement(DataOutputStream out, PhysicalElement element) throws IOException {
+        writeString(out, element.getName());
+        writeString(out, element.getDescription().orElse(null));
+        writeShape(out, element.getShape());
+        out.writeBoolean(element.isAccessible());
+        writeString(out, element.getType().name());
+        writeOptionalUUID(out, element.getInitialStateUUID().orElse(null));
+        ArrayList<UUID> states = element.getAllStatesUUID().orElseGet(ArrayList::new);
+        out.writeInt(states.size());
+        for (UUID state : states) {
+            writeUUID(out, state);
+            writeState(out, element.getState(state));
+        }
+    }
+
+    private static void writeState(DataOutputStream out, PhysicalElement.State state) throws IOException {
+        writeString(out, state.getName());
+        writeString(out, state.getDescription().orElse(null));
+        out.writeBoolean(state.isAccessible());
+    }
+
+    private static void writeReferences(DataOutputStream out, ArrayList<UUID> elements) throws IOException {
+        out.writeInt(elements.size());
+        for (UUID element : elements) writeUUID(out, element);
+    }
+
+    private static void writeShape(DataOutputStream out, Geometry shape) throws IOException {
+        out.writeInt(shape.getCommandCount());
+        for (int i = 0; i < shape.getCommandCount(); i++) out.writeByte(shape.getCommand(i));
+        out.writeInt(shape.getCoordinateCount());
+        for (int i = 0; i < shape.getCoordinateCount(); i++) out.writeFloat(shape.getCoordinate(i));
+    }
+
+    private static void writePosition(DataOutputStream out, Position position) throws IOException {
+        out.writeBoolean(position != null);
+        if (position != null) {
+            out.writeDouble(position.getX());
+            out.writeDouble(position.getY());
+        }
+    }
+
+    private static void writeDuration(DataOutputStream out, Duration duration) throws IOException {
+        out.writeLong(duration == null ? -1 : duration.getSeconds());
+        out.writeInt(duration == null ? 0 : duration.getNano());
+    }
+
+    private static void writeOptionalUUID(DataOutputStream out, UUID id) throws IOException {
+        out.writeBoolean(id != null);
+        if (id != null) writeUUID(out, id);
+    }
+
+    private static void writeUUID(DataOutputStream out, UUID id) throws IOException {
+        out.writeLong(id.getMostSignificantBits());
+        out.writeLong(id.getLeastSignificantBits());
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        if (value == null) {
+            out.writeInt(-1);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+
+    /**
+     * @effects Applies to {@code game} the change encoded in {@code in}, by calling the mutator which made it.
+     */
+    private static void apply(ByteBuffer in, EscapeGame game) throws IOException {
+        int ordinal = in.get() & 0xff;
+        if (ordinal >= KINDS.length) throw new IOException("Unknown change kind " + ordinal + ".");
+        ModelChange.Kind kind = KINDS[ordinal];
+        UUID target = readOptionalUUID(in);
+        UUID subject = readOptionalUUID(in);
+
+        switch (kind) {
+            case GAME_CLEARED -> game.clear();
+            case GAME_NAME -> game.setName(BinarySnapshot.readString(in));
+            case GAME_DESCRIPTION -> {
+                String description = BinarySnapshot.readString(in);
+                if (description == null) game.deleteDescription();
+                else game.setDescription(description);
+            }
+            case GAME_DIFFICULTY -> {
+                String difficulty = BinarySnapshot.readString(in);
+                if (difficulty == null) game.deleteDifficulty();
+                else game.setDifficulty(difficulty);
+            }
+            case GAME_PLAYERS_MINIMUM -> {
+                int minimum = in.getInt();
+                if (minimum < 0) game.deletePlayersMinimum();
+                else game.setPlayersMinimum(minimum);
+            }
+            case GAME_PLAYERS_MAXIMUM -> {
+                int maximum = in.getInt();
+                if (maximum < 0) game.deletePlayersMaximum();
+                else game.setPlayersMaximum(maximum);
+            }
+            case GAME_PLAYERS_RANGE -> game.setPlayersRange(in.getInt(), in.getInt());
+            case GAME_ESTIMATED_DURATION -> {
+                Duration duration = readDuration(in);
+                if (duration == null) game.deleteEstimatedDuration();
+                else game.setEstimatedDuration(duration);
+            }
+
+            case ELEMENT_ADDED -> game.addPhysicalElement(target, readElement(in));
+            case ELEMENT_DELETED -> {
+                element(game, target);
+                game.deletePhysicalElement(target);
+            }
+            case ELEMENT_NAME -> element(game, target).setName(BinarySnapshot.readString(in));
+            case ELEMENT_DESCRIPTION -> {
+                String description = BinarySnapshot.readString(in);
+                if (description == null) element(game, target).deleteDescription();
+                else element(game, target).setDescription(description);
+            }
+            case ELEMENT_SHAPE -> element(game, target).setShape(readShape(in));
+            case ELEMENT_ACCESSIBLE -> element(game, target).setAccessible(in.get() != 0);
+            case ELEMENT_TYPE -> element(game, target).setType(readType(in));
+            case STATE_ADDED -> element(game, target).addState(subject, readState(in));
+            case STATE_DELETED -> element(game, target).deleteState(subject);
+            case STATES_CLEARED -> element(game, target).deleteOnlyState();
+            case INITIAL_STATE -> element(game, target).setInitialState(subject);
+            case INITIAL_STATE_REPLACED -> element(game, target).deleteInitialState(subject);
+            case STATE_NAME -> state(game, target, subject).setName(BinarySnapshot.readString(in));
+            case STATE_DESCRIPTION -> {
+                String description = BinarySnapshot.readString(in);
+                if (description == null) state(game, target, subject).deleteDescription();
+                else state(game, target, subject).setDescription(description);
+            }
+            case STATE_ACCESSIBLE -> state(game, target, subject).setAccessible(in.get() != 0);
+
+            case HINT_ADDED -> {
+                Hint hint = new Hint(BinarySnapshot.readString(in));
+                String description = BinarySnapshot.readString(in);
+                if (description != null) hint.setDescription(description);
+                Position position = readPosition(in);
+                if (position != null) hint.setPosition(position);
+                int references = in.getInt();
+                for (int i = 0; i < references; i++) hint.addPhysicalElement(readReference(in, game));
+                game.addHint(target, hint);
+            }
+            case HINT_DELETED -> {
+                hint(game, target);
+                game.deleteHint(target);
+            }
+            case HINT_NAME -> hint(game, target).setName(BinarySnapshot.readString(in));
+            case HINT_DESCRIPTION -> {
+                String description = BinarySnapshot.readString(in);
+                if (description == null) hint(game, target).deleteDescription();
+                else hint(game, target).setDescription(description);
+            }
+            case HINT_POSITION -> {
+                Position position = readPosition(in);
+                if (position == null) hint(game, target).deletePosition();
+                else hint(game, target).setPosition(position);
+            }
+            case HINT_ELEMENT_ADDED -> hint(game, target).addPhysicalElement(subject);
+            case HINT_ELEMENT_DELETED -> hint(game, target).deletePhysicalElement(subject);
+
+            case PROBLEM_ADDED -> {
+                Problem problem = new Problem(BinarySnapshot.readString(in));
+                String description = BinarySnapshot.readString(in);
+                if (description != null) problem.setDescription(description);
+                int references = in.getInt();
+                for (int i = 0; i < references; i++) problem.addPhysicalElement(readReference(in, game));
+                game.addProblem(target, problem);
+            }
+            case PROBLEM_DELETED -> {
+                problem(game, target);
+                game.deleteProblem(target);
+            }
+            case PROBLEM_NAME -> problem(game, target).setName(BinarySnapshot.readString(in));
+            case PROBLEM_DESCRIPTION -> {
+                String description = BinarySnapshot.readString(in);
+                if (description == null) problem(game, target).deleteDescription();
+                else problem(game, target).setDescription(description);
+            }
+            case PROBLEM_ELEMENT_ADDED -> problem(game, target).addPhysicalElement(subject);
+            case PROBLEM_ELEMENT_DELETED -> problem(game, target).deletePhysicalElement(subject);
+
+            case COUNTDOWN_ADDED -> {
+                String name = BinarySnapshot.readString(in);
+                String description = BinarySnapshot.readString(in);
+                Duration duration = readDuration(in);
+                game.addCountdown(target, description == null
+                        ? new Countdown(name, duration)
+                        : new Countdown(name, duration, description));
+            }
+            case COUNTDOWN_DELETED -> {
+                countdown(game, target);
+                game.deleteCountdown(target);
+            }
+            case COUNTDOWN_NAME -> countdown(game, target).setName(BinarySnapshot.readString(in));
+            case COUNTDOWN_DESCRIPTION -> {
+                String description = BinarySnapshot.readString(in);
+                if (description == null) countdown(game, target).deleteDescription();
+                else countdown(game, target).setDescription(description);
+            }
+            case COUNTDOWN_DURATION -> countdown(game, target).setDuration(readDuration(in));
+
+            case EVENT_ADDED -> {
+                Event event = new Event(BinarySnapshot.readString(in));
+                String description = BinarySnapshot.readString(in);
+                if (description != null) event.setDescription(description);
+                String trigger = BinarySnapshot.readString(in);
+                if (trigger != null) event.setTrigger(BinarySnapshot.parseTrigger(trigger));
+                int actionCount = in.getInt();
+                for (int i = 0; i < actionCount; i++) {
+                    event.addAction(new Event.Action(BinarySnapshot.readUUID(in), BinarySnapshot.readUUID(in)));
+                }
+                game.addEvent(target, event);
+            }
+            case EVENT_DELETED -> {
+                event(game, target);
+                game.deleteEvent(target);
+            }
+            case EVENT_NAME -> event(game, target).setName(BinarySnapshot.readString(in));
+            case EVENT_DESCRIPTION -> {
+                String description = BinarySnapshot.readString(in);
+                if (description == null) event(game, target).deleteDescription();
+                else event(game, target).setDescription(description);
+            }
+            case EVENT_TRIGGER -> {
+                String trigger = BinarySnapshot.readString(in);
+                if (trigger == null) event(game, target).deleteTrigger();
+                else event(game, target).setTrigger(BinarySnapshot.parseTrigger(trigger));
+            }
+            case EVENT_ACTION_ADDED -> {
+                if (subject == null) throw new IOException("Action on no Physical Element.");
+                event(game, target).addAction(new Event.Action(subject, BinarySnapshot.readUUID(in)));
+            }
+            case EVENT_ACTION_DELETED -> {
+                Event event = event(game, target);
+                int index = in.getInt();
+                if (index < 0 || index >= event.getActions().size()) {
+                    throw new IOException("Deletion of an unknown Action.");
+                }
+                event.deleteAction(index);
+            }
+            default -> throw new IOException("Unsupported change kind " + kind + ".");
+        }
+    }
+
+    private static PhysicalElement readElement(ByteBuffer in) throws IOException {
+        String name = BinarySnapshot.readString(in);
+        String description = BinarySnapshot.readString(in);
+        Geometry shape = readShape(in);
+        boolean accessible = in.get() != 0;
+        ElementType type = readType(in);
+        PhysicalElement element = description == null
+                ? new PhysicalElement(name, shape, accessible, type)
+                : new PhysicalElement(name, shape, accessible, type, description);
+
+        UUID initialState = readOptionalUUID(in);
+        int stateCount = in.getInt();
+        for (int i = 0; i < stateCount; i++) element.addState(BinarySnapshot.readUUID(in), readState(in));
+        if (initialState != null) {
+            if (!element.doesContainState(initialState)) throw new IOException("Unknown initial state.");
+            element.setInitialState(initialState);
+        }
+        return element;
+    }
+
+    private static PhysicalElement.State readState(ByteBuffer in) {
+        String name = BinarySnapshot.readString(in);
+        String description = BinarySnapshot.readString(in);
+        boolean accessible = in.get() != 0;
+        return description == null
+                ? new PhysicalElement.State(name, accessible)
+                : new PhysicalElement.State(name, accessible, description);
+    }
+
+    private static Geometry readShape(ByteBuffer in) {
+        byte[] commands = new byte[in.getInt()];
+        in.get(commands);
+        float[] coordinates = new float[in.getInt()];
+        for (int i = 0; i < coordinates.length; i++) coordinates[i] = in.getFloat();
+        return Geometry.of(commands, coordinates);
+    }
+
+    private static Position readPosition(ByteBuffer in) {
+        if (in.get() == 0) return null;
+        return new Position(in.getDouble(), in.getDouble());
+    }
+
+    private static Duration readDuration(ByteBuffer in) {
+        long seconds = in.getLong();
+        int nanos = in.getInt();
+        return seconds < 0 ? null : Duration.ofSeconds(seconds, nanos);
+    }
+
+    private static ElementType readType(ByteBuffer in) throws IOException {
+        String type = BinarySnapshot.readString(in);
+        try {
+            return ElementType.valueOf(type);
+        } catch (IllegalArgumentException | NullPointerException e) {
+            throw new IOException("Unknown Physical Element type \"" + type + "\".");
+        }
+    }
+
+    private static UUID readOptionalUUID(ByteBuffer in) {
+        return in.get() == 0 ? null : BinarySnapshot.readUUID(in);
+    }
+
+    private static UUID readReference(ByteBuffer in, EscapeGame game) throws IOException {
+        UUID element = BinarySnapshot.readUUID(in);
+        if (!game.containsPhysicalElement(element)) throw new IOException("Reference to an unknown Physical Element.");
+        return element;
+    }
+
+    private static PhysicalElement element(EscapeGame game, UUID id) throws IOException {
+        if (id == null || !game.containsPhysicalElement(id)) throw new IOException("Change of an unknown Physical Element.");
+        return game.getPhysicalElement(id);
+    }
+
+    private static PhysicalElement.State state(EscapeGame game, UUID element, UUID id) throws IOException {
+        PhysicalElement owner = element(game, element);
+        if (id == null || !owner.doesContainState(id)) throw new IOException("Change of an unknown State.");
+        return owner.getState(id);
+    }
+
+    private static Hint hint(EscapeGame game, UUID id) throws IOException {
+        if (id == null || !game.containsHint(id)) throw new IOException("Change of an unknown Hint.");
+        return game.getHint(id);
+    }
+
+    private static Problem problem(EscapeGame game, UUID id) throws IOException {
+        if (id == null || !game.containsProblem(id)) throw new IOException("Change of an unknown Problem.");
+        return game.getProblem(id);
+    }
+
+    private static Countdown countdown(EscapeGame game, UUID id) throws IOException {
+        if (id == null || !game.containsCountdown(id)) throw new IOException("Change of an unknown Countdown.");
+        return game.getCountdown(id);
+    }
+
+    private static Event event(EscapeGame game, UUID id) throws IOException {
+        if (id == null || !game.containsEvent(id)) throw new IOException("Change of an unknown Event.");
+        return game.getEvent(id);
+    }
+}
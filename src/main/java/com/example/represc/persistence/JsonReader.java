@@ -0,0 +1,434 @@
+package com.example.represc.persistence;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Reader;
+
+/**
+ * @author Schmetz Arnaud
+ * @version 1.0
+ *
+ * @overview A JsonReader is a pull parser reading a JSON document one token at a time from a Reader. No tree of the
+ * document is ever built: the caller asks for the next token and decides what to do with it, which keeps the memory
+ * used while reading a file independent of its size.
+ *
+ * @specfield in: Reader // The Reader the JSON text is read from.
+ * @specfield buffer: char[] // The characters read from {@code in} and not yet consumed.
+ * @specfield stack: int[] // The nesting of the arrays and objects the reader is currently in.
+ * @specfield charactersRead: long // The number of characters consumed so far.
+ *
+ * @invariant {@code 0 <= position <= limit <= buffer.length}
+ * @invariant {@code 0 <= depth <= stack.length}
+ */
+public class JsonReader implements Closeable {
+
+    /**
+     * @overview The different kinds of token a JsonReader can return.
+     */
+    public enum Token {
+        BEGIN_OBJECT, END_OBJECT,
+        BEGIN_ARRAY, END_ARRAY,
+        NAME, STRING, NUMBER, BOOLEAN, NULL,
+        END_DOCUMENT
+    }
+
+    // Scopes pushed on the stack
+    private static final int EMPTY_OBJECT = 1;
+    private static final int NONEMPTY_OBJECT = 2;
+    private static final int DANGLING_NAME = 3;
+    private static final int EMPTY_ARRAY = 4;
+    private static final int NONEMPTY_ARRAY = 5;
+    private static final int EMPTY_DOCUMENT = 6;
+    private static final int NONEMPTY_DOCUMENT = 7;
+
+    private final Reader in;
+    private final char[] buffer = new char[8192];
+    private int position = 0;
+    private int limit = 0;
+    private long charactersRead = 0;
+
+    private int[] stack = new int[32];
+    private int depth = 0;
+
+    // The token found by peek() and not consumed yet, null if none.
+    private Token peeked = null;
+    private final StringBuilder scratch = new StringBuilder();
+
+    /**
+     * @precondition {@code in != null}
+     * @postcondition Initialises {@code this} to read a JSON document from {@code in}.
+     */
+    public JsonReader(Reader in) {
+        assert in != null : "JsonReader: Trying to create a JsonReader on a null Reader.";
+        this.in = in;
+        stack[depth++] = EMPTY_DOCUMENT;
+    }
+
+    /**
+     * @return Returns the number of characters consumed so far.
+     */
+    public long getCharactersRead() {
+        return charactersRead + position;
+    }
+
+    /**
+     * @return Returns the kind of the next token without consuming it.
+     * @throws IOException if the document is malformed or can't be read.
+     */
+    public Token peek() throws IOException {
+        if (peeked == null) peeked = doPeek();
+        return peeked;
+    }
+
+    /**
+     * @effects Consumes the beginning of an object.
+     * @throws IOException if the next token is not {@code BEGIN_OBJECT}.
+     */
+    public void beginObject() throws IOException {
+        expect(Token.BEGIN_OBJECT);
+        push(EMPTY_OBJECT);
+    }
+
+    /**
+     * @effects Consumes the end of the current object.
+     * @throws IOException if the next token is not {@code END_OBJECT}.
+     */
+    public void endObject() throws IOException {
+        expect(Token.END_OBJECT);
+        depth--;
+    }
+
+    /**
+     * @effects Consumes the beginning of an array.
+     * @throws IOException if the next token is not {@code BEGIN_ARRAY}.
+     */
+    public void beginArray() throws IOException {
+        expect(Token.BEGIN_ARRAY);
+        push(EMPTY_ARRAY);
+    }
+
+    /**
+     * @effects Consumes the end of the current array.
+     * @throws IOException if the next token is not {@code END_ARRAY}.
+     */
+    public void endArray() throws IOException {
+        expect(Token.END_ARRAY);
+        depth--;
+    }
+
+    /**
+     * @return Returns true if the current array or object has another element.
+     */
+    public boolean hasNext() throws IOException {
+        Token token = peek();
+        return token != Token.END_OBJECT && token != Token.END_ARRAY && token != Token.END_DOCUMENT;
+    }
+
+    /**
+     * @return Returns the next property name of the current object and consumes it.
+     * @throws IOException if the next token is not {@code NAME}.
+     */
+    public String nextName() throws IOException {
+        expect(Token.NAME);
+        return readString();
+    }
+
+    /**
+     * @return Returns the next string value and consumes it.
+     * @throws IOException if the next token is not {@code STRING}.
+     */
+    public String nextString() throws IOException {
+        expect(Token.STRING);
+        return readString();
+    }
+
+    /**
+     * @return Returns the next boolean value and consumes it.
+     * @throws IOException if the next token is not {@code BOOLEAN}.
+     */
+    public boolean nextBoolean() throws IOException {
+        expect(Token.BOOLEAN);
+        if (read() == 't') {
+            readKeyword("rue");
+            return true;
+        }
+        readKeyword("alse");
+        return false;
+    }
+
+    /**
+     * @effects Consumes the next null value.
+     * @throws IOException if the next token is not {@code NULL}.
+     */
+    public void nextNull() throws IOException {
+        expect(Token.NULL);
+        readKeyword("null");
+    }
+
+    /**
+     * @return Returns the next number as a double and consumes it.
+     * @throws IOException if the next token is not {@code NUMBER}.
+     */
+    public double nextDouble() throws IOException {
+        expect(Token.NUMBER);
+        String number = readNumber();
+        try {
+            return Double.parseDouble(number);
+        } catch (NumberFormatException e) {
+            throw syntaxError("Malformed number " + number);
+        }
+    }
+
+    /**
+     * @return Returns the next number as a long and consumes it.
+     * @throws IOException if the next token is not a {@code NUMBER} fitting in a long.
+     */
+    public long nextLong() throws IOException {
+        expect(Token.NUMBER);
+        String number = readNumber();
+        try {
+            return Long.parseLong(number);
+        } catch (NumberFormatException e) {
+            double asDouble;
+            try {
+                asDouble = Double.parseDouble(number);
+            } catch (NumberFormatException malformed) {
+                throw syntaxError("Malformed number " + number);
+            }
+            if (asDouble != (long) asDouble) throw syntaxError("Expected an integer but was " + number);
+            return (long) asDouble;
+        }
+    }
+
+    /**
+     * @return Returns the next number as an int and consumes it.
+     * @throws IOException if the next token is not a {@code NUMBER} fitting in an int.
+     */
+    public int nextInt() throws IOException {
+        long value = nextLong();
+        if (value != (int) value) throw syntaxError("Expected an int but was " + value);
+        return (int) value;
+    }
+
+    /**
+     * @effects Consumes the next value, recursively skipping nested arrays and objects without keeping them in memory.
+     */
+    public void skipValue() throws IOException {
+        int count = 0;
+        do {
+            switch (peek()) {
+                case BEGIN_OBJECT -> { beginObject(); count++; }
+                case BEGIN_ARRAY -> { beginArray(); count++; }
+                case END_OBJECT -> { endObject(); count--; }
+                case END_ARRAY -> { endArray(); count--; }
+                case NAME -> nextName();
+                case STRING -> nextString();
+                case NUMBER -> readNumber(true);
+                case BOOLEAN -> nextBoolean();
+                case NULL -> nextNull();
+                case END_DOCUMENT -> throw syntaxError("Unexpected end of document");
+            }
+        } while (count != 0);
+    }
+
+    @Override
+    public void close() throws IOException {
+        in.close();
+    }
+
+    /**
+     * @return Returns a description of the position of the reader, used in error messages.
+     */
+    public String getLocation() {
+        return "at character " + getCharactersRead();
+    }
+
+
+    private void expect(Token expected) throws IOException {
+        Token actual = peek();
+        if (actual != expected) throw syntaxError("Expected " + expected + " but was " + actual);
+        peeked = null;
+        if (expected == Token.BEGIN_OBJECT || expected == Token.BEGIN_ARRAY
+                || expected == Token.END_OBJECT || expected == Token.END_ARRAY) {
+            position++;
+        }
+    }
+
+    private void push(int scope) {
+        if (depth == stack.length) {
+            int[] newStack = new int[depth * 2];
+            System.arraycopy(stack, 0, newStack, 0, depth);
+            stack = newStack;
+        }
+        stack[depth++] = scope;
+    }
+
+    /**
+     * @effects Reads the separators preceding the next token, updates the scope of the stack, and leaves
+     * {@code position} on the first character of the token.
+     */
+    private Token doPeek() throws IOException {
+        int scope = stack[depth - 1];
+        int c;
+        switch (scope) {
+            case EMPTY_ARRAY:
+                stack[depth - 1] = NONEMPTY_ARRAY;
+                c = nextNonWhitespace();
+                if (c == ']') return Token.END_ARRAY;
+                break;
+            case NONEMPTY_ARRAY:
+                c = nextNonWhitespace();
+                if (c == ']') return Token.END_ARRAY;
+                if (c != ',') throw syntaxError("Unterminated array");
+                position++;
+                c = nextNonWhitespace();
+                break;
+            case EMPTY_OBJECT:
+            case NONEMPTY_OBJECT:
+                c = nextNonWhitespace();
+                if (c == '}') return Token.END_OBJECT;
+                if (scope == NONEMPTY_OBJECT) {
+                    if (c != ',') throw syntaxError("Unterminated object");
+                    position++;
+                    c = nextNonWhitespace();
+                }
+                if (c != '"') throw syntaxError("Expected a property name");
+                stack[depth - 1] = DANGLING_NAME;
+                return Token.NAME;
+            case DANGLING_NAME:
+                stack[depth - 1] = NONEMPTY_OBJECT;
+                c = nextNonWhitespace();
+                if (c != ':') throw syntaxError("Expected ':'");
+                position++;
+                c = nextNonWhitespace();
+                break;
+            case EMPTY_DOCUMENT:
+                stack[depth - 1] = NONEMPTY_DOCUMENT;
+                c = nextNonWhitespace();
+                break;
+            default: // NONEMPTY_DOCUMENT
+                c = nextNonWhitespace();
+                if (c == -1) return Token.END_DOCUMENT;
+                throw syntaxError("Multiple top-level values");
+        }
+
+        switch (c) {
+            case -1: throw syntaxError("Unexpected end of document");
+            case '{': return Token.BEGIN_OBJECT;
+            case '[': return Token.BEGIN_ARRAY;
+            case '"': return Token.STRING;
+            case 't': case 'f': return Token.BOOLEAN;
+            case 'n': return Token.NULL;
+            default:
+                if (c == '-' || (c >= '0' && c <= '9')) return Token.NUMBER;
+                throw syntaxError("Unexpected character '" + (char) c + "'");
+        }
+    }
+
+    /**
+     * @return Returns the next non whitespace character without consuming it, or -1 at the end of the input.
+     */
+    private int nextNonWhitespace() throws IOException {
+        while (true) {
+            if (position == limit && !fill()) return -1;
+            char c = buffer[position];
+            if (c == ' ' || c == '\n' || c == '\r' || c == '\t') {
+                position++;
+            } else {
+                return c;
+            }
+        }
+    }
+
+    private boolean fill() throws IOException {
+        charactersRead += limit;
+        position = 0;
+        limit = 0;
+        int read = in.read(buffer, 0, buffer.length);
+        if (read <= 0) return false;
+        limit = read;
+        return true;
+    }
+
+    private int read() throws IOException {
+        if (position == limit && !fill()) throw syntaxError("Unexpected end of document");
+        return buffer[position++];
+    }
+
+    private void readKeyword(String rest) throws IOException {
+        for (int i = 0; i < rest.length(); i++) {
+            if (read() != rest.charAt(i)) throw syntaxError("Malformed literal");
+        }
+    }
+
+    /**
+     * @precondition {@code buffer[position] == '"'}
+     * @return Returns the unescaped content of the string starting at {@code position}, consuming its quotes.
+     */
+    private String readString() throws IOException {
+        position++; // opening quote
+        scratch.setLength(0);
+        while (true) {
+            if (position == limit && !fill()) throw syntaxError("Unterminated string");
+            int start = position;
+            while (position < limit) {
+                char c = buffer[position++];
+                if (c == '"') {
+                    scratch.append(buffer, start, position - start - 1);
+                    return scratch.toString();
+                }
+                if (c == '\\') {
+                    scratch.append(buffer, start, position - start - 1);
+                    scratch.append(readEscape());
+                    start = position;
+                }
+            }
+            scratch.append(buffer, start, position - start);
+        }
+    }
+
+    private char readEscape() throws IOException {
+        int c = read();
+        switch (c) {
+            case 'n': return '\n';
+            case 't': return '\t';
+            case 'r': return '\r';
+            case 'b': return '\b';
+            case 'f': return '\f';
+            case '"': case '\\': case '/': return (char) c;
+            case 'u':
+                int value = 0;
+                for (int i = 0; i < 4; i++) {
+                    int digit = Character.digit(read(), 16);
+                    if (digit < 0) throw syntaxError("Malformed unicode escape");
+                    value = (value << 4) | digit;
+                }
+                return (char) value;
+            default: throw syntaxError("Invalid escape sequence");
+        }
+    }
+
+    private String readNumber() throws IOException {
+        return readNumber(false);
+    }
+
+    private String readNumber(boolean consumeToken) throws IOException {
+        if (consumeToken) expect(Token.NUMBER);
+        scratch.setLength(0);
+        while (true) {
+            if (position == limit && !fill()) break;
+            char c = buffer[position];
+            if ((c >= '0' && c <= '9') || c == '-' || c == '+' || c == '.' || c == 'e' || c == 'E') {
+                scratch.append(c);
+                position++;
+            } else {
+                break;
+            }
+        }
+        return scratch.toString();
+    }
+
+    private IOException syntaxError(String message) {
+        return new IOException(message + " " + getLocation());
+    }
+}
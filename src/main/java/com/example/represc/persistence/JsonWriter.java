@@ -0,0 +1,185 @@
+package com.example.represc.persistence;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Writer;
+
+/**
+ * @author Schmetz Arnaud
+ * @version 1.0
+ *
+ * @overview A JsonWriter writes a JSON document to a Writer one token at a time, the counterpart of the JsonReader
+ * {@link JsonReader}. Nothing but the nesting of the current arrays and objects is kept in memory. The document is
+ * indented with one tab per level, to keep saved escape games readable.
+ *
+ * @specfield out: Writer // The Writer the JSON text is written to.
+ * @specfield stack: boolean[] // For each array or object currently opened, whether it already has an element.
+ */
+public class JsonWriter implements Closeable {
+
+    private final Writer out;
+    private boolean[] nonEmpty = new boolean[32];
+    private int depth = 0;
+    private boolean afterName = false;
+
+    /**
+     * @precondition {@code out != null}
+     * @postcondition Initialises {@code this} to write a JSON document to {@code out}.
+     */
+    public JsonWriter(Writer out) {
+        assert out != null : "JsonWriter: Trying to create a JsonWriter on a null Writer.";
+        this.out = out;
+    }
+
+    public JsonWriter beginObject() throws IOException {
+        beforeValue();
+        out.write('{');
+        push();
+        return this;
+    }
+
+    public JsonWriter endObject() throws IOException {
+        close('}');
+        return this;
+    }
+
+    public JsonWriter beginArray() throws IOException {
+        beforeValue();
+        out.write('[');
+        push();
+        return this;
+    }
+
+    public JsonWriter endArray() throws IOException {
+        close(']');
+        return this;
+    }
+
+    /**
+     * @precondition {@code name != null} and the current scope is an object.
+     * @effects Writes the property name {@code name}, to be followed by its value.
+     */
+    public JsonWriter name(String name) throws IOException {
+        assert name != null : "name: Trying to write a null property name.";
+        assert !afterName : "name: Trying to write two property names in a row.";
+        separate();
+        writeString(name);
+        out.write(": ");
+        afterName = true;
+        return this;
+    }
+
+    /**
+     * @precondition {@code value != null}
+     */
+    public JsonWriter value(String value) throws IOException {
+        assert value != null : "value: Trying to write a null String, use nullValue() instead.";
+        beforeValue();
+        writeString(value);
+        return this;
+    }
+
+    public JsonWriter value(boolean value) throws IOException {
+        beforeValue();
+        out.write(value ? "true" : "false");
+        return this;
+    }
+
+    public JsonWriter value(long value) throws IOException {
+        beforeValue();
+        out.write(Long.toString(value));
+        return this;
+    }
+
+    /**
+     * @precondition {@code value} is finite.
+     */
+    public JsonWriter value(double value) throws IOException {
+        assert Double.isFinite(value) : "value: JSON numbers must be finite.";
+        beforeValue();
+        if (value == (long) value) {
+            out.write(Long.toString((long) value));
+        } else {
+            out.write(Double.toString(value));
+        }
+        return this;
+    }
+
+    public JsonWriter nullValue() throws IOException {
+        beforeValue();
+        out.write("null");
+        return this;
+    }
+
+    /**
+     * @effects Flushes everything written so far to the underlying Writer.
+     */
+    public void flush() throws IOException {
+        out.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        out.close();
+    }
+
+
+    private void push() {
+        if (depth == nonEmpty.length) {
+            boolean[] newStack = new boolean[depth * 2];
+            System.arraycopy(nonEmpty, 0, newStack, 0, depth);
+            nonEmpty = newStack;
+        }
+        nonEmpty[depth++] = false;
+    }
+
+    private void close(char bracket) throws IOException {
+        assert depth > 0 : "close: No array or object to close.";
+        assert !afterName : "close: A property name has no value.";
+        boolean hadElements = nonEmpty[--depth];
+        if (hadElements) newLine();
+        out.write(bracket);
+        if (depth == 0) out.write('\n');
+    }
+
+    private void beforeValue() throws IOException {
+        if (afterName) {
+            afterName = false;
+        } else if (depth > 0) {
+            separate();
+        }
+    }
+
+    private void separate() throws IOException {
+        if (nonEmpty[depth - 1]) out.write(',');
+        nonEmpty[depth - 1] = true;
+        newLine();
+    }
+
+    private void newLine() throws IOException {
+        out.write('\n');
+        for (int i = 0; i < depth; i++) out.write('\t');
+    }
+
+    private void writeString(String value) throws IOException {
+        out.write('"');
+        int last = 0;
+        int length = value.length();
+        for (int i = 0; i < length; i++) {
+            char c = value.charAt(i);
+            String replacement;
+            if (c == '"') replacement = "\\\"";
+            else if (c == '\\') replacement = "\\\\";
+            else if (c == '\n') replacement = "\\n";
+            else if (c == '\r') replacement = "\\r";
+            else if (c == '\t') replacement = "\\t";
+            else if (c < 0x20) replacement = String.format("\\u%04x", (int) c);
+            else continue;
+            if (last < i) out.write(value, last, i - last);
+            out.write(replacement);
+            last = i + 1;
+        }
+        if (last < length) out.write(value, last, length - last);
+        out.write('"');
+    }
+}
@@ -0,0 +1,140 @@
+package com.example.represc.persistence;
+
+import com.example.represc.data.EscapeGame;
+import javafx.concurrent.Task;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * @author Schmetz Arnaud
+ * @version 1.0
+ *
+ * @overview The PersistenceService saves and loads escape games on a background thread, so the JavaFX application
+ * thread never waits for a file. Each operation is a JavaFX Task, whose progress can be bound to a ProgressBar and
+ * which can be cancelled with {@code cancel()}. The operations are run one after the other, in the order they were
+ * asked for, so a load never reads a file which is still being saved.
+ * Files whose name ends with {@code BinarySnapshot.EXTENSION} are read and written as binary snapshots
+ * {@link BinarySnapshot}, any other file follows the "REPR-ESC Spec JSON" format. Files bigger than
+ * {@code LAZY_LOADING_THRESHOLD} bytes are loaded lazily.
+ *
+ * @specfield instance: PersistenceService // {@code instance} is a variable used to implement PersistenceService as a
+ * Singleton.
+ * @specfield executor: ExecutorService // The single daemon thread running the saves and loads.
+ */
+public class PersistenceService {
+
+    /**
+     * @overview The size, in bytes, over which files are loaded lazily.
+     */
+    static final long LAZY_LOADING_THRESHOLD = 16 * 1024 * 1024;
+
+    private static PersistenceService instance = null;
+    private final ExecutorService executor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "represc-persistence");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    static public PersistenceService getPersistenceService(){
+        if (instance == null) instance = new PersistenceService();
+        return instance;
+    }
+
+    private PersistenceService(){
+    }
+
+    /**
+     * @overview A PersistenceTask is a Task which is also the ProgressMonitor {@link ProgressMonitor} of the operation
+     * it runs: the progress is forwarded to the Task, and the operation stops when the Task is cancelled.
+     */
+    private abstract static class PersistenceTask<V> extends Task<V> implements ProgressMonitor {
+        @Override
+        public void progress(long workDone, long totalWork) {
+            updateProgress(workDone, totalWork);
+        }
+    }
+
+    /**
+     * @precondition {@code file != null} and must be called on the JavaFX application thread.
+     * @effects Starts loading the escape game saved in {@code file} into a new EscapeGame, which is the value of the
+     * Task once it succeeded. The progress of the Task is the number of characters (or bytes, for a binary snapshot)
+     * read out of the size of the file.
+     * @return Returns the started Task.
+     */
+    public Task<EscapeGame> load(Path file){
+        assert file != null : "load: Trying to load an escape game from a null path.";
+
+        PersistenceTask<EscapeGame> task = new PersistenceTask<>() {
+            @Override
+            protected EscapeGame call() throws Exception {
+                updateMessage(file.getFileName().toString());
+                if (isBinarySnapshot(file)) return BinarySnapshot.load(file, this, isLarge(file));
+                return EscapeGameLoader.load(file, this, isLarge(file));
+            }
+        };
+        executor.execute(task);
+        return task;
+    }
+
+    /**
+     * @precondition Must be called on the JavaFX application thread, and Autosave {@link Autosave} must be stopped.
+     * @effects Starts recovering into a new EscapeGame the escape game left by Autosave after a crash, which is the
+     * value of the Task once it succeeded. The progress of the Task is the number of bytes read out of the size of
+     * the snapshot.
+     * @return Returns the started Task.
+     */
+    public Task<EscapeGame> recover(){
+        PersistenceTask<EscapeGame> task = new PersistenceTask<>() {
+            @Override
+            protected EscapeGame call() throws Exception {
+                return Autosave.getAutosave().recover(this);
+            }
+        };
+        executor.execute(task);
+        return task;
+    }
+
+    /**
+     * @precondition {@code game != null && file != null} and must be called on the JavaFX application thread.
+     * @effects Takes a snapshot of {@code game} and starts saving it into {@code file}. Later changes made to
+     * {@code game} are not part of the save. The progress of the Task is the number of elements written out of the
+     * number of elements of {@code game}. If the Task fails or is cancelled, {@code file} is left untouched.
+     * @return Returns the started Task.
+     */
+    public Task<Void> save(EscapeGame game, Path file){
+        assert game != null : "save: Trying to save a null EscapeGame.";
+        assert file != null : "save: Trying to save an escape game to a null path.";
+
+        EscapeGameSnapshot snapshot = EscapeGameSnapshot.of(game);
+        PersistenceTask<Void> task = new PersistenceTask<>() {
+            @Override
+            protected Void call() throws Exception {
+                updateMessage(file.getFileName().toString());
+                if (isBinarySnapshot(file)) {
+                    BinarySnapshot.save(snapshot, file, this);
+                } else {
+                    EscapeGameWriter.save(snapshot, file, this);
+                }
+                return null;
+            }
+        };
+        executor.execute(task);
+        return task;
+    }
+
+    /**
+     * @return Returns true if {@code file} is big enough to be loaded lazily: the shapes and descriptions of its
+     * Physical Elements are then only read when they are shown.
+     */
+    private static boolean isLarge(Path file) throws IOException {
+        return Files.size(file) > LAZY_LOADING_THRESHOLD;
+    }
+
+    private static boolean isBinarySnapshot(Path file){
+        return file.getFileName().toString().endsWith(BinarySnapshot.EXTENSION);
+    }
+}
@@ -0,0 +1,37 @@
+package com.example.represc.persistence;
+
+/**
+ * @author Schmetz Arnaud
+ * @version 1.0
+ *
+ * @overview A ProgressMonitor is told how far a long save or load operation has gone, and tells that operation if it
+ * should stop. Operations call {@code isCancelled()} regularly and give up with a
+ * {@link java.util.concurrent.CancellationException} as soon as it returns true.
+ */
+public interface ProgressMonitor {
+
+    /**
+     * @overview A ProgressMonitor ignoring any progress and never cancelling.
+     */
+    ProgressMonitor NONE = new ProgressMonitor() {
+        @Override
+        public void progress(long workDone, long totalWork) {
+        }
+
+        @Override
+        public boolean isCancelled() {
+            return false;
+        }
+    };
+
+    /**
+     * @effects Is told that {@code workDone} units of work out of {@code totalWork} have been done. {@code totalWork}
+     * is negative if the total amount of work is unknown.
+     */
+    void progress(long workDone, long totalWork);
+
+    /**
+     * @return Returns true if the operation should stop as soon as possible.
+     */
+    boolean isCancelled();
+}
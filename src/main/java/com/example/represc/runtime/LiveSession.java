@@ -0,0 +1,314 @@
+package com.example.represc.runtime;
+
+import com.example.represc.data.EscapeGame;
+import com.example.represc.data.PhysicalElement;
+import com.example.represc.utils.commonPhysicalElements.ElementType;
+import com.example.represc.verification.Goal;
+import com.example.represc.verification.Simulator;
+import com.example.represc.verification.Timeline;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.lang.reflect.Method;
+import java.net.SocketAddress;
+import java.nio.channels.Channels;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Consumer;
+
+/**
+ * @author Schmetz Arnaud
+ * @version 1.0
+ *
+ * @overview A LiveSession runs an escape game in real time, for a game night: the players and the staff, the Physical
+ * Elements of type PLAYER and STAFF, each send what they do from a feed standing for the tablet of the room, a file or
+ * a local socket, and the game plays as in a Simulator {@link Simulator}, its clock being the time since the
+ * LiveSession started.
+ * Each feed is read by its own thread, a virtual thread when the Java runtime has them, which only parses what it reads
+ * and posts it to the mailbox of the game. The game itself is owned by a single thread, its actor, which applies the
+ * actions posted in the order they arrive, lets the Events they trigger happen and the Countdowns expire, and tells the
+ * listener what happened. Nothing else touches the game, so that it needs no lock, and many LiveSessions, one per room,
+ * run side by side.
+ * A line of a feed is the UUID of a Physical Element and the UUID of the State the player switches it to, separated
+ * by spaces. The blank lines and the lines starting with '#' are ignored, and so, with a warning, are the lines which
+ * aren't actions of the game.
+ *
+ * @specfield game: EscapeGame // The escape game played, as it was when the LiveSession was created.
+ * @specfield goal: Goal // The Goal ending the game. An empty Goal never ends it.
+ * @specfield players: set of UUID // The Physical Elements of type PLAYER or STAFF of the game.
+ * @specfield listener: Consumer of Entry // What is told, on the thread of the actor, about each thing happening.
+ * @specfield stopped: boolean // Whether the LiveSession was stopped.
+ */
+public class LiveSession implements AutoCloseable {
+
+    private static final System.Logger LOGGER = System.getLogger(LiveSession.class.getName());
+
+    private static final long TICK = Duration.ofMillis(100).toNanos(); // How often the Countdowns are moved.
+    private static final long FOLLOW = Duration.ofMillis(100).toNanos(); // How often a file is read again at its end.
+    private static final long STACK = 256 * 1024; // The stack of a platform thread, when there is no virtual thread.
+    private static final UUID[] STOP = new UUID[0];
+
+    // Thread.ofVirtual().name(name).start(task), found at runtime since the build targets Java 17.
+    private static final Method OF_VIRTUAL;
+    private static final Method NAME;
+    private static final Method START;
+
+    static {
+        Method ofVirtual = null, name = null, start = null;
+        try {
+            ofVirtual = Thread.class.getMethod("ofVirtual");
+            Class<?> builder = Class.forName("java.lang.Thread$Builder");
+            name = builder.getMethod("name", String.class);
+            start = builder.getMethod("start", Runnable.class);
+            ofVirtual.invoke(null); // Fails if virtual threads are a preview feature not enabled.
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            ofVirtual = null;
+        }
+        OF_VIRTUAL = ofVirtual;
+        NAME = name;
+        START = start;
+    }
+
+    private final Simulator simulator;
+    private final List<UUID> players;
+    private final Consumer<Timeline.Entry> listener;
+    private final long origin = System.nanoTime();
+    private final ConcurrentLinkedQueue<UUID[]> mailbox = new ConcurrentLinkedQueue<>();
+    private final ConcurrentLinkedQueue<SocketChannel> sockets = new ConcurrentLinkedQueue<>();
+    private final ConcurrentLinkedQueue<Thread> readers = new ConcurrentLinkedQueue<>();
+    private final CompletableFuture<Timeline> timeline = new CompletableFuture<>();
+    private final Thread actor;
+    private volatile boolean stopped = false;
+
+    /**
+     * @precondition {@code game != null && goal != null && listener != null}, every Physical Element named by
+     * {@code goal} is in {@code game}, and this is called on the thread owning {@code game}.
+     * @postcondition Initialises {@code this} to play {@code game} as it is now until {@code goal} is met, telling
+     * {@code listener} about what happens, without feed, and starts the game: the Countdowns start now.
+     */
+    public LiveSession(EscapeGame game, Goal goal, Consumer<Timeline.Entry> listener) {
+        assert game != null : "LiveSession: Trying to play a null EscapeGame.";
+        assert goal != null : "LiveSession: Trying to play an EscapeGame towards a null Goal.";
+        assert listener != null : "LiveSession: Trying to play an EscapeGame with a null listener.";
+
+        this.simulator = new Simulator(game, goal);
+        this.listener = listener;
+        ArrayList<UUID> players = new ArrayList<>();
+        for (UUID id : game.getAllPhysicalElementsUUID().orElseGet(ArrayList::new)) {
+            PhysicalElement element = game.getPhysicalElement(id);
+            if (element.getType() == ElementType.PLAYER || element.getType() == ElementType.STAFF) players.add(id);
+        }
+        this.players = Collections.unmodifiableList(players);
+        this.actor = start("represc-live-" + game.getName(), this::act);
+    }
+
+    /**
+     * @return Returns the Physical Elements of type PLAYER or STAFF of the game, which feeds can be attached to.
+     */
+    public List<UUID> getPlayers() {
+        return players;
+    }
+
+    /**
+     * @precondition {@code player} is one of the players of {@code this}, {@code feed != null}, and {@code this} is
+     * not stopped.
+     * @effects Reads what {@code player} does from {@code feed}, on a thread of its own, until its end or until
+     * {@code this} is stopped, and closes it. Stopping {@code this} interrupts the thread, but a read blocked on
+     * {@code feed} may only end once there is something to read.
+     */
+    public void attach(UUID player, Reader feed) {
+        assert players.contains(player) : "attach: Trying to attach a feed to something else than a player.";
+        assert feed != null : "attach: Trying to attach a null feed.";
+
+        read(player, feed, false);
+    }
+
+    /**
+     * @precondition {@code player} is one of the players of {@code this}, {@code file != null}, and {@code this} is
+     * not stopped.
+     * @effects Reads what {@code player} does from {@code file}, on a thread of its own, following what is appended to
+     * it until {@code this} is stopped.
+     * @throws IOException if {@code file} can't be opened.
+     */
+    public void attach(UUID player, Path file) throws IOException {
+        assert players.contains(player) : "attach: Trying to attach a feed to something else than a player.";
+        assert file != null : "attach: Trying to attach a null file.";
+
+        read(player, Files.newBufferedReader(file, StandardCharsets.UTF_8), true);
+    }
+
+    /**
+     * @precondition {@code player} is one of the players of {@code this}, {@code tablet != null}, and {@code this}
+     * is not stopped.
+     * @effects Connects to {@code tablet}, an Internet or Unix domain socket address, and reads what {@code player}
+     * does from it, on a thread of its own, until the connection is closed or {@code this} is stopped.
+     * @throws IOException if {@code tablet} can't be connected to.
+     */
+    public void attach(UUID player, SocketAddress tablet) throws IOException {
+        assert players.contains(player) : "attach: Trying to attach a feed to something else than a player.";
+        assert tablet != null : "attach: Trying to attach a null socket address.";
+
+        SocketChannel channel = SocketChannel.open(tablet);
+        sockets.add(channel);
+        read(player, Channels.newReader(channel, StandardCharsets.UTF_8), false);
+    }
+
+    /**
+     * @effects Stops {@code this}, if it isn't yet: the sockets are closed and the threads reading the feeds
+     * interrupted, the actions posted are applied, and the game ends now.
+     * @return Returns the Timeline of the game, from its start until it was stopped or the Goal was met.
+     * @throws CompletionException if the game failed on the thread of the actor, the failure being its cause.
+     */
+    public Timeline stop() {
+        if (!stopped) {
+            stopped = true;
+            for (SocketChannel socket : sockets) {
+                try {
+                    socket.close(); // Ends the read blocked on it, which closing its Reader would wait for.
+                } catch (IOException e) {
+                    LOGGER.log(System.Logger.Level.WARNING, "A socket of the live session failed to close", e);
+                }
+            }
+            for (Thread reader : readers) reader.interrupt();
+            post(STOP);
+        }
+        return timeline.join();
+    }
+
+    @Override
+    public void close() {
+        stop();
+    }
+
+    private void read(UUID player, Reader feed, boolean follow) {
+        assert !stopped : "attach: Trying to attach a feed to a stopped LiveSession.";
+
+        BufferedReader in = feed instanceof BufferedReader ? (BufferedReader) feed : new BufferedReader(feed);
+        readers.add(start("represc-live-" + player, () -> {
+            StringBuilder line = new StringBuilder();
+            try (in) {
+                while (!stopped) {
+                    int c = in.read();
+                    if (c == '\n') {
+                        parse(player, line.toString().strip());
+                        line.setLength(0);
+                    } else if (c >= 0) {
+                        line.append((char) c);
+                    } else if (follow) {
+                        LockSupport.parkNanos(this, FOLLOW); // Waits for the tablet to append to the file.
+                    } else {
+                        parse(player, line.toString().strip());
+                        return;
+                    }
+                }
+            } catch (IOException e) {
+                if (!stopped) LOGGER.log(System.Logger.Level.WARNING, "The feed of " + player + " failed", e);
+            }
+        }));
+    }
+
+    /**
+     * @effects Posts the action written on {@code line} by {@code player} to the mailbox of the actor, if it is one.
+     */
+    private void parse(UUID player, String line) {
+        if (line.isEmpty() || line.startsWith("#")) return;
+        String[] words = line.split("\\s+");
+        UUID[] action = null;
+        if (words.length == 2) {
+            try {
+                action = new UUID[]{UUID.fromString(words[0]), UUID.fromString(words[1])};
+            } catch (IllegalArgumentException e) {
+                action = null;
+            }
+        }
+        if (action == null || !simulator.isAction(action[0], action[1])) {
+            LOGGER.log(System.Logger.Level.WARNING, "Ignoring \"" + line + "\" from " + player
+                    + ": it isn't a Physical Element of the game and one of its States.");
+            return;
+        }
+        post(action);
+    }
+
+    private void post(UUID[] command) {
+        mailbox.add(command);
+        LockSupport.unpark(actor);
+    }
+
+    /**
+     * @effects Plays the game on the thread of the actor, until it is stopped or it fails, in which case the Timeline
+     * is completed with the failure, so that {@code stop} doesn't wait for it.
+     */
+    private void act() {
+        try {
+            play();
+        } catch (RuntimeException | Error e) {
+            LOGGER.log(System.Logger.Level.ERROR, "The live session failed", e);
+            timeline.completeExceptionally(e);
+        }
+    }
+
+    private void play() {
+        Simulator.Session session = simulator.start();
+        int reported = 0;
+        long time = 0;
+        boolean stopping = false;
+        while (true) {
+            // The clock never stands still, so that what is posted next happens after the Countdowns moved now.
+            time = Math.max(System.nanoTime() - origin, time + 1);
+            for (UUID[] command; (command = mailbox.poll()) != null; ) {
+                if (command == STOP) stopping = true;
+                else session.act(time, command[0], command[1]);
+            }
+            boolean over = session.isOver();
+            session.runUntil(time, Simulator.DEFAULT_HAPPENINGS);
+            session.advance(time);
+            if (!over && session.isOver() && !session.isSolved()) {
+                LOGGER.log(System.Logger.Level.WARNING, "The Events of the live session keep triggering each other, "
+                        + "it is stuck");
+            }
+            List<Timeline.Entry> entries = session.entries();
+            for (; reported < entries.size(); reported++) {
+                try {
+                    listener.accept(entries.get(reported));
+                } catch (RuntimeException e) {
+                    LOGGER.log(System.Logger.Level.WARNING, "The listener of the live session failed", e);
+                }
+            }
+            if (stopping) {
+                timeline.complete(session.finish(Duration.ofNanos(time)));
+                return;
+            }
+            if (mailbox.isEmpty()) LockSupport.parkNanos(this, TICK);
+        }
+    }
+
+    /**
+     * @return Returns a thread named {@code name} running {@code task}, already started: a virtual thread if the Java
+     * runtime has them, a daemon platform thread with a small stack otherwise.
+     */
+    private static Thread start(String name, Runnable task) {
+        if (OF_VIRTUAL != null) {
+            try {
+                return (Thread) START.invoke(NAME.invoke(OF_VIRTUAL.invoke(null), name), task);
+            } catch (ReflectiveOperationException e) {
+                LOGGER.log(System.Logger.Level.WARNING, "Failed to start a virtual thread", e);
+            }
+        }
+        Thread thread = new Thread(null, task, name, STACK);
+        thread.setDaemon(true);
+        thread.start();
+        return thread;
+    }
+}
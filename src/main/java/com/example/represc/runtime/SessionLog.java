@@ -0,0 +1,301 @@
+package com.example.represc.runtime;
+
+import com.example.represc.verification.Solvability;
+import com.example.represc.verification.Timeline;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Consumer;
+
+/**
+ * @author Schmetz Arnaud
+ * @version 1.0
+ *
+ * @overview A SessionLog is a session log written by a SessionRecorder {@link SessionRecorder}, read back for the
+ * analysis of the game: what happened between two times, the State of each Physical Element at any time, or the whole
+ * game played again at any speed. Each of them starts from the last checkpoint before the time asked for, so that the
+ * minute 45 of a game is read without going through the 44 minutes before it.
+ * The file is read once, when the SessionLog is created, to find its checkpoints and its UUIDs; a torn record at its
+ * end, and what follows it, is dropped. A SessionLog is immutable, and can be read by several threads at once.
+ *
+ * @specfield entries: list of Entry // What was recorded, in order.
+ * @specfield checkpoints: list of (Duration, map of UUID to UUID) // The State of each Physical Element at some times.
+ * @specfield end: Duration // The time of the last record, zero if there is none.
+ */
+public final class SessionLog {
+
+    private static final Timeline.Kind[] KINDS = Timeline.Kind.values();
+
+    private final byte[] bytes;
+    private final int length; // The length of the records kept, torn ones excepted.
+    private final UUID[] ids; // The UUID of each index, from 1.
+    private final int[] definitions; // Where each index is written with its UUID.
+    private final long[] checkpointTimes;
+    private final int[] checkpointOffsets; // Where the body of each checkpoint starts.
+    private final long end;
+
+    private SessionLog(byte[] bytes) throws IOException {
+        this.bytes = bytes;
+        if (bytes.length < 8 || readInt(0) != SessionRecorder.MAGIC) throw new IOException("Not a session log.");
+        if (readInt(4) != SessionRecorder.VERSION) {
+            throw new IOException("Unsupported session log version " + readInt(4) + ".");
+        }
+
+        ArrayList<UUID> ids = new ArrayList<>(Collections.singletonList(null));
+        ArrayList<Integer> definitions = new ArrayList<>(Collections.singletonList(-1));
+        ArrayList<long[]> checkpoints = new ArrayList<>(); // As (time, offset).
+        Cursor cursor = new Cursor(ids, definitions);
+        cursor.position = 8;
+        checkpoints.add(new long[]{0, 8});
+        int kept = 8;
+        long last = 0;
+        try {
+            cursor.readCheckpoint();
+            kept = cursor.position;
+            while (cursor.position < bytes.length) {
+                boolean checkpoint = (bytes[cursor.position] & 0xff) == SessionRecorder.CHECKPOINT;
+                cursor.next();
+                if (checkpoint) checkpoints.add(new long[]{cursor.time, cursor.body});
+                kept = cursor.position;
+                last = cursor.time;
+            }
+        } catch (IOException | IndexOutOfBoundsException e) {
+            // The records from kept on are torn: the ids they defined are never read.
+        }
+        if (kept == 8) throw new IOException("The session log has no initial checkpoint.");
+        this.length = kept;
+        this.ids = ids.toArray(new UUID[0]);
+        this.definitions = definitions.stream().mapToInt(Integer::intValue).toArray();
+        this.checkpointTimes = checkpoints.stream().mapToLong(c -> c[0]).toArray();
+        this.checkpointOffsets = checkpoints.stream().mapToInt(c -> (int) c[1]).toArray();
+        this.end = last;
+    }
+
+    /**
+     * @precondition {@code file != null}
+     * @return Returns the session log written to {@code file}.
+     * @throws IOException if {@code file} can't be read, or isn't a session log.
+     */
+    public static SessionLog read(Path file) throws IOException {
+        assert file != null : "read: Trying to read a session log from a null path.";
+
+        return new SessionLog(Files.readAllBytes(file));
+    }
+
+    public Duration getEnd() {
+        return Duration.ofNanos(end);
+    }
+
+    /**
+     * @return Returns the number of checkpoints kept, the initial one included.
+     */
+    public int getCheckpointCount() {
+        return checkpointTimes.length;
+    }
+
+    /**
+     * @return Returns every Entry recorded, in order.
+     */
+    public List<Timeline.Entry> getEntries() {
+        return getEntries(Duration.ZERO, Duration.ofNanos(Long.MAX_VALUE));
+    }
+
+    /**
+     * @precondition {@code from != null && until != null && !from.isNegative()}
+     * @return Returns the Entries recorded from {@code from} included until {@code until} excluded, in order.
+     */
+    public List<Timeline.Entry> getEntries(Duration from, Duration until) {
+        assert from != null && until != null : "getEntries: Trying to read the Entries between null times.";
+        assert !from.isNegative() : "getEntries: Trying to read the Entries from a negative time.";
+
+        ArrayList<Timeline.Entry> entries = new ArrayList<>();
+        Cursor cursor = seek(from.toNanos());
+        for (Timeline.Entry entry; cursor.nextTime() < until.toNanos() && (entry = cursor.nextEntry()) != null; ) {
+            entries.add(entry);
+        }
+        return Collections.unmodifiableList(entries);
+    }
+
+    /**
+     * @precondition {@code time != null && !time.isNegative()}
+     * @return Returns the State each Physical Element was in at {@code time}, after what happened at that time.
+     */
+    public Map<UUID, UUID> getStatesAt(Duration time) {
+        assert time != null && !time.isNegative() : "getStatesAt: Trying to read the States at a negative time.";
+
+        Cursor cursor = seek(time.toNanos());
+        while (cursor.nextTime() <= time.toNanos() && cursor.nextEntry() != null) ;
+        return Collections.unmodifiableMap(new LinkedHashMap<>(cursor.states));
+    }
+
+    /**
+     * @precondition {@code from != null && !from.isNegative() && consumer != null && speed > 0}
+     * @effects Tells {@code consumer}, on the calling thread, about each Entry recorded from {@code from}, waiting
+     * between them for the time which passed in the game divided by {@code speed}, or not at all if {@code speed} is
+     * infinite. Stops early if the thread is interrupted, which it stays.
+     */
+    public void replay(Duration from, double speed, Consumer<? super Timeline.Entry> consumer) {
+        assert from != null && !from.isNegative() : "replay: Trying to replay from a negative time.";
+        assert speed > 0 : "replay: The speed of a replay must be positive.";
+        assert consumer != null : "replay: Trying to replay to a null consumer.";
+
+        long origin = System.nanoTime();
+        Cursor cursor = seek(from.toNanos());
+        for (Timeline.Entry entry; (entry = cursor.nextEntry()) != null; ) {
+            long due = origin + (long) ((entry.getTime().toNanos() - from.toNanos()) / speed);
+            for (long wait; (wait = due - System.nanoTime()) > 0 && !Thread.currentThread().isInterrupted(); ) {
+                LockSupport.parkNanos(this, wait);
+            }
+            if (Thread.currentThread().isInterrupted()) return;
+            consumer.accept(entry);
+        }
+    }
+
+    /**
+     * @return Returns a Cursor at the last checkpoint at or before {@code time}, its next Entry being the first one
+     * at or after {@code time}.
+     */
+    private Cursor seek(long time) {
+        int index = Arrays.binarySearch(checkpointTimes, time);
+        if (index < 0) index = -index - 2;
+        Cursor cursor = new Cursor(null, null);
+        cursor.position = checkpointOffsets[index];
+        cursor.time = checkpointTimes[index];
+        try {
+            cursor.readCheckpoint();
+        } catch (IOException e) {
+            throw new IllegalStateException("A checkpoint kept is torn.", e); // Never happens.
+        }
+        while (cursor.nextTime() < time && cursor.nextEntry() != null) ;
+        return cursor;
+    }
+
+    private int readInt(int offset) {
+        return (bytes[offset] & 0xff) << 24 | (bytes[offset + 1] & 0xff) << 16 | (bytes[offset + 2] & 0xff) << 8
+                | bytes[offset + 3] & 0xff;
+    }
+
+    /**
+     * @overview A Cursor reads the records of the log from some position, keeping the State of each Physical Element
+     * up to date. The Cursor finding the UUIDs, when the log is opened, is given the lists they are added to.
+     */
+    private final class Cursor {
+        private final List<UUID> found;
+        private final List<Integer> foundAt;
+        private final LinkedHashMap<UUID, UUID> states = new LinkedHashMap<>();
+        private int position;
+        private int body; // Where the body of the last record read starts.
+        private long time;
+
+        private Cursor(List<UUID> found, List<Integer> foundAt) {
+            this.found = found;
+            this.foundAt = foundAt;
+        }
+
+        /**
+         * @return Returns the time of the next record, or Long.MAX_VALUE if there is none.
+         */
+        private long nextTime() {
+            if (position >= limit()) return Long.MAX_VALUE;
+            int saved = position;
+            try {
+                position++;
+                return time + readNumber();
+            } catch (IOException e) {
+                return Long.MAX_VALUE;
+            } finally {
+                position = saved;
+            }
+        }
+
+        /**
+         * @return Returns the next Entry, reading the checkpoints before it, or null if there is none.
+         */
+        private Timeline.Entry nextEntry() {
+            try {
+                Timeline.Entry entry = null;
+                while (entry == null && position < limit()) entry = next();
+                return entry;
+            } catch (IOException e) {
+                throw new IllegalStateException("A record kept is torn.", e); // Never happens.
+            }
+        }
+
+        /**
+         * @return Returns the Entry of the next record, or null if it is a checkpoint.
+         * @throws IOException if the record is torn or invalid.
+         */
+        private Timeline.Entry next() throws IOException {
+            int kind = bytes[position++] & 0xff;
+            time += readNumber();
+            body = position;
+            if (kind == SessionRecorder.CHECKPOINT) {
+                readCheckpoint();
+                return null;
+            }
+            if (kind >= KINDS.length) throw new IOException("Unknown record kind " + kind + ".");
+            Timeline.Kind k = KINDS[kind];
+            UUID subject = null;
+            if (k == Timeline.Kind.EVENT || k == Timeline.Kind.SWITCH || k == Timeline.Kind.COUNTDOWN) {
+                subject = readId();
+            }
+            Solvability.Step step = null;
+            if (k == Timeline.Kind.ACTION || k == Timeline.Kind.REFUSED || k == Timeline.Kind.SWITCH) {
+                step = new Solvability.Step(readId(), readId(), readId());
+                if (k != Timeline.Kind.SWITCH) subject = step.getElement();
+                if (k != Timeline.Kind.REFUSED) states.put(step.getElement(), step.getTo());
+            }
+            return new Timeline.Entry(Duration.ofNanos(time), k, subject, step);
+        }
+
+        private void readCheckpoint() throws IOException {
+            states.clear();
+            for (long count = readNumber(); count > 0; count--) states.put(readId(), readId());
+        }
+
+        private UUID readId() throws IOException {
+            int at = position;
+            long index = readNumber();
+            if (found == null) {
+                if (definitions[(int) index] == at) position += 16;
+                return ids[(int) index];
+            }
+            if (index == found.size()) {
+                if (position + 16 > bytes.length) throw new IOException("Torn UUID.");
+                long most = 0, least = 0;
+                for (int i = 0; i < 8; i++) most = most << 8 | bytes[position++] & 0xff;
+                for (int i = 0; i < 8; i++) least = least << 8 | bytes[position++] & 0xff;
+                found.add(new UUID(most, least));
+                foundAt.add(at);
+            } else if (index > found.size()) {
+                throw new IOException("Unknown UUID index " + index + ".");
+            }
+            return found.get((int) index);
+        }
+
+        private long readNumber() throws IOException {
+            long value = 0;
+            for (int shift = 0; shift < 64; shift += 7) {
+                if (position >= limit()) throw new IOException("Torn number.");
+                int b = bytes[position++];
+                value |= (long) (b & 0x7f) << shift;
+                if (b >= 0) return value;
+            }
+            throw new IOException("Invalid number.");
+        }
+
+        private int limit() {
+            return found == null ? length : bytes.length;
+        }
+    }
+}
@@ -0,0 +1,239 @@
+package com.example.represc.runtime;
+
+import com.example.represc.data.EscapeGame;
+import com.example.represc.verification.Simulator;
+import com.example.represc.verification.Solvability;
+import com.example.represc.verification.Timeline;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.function.Consumer;
+
+/**
+ * @author Schmetz Arnaud
+ * @version 1.0
+ *
+ * @overview A SessionRecorder writes what happens during a game, simulated {@link Simulator} or live
+ * {@link LiveSession}, to a session log {@link SessionLog}: each Entry of its Timeline as it is told about it, and
+ * every {@code interval} of the game a checkpoint of the State of each Physical Element, so that the log can be read
+ * from any time without replaying it from the start. A SessionRecorder is the listener of a LiveSession, or is given a
+ * whole Timeline.
+ *
+ * A session log is made of a header followed by records (the ints of the header are big-endian, the other numbers are
+ * unsigned variable-length integers, 7 bits per byte from the lowest, the highest bit telling if another byte follows):
+ * <pre>
+ * file       := MAGIC:int VERSION:int record*
+ * record     := kind:byte delta body                 // delta is the time since the previous record, in nanoseconds
+ * id         := index [uuid]                         // index 0 is null, index n the n-th UUID of the log, written
+ *                                                    // as two big-endian longs the first time it is used
+ * ACTION     := element:id from:id to:id             // kind is the ordinal of Timeline.Kind
+ * REFUSED    := element:id from:id to:id
+ * EVENT      := event:id
+ * SWITCH     := event:id element:id from:id to:id
+ * COUNTDOWN  := countdown:id
+ * GOAL       := nothing
+ * CHECKPOINT := count (element:id state:id)*         // kind is 255, the States before the records at its time
+ * </pre>
+ * The log starts with a checkpoint of the initial States of the game. The records are written by a buffer, which is
+ * flushed after each Entry the SessionRecorder is told about, as a LiveSession does, and at each checkpoint and at the
+ * end of a whole Timeline: a crash loses at most the last Entry of a live session, and leaves at worst a torn record at
+ * the end of the file, which is dropped when the log is read.
+ * A SessionRecorder is not thread safe: it must be told about the Entries by a single thread, as the actor of a
+ * LiveSession does.
+ *
+ * @specfield file: Path // The file of the log.
+ * @specfield interval: Duration // The time of the game between two checkpoints.
+ * @specfield states: map of UUID to UUID // The State of each Physical Element, as of the last Entry.
+ * @specfield failure: IOException // The error which stopped the recorder from writing, null if none.
+ */
+public class SessionRecorder implements Consumer<Timeline.Entry>, Closeable {
+
+    public static final Duration DEFAULT_INTERVAL = Duration.ofSeconds(30);
+
+    static final int MAGIC = 0x5250534c; // "RPSL"
+    static final int VERSION = 1;
+    static final int CHECKPOINT = 255;
+
+    private final DataOutputStream out;
+    private final long interval;
+    private final LinkedHashMap<UUID, UUID> states = new LinkedHashMap<>();
+    private final HashMap<UUID, Integer> ids = new HashMap<>(); // The index of each UUID written.
+    private long time = 0; // The time of the last record, in nanoseconds.
+    private long checkpoint = 0; // The time of the last checkpoint, in nanoseconds.
+    private IOException failure = null;
+
+    /**
+     * @precondition {@code file != null && game != null}, and this is called on the thread owning {@code game}.
+     * @effects Creates the log {@code file}, replacing it if it exists, with a checkpoint every
+     * {@link #DEFAULT_INTERVAL}, and writes the initial States of {@code game}.
+     * @throws IOException if the file can't be written.
+     */
+    public SessionRecorder(Path file, EscapeGame game) throws IOException {
+        this(file, game, DEFAULT_INTERVAL);
+    }
+
+    /**
+     * @precondition {@code file != null && game != null && interval != null && !interval.isNegative() &&
+     * !interval.isZero()}, and this is called on the thread owning {@code game}.
+     * @effects Creates the log {@code file}, replacing it if it exists, with a checkpoint every {@code interval} of
+     * the game, and writes the initial States of {@code game}.
+     * @throws IOException if the file can't be written.
+     */
+    public SessionRecorder(Path file, EscapeGame game, Duration interval) throws IOException {
+        assert file != null : "SessionRecorder: Trying to record to a null path.";
+        assert game != null : "SessionRecorder: Trying to record a null EscapeGame.";
+        assert interval != null && !interval.isNegative() && !interval.isZero() : "SessionRecorder: The interval " +
+                "between two checkpoints must be positive.";
+
+        this.interval = interval.toNanos();
+        for (UUID element : game.getAllPhysicalElementsUUID().orElseGet(ArrayList::new)) {
+            game.getPhysicalElement(element).getInitialStateUUID().ifPresent(state -> states.put(element, state));
+        }
+        this.out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(file)));
+        try {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            writeCheckpoint();
+        } catch (IOException e) {
+            out.close();
+            throw e;
+        }
+    }
+
+    /**
+     * @precondition {@code entry != null}, and it doesn't happen before the last Entry recorded.
+     * @effects Writes {@code entry} to the log, after a checkpoint if {@code interval} passed since the last one, and
+     * flushes the log, unless writing failed before.
+     */
+    @Override
+    public void accept(Timeline.Entry entry) {
+        assert entry != null : "accept: Trying to record a null Entry.";
+        assert entry.getTime().toNanos() >= time : "accept: Trying to record an Entry before the last one.";
+
+        write(entry);
+        flush();
+    }
+
+    /**
+     * @precondition {@code timeline != null}, and it doesn't start before the last Entry recorded.
+     * @effects Writes each Entry of {@code timeline} to the log, then flushes it.
+     */
+    public void record(Timeline timeline) {
+        assert timeline != null : "record: Trying to record a null Timeline.";
+
+        for (Timeline.Entry entry : timeline.getEntries()) {
+            assert entry.getTime().toNanos() >= time : "record: Trying to record an Entry before the last one.";
+            write(entry);
+        }
+        flush();
+    }
+
+    /**
+     * @effects Writes {@code entry} to the log, after a checkpoint if {@code interval} passed since the last one,
+     * unless writing failed before.
+     */
+    private void write(Timeline.Entry entry) {
+        long at = entry.getTime().toNanos();
+        if (failure != null) return;
+        try {
+            if (at - checkpoint >= interval) {
+                writeRecord(CHECKPOINT, at);
+                writeCheckpoint();
+            }
+            writeRecord(entry.getKind().ordinal(), at);
+            if (entry.getKind() == Timeline.Kind.EVENT || entry.getKind() == Timeline.Kind.SWITCH
+                    || entry.getKind() == Timeline.Kind.COUNTDOWN) {
+                writeId(entry.getSubject().orElse(null));
+            }
+            if (entry.getStep().isPresent()) {
+                Solvability.Step step = entry.getStep().get();
+                writeId(step.getElement());
+                writeId(step.getFrom());
+                writeId(step.getTo());
+                if (entry.getKind() != Timeline.Kind.REFUSED) states.put(step.getElement(), step.getTo());
+            }
+        } catch (IOException e) {
+            failure = e;
+        }
+    }
+
+    private void flush() {
+        if (failure != null) return;
+        try {
+            out.flush();
+        } catch (IOException e) {
+            failure = e;
+        }
+    }
+
+    /**
+     * @effects Writes what is buffered and closes the file.
+     * @throws IOException if writing to the log failed, now or before.
+     */
+    @Override
+    public void close() throws IOException {
+        try {
+            out.close();
+        } catch (IOException e) {
+            if (failure == null) failure = e;
+        }
+        if (failure != null) throw failure;
+    }
+
+    private void writeRecord(int kind, long at) throws IOException {
+        out.writeByte(kind);
+        writeNumber(at - time);
+        time = at;
+    }
+
+    /**
+     * @effects Writes the body of a checkpoint, the State of each Physical Element, and flushes the log.
+     */
+    private void writeCheckpoint() throws IOException {
+        writeNumber(states.size());
+        for (Map.Entry<UUID, UUID> state : states.entrySet()) {
+            writeId(state.getKey());
+            writeId(state.getValue());
+        }
+        out.flush();
+        checkpoint = time;
+    }
+
+    private void writeId(UUID id) throws IOException {
+        if (id == null) {
+            writeNumber(0);
+            return;
+        }
+        Integer index = ids.get(id);
+        if (index != null) {
+            writeNumber(index);
+            return;
+        }
+        ids.put(id, ids.size() + 1);
+        writeNumber(ids.size());
+        out.writeLong(id.getMostSignificantBits());
+        out.writeLong(id.getLeastSignificantBits());
+    }
+
+    /**
+     * @precondition {@code value >= 0}
+     * @effects Writes {@code value} as an unsigned variable-length integer.
+     */
+    private void writeNumber(long value) throws IOException {
+        while ((value & ~0x7fL) != 0) {
+            out.writeByte((int) (value & 0x7f) | 0x80);
+            value >>>= 7;
+        }
+        out.writeByte((int) value);
+    }
+}
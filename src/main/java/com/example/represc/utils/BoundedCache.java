@@ -0,0 +1,95 @@
+package com.example.represc.utils;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * @author Schmetz Arnaud
+ * @version 1.0
+ *
+ * @overview A BoundedCache keeps values which can be computed again, up to a maximal total weight. When adding a value
+ * makes the total weight exceed the maximum, the least recently used values are dropped until it fits again.
+ * It can be used by several threads at once.
+ *
+ * @specfield maximumWeight: long // The maximal sum of the weights of the values kept.
+ * @specfield weight: long // The sum of the weights of the values kept.
+ * @specfield entries: LinkedHashMap: K to Entry // The values kept, from the least to the most recently used.
+ *
+ * @invariant {@code weight <= maximumWeight}, unless a single value is heavier than {@code maximumWeight}, which is
+ * then not kept at all.
+ */
+public class BoundedCache<K, V> {
+
+    private static class Entry<V> {
+        final V value;
+        final long weight;
+
+        Entry(V value, long weight) {
+            this.value = value;
+            this.weight = weight;
+        }
+    }
+
+    private final long maximumWeight;
+    private long weight = 0;
+    private final LinkedHashMap<K, Entry<V>> entries = new LinkedHashMap<>(16, 0.75f, true);
+
+    /**
+     * @precondition {@code maximumWeight > 0}
+     * @postcondition Initialises {@code this} as an empty cache keeping values up to a total weight of
+     * {@code maximumWeight}.
+     */
+    public BoundedCache(long maximumWeight) {
+        assert maximumWeight > 0 : "BoundedCache: Trying to create a cache with a maximal weight which is not positive.";
+        this.maximumWeight = maximumWeight;
+    }
+
+    /**
+     * @precondition {@code key != null}
+     * @return Returns the value kept for {@code key}, which becomes the most recently used one, or null if there is
+     * none.
+     */
+    public synchronized V get(K key) {
+        Entry<V> entry = entries.get(key);
+        return entry == null ? null : entry.value;
+    }
+
+    /**
+     * @precondition {@code key != null && value != null && weight >= 0}
+     * @effects Keeps {@code value}, of weight {@code weight}, for {@code key}, dropping the least recently used values
+     * if needed.
+     */
+    public synchronized void put(K key, V value, long weight) {
+        assert key != null : "put: Trying to cache a value with a null key.";
+        assert value != null : "put: Trying to cache a null value.";
+        assert weight >= 0 : "put: Trying to cache a value with a negative weight.";
+
+        Entry<V> previous = entries.remove(key);
+        if (previous != null) this.weight -= previous.weight;
+        if (weight > maximumWeight) return;
+
+        entries.put(key, new Entry<>(value, weight));
+        this.weight += weight;
+        Iterator<Map.Entry<K, Entry<V>>> eldest = entries.entrySet().iterator();
+        while (this.weight > maximumWeight) {
+            this.weight -= eldest.next().getValue().weight;
+            eldest.remove();
+        }
+    }
+
+    /**
+     * @effects Drops the value kept for {@code key}, if there is one.
+     */
+    public synchronized void remove(K key) {
+        Entry<V> previous = entries.remove(key);
+        if (previous != null) weight -= previous.weight;
+    }
+
+    /**
+     * @return Returns the sum of the weights of the values kept.
+     */
+    public synchronized long getWeight() {
+        return weight;
+    }
+}
@@ -1,5 +1,6 @@
 package com.example.represc.utils;
 
+import java.nio.file.Path;
 import java.util.Locale;
 import java.util.prefs.Preferences;
 
@@ -12,12 +13,14 @@ import java.util.prefs.Preferences;
  * @specfield instance : Settings // {@code instance} is a variable used to implement Settings as a Singleton.;
  * @specfield settings : Preferences // {@code settings} is used to store the user preferences, settings, like the language.;
  * @specfield languageKey : String // {@code languageKey} is used to make sure that the same String is always used for the language key in {@code settings}.
+ * @specfield autosaveDirectoryKey : String // The key of the directory of the autosaves in {@code settings}.
  */
 public class Settings {
 
     private static Settings instance = null;
     private final Preferences settings = Preferences.userRoot().node(this.getClass().getName());
     private final String languageKey = "language";
+    private final String autosaveDirectoryKey = "autosaveDirectory";
 
     static public Settings getSettings(){
         if (instance==null) instance = new Settings();
@@ -35,4 +38,17 @@ public class Settings {
         String language = settings.get(languageKey, "en");
         return new Locale(language);
     }
+
+    public void setAutosaveDirectory(Path directory){
+        settings.put(autosaveDirectoryKey, directory.toAbsolutePath().toString());
+    }
+    /**
+     * @return Returns the directory where the escape game being edited is autosaved, ".represc/autosave" in the home
+     * directory of the user by default.
+     */
+    public Path getAutosaveDirectory(){
+        String directory = settings.get(autosaveDirectoryKey, null);
+        if (directory == null) return Path.of(System.getProperty("user.home"), ".represc", "autosave");
+        return Path.of(directory);
+    }
 }
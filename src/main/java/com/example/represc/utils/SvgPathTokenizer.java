@@ -0,0 +1,229 @@
+package com.example.represc.utils;
+
+import java.util.Arrays;
+
+/**
+ * @author Schmetz Arnaud
+ * @version 1.0
+ *
+ * @overview SvgPathTokenizer splits the path data of an SVG path (https://www.w3.org/TR/SVG/paths.html#PathDataBNF)
+ * into its commands and their numbers, and writes them back as path data.
+ * Each command of the path is kept as its letter (absolute or relative), with the numbers it takes stored one after
+ * the other in a single float array. Implicit repetitions of a command are made explicit (the pairs following a
+ * "M"/"m" become "L"/"l"), so every command letter is followed by exactly {@code argumentCount(letter)} numbers.
+ */
+public class SvgPathTokenizer {
+
+    /**
+     * @overview The tokens of an SVG path: one byte per command letter and all their numbers.
+     *
+     * @specfield commands: byte[] // The letters of the commands, in order.
+     * @specfield coordinates: float[] // The numbers taken by the commands, in order.
+     *
+     * @invariant {@code coordinates.length} is the sum of {@code argumentCount(c)} for every {@code c} of
+     * {@code commands}.
+     */
+    public static class Tokens {
+        private final byte[] commands;
+        private final float[] coordinates;
+
+        private Tokens(byte[] commands, float[] coordinates) {
+            this.commands = commands;
+            this.coordinates = coordinates;
+        }
+
+        /**
+         * @return Returns the letters of the commands of the path. The array must not be modified.
+         */
+        public byte[] getCommands() {
+            return commands;
+        }
+
+        /**
+         * @return Returns the numbers taken by the commands of the path. The array must not be modified.
+         */
+        public float[] getCoordinates() {
+            return coordinates;
+        }
+    }
+
+    private SvgPathTokenizer() {
+    }
+
+    /**
+     * @return Returns the number of numbers taken by the command {@code command}, or -1 if {@code command} is not an
+     * SVG path command.
+     */
+    public static int argumentCount(int command) {
+        switch (command) {
+            case 'M': case 'm': case 'L': case 'l': case 'T': case 't': return 2;
+            case 'H': case 'h': case 'V': case 'v': return 1;
+            case 'C': case 'c': return 6;
+            case 'S': case 's': case 'Q': case 'q': return 4;
+            case 'A': case 'a': return 7;
+            case 'Z': case 'z': return 0;
+            default: return -1;
+        }
+    }
+
+    /**
+     * @precondition {@code path != null}
+     * @return Returns the tokens of the SVG path data {@code path}.
+     * @throws IllegalArgumentException if {@code path} is not valid SVG path data.
+     */
+    public static Tokens tokenize(String path) {
+        assert path != null : "tokenize: Trying to tokenize a null path.";
+        return scan(path, true);
+    }
+
+    /**
+     * @precondition {@code path != null}
+     * @effects Checks that {@code path} is valid SVG path data, without keeping its tokens, so that a Geometry can be
+     * built from it later on without failing.
+     * @throws IllegalArgumentException if {@code path} is not valid SVG path data.
+     */
+    public static void validate(String path) {
+        assert path != null : "validate: Trying to validate a null path.";
+        scan(path, false);
+    }
+
+    /**
+     * @return Returns the tokens of the SVG path data {@code path} if {@code keep}, null otherwise.
+     * @throws IllegalArgumentException if {@code path} is not valid SVG path data.
+     */
+    private static Tokens scan(String path, boolean keep) {
+        byte[] commands = new byte[16];
+        int commandCount = 0;
+        float[] coordinates = new float[32];
+        int coordinateCount = 0;
+
+        int length = path.length();
+        int i = skipSeparators(path, 0);
+        int current = -1;
+        while (i < length) {
+            char c = path.charAt(i);
+            if (argumentCount(c) >= 0) {
+                current = c;
+                i = skipSeparators(path, i + 1);
+            } else if (current == -1) {
+                throw new IllegalArgumentException("The path \"" + path + "\" doesn't start with a command.");
+            } else if (argumentCount(current) == 0) {
+                throw new IllegalArgumentException("Unexpected number after a closepath in \"" + path + "\".");
+            } else if (current == 'M') {
+                current = 'L';
+            } else if (current == 'm') {
+                current = 'l';
+            }
+
+            int arguments = argumentCount(current);
+            if (keep && commandCount == commands.length) commands = Arrays.copyOf(commands, commandCount * 2);
+            if (keep) commands[commandCount++] = (byte) current;
+            if (keep && coordinateCount + arguments > coordinates.length) {
+                coordinates = Arrays.copyOf(coordinates, Math.max(coordinates.length * 2, coordinateCount + arguments));
+            }
+            for (int argument = 0; argument < arguments; argument++) {
+                if (i >= length) throw new IllegalArgumentException("Missing number at the end of \"" + path + "\".");
+                int end;
+                if ((current == 'A' || current == 'a') && (argument == 3 || argument == 4)) {
+                    // The flags of an arc are single digits which may not be separated from what follows.
+                    char flag = path.charAt(i);
+                    if (flag != '0' && flag != '1') {
+                        throw new IllegalArgumentException("Invalid arc flag in \"" + path + "\".");
+                    }
+                    if (keep) coordinates[coordinateCount++] = flag - '0';
+                    end = i + 1;
+                } else {
+                    end = endOfNumber(path, i);
+                    if (end == i || !hasDigit(path, i, end)) {
+                        throw new IllegalArgumentException("Expected a number at " + i + " of \"" + path + "\".");
+                    }
+                    if (keep) coordinates[coordinateCount++] = Float.parseFloat(path.substring(i, end));
+                }
+                i = skipSeparators(path, end);
+            }
+        }
+        if (!keep) return null;
+        return new Tokens(Arrays.copyOf(commands, commandCount), Arrays.copyOf(coordinates, coordinateCount));
+    }
+
+    /**
+     * @precondition {@code commands} and {@code coordinates} respect the invariant of Tokens.
+     * @return Returns the SVG path data made of the commands {@code commands} and their numbers {@code coordinates}.
+     */
+    public static String format(byte[] commands, float[] coordinates) {
+        StringBuilder s = new StringBuilder(commands.length * 4 + coordinates.length * 6);
+        int coordinate = 0;
+        for (byte command : commands) {
+            if (s.length() > 0) s.append(' ');
+            s.append((char) command);
+            int arguments = argumentCount(command);
+            assert arguments >= 0 : "format: Unknown command " + (char) command;
+            for (int argument = 0; argument < arguments; argument++) {
+                s.append(' ');
+                appendNumber(s, coordinates[coordinate++]);
+            }
+        }
+        assert coordinate == coordinates.length : "format: There are more numbers than the commands take.";
+        return s.toString();
+    }
+
+    private static void appendNumber(StringBuilder s, float value) {
+        if (value == (int) value) {
+            s.append((int) value);
+        } else {
+            s.append(value);
+        }
+    }
+
+    private static int skipSeparators(String path, int i) {
+        while (i < path.length()) {
+            char c = path.charAt(i);
+            if (c == ' ' || c == ',' || c == '\t' || c == '\n' || c == '\r' || c == '\f') i++;
+            else break;
+        }
+        return i;
+    }
+
+    /**
+     * @return Returns true if the number from {@code start} to {@code end} of {@code path} has a digit before its
+     * exponent, which is what Float.parseFloat needs on top of what endOfNumber reads.
+     */
+    private static boolean hasDigit(String path, int start, int end) {
+        for (int i = start; i < end; i++) {
+            char c = path.charAt(i);
+            if (c >= '0' && c <= '9') return true;
+            if (c == 'e' || c == 'E') return false;
+        }
+        return false;
+    }
+
+    /**
+     * @return Returns the index following the number starting at {@code start} in {@code path}.
+     */
+    private static int endOfNumber(String path, int start) {
+        int i = start;
+        int length = path.length();
+        if (i < length && (path.charAt(i) == '+' || path.charAt(i) == '-')) i++;
+        boolean dot = false;
+        while (i < length) {
+            char c = path.charAt(i);
+            if (c >= '0' && c <= '9') {
+                i++;
+            } else if (c == '.' && !dot) {
+                dot = true;
+                i++;
+            } else {
+                break;
+            }
+        }
+        if (i < length && (path.charAt(i) == 'e' || path.charAt(i) == 'E')) {
+            int exponent = i + 1;
+            if (exponent < length && (path.charAt(exponent) == '+' || path.charAt(exponent) == '-')) exponent++;
+            if (exponent < length && Character.isDigit(path.charAt(exponent))) {
+                i = exponent;
+                while (i < length && Character.isDigit(path.charAt(i))) i++;
+            }
+        }
+        return i;
+    }
+}
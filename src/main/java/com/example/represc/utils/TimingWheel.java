@@ -0,0 +1,329 @@
+package com.example.represc.utils;
+
+import java.time.Duration;
+import java.util.function.Consumer;
+
+/**
+ * @author Schmetz Arnaud
+ * @version 1.0
+ *
+ * @overview A TimingWheel runs Timers, like the Countdowns of the escape games, on a clock counting ticks: a Timer
+ * expires once the clock has reached its deadline. The clock only moves when told to {@link #advance(long, Consumer)},
+ * so that the same TimingWheel serves the virtual clock of the simulator, which jumps from one happening to the next,
+ * and the real time of the game masters {@link WheelClock}.
+ * The Timers are kept in LEVELS wheels of SLOTS slots each, a slot being a list of Timers: the slots of the wheel of
+ * level {@code l} each cover {@code SLOTS^l} ticks. A Timer is kept in the lowest wheel whose slots are wider than the
+ * time left before its deadline, so starting, cancelling, pausing and resuming a Timer take a constant time, whatever
+ * the number of Timers. When the clock reaches a slot of a higher wheel, its Timers are moved down to the lower
+ * wheels; each Timer is moved at most LEVELS times before it expires. The clock jumps over the empty slots, finding the
+ * next slot holding Timers from a bitmap of the slots of each wheel.
+ * Timers having the same deadline expire in the order they were started or resumed: each Timer is numbered when it is,
+ * and kept after the Timers of its slot having a lower number, which it only has to walk back over when a cascade
+ * brought it down behind Timers started after it.
+ * A TimingWheel is not thread safe.
+ *
+ * @specfield tick: Duration // The duration of a tick.
+ * @specfield now: long // The number of ticks since the TimingWheel was created.
+ * @specfield timers: set of Timer // The Timers running.
+ *
+ * @invariant Every Timer of {@code timers} has a deadline after {@code now}, or is due at the next advance.
+ */
+public class TimingWheel<T> {
+
+    private static final int BITS = 6;
+    private static final int SLOTS = 1 << BITS;
+    private static final int LEVELS = (Long.SIZE + BITS - 1) / BITS;
+
+    private static final int RUNNING = 0;
+    private static final int PAUSED = 1;
+    private static final int EXPIRED = 2;
+    private static final int CANCELLED = 3;
+
+    /**
+     * @overview A Timer is started in a TimingWheel to expire at some deadline, and carries a payload, like the
+     * Countdown it is the Timer of.
+     *
+     * @specfield payload: T // What the Timer is the Timer of.
+     * @specfield deadline: long // The tick it expires at, when running.
+     * @specfield remaining: long // The number of ticks left before its deadline, when paused.
+     */
+    public static final class Timer<T> {
+        private final T payload;
+        private long deadline;
+        private long remaining;
+        private int status = RUNNING;
+
+        private Timer<T> previous; // In the list of its slot, or of the Timers due.
+        private Timer<T> next;
+        private int level; // -1 if due.
+        private int slot;
+        private long sequence; // The order it was started or resumed in.
+
+        private Timer(T payload) {
+            this.payload = payload;
+        }
+
+        public T getPayload() {
+            return payload;
+        }
+
+        /**
+         * @return Returns the tick the Timer expires or expired at, if it is not paused.
+         */
+        public long getDeadline() {
+            return deadline;
+        }
+
+        public boolean isRunning() {
+            return status == RUNNING;
+        }
+
+        public boolean isPaused() {
+            return status == PAUSED;
+        }
+
+        public boolean isExpired() {
+            return status == EXPIRED;
+        }
+
+        public boolean isCancelled() {
+            return status == CANCELLED;
+        }
+    }
+
+    private final long tickNanos;
+    private long now = 0;
+    private int size = 0;
+    private long started = 0; // The number of Timers started or resumed.
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private final Timer<T>[][] heads = new Timer[LEVELS][SLOTS];
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private final Timer<T>[][] tails = new Timer[LEVELS][SLOTS];
+    private final long[] occupied = new long[LEVELS]; // One bit per slot holding Timers.
+    private Timer<T> dueHead; // The Timers whose deadline was reached when they were started or resumed.
+    private Timer<T> dueTail;
+
+    /**
+     * @precondition {@code tick != null && !tick.isNegative() && !tick.isZero()}
+     * @postcondition Initialises {@code this} with its clock at 0, ticking every {@code tick}, without Timer.
+     */
+    public TimingWheel(Duration tick) {
+        assert tick != null : "TimingWheel: Trying to create a TimingWheel with a null tick.";
+        assert !tick.isNegative() && !tick.isZero() : "TimingWheel: The tick of a TimingWheel must be positive.";
+
+        this.tickNanos = tick.toNanos();
+    }
+
+    /**
+     * @return Returns the number of ticks since the TimingWheel was created.
+     */
+    public long getNow() {
+        return now;
+    }
+
+    /**
+     * @return Returns the duration of a tick.
+     */
+    public Duration getTick() {
+        return Duration.ofNanos(tickNanos);
+    }
+
+    /**
+     * @return Returns the number of Timers running.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @precondition {@code delay != null && !delay.isNegative()}
+     * @effects Starts a Timer carrying {@code payload}, expiring after {@code delay}, rounded up to a whole number of
+     * ticks so that it never expires early.
+     * @return Returns the Timer started.
+     */
+    public Timer<T> start(T payload, Duration delay) {
+        assert delay != null && !delay.isNegative() : "start: The delay of a Timer must be positive.";
+
+        return start(payload, toTicks(delay));
+    }
+
+    /**
+     * @precondition {@code ticks >= 0}
+     * @effects Starts a Timer carrying {@code payload}, expiring after {@code ticks} ticks.
+     * @return Returns the Timer started.
+     */
+    public Timer<T> start(T payload, long ticks) {
+        assert ticks >= 0 : "start: The delay of a Timer must be positive.";
+
+        Timer<T> timer = new Timer<>(payload);
+        timer.deadline = ticks > Long.MAX_VALUE - now ? Long.MAX_VALUE : now + ticks;
+        timer.sequence = started++;
+        insert(timer);
+        size++;
+        return timer;
+    }
+
+    /**
+     * @precondition {@code timer} was started in {@code this}.
+     * @effects Stops {@code timer} without it expiring, if it is running or paused.
+     */
+    public void cancel(Timer<T> timer) {
+        if (timer.status == RUNNING) {
+            unlink(timer);
+            size--;
+        }
+        if (timer.status == RUNNING || timer.status == PAUSED) timer.status = CANCELLED;
+    }
+
+    /**
+     * @precondition {@code timer} was started in {@code this}.
+     * @effects Pauses {@code timer} if it is running, keeping the time left before its deadline.
+     */
+    public void pause(Timer<T> timer) {
+        if (timer.status != RUNNING) return;
+        unlink(timer);
+        size--;
+        timer.remaining = Math.max(0, timer.deadline - now);
+        timer.status = PAUSED;
+    }
+
+    /**
+     * @precondition {@code timer} was started in {@code this}.
+     * @effects Runs {@code timer} again if it is paused, with the time it had left when paused.
+     */
+    public void resume(Timer<T> timer) {
+        if (timer.status != PAUSED) return;
+        timer.deadline = timer.remaining > Long.MAX_VALUE - now ? Long.MAX_VALUE : now + timer.remaining;
+        timer.status = RUNNING;
+        timer.sequence = started++;
+        insert(timer);
+        size++;
+    }
+
+    /**
+     * @precondition {@code timer} was started in {@code this}.
+     * @return Returns the time left before {@code timer} expires, zero if it is expired or cancelled.
+     */
+    public Duration getRemaining(Timer<T> timer) {
+        long ticks = switch (timer.status) {
+            case RUNNING -> Math.max(0, timer.deadline - now);
+            case PAUSED -> timer.remaining;
+            default -> 0;
+        };
+        return Duration.ofNanos(ticks > Long.MAX_VALUE / tickNanos ? Long.MAX_VALUE : ticks * tickNanos);
+    }
+
+    /**
+     * @precondition {@code duration != null && !duration.isNegative()}
+     * @return Returns {@code duration} as a number of ticks, rounded up.
+     */
+    public long toTicks(Duration duration) {
+        long nanos = duration.toNanos();
+        return nanos / tickNanos + (nanos % tickNanos == 0 ? 0 : 1);
+    }
+
+    /**
+     * @precondition {@code tick >= getNow() && expired != null}
+     * @effects Moves the clock to {@code tick}, telling {@code expired} about each Timer whose deadline is reached, in
+     * the order of their deadlines. {@code expired} may start, cancel, pause and resume Timers, the clock being at the
+     * deadline of the Timer it is told about.
+     */
+    public void advance(long tick, Consumer<? super Timer<T>> expired) {
+        assert tick >= now : "advance: The clock of a TimingWheel can't go back.";
+        assert expired != null : "advance: Trying to advance a TimingWheel with a null consumer.";
+
+        while (true) {
+            if (dueHead != null) {
+                Timer<T> timer = dueHead;
+                unlink(timer);
+                expire(timer, expired);
+                continue;
+            }
+            int level = 0;
+            while (level < LEVELS && occupied[level] == 0) level++;
+            if (level == LEVELS) break;
+            int slot = Long.numberOfTrailingZeros(occupied[level]);
+            int shift = BITS * level;
+            // The first tick of the slot, the mask keeping nothing of now for the highest wheel.
+            long start = (now & ~((1L << shift << BITS) - 1)) | (long) slot << shift;
+            if (start > tick) break;
+
+            now = start;
+            Timer<T> timer = heads[level][slot];
+            heads[level][slot] = null;
+            tails[level][slot] = null;
+            occupied[level] &= ~(1L << slot);
+            while (timer != null) { // Moves the Timers of the slot down, or expires them.
+                Timer<T> following = timer.next;
+                timer.previous = null;
+                timer.next = null;
+                if (timer.deadline == now) {
+                    append(timer, -1, 0);
+                } else {
+                    insert(timer);
+                }
+                timer = following;
+            }
+        }
+        now = tick;
+    }
+
+    private void expire(Timer<T> timer, Consumer<? super Timer<T>> expired) {
+        size--;
+        timer.status = EXPIRED;
+        expired.accept(timer);
+    }
+
+    /**
+     * @effects Adds {@code timer}, running, to the slot of the lowest wheel covering its deadline, or to the Timers due
+     * if its deadline is reached.
+     */
+    private void insert(Timer<T> timer) {
+        if (timer.deadline <= now) {
+            append(timer, -1, 0);
+            return;
+        }
+        int level = (Long.SIZE - 1 - Long.numberOfLeadingZeros(timer.deadline ^ now)) / BITS;
+        append(timer, level, (int) (timer.deadline >>> BITS * level) & (SLOTS - 1));
+    }
+
+    /**
+     * @effects Adds {@code timer} to the slot {@code slot} of the wheel {@code level}, or to the Timers due if
+     * {@code level < 0}, after the Timers there which were started or resumed before it.
+     */
+    private void append(Timer<T> timer, int level, int slot) {
+        timer.level = level;
+        timer.slot = slot;
+        Timer<T> previous = level < 0 ? dueTail : tails[level][slot];
+        while (previous != null && previous.sequence > timer.sequence) previous = previous.previous;
+        Timer<T> next = previous != null ? previous.next : level < 0 ? dueHead : heads[level][slot];
+        timer.previous = previous;
+        timer.next = next;
+        if (previous != null) {
+            previous.next = timer;
+        } else if (level < 0) {
+            dueHead = timer;
+        } else {
+            heads[level][slot] = timer;
+            occupied[level] |= 1L << slot;
+        }
+        if (next != null) next.previous = timer;
+        else if (level < 0) dueTail = timer;
+        else tails[level][slot] = timer;
+    }
+
+    private void unlink(Timer<T> timer) {
+        int level = timer.level;
+        int slot = timer.slot;
+        if (timer.previous != null) timer.previous.next = timer.next;
+        else if (level < 0) dueHead = timer.next;
+        else heads[level][slot] = timer.next;
+        if (timer.next != null) timer.next.previous = timer.previous;
+        else if (level < 0) dueTail = timer.previous;
+        else tails[level][slot] = timer.previous;
+        if (level >= 0 && heads[level][slot] == null) occupied[level] &= ~(1L << slot);
+        timer.previous = null;
+        timer.next = null;
+    }
+}
@@ -0,0 +1,155 @@
+package com.example.represc.utils;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Consumer;
+
+/**
+ * @author Schmetz Arnaud
+ * @version 1.0
+ *
+ * @overview A WheelClock moves TimingWheels {@link TimingWheel} in real time, for the game masters: a single thread
+ * advances all of them once per tick, however many games and Countdowns they hold, instead of one scheduled task per
+ * Countdown. The ticks are counted from the creation of the WheelClock on {@link System#nanoTime()}, so that a late
+ * tick doesn't delay the next ones. A Timer expires during the tick of its deadline, so at most one tick away from the
+ * time its delay ends, plus the time the thread takes to wake up.
+ * The TimingWheels attached are owned by the thread of the WheelClock: they are only modified through commands given to
+ * {@link #execute(Runnable)}, which run on that thread before the next tick, and their Timers expire on that thread too.
+ *
+ * @specfield tick: Duration // The duration of a tick, the same for every TimingWheel attached.
+ * @specfield wheels: set of TimingWheel // The TimingWheels attached, each with what to do with its expired Timers.
+ */
+public class WheelClock implements AutoCloseable {
+
+    private static final System.Logger LOGGER = System.getLogger(WheelClock.class.getName());
+
+    /**
+     * @overview An Attachment is a TimingWheel attached, with what to do with its expired Timers.
+     */
+    private static final class Attachment<T> {
+        private final TimingWheel<T> wheel;
+        private final Consumer<? super TimingWheel.Timer<T>> expired;
+
+        private Attachment(TimingWheel<T> wheel, Consumer<? super TimingWheel.Timer<T>> expired) {
+            this.wheel = wheel;
+            this.expired = expired;
+        }
+
+        private void advance(long tick) {
+            wheel.advance(tick, timer -> {
+                try {
+                    expired.accept(timer);
+                } catch (RuntimeException e) {
+                    LOGGER.log(System.Logger.Level.WARNING, "A Timer of the clock failed to expire", e);
+                }
+            });
+        }
+    }
+
+    private final long tickNanos;
+    private final long origin = System.nanoTime();
+    private final ArrayList<Attachment<?>> attachments = new ArrayList<>(); // Only used by the thread.
+    private final ConcurrentLinkedQueue<Runnable> commands = new ConcurrentLinkedQueue<>();
+    private final Thread thread;
+    private volatile boolean closed = false;
+
+    /**
+     * @precondition {@code tick != null && !tick.isNegative() && !tick.isZero()}
+     * @postcondition Initialises {@code this} ticking every {@code tick}, without TimingWheel, and starts its thread.
+     */
+    public WheelClock(Duration tick) {
+        assert tick != null : "WheelClock: Trying to create a WheelClock with a null tick.";
+        assert !tick.isNegative() && !tick.isZero() : "WheelClock: The tick of a WheelClock must be positive.";
+
+        this.tickNanos = tick.toNanos();
+        this.thread = new Thread(this::run, "represc-wheel-clock");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * @return Returns the number of ticks since the WheelClock was created.
+     */
+    public long getTicks() {
+        return (System.nanoTime() - origin) / tickNanos;
+    }
+
+    /**
+     * @precondition {@code wheel != null && expired != null}, the tick of {@code wheel} is the tick of {@code this},
+     * and {@code wheel} is not attached to any WheelClock.
+     * @effects Attaches {@code wheel}, whose clock jumps to the current tick, so that {@code expired} is told, on the
+     * thread of {@code this}, about each of its Timers expiring. The Timers of {@code wheel} must only be started,
+     * cancelled, paused and resumed by commands given to {@code execute}.
+     */
+    public <T> void attach(TimingWheel<T> wheel, Consumer<? super TimingWheel.Timer<T>> expired) {
+        assert wheel != null : "attach: Trying to attach a null TimingWheel.";
+        assert expired != null : "attach: Trying to attach a TimingWheel with a null consumer.";
+        assert wheel.getTick().toNanos() == tickNanos : "attach: The TimingWheel doesn't have the tick of the clock.";
+
+        execute(() -> {
+            Attachment<T> attachment = new Attachment<>(wheel, expired);
+            attachment.advance(Math.max(wheel.getNow(), getTicks()));
+            attachments.add(attachment);
+        });
+    }
+
+    /**
+     * @precondition {@code wheel != null}
+     * @effects Detaches {@code wheel}, whose clock stops.
+     */
+    public void detach(TimingWheel<?> wheel) {
+        assert wheel != null : "detach: Trying to detach a null TimingWheel.";
+
+        execute(() -> attachments.removeIf(attachment -> attachment.wheel == wheel));
+    }
+
+    /**
+     * @precondition {@code command != null}
+     * @effects Runs {@code command} on the thread of {@code this}, before the next tick, after the commands given
+     * before it.
+     */
+    public void execute(Runnable command) {
+        assert command != null : "execute: Trying to execute a null command.";
+
+        commands.add(command);
+        LockSupport.unpark(thread);
+    }
+
+    /**
+     * @effects Stops the thread of {@code this}; the commands not run yet never are.
+     */
+    @Override
+    public void close() {
+        closed = true;
+        LockSupport.unpark(thread);
+    }
+
+    private void run() {
+        while (!closed) {
+            long tick = advance();
+            for (Runnable command; (command = commands.poll()) != null; tick = advance()) {
+                try {
+                    command.run(); // The TimingWheels are at the current tick.
+                } catch (RuntimeException e) {
+                    LOGGER.log(System.Logger.Level.WARNING, "A command of the clock failed", e);
+                }
+            }
+            long wait = origin + (tick + 1) * tickNanos - System.nanoTime();
+            if (wait > 0 && commands.isEmpty()) LockSupport.parkNanos(this, wait);
+        }
+    }
+
+    /**
+     * @effects Advances the TimingWheels attached to the current tick.
+     * @return Returns the current tick.
+     */
+    private long advance() {
+        long tick = getTicks();
+        for (Attachment<?> attachment : attachments) {
+            if (attachment.wheel.getNow() < tick) attachment.advance(tick);
+        }
+        return tick;
+    }
+}
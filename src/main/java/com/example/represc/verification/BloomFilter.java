@@ -0,0 +1,60 @@
+package com.example.represc.verification;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.LongBuffer;
+
+/**
+ * @author Schmetz Arnaud
+ * @version 1.0
+ *
+ * @overview A BloomFilter tells whether a configuration may have been added to it, from the hash of the configuration
+ * {@link VisitedSet#hash(long[])}: if it answers no, the configuration has surely never been added, if it answers yes,
+ * it probably has. Each hash sets HASHES bits of a table kept off the heap, derived from its two halves; with about ten
+ * bits per configuration added, it wrongly answers yes about once in a hundred times.
+ * A BloomFilter is not thread safe.
+ *
+ * @specfield bits: set of long // The bits set.
+ */
+final class BloomFilter {
+
+    private static final int HASHES = 7;
+    private static final long MAX_BITS = 1L << 33; // A direct buffer holds at most 2 GB.
+
+    private final LongBuffer table;
+    private final long mask;
+
+    /**
+     * @precondition {@code expected > 0}
+     * @postcondition Initialises {@code this} as an empty filter, for about {@code expected} configurations.
+     */
+    BloomFilter(long expected) {
+        assert expected > 0 : "BloomFilter: The number of configurations expected must be positive.";
+
+        long bits = Math.min(MAX_BITS, Math.max(1L << 16, Long.highestOneBit(expected * 10) << 1));
+        this.table = ByteBuffer.allocateDirect((int) (bits / Byte.SIZE)).order(ByteOrder.nativeOrder()).asLongBuffer();
+        this.mask = bits - 1;
+    }
+
+    /**
+     * @effects Adds the configuration having {@code hash} as hash.
+     */
+    void add(long hash) {
+        long step = Long.rotateLeft(hash, 32) | 1;
+        for (int i = 0; i < HASHES; i++, hash += step) {
+            int word = (int) ((hash & mask) >>> 6);
+            table.put(word, table.get(word) | 1L << hash);
+        }
+    }
+
+    /**
+     * @return Returns false if the configuration having {@code hash} as hash has surely not been added.
+     */
+    boolean mightContain(long hash) {
+        long step = Long.rotateLeft(hash, 32) | 1;
+        for (int i = 0; i < HASHES; i++, hash += step) {
+            if ((table.get((int) ((hash & mask) >>> 6)) & 1L << hash) == 0) return false;
+        }
+        return true;
+    }
+}
@@ -0,0 +1,497 @@
+package com.example.represc.verification;
+
+import com.example.represc.data.Trigger;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * @author Schmetz Arnaud
+ * @version 1.0
+ *
+ * @overview A CompiledTrigger is a Trigger {@link Trigger} compiled for the configurations of a StateSpace
+ * {@link StateSpace}, to be tested on them again and again by the verifiers and the simulator without looking at the
+ * JSONLogic anymore.
+ * Compiling a Trigger builds a tree of nodes specialised for what they look at, every UUID being replaced by an index
+ * and every index by the bits of the configuration holding it:
+ * <ul>
+ *     <li>a Field tests bits of one long of the configuration: {@code (configuration[word] & mask) == value}. It tests
+ *     whether a Physical Element is in a State, or is accessible, and the conjunction of such tests on the same long
+ *     is fused into one Field;</li>
+ *     <li>a StateIn tests whether a Physical Element is in one of some States, with one bit per State;</li>
+ *     <li>the Not, All, Any and Choice nodes combine the others.</li>
+ * </ul>
+ * The parts not depending on the configuration are computed while compiling. Testing a configuration allocates
+ * nothing. Values are compared as they are, without the conversions between types of JSONLogic; {@code and},
+ * {@code or} and {@code if} give booleans.
+ * A CompiledTrigger is not modified once compiled, and can be tested by several threads at once.
+ */
+abstract class CompiledTrigger {
+
+    static final CompiledTrigger TRUE = new Constant(true);
+    static final CompiledTrigger FALSE = new Constant(false);
+
+    /**
+     * @precondition {@code configuration} is a configuration of the StateSpace the Trigger was compiled for.
+     * @return Returns true if the Trigger holds in {@code configuration}.
+     */
+    abstract boolean test(long[] configuration);
+
+    /**
+     * @precondition {@code trigger != null && space != null}, and every Physical Element read by {@code trigger} is part
+     * of {@code space}.
+     * @return Returns {@code trigger} compiled for the configurations of {@code space}.
+     */
+    static CompiledTrigger compile(Trigger trigger, StateSpace space) {
+        assert trigger != null : "compile: Trying to compile a null Trigger.";
+        assert space != null : "compile: Trying to compile a Trigger for a null StateSpace.";
+
+        return compile(trigger.getRoot(), space);
+    }
+
+    /**
+     * @precondition {@code node != null && space != null}, and every Physical Element read by {@code node} is part of
+     * {@code space}.
+     * @return Returns the part {@code node} of a Trigger compiled for the configurations of {@code space}.
+     */
+    static CompiledTrigger compile(Trigger.Node node, StateSpace space) {
+        assert node != null : "compile: Trying to compile a null Node.";
+        assert space != null : "compile: Trying to compile a Trigger for a null StateSpace.";
+
+        return new Compiler(space).condition(node);
+    }
+
+    private static final class Constant extends CompiledTrigger {
+        private final boolean value;
+
+        private Constant(boolean value) {
+            this.value = value;
+        }
+
+        @Override
+        boolean test(long[] configuration) {
+            return value;
+        }
+    }
+
+    private static final class Field extends CompiledTrigger {
+        private final int word;
+        private final long mask;
+        private final long value;
+
+        private Field(int word, long mask, long value) {
+            this.word = word;
+            this.mask = mask;
+            this.value = value;
+        }
+
+        @Override
+        boolean test(long[] configuration) {
+            return (configuration[word] & mask) == value;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof Field && word == ((Field) o).word && mask == ((Field) o).mask
+                    && value == ((Field) o).value;
+        }
+
+        @Override
+        public int hashCode() {
+            return Long.hashCode((mask * 31 + value) * 31 + word);
+        }
+    }
+
+    private static final class StateIn extends CompiledTrigger {
+        private final int word;
+        private final int shift;
+        private final long mask;
+        private final long[] states; // One bit per State.
+
+        private StateIn(int word, int shift, long mask, long[] states) {
+            this.word = word;
+            this.shift = shift;
+            this.mask = mask;
+            this.states = states;
+        }
+
+        @Override
+        boolean test(long[] configuration) {
+            int state = (int) ((configuration[word] >>> shift) & mask);
+            return (states[state >>> 6] & 1L << state) != 0;
+        }
+    }
+
+    private static final class Not extends CompiledTrigger {
+        private final CompiledTrigger operand;
+
+        private Not(CompiledTrigger operand) {
+            this.operand = operand;
+        }
+
+        @Override
+        boolean test(long[] configuration) {
+            return !operand.test(configuration);
+        }
+    }
+
+    private static final class All extends CompiledTrigger {
+        private final CompiledTrigger[] operands;
+
+        private All(CompiledTrigger[] operands) {
+            this.operands = operands;
+        }
+
+        @Override
+        boolean test(long[] configuration) {
+            for (CompiledTrigger operand : operands) {
+                if (!operand.test(configuration)) return false;
+            }
+            return true;
+        }
+    }
+
+    private static final class Any extends CompiledTrigger {
+        private final CompiledTrigger[] operands;
+
+        private Any(CompiledTrigger[] operands) {
+            this.operands = operands;
+        }
+
+        @Override
+        boolean test(long[] configuration) {
+            for (CompiledTrigger operand : operands) {
+                if (operand.test(configuration)) return true;
+            }
+            return false;
+        }
+    }
+
+    private static final class Choice extends CompiledTrigger {
+        private final CompiledTrigger condition;
+        private final CompiledTrigger then;
+        private final CompiledTrigger otherwise;
+
+        private Choice(CompiledTrigger condition, CompiledTrigger then, CompiledTrigger otherwise) {
+            this.condition = condition;
+            this.then = then;
+            this.otherwise = otherwise;
+        }
+
+        @Override
+        boolean test(long[] configuration) {
+            return condition.test(configuration) ? then.test(configuration) : otherwise.test(configuration);
+        }
+    }
+
+    /**
+     * @overview A Compiler compiles the Nodes of a Trigger for a StateSpace.
+     */
+    private static final class Compiler {
+        private final StateSpace space;
+
+        private Compiler(StateSpace space) {
+            this.space = space;
+        }
+
+        /**
+         * @overview A Value is what a Node gives before being compared: the State of a Physical Element, whether it is
+         * accessible, a constant, or the result of a condition.
+         */
+        private static final class Value {
+            private static final int STATE = 0;
+            private static final int ACCESSIBLE = 1;
+            private static final int CONSTANT = 2;
+            private static final int CONDITION = 3;
+
+            private final int kind;
+            private final int element;
+            private final Object constant;
+            private final CompiledTrigger condition;
+
+            private Value(int kind, int element, Object constant, CompiledTrigger condition) {
+                this.kind = kind;
+                this.element = element;
+                this.constant = constant;
+                this.condition = condition;
+            }
+        }
+
+        /**
+         * @return Returns {@code node} compiled as a condition, its value being converted to a boolean as JSONLogic
+         * does.
+         */
+        private CompiledTrigger condition(Trigger.Node node) {
+            if (!(node instanceof Trigger.Operation)) return truth(value(node));
+
+            Trigger.Operation operation = (Trigger.Operation) node;
+            List<Trigger.Node> arguments = operation.getArguments();
+            switch (operation.getOperator()) {
+                case "==", "===" -> {
+                    return equal(value(arguments.get(0)), value(arguments.get(1)));
+                }
+                case "!=", "!==" -> {
+                    return not(equal(value(arguments.get(0)), value(arguments.get(1))));
+                }
+                case "!" -> {
+                    return not(condition(arguments.get(0)));
+                }
+                case "!!" -> {
+                    return condition(arguments.get(0));
+                }
+                case "and", "or" -> {
+                    ArrayList<CompiledTrigger> operands = new ArrayList<>();
+                    for (Trigger.Node argument : arguments) operands.add(condition(argument));
+                    return operation.getOperator().equals("and") ? all(operands) : any(operands);
+                }
+                case "if", "?:" -> {
+                    int pairs = arguments.size() / 2;
+                    CompiledTrigger result = arguments.size() % 2 == 1 ? condition(arguments.get(arguments.size() - 1))
+                            : FALSE;
+                    for (int pair = pairs - 1; pair >= 0; pair--) {
+                        result = choice(condition(arguments.get(2 * pair)), condition(arguments.get(2 * pair + 1)),
+                                result);
+                    }
+                    return result;
+                }
+                case "in" -> {
+                    return in(value(arguments.get(0)), ((Trigger.Literal) arguments.get(1)).getValue());
+                }
+                default -> throw new IllegalArgumentException("The operator \"" + operation.getOperator() + "\" is " +
+                        "not supported.");
+            }
+        }
+
+        private Value value(Trigger.Node node) {
+            if (node instanceof Trigger.Literal) {
+                return new Value(Value.CONSTANT, -1, ((Trigger.Literal) node).getValue(), null);
+            }
+            if (node instanceof Trigger.Variable) {
+                Trigger.Variable variable = (Trigger.Variable) node;
+                int element = space.indexOf(variable.getElement());
+                assert element >= 0 : "compile: The Trigger reads a Physical Element which is not part of the " +
+                        "StateSpace.";
+                return new Value(variable.isAccessible() ? Value.ACCESSIBLE : Value.STATE, element, null, null);
+            }
+            return new Value(Value.CONDITION, -1, null, condition(node));
+        }
+
+        private CompiledTrigger truth(Value value) {
+            return switch (value.kind) {
+                case Value.STATE -> constant(space.stateCount(value.element) > 0);
+                case Value.ACCESSIBLE -> accessible(value.element, true);
+                case Value.CONSTANT -> constant(isTruthy(value.constant));
+                default -> value.condition;
+            };
+        }
+
+        private CompiledTrigger equal(Value first, Value second) {
+            if (first.kind > second.kind) { // Only the cases where first.kind <= second.kind are left.
+                Value swap = first;
+                first = second;
+                second = swap;
+            }
+            switch (first.kind) {
+                case Value.STATE -> {
+                    if (second.kind == Value.STATE) {
+                        return constant(first.element == second.element
+                                || space.stateCount(first.element) == 0 && space.stateCount(second.element) == 0);
+                    }
+                    if (second.kind == Value.CONSTANT) {
+                        if (second.constant == null) return constant(space.stateCount(first.element) == 0);
+                        int state = stateIndexOf(first.element, second.constant);
+                        return state < 0 ? FALSE : state(first.element, state);
+                    }
+                    return FALSE;
+                }
+                case Value.ACCESSIBLE -> {
+                    if (second.kind == Value.ACCESSIBLE && first.element == second.element) return TRUE;
+                    if (second.kind == Value.CONSTANT) {
+                        return second.constant instanceof Boolean
+                                ? accessible(first.element, (Boolean) second.constant) : FALSE;
+                    }
+                    CompiledTrigger other = second.kind == Value.ACCESSIBLE ? accessible(second.element, true)
+                            : second.condition;
+                    return same(accessible(first.element, true), other);
+                }
+                case Value.CONSTANT -> {
+                    if (second.kind == Value.CONSTANT) return constant(isEqual(first.constant, second.constant));
+                    return first.constant instanceof Boolean
+                            ? (Boolean) first.constant ? second.condition : not(second.condition) : FALSE;
+                }
+                default -> {
+                    return same(first.condition, second.condition);
+                }
+            }
+        }
+
+        private CompiledTrigger in(Value value, Object container) {
+            ArrayList<Object> candidates = new ArrayList<>();
+            if (container instanceof List) {
+                candidates.addAll((List<?>) container);
+            } else {
+                String text = (String) container;
+                switch (value.kind) {
+                    case Value.STATE -> {
+                        for (int state = 0; state < space.stateCount(value.element); state++) {
+                            String id = space.stateId(value.element, state).toString();
+                            if (text.contains(id)) candidates.add(id);
+                        }
+                    }
+                    case Value.CONSTANT -> {
+                        return constant(value.constant != null && text.contains(toText(value.constant)));
+                    }
+                    default -> {
+                        if (text.contains("true")) candidates.add(true);
+                        if (text.contains("false")) candidates.add(false);
+                    }
+                }
+            }
+
+            if (value.kind == Value.STATE && space.stateCount(value.element) > 0) {
+                long[] states = new long[(space.stateCount(value.element) + 63) >>> 6];
+                int count = 0;
+                int last = -1;
+                for (Object candidate : candidates) {
+                    int state = stateIndexOf(value.element, candidate);
+                    if (state >= 0 && (states[state >>> 6] & 1L << state) == 0) {
+                        states[state >>> 6] |= 1L << state;
+                        count++;
+                        last = state;
+                    }
+                }
+                if (count == 0) return FALSE;
+                if (count == space.stateCount(value.element)) return TRUE;
+                if (count == 1) return state(value.element, last);
+                return new StateIn(space.wordOf(value.element), space.stateShift(value.element),
+                        space.stateMask(value.element), states);
+            }
+            ArrayList<CompiledTrigger> operands = new ArrayList<>();
+            for (Object candidate : candidates) {
+                operands.add(equal(value, new Value(Value.CONSTANT, -1, candidate, null)));
+            }
+            return any(operands);
+        }
+
+        private int stateIndexOf(int element, Object state) {
+            if (!(state instanceof String)) return -1;
+            try {
+                return space.stateIndexOf(element, UUID.fromString((String) state));
+            } catch (IllegalArgumentException e) {
+                return -1;
+            }
+        }
+
+        private CompiledTrigger state(int element, int state) {
+            long mask = space.stateMask(element) << space.stateShift(element);
+            if (mask == 0) return TRUE;
+            return new Field(space.wordOf(element), mask, (long) state << space.stateShift(element));
+        }
+
+        private CompiledTrigger accessible(int element, boolean accessible) {
+            long bit = space.accessibleBit(element);
+            return new Field(space.wordOf(element), bit, accessible ? bit : 0);
+        }
+
+        private static CompiledTrigger constant(boolean value) {
+            return value ? TRUE : FALSE;
+        }
+
+        private static CompiledTrigger not(CompiledTrigger operand) {
+            if (operand == TRUE) return FALSE;
+            if (operand == FALSE) return TRUE;
+            if (operand instanceof Not) return ((Not) operand).operand;
+            if (operand instanceof Field && Long.bitCount(((Field) operand).mask) == 1) {
+                Field field = (Field) operand;
+                return new Field(field.word, field.mask, field.value ^ field.mask);
+            }
+            return new Not(operand);
+        }
+
+        /**
+         * @return Returns the conjunction of {@code operands}, the Fields testing the same long being fused and tested
+         * first.
+         */
+        private static CompiledTrigger all(List<CompiledTrigger> operands) {
+            LinkedHashMap<Integer, long[]> fields = new LinkedHashMap<>(); // word to {mask, value}
+            ArrayList<CompiledTrigger> others = new ArrayList<>();
+            ArrayList<CompiledTrigger> pending = new ArrayList<>(operands);
+            for (int i = 0; i < pending.size(); i++) {
+                CompiledTrigger operand = pending.get(i);
+                if (operand == FALSE) return FALSE;
+                if (operand == TRUE) continue;
+                if (operand instanceof All) {
+                    pending.addAll(List.of(((All) operand).operands));
+                } else if (operand instanceof Field) {
+                    Field field = (Field) operand;
+                    long[] fused = fields.computeIfAbsent(field.word, word -> new long[2]);
+                    if (((fused[1] ^ field.value) & fused[0] & field.mask) != 0) return FALSE;
+                    fused[0] |= field.mask;
+                    fused[1] |= field.value;
+                } else {
+                    others.add(operand);
+                }
+            }
+
+            ArrayList<CompiledTrigger> result = new ArrayList<>();
+            for (Map.Entry<Integer, long[]> field : fields.entrySet()) {
+                result.add(new Field(field.getKey(), field.getValue()[0], field.getValue()[1]));
+            }
+            result.addAll(others);
+            if (result.isEmpty()) return TRUE;
+            if (result.size() == 1) return result.get(0);
+            return new All(result.toArray(new CompiledTrigger[0]));
+        }
+
+        private static CompiledTrigger any(List<CompiledTrigger> operands) {
+            ArrayList<CompiledTrigger> result = new ArrayList<>();
+            ArrayList<CompiledTrigger> pending = new ArrayList<>(operands);
+            for (int i = 0; i < pending.size(); i++) {
+                CompiledTrigger operand = pending.get(i);
+                if (operand == TRUE) return TRUE;
+                if (operand == FALSE) continue;
+                if (operand instanceof Any) pending.addAll(List.of(((Any) operand).operands));
+                else result.add(operand);
+            }
+            if (result.isEmpty()) return FALSE;
+            if (result.size() == 1) return result.get(0);
+            return new Any(result.toArray(new CompiledTrigger[0]));
+        }
+
+        private static CompiledTrigger choice(CompiledTrigger condition, CompiledTrigger then,
+                                              CompiledTrigger otherwise) {
+            if (condition == TRUE || then == otherwise) return then;
+            if (condition == FALSE) return otherwise;
+            return new Choice(condition, then, otherwise);
+        }
+
+        /**
+         * @return Returns a condition holding when {@code first} and {@code second} both hold or both don't.
+         */
+        private static CompiledTrigger same(CompiledTrigger first, CompiledTrigger second) {
+            return choice(first, second, not(second));
+        }
+
+        private static boolean isTruthy(Object constant) {
+            if (constant == null) return false;
+            if (constant instanceof Boolean) return (Boolean) constant;
+            if (constant instanceof Double) return (Double) constant != 0 && !((Double) constant).isNaN();
+            if (constant instanceof String) return !((String) constant).isEmpty();
+            return !((List<?>) constant).isEmpty();
+        }
+
+        private static boolean isEqual(Object first, Object second) {
+            return first == null ? second == null : first.equals(second);
+        }
+
+        private static String toText(Object constant) {
+            if (constant instanceof Double && (Double) constant == Math.rint((Double) constant)) {
+                return Long.toString(((Double) constant).longValue());
+            }
+            return String.valueOf(constant);
+        }
+    }
+}
@@ -0,0 +1,151 @@
+package com.example.represc.verification;
+
+import com.example.represc.data.EscapeGame;
+import com.example.represc.data.Event;
+import com.example.represc.verification.Solvability.Step;
+import com.example.represc.verification.Solvability.Verdict;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * @author Schmetz Arnaud
+ * @version 1.0
+ *
+ * @overview A CompositionalVerifier tells whether the players can reach the Goal {@link Goal} of an escape game, like a
+ * SolvabilityVerifier {@link SolvabilityVerifier}, but one Problem at a time.
+ * The Physical Elements of the escape game are split in components: the Physical Elements of a Problem are in the same
+ * component, as are the ones read or switched by an Event, with the Events between them, and the ones of two Problems
+ * or Events sharing a Physical Element; a Physical Element in none of them is a component on its own. What the players
+ * do in one component then changes nothing to what they can do in the others, so each component named by the Goal is
+ * verified on its own: a Summary {@link Summary} of
+ * every configuration of the component the players can reach is built, and the Goal can be reached if each component
+ * can reach its part of it. The witness is then the witnesses of the components, one after the other.
+ * The Summaries are kept in a SummaryCache {@link SummaryCache}, found again from the Physical Elements and States of
+ * their component: after an edit, verifying the escape game again only builds the Summaries of the components which
+ * have been edited.
+ * The components are copied out of the EscapeGame when the verifier is created; {@code verify} doesn't touch the
+ * EscapeGame anymore, and can be called on a background thread.
+ *
+ * @specfield goal: Goal // The Goal to reach.
+ * @specfield components: sequence of (Summary.Key, StateSpace) // The components named by the Goal.
+ * @specfield cache: SummaryCache // The Summaries already built.
+ */
+public class CompositionalVerifier {
+
+    private final Goal goal;
+    private final SummaryCache cache;
+    private final ArrayList<Summary.Key> keys = new ArrayList<>();
+    private final ArrayList<StateSpace> spaces = new ArrayList<>();
+
+    /**
+     * @precondition {@code game != null && goal != null && cache != null}, every Physical Element and State named by
+     * {@code goal} belongs to {@code game}, and it must be called by the thread owning {@code game}.
+     * @postcondition Initialises {@code this} to verify that {@code goal} can be reached in {@code game}, as it is now,
+     * keeping the Summaries in {@code cache}.
+     */
+    public CompositionalVerifier(EscapeGame game, Goal goal, SummaryCache cache) {
+        assert game != null : "CompositionalVerifier: Trying to verify a null EscapeGame.";
+        assert goal != null : "CompositionalVerifier: Trying to verify an EscapeGame towards a null Goal.";
+        assert cache != null : "CompositionalVerifier: Trying to keep the Summaries in a null SummaryCache.";
+
+        this.goal = goal;
+        this.cache = cache;
+
+        HashMap<UUID, UUID> parents = new HashMap<>();
+        for (UUID problem : game.getAllProblemsUUID().orElseGet(ArrayList::new)) {
+            UUID first = null;
+            for (UUID element : game.getProblem(problem).getPhysicalElementsUUID().orElseGet(ArrayList::new)) {
+                if (!game.containsPhysicalElement(element)) continue;
+                if (first == null) first = element;
+                union(parents, first, element);
+            }
+        }
+        for (UUID id : game.getAllEventsUUID().orElseGet(ArrayList::new)) {
+            Event event = game.getEvent(id);
+            ArrayList<UUID> linked = new ArrayList<>();
+            event.getTrigger().ifPresent(trigger -> linked.addAll(trigger.getElements()));
+            for (Event.Action action : event.getActions()) linked.add(action.getElement());
+            UUID first = null;
+            for (UUID element : linked) {
+                if (!game.containsPhysicalElement(element)) continue;
+                if (first == null) first = element;
+                union(parents, first, element);
+            }
+        }
+
+        LinkedHashMap<UUID, List<UUID>> components = new LinkedHashMap<>();
+        for (UUID element : goal.getElements()) components.putIfAbsent(find(parents, element), new ArrayList<>());
+        for (UUID element : parents.keySet()) {
+            List<UUID> component = components.get(find(parents, element));
+            if (component != null) component.add(element);
+        }
+        for (Map.Entry<UUID, List<UUID>> component : components.entrySet()) {
+            List<UUID> elements = component.getValue();
+            if (elements.isEmpty()) elements.add(component.getKey()); // A Physical Element in no Problem.
+            Collections.sort(elements);
+            keys.add(new Summary.Key(game, elements));
+            spaces.add(new StateSpace(game, elements, new Goal(), false));
+        }
+    }
+
+    /**
+     * @return Returns the Solvability of the Goal, reaching at most SolvabilityVerifier.DEFAULT_LIMIT configurations in
+     * each component.
+     */
+    public Solvability verify() {
+        return verify(SolvabilityVerifier.DEFAULT_LIMIT);
+    }
+
+    /**
+     * @precondition {@code limit > 0}
+     * @return Returns the Solvability of the Goal, reaching at most {@code limit} configurations in each component
+     * whose Summary is not in the cache. The verdict is UNSOLVABLE if a component can't reach its part of the Goal,
+     * UNKNOWN if a component could not be fully explored, because the limit is reached, there is no room left for the
+     * configurations or the thread is interrupted. The number of configurations explored only counts the Summaries
+     * built.
+     */
+    public Solvability verify(long limit) {
+        assert limit > 0 : "verify: The limit of configurations to explore must be positive.";
+
+        ArrayList<Step> witness = new ArrayList<>();
+        long explored = 0;
+        boolean unknown = false;
+        for (int component = 0; component < keys.size(); component++) {
+            Summary summary = cache.find(keys.get(component));
+            if (summary == null) {
+                summary = new Summary(spaces.get(component), limit);
+                cache.keep(keys.get(component), summary);
+                explored += summary.size();
+            }
+
+            Solvability part = summary.reach(goal);
+            if (part.getVerdict() == Verdict.UNSOLVABLE) return new Solvability(Verdict.UNSOLVABLE, null, explored);
+            if (part.getVerdict() == Verdict.UNKNOWN) unknown = true;
+            else if (!unknown) witness.addAll(part.getWitness().orElseThrow());
+        }
+        if (unknown) return new Solvability(Verdict.UNKNOWN, null, explored);
+        return new Solvability(Verdict.SOLVABLE, witness, explored);
+    }
+
+    private static UUID find(Map<UUID, UUID> parents, UUID element) {
+        UUID root = element;
+        for (UUID parent; (parent = parents.get(root)) != null && !parent.equals(root); ) root = parent;
+        for (UUID next; !element.equals(root); element = next) {
+            next = parents.get(element);
+            parents.put(element, root);
+        }
+        return root;
+    }
+
+    private static void union(Map<UUID, UUID> parents, UUID first, UUID second) {
+        parents.putIfAbsent(first, first);
+        parents.putIfAbsent(second, second);
+        parents.put(find(parents, second), find(parents, first));
+    }
+}
@@ -0,0 +1,363 @@
+package com.example.represc.verification;
+
+import com.example.represc.data.Countdown;
+import com.example.represc.data.EscapeGame;
+import com.example.represc.data.Event;
+import com.example.represc.data.Hint;
+import com.example.represc.data.ModelChange;
+import com.example.represc.data.ModelListener;
+import com.example.represc.data.PhysicalElement;
+import com.example.represc.data.Position;
+import com.example.represc.data.Problem;
+import com.example.represc.data.Trigger;
+import com.example.represc.verification.Violation.Kind;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * @author Schmetz Arnaud
+ * @version 1.0
+ *
+ * @overview A ConsistencyChecker keeps the set of the Violations {@link Violation} of an EscapeGame up to date while it
+ * is edited. The whole EscapeGame is checked once, when the checker is created; after that, the checker listens to the
+ * changes of the EscapeGame {@link ModelListener} and only checks again what each change may have broken or fixed:
+ * the element which changed and, when a Physical Element is added or deleted, the Hints, Problems and Events citing
+ * it, or only the Events when its States change.
+ * The rules are the invariants checked by the {@code repOK} methods of the elements, and the Physical Elements and
+ * States the Actions and Triggers of the Events name, each broken rule being reported on its own.
+ *
+ * @specfield game: EscapeGame // The EscapeGame checked.
+ * @specfield violations: set of Violation // The Violations of {@code game}, in the order they were found.
+ * @specfield byTarget: HashMap: UUID to list of Violation // The Violations of each element of {@code game}, the
+ * ones of the EscapeGame itself having the null key.
+ * @specfield eventsCiting: HashMap: UUID to set of UUID // The Events whose Actions or Trigger name each Physical
+ * Element, present or not.
+ * @specfield cited: HashMap: UUID to set of UUID // The Physical Elements named by each Event.
+ */
+public class ConsistencyChecker implements ModelListener {
+
+    private final EscapeGame game;
+    private final HashMap<UUID, List<Violation>> byTarget = new HashMap<>();
+    private final LinkedHashSet<Violation> violations = new LinkedHashSet<>();
+    private final HashMap<UUID, Set<UUID>> eventsCiting = new HashMap<>();
+    private final HashMap<UUID, Set<UUID>> cited = new HashMap<>();
+    private final CopyOnWriteArrayList<ViolationListener> listeners = new CopyOnWriteArrayList<>();
+
+    /**
+     * @precondition {@code game != null} and must be called by the thread owning {@code game}.
+     * @postcondition Initialises {@code this} with the Violations of {@code game}, and keeps them up to date until it is
+     * closed.
+     */
+    public ConsistencyChecker(EscapeGame game) {
+        assert game != null : "ConsistencyChecker: Trying to check a null EscapeGame.";
+
+        this.game = game;
+        checkAll();
+        game.addModelListener(this);
+    }
+
+    /**
+     * @effects Stops following the changes of the EscapeGame. The Violations are not updated anymore.
+     */
+    public void close() {
+        game.removeModelListener(this);
+    }
+
+    /**
+     * @return Returns a copy of the current Violations of the EscapeGame, in the order they were found.
+     */
+    public Set<Violation> getViolations() {
+        return Collections.unmodifiableSet(new LinkedHashSet<>(violations));
+    }
+
+    /**
+     * @return Returns true if the EscapeGame has no Violation.
+     */
+    public boolean isConsistent() {
+        return violations.isEmpty();
+    }
+
+    /**
+     * @precondition {@code listener != null}
+     * @postcondition {@code listener} is told about every Violation found or fixed from now on, until it is removed.
+     */
+    public void addViolationListener(ViolationListener listener) {
+        assert listener != null : "addViolationListener: Trying to add a null ViolationListener.";
+        listeners.add(listener);
+    }
+
+    /**
+     * @effects {@code listener} is not told about the Violations anymore.
+     */
+    public void removeViolationListener(ViolationListener listener) {
+        listeners.remove(listener);
+    }
+
+    /**
+     * @effects Checks again the parts of the EscapeGame which {@code change} may have broken or fixed.
+     */
+    @Override
+    public void modelChanged(ModelChange change) {
+        UUID target = change.getTarget();
+        switch (change.getKind()) {
+            case GAME_CLEARED -> checkAll();
+            case GAME_NAME, GAME_DESCRIPTION, GAME_DIFFICULTY, GAME_PLAYERS_MINIMUM, GAME_PLAYERS_MAXIMUM,
+                    GAME_PLAYERS_RANGE, GAME_ESTIMATED_DURATION -> update(null, checkGame());
+            case ELEMENT_ADDED, ELEMENT_DELETED -> {
+                update(target, checkElement(target));
+                game.getHintsCiting(target).ifPresent(hints -> hints.forEach(hint -> update(hint, checkHint(hint))));
+                game.getProblemsCiting(target).ifPresent(problems ->
+                        problems.forEach(problem -> update(problem, checkProblem(problem))));
+                checkEventsCiting(target);
+            }
+            case STATE_ADDED, STATE_DELETED, STATES_CLEARED, INITIAL_STATE_REPLACED -> {
+                update(target, checkElement(target));
+                checkEventsCiting(target);
+            }
+            case ELEMENT_NAME, ELEMENT_DESCRIPTION, ELEMENT_SHAPE, ELEMENT_ACCESSIBLE, ELEMENT_TYPE, INITIAL_STATE,
+                    STATE_NAME, STATE_DESCRIPTION, STATE_ACCESSIBLE ->
+                    update(target, checkElement(target));
+            case HINT_ADDED, HINT_DELETED, HINT_NAME, HINT_DESCRIPTION, HINT_POSITION, HINT_ELEMENT_ADDED,
+                    HINT_ELEMENT_DELETED -> update(target, checkHint(target));
+            case PROBLEM_ADDED, PROBLEM_DELETED, PROBLEM_NAME, PROBLEM_DESCRIPTION, PROBLEM_ELEMENT_ADDED,
+                    PROBLEM_ELEMENT_DELETED -> update(target, checkProblem(target));
+            case COUNTDOWN_ADDED, COUNTDOWN_DELETED, COUNTDOWN_NAME, COUNTDOWN_DESCRIPTION, COUNTDOWN_DURATION ->
+                    update(target, checkCountdown(target));
+            case EVENT_ADDED, EVENT_DELETED, EVENT_NAME, EVENT_DESCRIPTION, EVENT_TRIGGER, EVENT_ACTION_ADDED,
+                    EVENT_ACTION_DELETED -> update(target, checkEvent(target));
+        }
+    }
+
+    private void checkEventsCiting(UUID element) {
+        Set<UUID> events = eventsCiting.get(element);
+        if (events == null) return;
+        for (UUID event : new ArrayList<>(events)) update(event, checkEvent(event));
+    }
+
+    /**
+     * @effects Checks the whole EscapeGame again.
+     */
+    private void checkAll() {
+        HashMap<UUID, List<Violation>> found = new HashMap<>();
+        found.put(null, checkGame());
+        for (UUID id : game.getAllPhysicalElementsUUID().orElseGet(ArrayList::new)) found.put(id, checkElement(id));
+        for (UUID id : game.getAllHintsUUID().orElseGet(ArrayList::new)) found.put(id, checkHint(id));
+        for (UUID id : game.getAllProblemsUUID().orElseGet(ArrayList::new)) found.put(id, checkProblem(id));
+        for (UUID id : game.getAllCountdownsUUID().orElseGet(ArrayList::new)) found.put(id, checkCountdown(id));
+        eventsCiting.clear();
+        cited.clear();
+        for (UUID id : game.getAllEventsUUID().orElseGet(ArrayList::new)) found.put(id, checkEvent(id));
+
+        for (UUID target : new ArrayList<>(byTarget.keySet())) {
+            if (!found.containsKey(target)) update(target, List.of());
+        }
+        found.forEach(this::update);
+    }
+
+    /**
+     * @effects Replaces the Violations of {@code target} by {@code found}, telling the listeners about the ones which
+     * have been fixed and the ones which have been found.
+     */
+    private void update(UUID target, List<Violation> found) {
+        List<Violation> previous = found.isEmpty() ? byTarget.remove(target) : byTarget.put(target, found);
+        if (previous != null) {
+            for (Violation violation : previous) {
+                if (!found.contains(violation) && violations.remove(violation)) {
+                    for (ViolationListener listener : listeners) listener.violationFixed(violation);
+                }
+            }
+        }
+        for (Violation violation : found) {
+            if (violations.add(violation)) {
+                for (ViolationListener listener : listeners) listener.violationFound(violation);
+            }
+        }
+    }
+
+    private List<Violation> checkGame() {
+        List<Violation> found = new ArrayList<>(0);
+        if (!isValidName(game.getName())) found.add(new Violation(Kind.GAME_NAME_MISSING, null, null));
+        Optional<Integer> minimum = game.getPlayersMinimum();
+        Optional<Integer> maximum = game.getPlayersMaximum();
+        if (minimum.isPresent() && maximum.isPresent() && minimum.get() > maximum.get()) {
+            found.add(new Violation(Kind.GAME_PLAYERS_RANGE_INVALID, null, null));
+        }
+        return found;
+    }
+
+    /**
+     * @return Returns the Violations of the Physical Element having the UUID {@code id}, none if it is not a Physical
+     * Element of the EscapeGame. Its shape is not looked at, so a lazily loaded shape stays unloaded.
+     */
+    private List<Violation> checkElement(UUID id) {
+        List<Violation> found = new ArrayList<>(0);
+        if (!game.containsPhysicalElement(id)) return found;
+
+        PhysicalElement element = game.getPhysicalElement(id);
+        if (!isValidName(element.getName())) found.add(new Violation(Kind.ELEMENT_NAME_INVALID, id, null));
+        if (element.getType() == null) found.add(new Violation(Kind.ELEMENT_TYPE_MISSING, id, null));
+
+        Optional<ArrayList<UUID>> states = element.getAllStatesUUID();
+        Optional<UUID> initialState = element.getInitialStateUUID();
+        if (states.isPresent() && !states.get().isEmpty() && initialState.isEmpty()) {
+            found.add(new Violation(Kind.ELEMENT_INITIAL_STATE_MISSING, id, null));
+        }
+        if (initialState.isPresent() && !element.doesContainState(initialState.get())) {
+            found.add(new Violation(Kind.ELEMENT_INITIAL_STATE_UNKNOWN, id, initialState.get()));
+        }
+        for (UUID state : states.orElseGet(ArrayList::new)) {
+            if (!isValidName(element.getState(state).getName())) {
+                found.add(new Violation(Kind.STATE_NAME_INVALID, id, state));
+            }
+        }
+        return found;
+    }
+
+    private List<Violation> checkHint(UUID id) {
+        List<Violation> found = new ArrayList<>(0);
+        if (!game.containsHint(id)) return found;
+
+        Hint hint = game.getHint(id);
+        if (!isValidName(hint.getName())) found.add(new Violation(Kind.HINT_NAME_INVALID, id, null));
+        Optional<Position> position = hint.getPosition();
+        if (position.isPresent() && (position.get().getX() < 0 || position.get().getY() < 0)) {
+            found.add(new Violation(Kind.HINT_POSITION_INVALID, id, null));
+        }
+        for (UUID element : hint.getPhysicalElements().orElseGet(ArrayList::new)) {
+            if (!game.containsPhysicalElement(element)) found.add(new Violation(Kind.HINT_ELEMENT_MISSING, id, element));
+        }
+        return found;
+    }
+
+    private List<Violation> checkProblem(UUID id) {
+        List<Violation> found = new ArrayList<>(0);
+        if (!game.containsProblem(id)) return found;
+
+        Problem problem = game.getProblem(id);
+        if (!isValidName(problem.getName())) found.add(new Violation(Kind.PROBLEM_NAME_INVALID, id, null));
+        for (UUID element : problem.getPhysicalElementsUUID().orElseGet(ArrayList::new)) {
+            if (!game.containsPhysicalElement(element)) {
+                found.add(new Violation(Kind.PROBLEM_ELEMENT_MISSING, id, element));
+            }
+        }
+        return found;
+    }
+
+    private List<Violation> checkCountdown(UUID id) {
+        List<Violation> found = new ArrayList<>(0);
+        if (!game.containsCountdown(id)) return found;
+
+        Countdown countdown = game.getCountdown(id);
+        if (!isValidName(countdown.getName())) found.add(new Violation(Kind.COUNTDOWN_NAME_INVALID, id, null));
+        if (countdown.getDuration() == null || countdown.getDuration().isNegative()) {
+            found.add(new Violation(Kind.COUNTDOWN_DURATION_INVALID, id, null));
+        }
+        return found;
+    }
+
+    /**
+     * @effects Records the Physical Elements the Event having the UUID {@code id} names, none if it is not an Event of
+     * the EscapeGame.
+     * @return Returns the Violations of the Event having the UUID {@code id}, none if it is not an Event of the
+     * EscapeGame.
+     */
+    private List<Violation> checkEvent(UUID id) {
+        List<Violation> found = new ArrayList<>(0);
+        Set<UUID> previous = cited.remove(id);
+        if (previous != null) {
+            for (UUID element : previous) {
+                Set<UUID> events = eventsCiting.get(element);
+                events.remove(id);
+                if (events.isEmpty()) eventsCiting.remove(element);
+            }
+        }
+        if (!game.containsEvent(id)) return found;
+
+        Event event = game.getEvent(id);
+        Set<UUID> elements = new HashSet<>();
+        if (!isValidName(event.getName())) found.add(new Violation(Kind.EVENT_NAME_INVALID, id, null));
+        for (Event.Action action : event.getActions()) {
+            elements.add(action.getElement());
+            if (!game.containsPhysicalElement(action.getElement())) {
+                found.add(new Violation(Kind.EVENT_ACTION_ELEMENT_MISSING, id, action.getElement()));
+            } else if (!game.getPhysicalElement(action.getElement()).doesContainState(action.getState())) {
+                found.add(new Violation(Kind.EVENT_ACTION_STATE_UNKNOWN, id, action.getState()));
+            }
+        }
+        Optional<Trigger> trigger = event.getTrigger();
+        if (trigger.isPresent()) {
+            elements.addAll(trigger.get().getElements());
+            for (UUID element : trigger.get().getElements()) {
+                if (!game.containsPhysicalElement(element)) {
+                    found.add(new Violation(Kind.EVENT_TRIGGER_ELEMENT_MISSING, id, element));
+                }
+            }
+            checkStates(id, trigger.get().getRoot(), found);
+        }
+        for (UUID element : elements) eventsCiting.computeIfAbsent(element, e -> new HashSet<>()).add(id);
+        cited.put(id, elements);
+        return found;
+    }
+
+    /**
+     * @effects Adds to {@code found} a Violation for each Physical Element of the EscapeGame which {@code node}
+     * compares to a constant which isn't one of its States, by "==", "===", "!=", "!==" or "in".
+     */
+    private void checkStates(UUID event, Trigger.Node node, List<Violation> found) {
+        if (!(node instanceof Trigger.Operation)) return;
+        Trigger.Operation operation = (Trigger.Operation) node;
+        List<Trigger.Node> arguments = operation.getArguments();
+        switch (operation.getOperator()) {
+            case "==", "===", "!=", "!==" -> {
+                checkState(event, arguments.get(0), arguments.get(1), found);
+                checkState(event, arguments.get(1), arguments.get(0), found);
+            }
+            case "in" -> { // Only a list of States, "in" a string is a test on the text.
+                if (((Trigger.Literal) arguments.get(1)).getValue() instanceof List) {
+                    checkState(event, arguments.get(0), arguments.get(1), found);
+                }
+            }
+            default -> {
+            }
+        }
+        for (Trigger.Node argument : arguments) checkStates(event, argument, found);
+    }
+
+    private void checkState(UUID event, Trigger.Node variable, Trigger.Node constant, List<Violation> found) {
+        if (!(variable instanceof Trigger.Variable) || !(constant instanceof Trigger.Literal)) return;
+        if (((Trigger.Variable) variable).isAccessible()) return;
+        UUID element = ((Trigger.Variable) variable).getElement();
+        if (!game.containsPhysicalElement(element)) return; // Already reported as missing.
+
+        Object value = ((Trigger.Literal) constant).getValue();
+        List<?> states = value instanceof List ? (List<?>) value : Collections.singletonList(value);
+        for (Object state : states) {
+            if (!isState(game.getPhysicalElement(element), state)) {
+                Violation violation = new Violation(Kind.EVENT_TRIGGER_STATE_UNKNOWN, event, element);
+                if (!found.contains(violation)) found.add(violation);
+            }
+        }
+    }
+
+    private static boolean isState(PhysicalElement element, Object constant) {
+        if (!(constant instanceof String)) return false;
+        try {
+            return element.doesContainState(UUID.fromString((String) constant));
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+    }
+
+    private static boolean isValidName(String name) {
+        return name != null && !name.isBlank();
+    }
+}
@@ -0,0 +1,282 @@
+package com.example.represc.verification;
+
+import com.example.represc.data.EscapeGame;
+import com.example.represc.verification.Solvability.Step;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * @author Schmetz Arnaud
+ * @version 1.0
+ *
+ * @overview A DeadEndDetector finds the configurations of an escape game the players can reach, but from which they
+ * can't reach the Goal {@link Goal} anymore, like a key used on the wrong lock {@link DeadEnds}.
+ * It first explores forward, breadth first, every configuration the players can reach, each one tagged with the one
+ * it was first reached from, as a SolvabilityVerifier {@link SolvabilityVerifier} does but without any reduction: every
+ * configuration matters. It then explores backward from the configurations meeting the Goal, marking every
+ * configuration reached which can lead to one of them as winning; the others are the soft-locks. A soft-lock having a
+ * winning predecessor is a dead end, whose trace is the shortest trace to its first winning predecessor followed by
+ * the Step leading to it.
+ * A move followed by the Events {@link com.example.represc.data.Event} it triggers can't be played backwards: when the
+ * StateSpace has Events, the configurations having a winning successor are marked as winning again and again, until
+ * none is left, and the winning predecessors of the soft-locks are found going forward from the winning
+ * configurations.
+ * The configurations reached are kept in a VisitedSet {@link VisitedSet}, on the heap or off the heap, the winning ones
+ * in a bit per configuration, and the frontier of the backward exploration in a SpillQueue {@link SpillQueue}, which
+ * spills to the disk what doesn't fit in two blocks: the detector doesn't need more memory than a SolvabilityVerifier
+ * exploring the same configurations.
+ * The StateSpace is copied out of the EscapeGame when the detector is created; {@code detect} doesn't touch the
+ * EscapeGame anymore, and can be called on a background thread.
+ *
+ * @specfield space: StateSpace // The configurations explored.
+ * @specfield offHeap: boolean // Whether the configurations reached are kept off the heap.
+ * @specfield spillDirectory: Path // Where the frontier is spilled, the default temporary directory if null.
+ */
+public class DeadEndDetector {
+
+    public static final int DEFAULT_TRACES = 100;
+
+    private final StateSpace space;
+    private final boolean offHeap;
+    private final Path spillDirectory;
+
+    /**
+     * @precondition {@code game != null && goal != null}, every Physical Element and State named by {@code goal} belongs
+     * to {@code game}, and it must be called by the thread owning {@code game}.
+     * @postcondition Initialises {@code this} to find the dead ends of {@code goal} in {@code game}, as it is now,
+     * keeping the configurations reached on the heap and spilling to the default temporary directory.
+     */
+    public DeadEndDetector(EscapeGame game, Goal goal) {
+        this(game, goal, false, null);
+    }
+
+    /**
+     * @precondition {@code game != null && goal != null}, every Physical Element and State named by {@code goal} belongs
+     * to {@code game}, {@code spillDirectory} is null or an existing directory, and it must be called by the thread
+     * owning {@code game}.
+     * @postcondition Initialises {@code this} to find the dead ends of {@code goal} in {@code game}, as it is now,
+     * keeping the configurations reached off the heap if {@code offHeap} and spilling to {@code spillDirectory}, or to
+     * the default temporary directory if it is null.
+     */
+    public DeadEndDetector(EscapeGame game, Goal goal, boolean offHeap, Path spillDirectory) {
+        assert goal != null : "DeadEndDetector: Trying to find the dead ends of a null Goal.";
+
+        this.space = new StateSpace(game, StateSpace.linked(game, goal), goal, false);
+        this.offHeap = offHeap;
+        this.spillDirectory = spillDirectory;
+    }
+
+    /**
+     * @return Returns the DeadEnds of the Goal, exploring at most SolvabilityVerifier.DEFAULT_LIMIT configurations and
+     * giving the traces of at most DEFAULT_TRACES dead ends.
+     * @throws IOException if the frontier can't be spilled to the disk.
+     */
+    public DeadEnds detect() throws IOException {
+        return detect(SolvabilityVerifier.DEFAULT_LIMIT, DEFAULT_TRACES);
+    }
+
+    /**
+     * @precondition {@code limit > 0 && traces >= 0}
+     * @return Returns the DeadEnds of the Goal, exploring at most {@code limit} configurations and giving the traces of
+     * at most {@code traces} dead ends. They are not complete if the limit is reached, if there is no room left for the
+     * configurations, or if the thread is interrupted, before the exploration ends.
+     * @throws IOException if the frontier can't be spilled to the disk.
+     */
+    public DeadEnds detect(long limit, int traces) throws IOException {
+        assert limit > 0 : "detect: The limit of configurations to explore must be positive.";
+        assert traces >= 0 : "detect: The number of traces to give can't be negative.";
+
+        VisitedSet reached = new VisitedSet(space.words(), offHeap);
+        BitSet winning = new BitSet();
+        try (SpillQueue frontier = new SpillQueue(spillDirectory)) {
+            if (!explore(reached, winning, frontier, limit)) {
+                return new DeadEnds(false, 0, 0, Collections.emptyList(), reached.size());
+            }
+
+            if (space.hasEvents()) {
+                if (spread(reached, winning)) return collect(reached, winning, traces);
+                return new DeadEnds(false, 0, 0, Collections.emptyList(), reached.size());
+            }
+            long[] current = new long[space.words()];
+            long[] previous = new long[space.words()];
+            while (!frontier.isEmpty()) {
+                reached.get(frontier.remove(), current);
+                space.forEachPredecessor(current, previous, (predecessor, element, from, to) -> {
+                    int id = reached.find(predecessor);
+                    if (id != VisitedSet.ABSENT && !winning.get(id)) {
+                        winning.set(id);
+                        try {
+                            frontier.add(id);
+                        } catch (IOException e) {
+                            throw new SpillFailure(e);
+                        }
+                    }
+                    return true;
+                });
+                if (Thread.currentThread().isInterrupted()) {
+                    return new DeadEnds(false, 0, 0, Collections.emptyList(), reached.size());
+                }
+            }
+        } catch (SpillFailure e) {
+            throw e.getCause();
+        }
+        return collect(reached, winning, traces);
+    }
+
+    /**
+     * @effects Adds to {@code reached} every configuration the players can reach, each tagged with the id of the one it
+     * was first reached from, and marks the ones meeting the Goal as winning in {@code winning} and in
+     * {@code frontier}.
+     * @return Returns false if the exploration stopped before its end.
+     */
+    private boolean explore(VisitedSet reached, BitSet winning, SpillQueue frontier, long limit) throws IOException {
+        long[] current = space.initial();
+        long[] next = new long[current.length];
+        reached.add(current, VisitedSet.ROOT);
+
+        boolean[] full = {false};
+        for (int id = 0; id < reached.size(); id++) {
+            if (id >= limit || (id & 0xFFF) == 0 && Thread.currentThread().isInterrupted()) return false;
+            reached.get(id, current);
+            if (space.isGoal(current)) {
+                winning.set(id);
+                frontier.add(id);
+            }
+
+            int parent = id;
+            space.forEachSuccessor(current, next, (successor, element, from, to) -> {
+                full[0] = reached.add(successor, parent) == VisitedSet.FULL;
+                return !full[0];
+            });
+            if (full[0]) return false;
+        }
+        return true;
+    }
+
+    /**
+     * @effects Marks in {@code winning} every configuration of {@code reached} having a successor marked in it, until
+     * there is none left.
+     * @return Returns false if the thread was interrupted before.
+     */
+    private boolean spread(VisitedSet reached, BitSet winning) {
+        long[] current = new long[space.words()];
+        long[] next = new long[space.words()];
+        boolean[] found = {false};
+        for (boolean grown = true; grown; ) {
+            grown = false;
+            // Going down the ids, a configuration usually comes after the successors it was first reached from.
+            for (int id = reached.size() - 1; id >= 0; id--) {
+                if ((id & 0xFFF) == 0 && Thread.currentThread().isInterrupted()) return false;
+                if (winning.get(id)) continue;
+                reached.get(id, current);
+                found[0] = false;
+                space.forEachSuccessor(current, next, (successor, element, from, to) -> {
+                    int other = reached.find(successor);
+                    found[0] = other != VisitedSet.ABSENT && winning.get(other);
+                    return !found[0];
+                });
+                if (found[0]) {
+                    winning.set(id);
+                    grown = true;
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @return Returns the id of the first winning configuration of {@code reached} having each soft-lock as successor,
+     * by id of the soft-lock, for the soft-locks having one.
+     */
+    private Map<Integer, Integer> winningPredecessors(VisitedSet reached, BitSet winning) {
+        HashMap<Integer, Integer> predecessors = new HashMap<>();
+        long[] current = new long[space.words()];
+        long[] next = new long[space.words()];
+        for (int id = winning.nextSetBit(0); id >= 0 && id < reached.size(); id = winning.nextSetBit(id + 1)) {
+            int parent = id;
+            reached.get(id, current);
+            space.forEachSuccessor(current, next, (successor, element, from, to) -> {
+                int other = reached.find(successor);
+                if (other != VisitedSet.ABSENT && !winning.get(other)) predecessors.putIfAbsent(other, parent);
+                return true;
+            });
+        }
+        return predecessors;
+    }
+
+    /**
+     * @return Returns the DeadEnds among the configurations of {@code reached} not marked in {@code winning}, with the
+     * traces of at most {@code traces} of them.
+     */
+    private DeadEnds collect(VisitedSet reached, BitSet winning, int traces) {
+        long softLocks = 0;
+        long deadEnds = 0;
+        ArrayList<List<Step>> found = new ArrayList<>();
+        long[] current = new long[space.words()];
+        long[] previous = new long[space.words()];
+        Map<Integer, Integer> predecessors = space.hasEvents() ? winningPredecessors(reached, winning) : null;
+        for (int id = winning.nextClearBit(0); id < reached.size(); id = winning.nextClearBit(id + 1)) {
+            softLocks++;
+            reached.get(id, current);
+            int[] best = {VisitedSet.ROOT}; // The first winning predecessor, none for the initial configuration.
+            if (id != 0 && predecessors != null) {
+                best[0] = predecessors.getOrDefault(id, VisitedSet.ABSENT);
+                if (best[0] < 0) continue;
+            } else if (id != 0) {
+                space.forEachPredecessor(current, previous, (predecessor, element, from, to) -> {
+                    int candidate = reached.find(predecessor);
+                    if (candidate != VisitedSet.ABSENT && winning.get(candidate)
+                            && (best[0] < 0 || candidate < best[0])) {
+                        best[0] = candidate;
+                    }
+                    return true;
+                });
+                if (best[0] < 0) continue;
+            }
+
+            deadEnds++;
+            if (found.size() < traces) found.add(trace(reached, best[0], current));
+        }
+        found.sort((first, second) -> Integer.compare(first.size(), second.size()));
+        return new DeadEnds(true, softLocks, deadEnds, found, reached.size());
+    }
+
+    /**
+     * @return Returns the Steps leading from the initial configuration to the one having {@code last} as id in
+     * {@code reached}, then to {@code deadEnd}.
+     */
+    private List<Step> trace(VisitedSet reached, int last, long[] deadEnd) {
+        ArrayList<long[]> chain = new ArrayList<>();
+        chain.add(deadEnd.clone());
+        for (int id = last; id != VisitedSet.ROOT; id = (int) reached.tagOf(id)) {
+            long[] configuration = new long[space.words()];
+            reached.get(id, configuration);
+            chain.add(configuration);
+        }
+        Collections.reverse(chain);
+        return space.witness(chain);
+    }
+
+    /**
+     * @overview A SpillFailure carries the IOException of the SpillQueue out of a Move {@link StateSpace.Move}.
+     */
+    private static final class SpillFailure extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+
+        private SpillFailure(IOException cause) {
+            super(cause);
+        }
+
+        @Override
+        public synchronized IOException getCause() {
+            return (IOException) super.getCause();
+        }
+    }
+}
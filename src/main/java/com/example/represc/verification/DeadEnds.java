@@ -0,0 +1,104 @@
+package com.example.represc.verification;
+
+import com.example.represc.verification.Solvability.Step;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * @author Schmetz Arnaud
+ * @version 1.0
+ *
+ * @overview DeadEnds are the answer of a DeadEndDetector {@link DeadEndDetector}: the configurations the players can
+ * reach, but from which the Goal {@link Goal} can't be reached anymore, the soft-locks.
+ * A dead end is a soft-lock one Step away from a configuration from which the Goal can still be reached, or the initial
+ * configuration if the Goal can't be reached at all: the Step which made the escape game impossible to win. Each dead
+ * end comes with a shortest trace of Steps leading to it, the last one being that Step, each Step telling the Events
+ * {@link com.example.represc.data.Event} it triggered. The traces are given from the shortest to the longest.
+ *
+ * @specfield complete: boolean // Whether every configuration the players can reach has been explored.
+ * @specfield softLocks: long // The number of configurations reached from which the Goal can't be reached.
+ * @specfield deadEnds: long // The number of dead ends.
+ * @specfield traces: list of list of Step // A shortest trace to each dead end, up to the number asked for.
+ * @specfield explored: long // The number of configurations explored.
+ *
+ * @invariant {@code traces.size() <= deadEnds <= softLocks}, and they are all 0 unless {@code complete}.
+ */
+public final class DeadEnds {
+
+    private final boolean complete;
+    private final long softLocks;
+    private final long deadEnds;
+    private final List<List<Step>> traces;
+    private final long explored;
+
+    DeadEnds(boolean complete, long softLocks, long deadEnds, List<List<Step>> traces, long explored) {
+        assert traces.size() <= deadEnds && deadEnds <= softLocks : "DeadEnds: There are more traces than dead ends, " +
+                "or more dead ends than soft-locks.";
+
+        this.complete = complete;
+        this.softLocks = softLocks;
+        this.deadEnds = deadEnds;
+        ArrayList<List<Step>> copy = new ArrayList<>();
+        for (List<Step> trace : traces) copy.add(Collections.unmodifiableList(trace));
+        this.traces = Collections.unmodifiableList(copy);
+        this.explored = explored;
+    }
+
+    /**
+     * @return Returns false if the exploration stopped before its end, because it reached its limit, there was no room
+     * left for the configurations, or it was interrupted; nothing is known about the soft-locks then.
+     */
+    public boolean isComplete() {
+        return complete;
+    }
+
+    /**
+     * @return Returns true if the exploration is complete and the Goal can be reached from every configuration the
+     * players can reach.
+     */
+    public boolean isEmpty() {
+        return complete && softLocks == 0;
+    }
+
+    /**
+     * @return Returns the number of configurations the players can reach from which the Goal can't be reached.
+     */
+    public long getSoftLockCount() {
+        return softLocks;
+    }
+
+    /**
+     * @return Returns the number of dead ends.
+     */
+    public long getDeadEndCount() {
+        return deadEnds;
+    }
+
+    /**
+     * @return Returns a shortest trace of Steps leading to each of the first dead ends, from the shortest to the
+     * longest. The trace is empty if the initial configuration is a dead end.
+     */
+    public List<List<Step>> getTraces() {
+        return traces;
+    }
+
+    /**
+     * @return Returns the number of configurations which have been explored.
+     */
+    public long getExploredConfigurations() {
+        return explored;
+    }
+
+    public String toString() {
+        StringBuilder s = new StringBuilder("DeadEnds : {\n\t");
+        s.append("complete: ").append(complete);
+        s.append(",\n\tsoftLocks: ").append(softLocks);
+        s.append(",\n\tdeadEnds: ").append(deadEnds);
+        s.append(",\n\texplored: ").append(explored);
+        s.append(",\n\ttraces: ").append(traces);
+        s.append(" }");
+        return s.toString();
+    }
+}
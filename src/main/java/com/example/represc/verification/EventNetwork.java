@@ -0,0 +1,228 @@
+package com.example.represc.verification;
+
+import com.example.represc.data.Trigger;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+
+/**
+ * @author Schmetz Arnaud
+ * @version 1.0
+ *
+ * @overview An EventNetwork follows which Triggers {@link Trigger} of a list hold while the configuration of a StateSpace
+ * {@link StateSpace} changes, one Physical Element at a time, without testing them all again after each change, in the
+ * way of a Rete network:
+ * <ul>
+ *     <li>each Trigger is split into its conjuncts, the arguments of its outermost {@code and}s, and each conjunct is
+ *     compiled {@link CompiledTrigger} into a condition. Conditions are shared between Triggers: testing the same
+ *     Physical Element for the same State is one condition however many Triggers do it;</li>
+ *     <li>each condition remembers whether it holds (its alpha memory), and is indexed by the Physical Elements it
+ *     reads: a change of a Physical Element only tests again the conditions reading it;</li>
+ *     <li>each Trigger counts how many of its conditions hold (its beta memory), and holds when all of them do. A
+ *     condition which starts or stops to hold only updates the counts of the Triggers having it.</li>
+ * </ul>
+ * The Triggers which start to hold are queued, in the order they do, until polled: an Event happens when its Trigger
+ * starts to hold. A null Trigger never holds.
+ * An EventNetwork is not thread safe.
+ *
+ * @specfield triggers: array of Trigger // The Triggers followed, the index of a Trigger being its place in the list.
+ * @specfield configuration: array of long // The configuration of the last update.
+ * @specfield started: sequence of int // The indexes of the Triggers which started to hold and were not polled yet.
+ */
+final class EventNetwork {
+
+    private final CompiledTrigger[] conditions;
+    private final boolean[] satisfied; // Alpha memories.
+    private final int[][] readers; // The conditions reading each Physical Element.
+    private final int[][] owners; // The Triggers having each condition as a conjunct.
+    private final int[] required; // The number of conditions of each Trigger.
+    private final int[] counts; // Beta memories: the number of conditions of each Trigger which hold.
+
+    private final int[] started; // A circular queue, holding each Trigger at most once.
+    private final boolean[] queued;
+    private int head = 0;
+    private int size = 0;
+
+    private long tests = 0;
+
+    /**
+     * @precondition {@code space != null && triggers != null}, and every Physical Element read by the Triggers of
+     * {@code triggers} is part of {@code space}.
+     * @postcondition Initialises {@code this} to follow {@code triggers}, which may hold null Triggers. {@code reset}
+     * must be called before the first update.
+     */
+    EventNetwork(StateSpace space, List<Trigger> triggers) {
+        assert space != null : "EventNetwork: Trying to create an EventNetwork on a null StateSpace.";
+        assert triggers != null : "EventNetwork: Trying to create an EventNetwork for a null list of Triggers.";
+
+        HashMap<CompiledTrigger, Integer> known = new HashMap<>();
+        ArrayList<CompiledTrigger> conditionList = new ArrayList<>();
+        ArrayList<int[]> readerList = new ArrayList<>();
+        ArrayList<ArrayList<Integer>> ownerList = new ArrayList<>();
+        required = new int[triggers.size()];
+        for (int trigger = 0; trigger < triggers.size(); trigger++) {
+            LinkedHashSet<Integer> mine = new LinkedHashSet<>();
+            if (triggers.get(trigger) == null) {
+                mine.add(conditionOf(CompiledTrigger.FALSE, new int[0], known, conditionList, readerList, ownerList));
+            } else {
+                for (Trigger.Node conjunct : conjuncts(triggers.get(trigger).getRoot(), new ArrayList<>())) {
+                    CompiledTrigger condition = CompiledTrigger.compile(conjunct, space);
+                    if (condition == CompiledTrigger.TRUE) continue;
+                    LinkedHashSet<Integer> elements = new LinkedHashSet<>();
+                    read(conjunct, space, elements);
+                    mine.add(conditionOf(condition, elements.stream().mapToInt(Integer::intValue).toArray(), known,
+                            conditionList, readerList, ownerList));
+                }
+            }
+            for (int condition : mine) ownerList.get(condition).add(trigger);
+            required[trigger] = mine.size();
+        }
+
+        conditions = conditionList.toArray(new CompiledTrigger[0]);
+        satisfied = new boolean[conditions.length];
+        owners = new int[conditions.length][];
+        int[] readCounts = new int[space.size()];
+        for (int condition = 0; condition < conditions.length; condition++) {
+            owners[condition] = ownerList.get(condition).stream().mapToInt(Integer::intValue).toArray();
+            for (int element : readerList.get(condition)) readCounts[element]++;
+        }
+        readers = new int[space.size()][];
+        for (int element = 0; element < readers.length; element++) readers[element] = new int[readCounts[element]];
+        for (int condition = 0; condition < conditions.length; condition++) {
+            for (int element : readerList.get(condition)) {
+                readers[element][readers[element].length - readCounts[element]--] = condition;
+            }
+        }
+        counts = new int[required.length];
+        started = new int[required.length];
+        queued = new boolean[required.length];
+    }
+
+    private static int conditionOf(CompiledTrigger condition, int[] elements, HashMap<CompiledTrigger, Integer> known,
+                                   ArrayList<CompiledTrigger> conditionList, ArrayList<int[]> readerList,
+                                   ArrayList<ArrayList<Integer>> ownerList) {
+        Integer index = known.get(condition);
+        if (index != null) return index;
+        known.put(condition, conditionList.size());
+        conditionList.add(condition);
+        readerList.add(elements);
+        ownerList.add(new ArrayList<>());
+        return conditionList.size() - 1;
+    }
+
+    /**
+     * @effects Adds the arguments of the outermost {@code and}s of {@code node} to {@code conjuncts}.
+     * @return Returns {@code conjuncts}.
+     */
+    private static List<Trigger.Node> conjuncts(Trigger.Node node, List<Trigger.Node> conjuncts) {
+        if (node instanceof Trigger.Operation && ((Trigger.Operation) node).getOperator().equals("and")) {
+            for (Trigger.Node argument : ((Trigger.Operation) node).getArguments()) conjuncts(argument, conjuncts);
+        } else {
+            conjuncts.add(node);
+        }
+        return conjuncts;
+    }
+
+    /**
+     * @effects Adds the indexes of the Physical Elements read by {@code node} to {@code elements}.
+     */
+    private static void read(Trigger.Node node, StateSpace space, LinkedHashSet<Integer> elements) {
+        if (node instanceof Trigger.Variable) {
+            elements.add(space.indexOf(((Trigger.Variable) node).getElement()));
+        } else if (node instanceof Trigger.Operation) {
+            for (Trigger.Node argument : ((Trigger.Operation) node).getArguments()) read(argument, space, elements);
+        }
+    }
+
+    /**
+     * @return Returns the number of Triggers followed.
+     */
+    int triggerCount() {
+        return required.length;
+    }
+
+    /**
+     * @return Returns the number of conditions, after those shared between Triggers have been merged.
+     */
+    int conditionCount() {
+        return conditions.length;
+    }
+
+    /**
+     * @return Returns the number of conditions tested since {@code this} was created.
+     */
+    long getTests() {
+        return tests;
+    }
+
+    /**
+     * @precondition {@code configuration} is a configuration of the StateSpace.
+     * @effects Tests every condition in {@code configuration}, and empties {@code started} before adding every Trigger
+     * holding in it, in order.
+     */
+    void reset(long[] configuration) {
+        Arrays.fill(counts, 0);
+        for (int condition = 0; condition < conditions.length; condition++) {
+            satisfied[condition] = conditions[condition].test(configuration);
+            tests++;
+            if (satisfied[condition]) {
+                for (int trigger : owners[condition]) counts[trigger]++;
+            }
+        }
+        for (; size > 0; size--) queued[started[head++ % started.length]] = false;
+        head = 0;
+        for (int trigger = 0; trigger < required.length; trigger++) {
+            if (counts[trigger] == required[trigger]) start(trigger);
+        }
+    }
+
+    /**
+     * @precondition {@code configuration} is a configuration of the StateSpace which differs from the one of the last
+     * update or reset only by the State or the accessibility of the Physical Element of index {@code element}.
+     * @effects Tests again the conditions reading that Physical Element, and adds to {@code started} the Triggers which
+     * start to hold.
+     */
+    void update(long[] configuration, int element) {
+        for (int condition : readers[element]) {
+            boolean now = conditions[condition].test(configuration);
+            tests++;
+            if (now == satisfied[condition]) continue;
+            satisfied[condition] = now;
+            for (int trigger : owners[condition]) {
+                if (!now) counts[trigger]--;
+                else if (++counts[trigger] == required[trigger]) start(trigger);
+            }
+        }
+    }
+
+    private void start(int trigger) {
+        if (queued[trigger]) return;
+        queued[trigger] = true;
+        started[(head + size++) % started.length] = trigger;
+    }
+
+    /**
+     * @return Returns true if the Trigger of index {@code trigger} holds in the configuration of the last update.
+     */
+    boolean holds(int trigger) {
+        return counts[trigger] == required[trigger];
+    }
+
+    /**
+     * @effects Removes from {@code started} the first Trigger which still holds, and the Triggers before it.
+     * @return Returns the index of that Trigger, -1 if there is none.
+     */
+    int poll() {
+        while (size > 0) {
+            int trigger = started[head];
+            head = (head + 1) % started.length;
+            size--;
+            queued[trigger] = false;
+            if (holds(trigger)) return trigger;
+        }
+        return -1;
+    }
+}
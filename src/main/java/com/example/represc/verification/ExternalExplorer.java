@@ -0,0 +1,359 @@
+package com.example.represc.verification;
+
+import com.example.represc.verification.Solvability.Step;
+import com.example.represc.verification.Solvability.Verdict;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.PriorityQueue;
+
+/**
+ * @author Schmetz Arnaud
+ * @version 1.0
+ *
+ * @overview An ExternalExplorer explores a StateSpace {@link StateSpace} breadth first, one depth after the other, like
+ * a ParallelExplorer {@link ParallelExplorer}, but keeps the configurations reached on the disk instead of in memory,
+ * for the escape games whose configurations don't fit in it.
+ * Each depth is a list of SortedRuns {@link SortedRun}: the frontier while it is expanded, then part of the
+ * configurations reached. The configurations reached from a depth are first kept in a buffer, which is sorted and
+ * written as a SortedRun each time it is full. Once the depth has been expanded, those runs are merged, which drops the
+ * configurations reached more than once, and the ones which were not reached before make the next depth. Whether one
+ * was reached before is first asked to a BloomFilter {@link BloomFilter}, which knows every configuration reached: only
+ * the few it may have seen are looked for in the SortedRuns of the previous depths.
+ * As for the ParallelExplorer, no parent is kept: the witness is built backwards, from the configuration meeting the
+ * Goal, going each time to the smallest configuration of the previous depth leading to it.
+ * The memory used is the buffer, the BloomFilter, about ten bits per configuration, and the first configuration of
+ * every block of the SortedRuns.
+ *
+ * @specfield space: StateSpace // The configurations explored.
+ * @specfield directory: Path // Where the SortedRuns are written.
+ * @specfield buffer: long[] // The configurations reached and not yet written.
+ */
+final class ExternalExplorer {
+
+    private final StateSpace space;
+    private final Path directory;
+    private final int words;
+    private final long memory;
+    private long[] buffer;
+    private int capacity; // The most configurations the buffer holds.
+    private int buffered = 0;
+
+    private Path work;
+    private int files = 0;
+    private BloomFilter seen;
+    private final ArrayList<List<SortedRun>> depths = new ArrayList<>();
+
+    /**
+     * @precondition {@code space != null && directory != null && memory > 0}, and {@code directory} is an existing
+     * directory.
+     * @postcondition Initialises {@code this} to explore {@code space}, writing the configurations reached in
+     * {@code directory} and buffering about {@code memory} bytes of them on the heap.
+     */
+    ExternalExplorer(StateSpace space, Path directory, long memory) {
+        assert space != null : "ExternalExplorer: Trying to explore a null StateSpace.";
+        assert directory != null : "ExternalExplorer: Trying to write the configurations in a null directory.";
+        assert memory > 0 : "ExternalExplorer: The memory of the buffer must be positive.";
+
+        this.space = space;
+        this.directory = directory;
+        this.words = space.words();
+        this.memory = memory;
+    }
+
+    /**
+     * @precondition {@code limit > 0} and {@code this} has not explored yet.
+     * @return Returns the Solvability of the Goal, exploring at most {@code limit} configurations. The verdict is
+     * UNKNOWN if the limit is reached, or if the thread is interrupted, before the exploration ends.
+     * @throws IOException if the configurations can't be written or read back. The files written are deleted anyway.
+     */
+    Solvability explore(long limit) throws IOException {
+        assert limit > 0 : "explore: The limit of configurations to explore must be positive.";
+
+        long[] current = space.initial();
+        if (space.isGoal(current)) return new Solvability(Verdict.SOLVABLE, new ArrayList<>(), 1);
+
+        long records = Math.min(memory / ((long) words * Long.BYTES), Math.min(limit, Integer.MAX_VALUE / words));
+        capacity = (int) Math.max(space.moveCount() + SortedRun.BLOCK, records);
+        buffer = new long[capacity * words];
+        work = Files.createTempDirectory(directory, "represc");
+        try {
+            space.canonicalize(current);
+            seen = new BloomFilter(limit);
+            seen.add(VisitedSet.hash(current));
+            SortedRun.Writer first = newWriter();
+            first.add(current);
+            depths.add(new ArrayList<>(List.of(first.finish())));
+
+            long[] next = new long[words];
+            long[][] goal = {null};
+            PartialOrderReduction reduction = new PartialOrderReduction(space);
+            long explored = 0;
+            for (int depth = 0; ; depth++) {
+                ArrayList<SortedRun> reached = new ArrayList<>();
+                for (SortedRun run : depths.get(depth)) {
+                    SortedRun.Cursor cursor = run.cursor();
+                    while (cursor.next(current)) {
+                        if (explored >= limit || (explored & 0xFFF) == 0 && Thread.currentThread().isInterrupted()) {
+                            return new Solvability(Verdict.UNKNOWN, null, explored);
+                        }
+                        explored++;
+
+                        reduction.forEachSuccessor(current, next, (successor, element, from, to) -> {
+                            space.canonicalize(successor);
+                            if (space.isGoal(successor)) {
+                                goal[0] = successor.clone();
+                                return false;
+                            }
+                            System.arraycopy(successor, 0, buffer, buffered++ * words, words);
+                            return true;
+                        });
+                        if (goal[0] != null) {
+                            return new Solvability(Verdict.SOLVABLE, witness(goal[0], depth), explored);
+                        }
+                        if (buffered + space.moveCount() > capacity) reached.add(flush());
+                    }
+                }
+                if (buffered > 0) reached.add(flush());
+
+                List<SortedRun> nextDepth = merge(reached);
+                if (nextDepth.isEmpty()) return new Solvability(Verdict.UNSOLVABLE, null, explored);
+                depths.add(nextDepth);
+            }
+        } finally {
+            for (List<SortedRun> depth : depths) {
+                for (SortedRun run : depth) run.close();
+            }
+            deleteWork();
+        }
+    }
+
+    /**
+     * @effects Sorts the configurations of the buffer, writes them once each as a SortedRun, and empties the buffer.
+     * @return Returns the SortedRun written.
+     */
+    private SortedRun flush() throws IOException {
+        sort(0, buffered);
+        SortedRun.Writer writer = newWriter();
+        long[] configuration = new long[words];
+        for (int record = 0; record < buffered; record++) {
+            if (record > 0 && compare(record - 1, record) == 0) continue;
+            System.arraycopy(buffer, record * words, configuration, 0, words);
+            writer.add(configuration);
+        }
+        buffered = 0;
+        return writer.finish();
+    }
+
+    /**
+     * @effects Merges the configurations of {@code runs}, which are then deleted, and writes the ones which were not
+     * reached before as SortedRuns, adding them to {@code seen}.
+     * @return Returns the SortedRuns written, which are empty if there was no new configuration.
+     */
+    private List<SortedRun> merge(List<SortedRun> runs) throws IOException {
+        PriorityQueue<Head> heads = new PriorityQueue<>();
+        for (SortedRun run : runs) {
+            Head head = new Head(run.cursor());
+            if (head.advance()) heads.add(head);
+        }
+
+        ArrayList<SortedRun> written = new ArrayList<>();
+        SortedRun.Writer writer = null;
+        long[] last = null;
+        while (!heads.isEmpty()) {
+            Head head = heads.poll();
+            if (last == null || StateSpace.compare(head.configuration, last) != 0) {
+                if (last == null) last = new long[words];
+                System.arraycopy(head.configuration, 0, last, 0, words);
+
+                long hash = VisitedSet.hash(last);
+                if (!seen.mightContain(hash) || !isReached(last)) {
+                    seen.add(hash);
+                    if (writer == null) writer = newWriter();
+                    writer.add(last);
+                    if (writer.isFull()) {
+                        written.add(writer.finish());
+                        writer = null;
+                    }
+                }
+            }
+            if (head.advance()) heads.add(head);
+        }
+        if (writer != null) written.add(writer.finish());
+
+        for (SortedRun run : runs) run.close();
+        return written;
+    }
+
+    /**
+     * @overview A Head is the next configuration of a SortedRun being merged.
+     */
+    private final class Head implements Comparable<Head> {
+        private final SortedRun.Cursor cursor;
+        private final long[] configuration = new long[words];
+
+        private Head(SortedRun.Cursor cursor) {
+            this.cursor = cursor;
+        }
+
+        private boolean advance() {
+            return cursor.next(configuration);
+        }
+
+        @Override
+        public int compareTo(Head other) {
+            return StateSpace.compare(configuration, other.configuration);
+        }
+    }
+
+    /**
+     * @return Returns true if {@code configuration} is in one of the depths already explored, looking at the last ones
+     * first.
+     */
+    private boolean isReached(long[] configuration) {
+        for (int depth = depths.size() - 1; depth >= 0; depth--) {
+            if (isAt(configuration, depth)) return true;
+        }
+        return false;
+    }
+
+    private boolean isAt(long[] configuration, int depth) {
+        for (SortedRun run : depths.get(depth)) {
+            if (run.contains(configuration)) return true;
+        }
+        return false;
+    }
+
+    /**
+     * @return Returns the Steps leading from the initial configuration to {@code goal}, reached from a configuration at
+     * {@code depth}, going each time through the smallest configuration of the previous depth.
+     */
+    private List<Step> witness(long[] goal, int depth) {
+        ArrayList<long[]> chain = new ArrayList<>();
+        chain.add(goal);
+        long[] current = goal;
+        long[] candidate = new long[words];
+        for (int d = depth; d >= 0; d--) {
+            int previousDepth = d;
+            long[][] best = {null};
+            if (space.hasEvents()) {
+                // A move followed by its Events can't be played backwards: every configuration of the depth is tried.
+                for (SortedRun run : depths.get(d)) {
+                    SortedRun.Cursor cursor = run.cursor();
+                    while (cursor.next(candidate)) {
+                        if ((best[0] == null || StateSpace.compare(candidate, best[0]) < 0)
+                                && space.leadsTo(candidate, current)) {
+                            best[0] = candidate.clone();
+                        }
+                    }
+                }
+            } else {
+                space.forEachPredecessor(current, candidate, (previous, element, from, to) -> {
+                    space.canonicalize(previous);
+                    if ((best[0] == null || StateSpace.compare(previous, best[0]) < 0)
+                            && isAt(previous, previousDepth)) {
+                        best[0] = previous.clone();
+                    }
+                    return true;
+                });
+            }
+            current = best[0];
+            chain.add(current);
+        }
+        Collections.reverse(chain);
+        return space.witness(chain);
+    }
+
+    private SortedRun.Writer newWriter() throws IOException {
+        return new SortedRun.Writer(work.resolve("run" + files++), words);
+    }
+
+    /**
+     * @effects Deletes the files left in {@code work}, like the runs of a depth not fully explored, then {@code work}
+     * itself, or asks for them to be deleted when the virtual machine exits if they are still mapped.
+     */
+    private void deleteWork() throws IOException {
+        work.toFile().deleteOnExit();
+        try (DirectoryStream<Path> left = Files.newDirectoryStream(work)) {
+            for (Path file : left) {
+                try {
+                    Files.deleteIfExists(file);
+                } catch (IOException e) {
+                    file.toFile().deleteOnExit();
+                }
+            }
+        }
+        try {
+            Files.deleteIfExists(work);
+        } catch (IOException ignored) {
+            // Deleted when the virtual machine exits.
+        }
+    }
+
+    /**
+     * @effects Sorts the records {@code [from, to)} of the buffer in increasing order.
+     */
+    private void sort(int from, int to) {
+        if (words == 1) { // Sorting signed longs, the sign bit flipped, sorts them as unsigned.
+            for (int i = from; i < to; i++) buffer[i] ^= Long.MIN_VALUE;
+            Arrays.sort(buffer, from, to);
+            for (int i = from; i < to; i++) buffer[i] ^= Long.MIN_VALUE;
+            return;
+        }
+        long[] pivot = new long[words];
+        long[] swap = new long[words];
+        while (to - from > 16) {
+            int middle = (from + to) >>> 1;
+            if (compare(middle, from) < 0) swap(middle, from, swap);
+            if (compare(to - 1, from) < 0) swap(to - 1, from, swap);
+            if (compare(to - 1, middle) < 0) swap(to - 1, middle, swap);
+            System.arraycopy(buffer, middle * words, pivot, 0, words);
+
+            int i = from;
+            int j = to - 1;
+            while (i <= j) {
+                while (compareTo(i, pivot) < 0) i++;
+                while (compareTo(j, pivot) > 0) j--;
+                if (i <= j) swap(i++, j--, swap);
+            }
+            if (j - from < to - i) { // Recursing on the smallest part bounds the depth of the stack.
+                sort(from, j + 1);
+                from = i;
+            } else {
+                sort(i, to);
+                to = j + 1;
+            }
+        }
+        for (int i = from + 1; i < to; i++) {
+            for (int j = i; j > from && compare(j - 1, j) > 0; j--) swap(j - 1, j, swap);
+        }
+    }
+
+    private int compare(int first, int second) {
+        for (int word = 0; word < words; word++) {
+            int order = Long.compareUnsigned(buffer[first * words + word], buffer[second * words + word]);
+            if (order != 0) return order;
+        }
+        return 0;
+    }
+
+    private int compareTo(int record, long[] configuration) {
+        for (int word = 0; word < words; word++) {
+            int order = Long.compareUnsigned(buffer[record * words + word], configuration[word]);
+            if (order != 0) return order;
+        }
+        return 0;
+    }
+
+    private void swap(int first, int second, long[] swap) {
+        System.arraycopy(buffer, first * words, swap, 0, words);
+        System.arraycopy(buffer, second * words, buffer, first * words, words);
+        System.arraycopy(swap, 0, buffer, second * words, words);
+    }
+}
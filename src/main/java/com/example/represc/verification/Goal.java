@@ -0,0 +1,77 @@
+package com.example.represc.verification;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * @author Schmetz Arnaud
+ * @version 1.0
+ *
+ * @overview A Goal is what the players must reach to win the escape game: some Physical Elements being in a given
+ * State, and some Physical Elements being accessible. A configuration of the escape game is winning if it meets every
+ * requirement of the Goal.
+ * For example : the exit door being in its "unlocked" State.
+ *
+ * @specfield states: LinkedHashMap: UUID to UUID // The State each Physical Element it names must be in.
+ * @specfield accessible: set of UUID // The Physical Elements which must be accessible.
+ */
+public class Goal {
+
+    private final LinkedHashMap<UUID, UUID> states = new LinkedHashMap<>();
+    private final LinkedHashSet<UUID> accessible = new LinkedHashSet<>();
+
+    /**
+     * @precondition {@code element != null && state != null}
+     * @effects The Physical Element having the UUID {@code element} must be in its State having the UUID {@code state},
+     * instead of the State it had to be in before, if any.
+     */
+    public void requireState(UUID element, UUID state) {
+        assert element != null : "requireState: Trying to require the State of a null Physical Element.";
+        assert state != null : "requireState: Trying to require a null State.";
+        states.put(element, state);
+    }
+
+    /**
+     * @precondition {@code element != null}
+     * @effects The Physical Element having the UUID {@code element} must be accessible.
+     */
+    public void requireAccessible(UUID element) {
+        assert element != null : "requireAccessible: Trying to require a null Physical Element to be accessible.";
+        accessible.add(element);
+    }
+
+    /**
+     * @return Returns the State each Physical Element must be in, in the order they were required.
+     */
+    public Map<UUID, UUID> getRequiredStates() {
+        return Collections.unmodifiableMap(states);
+    }
+
+    /**
+     * @return Returns the Physical Elements which must be accessible, in the order they were required.
+     */
+    public Set<UUID> getRequiredAccessible() {
+        return Collections.unmodifiableSet(accessible);
+    }
+
+    /**
+     * @return Returns the Physical Elements named by the Goal, in the order they were first required.
+     */
+    public Set<UUID> getElements() {
+        LinkedHashSet<UUID> elements = new LinkedHashSet<>(states.keySet());
+        elements.addAll(accessible);
+        return elements;
+    }
+
+    public boolean isEmpty() {
+        return states.isEmpty() && accessible.isEmpty();
+    }
+
+    public String toString() {
+        return "Goal : {\n\tstates: " + states + ",\n\taccessible: " + accessible + " }";
+    }
+}
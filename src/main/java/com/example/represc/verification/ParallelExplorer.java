@@ -0,0 +1,246 @@
+package com.example.represc.verification;
+
+import com.example.represc.verification.Solvability.Step;
+import com.example.represc.verification.Solvability.Verdict;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * @author Schmetz Arnaud
+ * @version 1.0
+ *
+ * @overview A ParallelExplorer explores a StateSpace {@link StateSpace} breadth first on every thread of a ForkJoinPool,
+ * one depth after the other. The configurations of a depth are cut in blocks, which the threads of the pool share by
+ * work stealing; the configurations they reach make the next depth.
+ * The configurations reached are kept in stripes: VisitedSets {@link VisitedSet}, each one locked on its own, a
+ * configuration going to the stripe given by the high bits of its hash. Each one is tagged with its depth, and the
+ * configurations of a depth are, in each stripe, the ones added while the previous depth was explored.
+ * Which thread reaches a configuration first depends on timing, so no parent is kept. Once a depth having
+ * configurations meeting the Goal has been fully reached, the witness is built backwards: from the smallest of those
+ * configurations {@link StateSpace#compare(long[], long[])}, going each time to the smallest configuration of the
+ * previous depth leading to it, then turned into Steps {@link StateSpace#witness(List)}. The witness only depends on
+ * the StateSpace, not on the number of threads or on timing. A depth the exploration stopped in the middle of is not
+ * fully reached, which of its configurations are depends on timing: the Goals found in it are not kept.
+ *
+ * @specfield space: StateSpace // The configurations explored.
+ * @specfield stripes: array of VisitedSet // The configurations reached, tagged with their depth.
+ */
+final class ParallelExplorer {
+
+    private static final int BLOCK = 256; // The most configurations a task expands before it can be stolen from.
+
+    private final StateSpace space;
+    private final VisitedSet[] stripes;
+    private final int stripeShift;
+
+    private final LongAdder explored = new LongAdder();
+    private final LongAdder expanded = new LongAdder(); // The configurations of the depth fully expanded.
+    private final ConcurrentLinkedQueue<long[]> goals = new ConcurrentLinkedQueue<>();
+    private volatile boolean stopped = false;
+    private volatile boolean full = false;
+    private long limit;
+
+    /**
+     * @precondition {@code space != null && parallelism > 0}
+     * @postcondition Initialises {@code this} to explore {@code space} with {@code parallelism} threads, keeping the
+     * configurations reached off the heap if {@code offHeap}.
+     */
+    ParallelExplorer(StateSpace space, int parallelism, boolean offHeap) {
+        assert space != null : "ParallelExplorer: Trying to explore a null StateSpace.";
+        assert parallelism > 0 : "ParallelExplorer: The parallelism must be positive.";
+
+        this.space = space;
+        int count = Math.max(8, Math.min(1024, Integer.highestOneBit(parallelism) * 16));
+        this.stripes = new VisitedSet[count];
+        for (int stripe = 0; stripe < count; stripe++) stripes[stripe] = new VisitedSet(space.words(), offHeap);
+        this.stripeShift = Long.SIZE - Integer.numberOfTrailingZeros(count);
+    }
+
+    /**
+     * @precondition {@code pool != null && limit > 0} and {@code this} has not explored yet.
+     * @return Returns the Solvability of the Goal, exploring at most about {@code limit} configurations on
+     * {@code pool}. The verdict is UNKNOWN if the limit is reached, if there is no room left for the configurations, or
+     * if the thread is interrupted, before the exploration ends.
+     */
+    Solvability explore(ForkJoinPool pool, long limit) {
+        assert pool != null : "explore: Trying to explore on a null ForkJoinPool.";
+        assert limit > 0 : "explore: The limit of configurations to explore must be positive.";
+
+        this.limit = limit;
+        long[] initial = space.initial();
+        if (space.isGoal(initial)) return new Solvability(Verdict.SOLVABLE, new ArrayList<>(), 1);
+        space.canonicalize(initial);
+        stripeOf(initial).add(initial, 0);
+
+        int[] depthStart = new int[stripes.length];
+        for (int depth = 0; ; depth++) {
+            int[] depthEnd = new int[stripes.length];
+            ArrayList<int[]> blocks = new ArrayList<>(); // {stripe, first id, end id}
+            long size = 0;
+            for (int stripe = 0; stripe < stripes.length; stripe++) {
+                depthEnd[stripe] = stripes[stripe].size();
+                size += depthEnd[stripe] - depthStart[stripe];
+                for (int first = depthStart[stripe]; first < depthEnd[stripe]; first += BLOCK) {
+                    blocks.add(new int[]{stripe, first, Math.min(first + BLOCK, depthEnd[stripe])});
+                }
+            }
+            if (blocks.isEmpty()) return new Solvability(Verdict.UNSOLVABLE, null, explored.sum());
+
+            expanded.reset();
+            ForkJoinTask<Void> expansion = pool.submit(new Expansion(blocks, 0, blocks.size(), depth + 1));
+            try {
+                expansion.get();
+            } catch (InterruptedException e) {
+                stopped = true;
+                expansion.quietlyJoin();
+                Thread.currentThread().interrupt();
+                return new Solvability(Verdict.UNKNOWN, null, explored.sum());
+            } catch (ExecutionException e) {
+                if (e.getCause() instanceof RuntimeException) throw (RuntimeException) e.getCause();
+                if (e.getCause() instanceof Error) throw (Error) e.getCause();
+                throw new IllegalStateException(e.getCause());
+            }
+
+            // A Goal found is kept if the depth it was found from has been fully expanded, even if the limit has been
+            // reached meanwhile: the next depth has then been fully reached.
+            if (!goals.isEmpty() && expanded.sum() == size) {
+                return new Solvability(Verdict.SOLVABLE, witness(depth + 1), explored.sum());
+            }
+            if (stopped || full) return new Solvability(Verdict.UNKNOWN, null, explored.sum());
+            depthStart = depthEnd;
+        }
+    }
+
+    /**
+     * @overview An Expansion expands the blocks {@code [from, to)} of a depth, splitting them between two Expansions as
+     * long as there are more than one.
+     */
+    private final class Expansion extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final List<int[]> blocks;
+        private final int from;
+        private final int to;
+        private final long depth; // The depth of the configurations reached.
+
+        private Expansion(List<int[]> blocks, int from, int to, long depth) {
+            this.blocks = blocks;
+            this.from = from;
+            this.to = to;
+            this.depth = depth;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from > 1) {
+                int middle = (from + to) >>> 1;
+                invokeAll(new Expansion(blocks, from, middle, depth), new Expansion(blocks, middle, to, depth));
+            } else if (!stopped) {
+                expand(blocks.get(from), depth);
+            }
+        }
+    }
+
+    /**
+     * @effects Adds the configurations reached from the ones of {@code block}, with {@code depth} as tag.
+     */
+    private void expand(int[] block, long depth) {
+        int words = space.words();
+        int count = block[2] - block[1];
+        long[] batch = new long[count * words];
+        VisitedSet source = stripes[block[0]];
+        synchronized (source) {
+            for (int i = 0; i < count; i++) source.get(block[1] + i, batch, i * words);
+        }
+
+        long[] current = new long[words];
+        long[] next = new long[words];
+        PartialOrderReduction reduction = new PartialOrderReduction(space);
+        int done = 0;
+        boolean[] cut = {false}; // Whether the successors of the configuration expanded were not all told about.
+        for (int i = 0; i < count && !stopped; i++) {
+            System.arraycopy(batch, i * words, current, 0, words);
+            reduction.forEachSuccessor(current, next, (successor, element, from, to) -> {
+                space.canonicalize(successor);
+                VisitedSet stripe = stripeOf(successor);
+                int id;
+                synchronized (stripe) {
+                    id = stripe.add(successor, depth);
+                }
+                if (id == VisitedSet.FULL) {
+                    full = true;
+                    stopped = true;
+                } else if (id >= 0 && space.isGoal(successor)) {
+                    goals.add(successor.clone());
+                }
+                cut[0] = stopped;
+                return !cut[0];
+            });
+            if (!cut[0]) done++;
+        }
+
+        expanded.add(done);
+        explored.add(count);
+        if (explored.sum() >= limit) stopped = true;
+    }
+
+    /**
+     * @return Returns the Steps leading from the initial configuration to the smallest configuration meeting the Goal,
+     * which are all at {@code depth}, going each time through the smallest configuration of the previous depth.
+     */
+    private List<Step> witness(long depth) {
+        long[] current = null;
+        for (long[] goal : goals) {
+            if (current == null || StateSpace.compare(goal, current) < 0) current = goal;
+        }
+
+        ArrayList<long[]> chain = new ArrayList<>();
+        chain.add(current);
+        long[] candidate = new long[space.words()];
+        for (long d = depth - 1; d >= 0; d--) {
+            long previousDepth = d;
+            long[][] best = {null};
+            if (space.hasEvents()) {
+                // A move followed by its Events can't be played backwards: every configuration of the depth is tried.
+                long[] target = current;
+                for (VisitedSet stripe : stripes) {
+                    for (int id = 0; id < stripe.size(); id++) {
+                        if (stripe.tagOf(id) != previousDepth) continue;
+                        stripe.get(id, candidate);
+                        if ((best[0] == null || StateSpace.compare(candidate, best[0]) < 0)
+                                && space.leadsTo(candidate, target)) {
+                            best[0] = candidate.clone();
+                        }
+                    }
+                }
+            } else {
+                space.forEachPredecessor(current, candidate, (previous, element, from, to) -> {
+                    space.canonicalize(previous);
+                    VisitedSet stripe = stripeOf(previous);
+                    int id = stripe.find(previous);
+                    if (id != VisitedSet.ABSENT && stripe.tagOf(id) == previousDepth
+                            && (best[0] == null || StateSpace.compare(previous, best[0]) < 0)) {
+                        best[0] = previous.clone();
+                    }
+                    return true;
+                });
+            }
+            current = best[0];
+            chain.add(current);
+        }
+        Collections.reverse(chain);
+        return space.witness(chain);
+    }
+
+    private VisitedSet stripeOf(long[] configuration) {
+        return stripes[(int) (VisitedSet.hash(configuration) >>> stripeShift)];
+    }
+}
@@ -0,0 +1,94 @@
+package com.example.represc.verification;
+
+import java.util.Arrays;
+
+/**
+ * @author Schmetz Arnaud
+ * @version 1.0
+ *
+ * @overview A PartialOrderReduction gives, for a configuration of a StateSpace {@link StateSpace}, the configurations
+ * reached by the moves of a stubborn set only, instead of by every move which can be played.
+ * When independent moves can be played in any order, exploring every order leads again and again to the same
+ * configurations; a room having one independent puzzle per Problem has as many orders as there are ways to interleave
+ * the puzzles. The stubborn set of a configuration not meeting the Goal is built from the moves writing the first
+ * Physical Element whose requirement is not met: every path reaching the Goal plays one of them. It is then closed:
+ * <ul>
+ *     <li>for a move which can be played, every move it is not independent of is added;</li>
+ *     <li>for a move which can't be played, every move writing a Physical Element it reads, which may enable it, is
+ *     added.</li>
+ * </ul>
+ * The moves of the stubborn set then commute with every move outside of it which may be played before them, so a
+ * shortest path reaching the Goal can always start with one of them: the explorers still find a shortest witness. If
+ * no move of the stubborn set can be played, the Goal can't be reached anymore from the configuration.
+ * A PartialOrderReduction keeps the work arrays of one thread, so each thread needs its own.
+ *
+ * @specfield space: StateSpace // The moves reduced.
+ */
+final class PartialOrderReduction {
+
+    private final StateSpace space;
+    private final boolean[] stubborn; // Whether each move is in the stubborn set being built.
+    private final int[] members; // The moves of the stubborn set being built, in the order they were added.
+    private int count;
+
+    /**
+     * @precondition {@code space != null}
+     * @postcondition Initialises {@code this} to reduce the moves of {@code space}.
+     */
+    PartialOrderReduction(StateSpace space) {
+        assert space != null : "PartialOrderReduction: Trying to reduce the moves of a null StateSpace.";
+
+        this.space = space;
+        this.stubborn = new boolean[space.moveCount()];
+        this.members = new int[space.moveCount()];
+    }
+
+    /**
+     * @precondition {@code next.length == space.words()}
+     * @effects Tells {@code move} about each configuration reached from {@code configuration} by a move of its stubborn
+     * set, in the order of the moves, using {@code next} to hold them, until it returns false. Tells it about none if
+     * {@code configuration} meets the Goal.
+     */
+    void forEachSuccessor(long[] configuration, long[] next, StateSpace.Move move) {
+        int seed = space.firstUnsatisfied(configuration);
+        if (seed < 0) return;
+
+        count = 0;
+        for (int writer : space.writers(seed)) add(writer);
+        for (int member = 0; member < count; member++) {
+            int m = members[member];
+            if (space.isEnabled(configuration, m)) {
+                for (int element : space.writes(m)) {
+                    for (int other : space.readers(element)) add(other);
+                    for (int other : space.writers(element)) add(other);
+                }
+                for (int element : space.reads(m)) {
+                    for (int other : space.writers(element)) add(other);
+                }
+            } else {
+                for (int element : space.reads(m)) {
+                    for (int other : space.writers(element)) add(other);
+                }
+            }
+        }
+
+        Arrays.sort(members, 0, count);
+        for (int member = 0; member < count; member++) stubborn[members[member]] = false;
+        for (int member = 0; member < count; member++) {
+            int m = members[member];
+            if (!space.isEnabled(configuration, m)) continue;
+
+            System.arraycopy(configuration, 0, next, 0, configuration.length);
+            int element = space.moveElement(m);
+            int from = space.stateOf(configuration, element);
+            if (!space.play(next, m)) continue;
+            if (!move.accept(next, element, from, space.moveTo(m))) return;
+        }
+    }
+
+    private void add(int move) {
+        if (stubborn[move]) return;
+        stubborn[move] = true;
+        members[count++] = move;
+    }
+}
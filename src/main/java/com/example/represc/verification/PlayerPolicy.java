@@ -0,0 +1,85 @@
+package com.example.represc.verification;
+
+import java.time.Duration;
+import java.util.SplittableRandom;
+
+/**
+ * @author Schmetz Arnaud
+ * @version 1.0
+ *
+ * @overview A PlayerPolicy is how the players of a Playtest {@link Playtest} behave: each time they try something, it
+ * chooses which of the moves they can play they play, or whether they ask the game master for a Hint instead, from
+ * what the players know of the game {@link Playtest.Situation}.
+ * A PlayerPolicy must only draw its random numbers from the SplittableRandom it is given, so that a Playtest gives the
+ * same results from the same seed. It is called by several threads at once, so it must not keep any state.
+ */
+@FunctionalInterface
+public interface PlayerPolicy {
+
+    /**
+     * What {@link #choose(Playtest.Situation, SplittableRandom)} returns to ask for a Hint.
+     */
+    int HINT = -1;
+
+    /**
+     * @precondition {@code situation.getMoveCount() > 0 || situation.canAskForHint()}
+     * @return Returns the index of the move of {@code situation} the players play, or HINT if they ask for a Hint,
+     * which they only can if {@code situation.canAskForHint()}.
+     */
+    int choose(Playtest.Situation situation, SplittableRandom random);
+
+    /**
+     * @return Returns a PlayerPolicy playing any of the moves, each as likely, and asking for a Hint only when there
+     * is no move left.
+     */
+    static PlayerPolicy random() {
+        return (situation, random) -> situation.getMoveCount() == 0 ? HINT
+                : random.nextInt(situation.getMoveCount());
+    }
+
+    /**
+     * @return Returns a PlayerPolicy playing one of the moves bringing a Physical Element to the State the Goal
+     * requires if there is one, one of the moves not taking one away from it otherwise, and asking for a Hint only
+     * when there is no move left.
+     */
+    static PlayerPolicy greedy() {
+        return (situation, random) -> situation.getMoveCount() == 0 ? HINT : greedy(situation, random, false);
+    }
+
+    /**
+     * @precondition {@code patience != null && !patience.isNegative()}
+     * @return Returns a PlayerPolicy asking for a Hint once the players haven't progressed towards the Goal for
+     * {@code patience}, and playing greedily otherwise, preferring the Physical Elements the Hints taken are about.
+     */
+    static PlayerPolicy hintSeeking(Duration patience) {
+        assert patience != null && !patience.isNegative() : "hintSeeking: The patience of the players must be positive.";
+
+        return (situation, random) -> {
+            if (situation.canAskForHint() && (situation.getMoveCount() == 0
+                    || situation.getSinceProgress().compareTo(patience) >= 0)) {
+                return HINT;
+            }
+            return greedy(situation, random, true);
+        };
+    }
+
+    /**
+     * @return Returns a random move among the best ones: bringing a Physical Element to the State the Goal requires
+     * rather than not changing what the Goal requires, and that rather than undoing it; among them, a move on a
+     * Physical Element a Hint taken is about if {@code hinted}.
+     */
+    private static int greedy(Playtest.Situation situation, SplittableRandom random, boolean hinted) {
+        int best = Integer.MIN_VALUE;
+        int count = 0;
+        int chosen = 0;
+        for (int move = 0; move < situation.getMoveCount(); move++) {
+            int score = situation.getProgress(move) * 2 + (hinted && situation.isHinted(move) ? 1 : 0);
+            if (score > best) {
+                best = score;
+                count = 0;
+            }
+            if (score == best && random.nextInt(++count) == 0) chosen = move; // Each best move is as likely.
+        }
+        return chosen;
+    }
+}
@@ -0,0 +1,447 @@
+package com.example.represc.verification;
+
+import com.example.represc.data.EscapeGame;
+import com.example.represc.data.Hint;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.UUID;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+/**
+ * @author Schmetz Arnaud
+ * @version 1.0
+ *
+ * @overview A Playtest plays an escape game many times on a Simulator {@link Simulator}, with virtual players behaving
+ * as a PlayerPolicy {@link PlayerPolicy} says, to see how long the players take to meet the Goal {@link Goal}
+ * compared to the estimated duration of the game {@link PlaytestReport}.
+ * In each session, the number of players is drawn between the minimum and the maximum of the escape game. The players
+ * try one move after another: each takes them a time drawn from an exponential distribution, whose mean is the think
+ * time divided by the number of players, as they look for it together. Asking the game master for a Hint takes them
+ * the hint delay; the Hint given is the first one not given yet about a Physical Element which isn't in the State the
+ * Goal requires, or else the first one not given yet. A session ends when the Goal is met, at the time limit, or when
+ * the players have nothing left to try.
+ * The sessions are played on every thread of a ForkJoinPool, each thread on its own Simulator. Each session draws its
+ * random numbers from its own SplittableRandom, split in order from the seed of the Playtest: the same seed gives the
+ * same report, whatever the number of threads.
+ *
+ * @specfield game: EscapeGame // The escape game played, as it was when the Playtest was created.
+ * @specfield goal: Goal // The Goal the players must meet.
+ * @specfield policy: PlayerPolicy // How the players behave.
+ * @specfield sessions: int // The number of sessions played.
+ * @specfield players: int, int // The minimum and maximum number of players of a session.
+ * @specfield thinkTime: Duration // The mean time a single player takes to try a move.
+ * @specfield hintDelay: Duration // The time the players take to get a Hint.
+ * @specfield timeLimit: Duration // The time after which a session is stopped.
+ */
+public class Playtest {
+
+    public static final int DEFAULT_SESSIONS = 1000;
+    public static final Duration DEFAULT_THINK_TIME = Duration.ofSeconds(30);
+    public static final Duration DEFAULT_HINT_DELAY = Duration.ofMinutes(1);
+    public static final Duration DEFAULT_PATIENCE = Duration.ofMinutes(5);
+    public static final Duration DEFAULT_TIME_LIMIT = Duration.ofHours(2); // Without estimated duration.
+
+    private static final int COMPLETED = 0;
+    private static final int TIMED_OUT = 1;
+    private static final int STUCK = 2;
+
+    /**
+     * @overview A Situation is what the players of a session know when they choose what to do: the moves they can
+     * play, what each of them does towards the Goal, and the Hints they were given. It is only valid while the
+     * PlayerPolicy is choosing.
+     */
+    public static final class Situation {
+        private final StateSpace space;
+        private final int[] required; // The index of the State required by the Goal of each Physical Element, or -1.
+        private final boolean[] hinted; // Whether a Hint taken is about each Physical Element.
+        private final int[] moves; // The indexes of the moves which can be played.
+        private int moveCount;
+        private long[] configuration;
+        private int players;
+        private long time;
+        private long sinceProgress;
+        private boolean hintLeft;
+
+        private Situation(StateSpace space, int[] required) {
+            this.space = space;
+            this.required = required;
+            this.hinted = new boolean[space.size()];
+            this.moves = new int[space.moveCount()];
+        }
+
+        /**
+         * @return Returns the number of moves the players can play.
+         */
+        public int getMoveCount() {
+            return moveCount;
+        }
+
+        /**
+         * @precondition {@code 0 <= move < getMoveCount()}
+         * @return Returns the UUID of the Physical Element the move of index {@code move} switches.
+         */
+        public UUID getElement(int move) {
+            return space.elementId(space.moveElement(moves[move]));
+        }
+
+        /**
+         * @precondition {@code 0 <= move < getMoveCount()}
+         * @return Returns the UUID of the State the move of index {@code move} switches its Physical Element to.
+         */
+        public UUID getState(int move) {
+            return space.stateId(space.moveElement(moves[move]), space.moveTo(moves[move]));
+        }
+
+        /**
+         * @precondition {@code 0 <= move < getMoveCount()}
+         * @return Returns 1 if the move of index {@code move} brings its Physical Element to the State the Goal
+         * requires, -1 if it takes it away from it, 0 otherwise.
+         */
+        public int getProgress(int move) {
+            int element = space.moveElement(moves[move]);
+            if (required[element] < 0) return 0;
+            if (space.moveTo(moves[move]) == required[element]) return 1;
+            return space.stateOf(configuration, element) == required[element] ? -1 : 0;
+        }
+
+        /**
+         * @precondition {@code 0 <= move < getMoveCount()}
+         * @return Returns true if a Hint the players were given is about the Physical Element of the move of index
+         * {@code move}.
+         */
+        public boolean isHinted(int move) {
+            return hinted[space.moveElement(moves[move])];
+        }
+
+        public int getPlayers() {
+            return players;
+        }
+
+        /**
+         * @return Returns the time since the start of the session.
+         */
+        public Duration getTime() {
+            return Duration.ofNanos(time);
+        }
+
+        /**
+         * @return Returns the time since the players last brought a Physical Element to the State the Goal requires,
+         * or were given a Hint.
+         */
+        public Duration getSinceProgress() {
+            return Duration.ofNanos(sinceProgress);
+        }
+
+        /**
+         * @return Returns true if there is a Hint the players weren't given yet.
+         */
+        public boolean canAskForHint() {
+            return hintLeft;
+        }
+
+        /**
+         * @effects Lists the moves which can be played in {@code configuration}.
+         */
+        private void observe(long[] configuration) {
+            this.configuration = configuration;
+            moveCount = 0;
+            for (int move = 0; move < moves.length; move++) {
+                if (space.isEnabled(configuration, move)) moves[moveCount++] = move;
+            }
+        }
+    }
+
+    private final Simulator simulator;
+    private final int[] required;
+    private final int[][] hints; // The indexes of the Physical Elements each Hint is about.
+    private final Duration estimated;
+    private int minimumPlayers;
+    private int maximumPlayers;
+    private PlayerPolicy policy = PlayerPolicy.hintSeeking(DEFAULT_PATIENCE);
+    private int sessions = DEFAULT_SESSIONS;
+    private long thinkTime = DEFAULT_THINK_TIME.toNanos();
+    private long hintDelay = DEFAULT_HINT_DELAY.toNanos();
+    private long timeLimit;
+
+    /**
+     * @precondition {@code game != null && goal != null && !goal.isEmpty()}, every Physical Element named by
+     * {@code goal} is in {@code game}, and this is called on the thread owning {@code game}.
+     * @postcondition Initialises {@code this} to play {@code game} as it is now until {@code goal} is met, with the
+     * default settings, the players of {@code game}, at least one, and, as time limit, twice its estimated duration.
+     */
+    public Playtest(EscapeGame game, Goal goal) {
+        assert goal != null && !goal.isEmpty() : "Playtest: The players of a Playtest need a Goal.";
+
+        this.simulator = new Simulator(game, goal);
+        StateSpace space = simulator.space();
+        required = new int[space.size()];
+        for (int element = 0; element < required.length; element++) required[element] = -1;
+        for (Map.Entry<UUID, UUID> requirement : goal.getRequiredStates().entrySet()) {
+            int element = space.indexOf(requirement.getKey());
+            required[element] = space.stateIndexOf(element, requirement.getValue());
+        }
+
+        ArrayList<int[]> hintList = new ArrayList<>();
+        for (UUID id : game.getAllHintsUUID().orElseGet(ArrayList::new)) {
+            Hint hint = game.getHint(id);
+            hintList.add(hint.getPhysicalElements().orElseGet(ArrayList::new).stream().mapToInt(space::indexOf)
+                    .filter(element -> element >= 0).toArray());
+        }
+        hints = hintList.toArray(new int[0][]);
+
+        estimated = game.getEstimatedDuration().orElse(null);
+        timeLimit = estimated == null ? DEFAULT_TIME_LIMIT.toNanos() : plus(estimated.toNanos(), estimated.toNanos());
+        // A game may allow no player, but a session without any would never try a move.
+        minimumPlayers = Math.max(1, game.getPlayersMinimum().orElse(game.getPlayersMaximum().orElse(1)));
+        maximumPlayers = Math.max(minimumPlayers, game.getPlayersMaximum().orElse(minimumPlayers));
+    }
+
+    /**
+     * @precondition {@code policy != null}
+     * @effects Makes the players behave as {@code policy} says.
+     */
+    public void setPolicy(PlayerPolicy policy) {
+        assert policy != null : "setPolicy: Trying to set a null PlayerPolicy.";
+        this.policy = policy;
+    }
+
+    /**
+     * @precondition {@code sessions > 0}
+     * @effects Sets the number of sessions played to {@code sessions}.
+     */
+    public void setSessions(int sessions) {
+        assert sessions > 0 : "setSessions: The number of sessions must be positive.";
+        this.sessions = sessions;
+    }
+
+    /**
+     * @precondition {@code 0 < minimum <= maximum}
+     * @effects Draws the number of players of each session between {@code minimum} and {@code maximum}.
+     */
+    public void setPlayers(int minimum, int maximum) {
+        assert 0 < minimum && minimum <= maximum : "setPlayers: The number of players must be a positive range.";
+        this.minimumPlayers = minimum;
+        this.maximumPlayers = maximum;
+    }
+
+    /**
+     * @precondition {@code thinkTime != null && !thinkTime.isNegative() && !thinkTime.isZero()}
+     * @effects Sets the mean time a single player takes to try a move to {@code thinkTime}.
+     */
+    public void setThinkTime(Duration thinkTime) {
+        assert thinkTime != null && !thinkTime.isNegative() && !thinkTime.isZero() : "setThinkTime: The think time " +
+                "must be positive.";
+        this.thinkTime = thinkTime.toNanos();
+    }
+
+    /**
+     * @precondition {@code hintDelay != null && !hintDelay.isNegative()}
+     * @effects Sets the time the players take to get a Hint to {@code hintDelay}.
+     */
+    public void setHintDelay(Duration hintDelay) {
+        assert hintDelay != null && !hintDelay.isNegative() : "setHintDelay: The hint delay must be positive.";
+        this.hintDelay = hintDelay.toNanos();
+    }
+
+    /**
+     * @precondition {@code timeLimit != null && !timeLimit.isNegative()}
+     * @effects Stops the sessions not completed after {@code timeLimit}.
+     */
+    public void setTimeLimit(Duration timeLimit) {
+        assert timeLimit != null && !timeLimit.isNegative() : "setTimeLimit: The time limit must be positive.";
+        this.timeLimit = timeLimit.toNanos();
+    }
+
+    /**
+     * @return Returns the report of the sessions played from {@code seed}, on the common ForkJoinPool.
+     * @throws CancellationException if the calling thread is interrupted, which it stays.
+     */
+    public PlaytestReport run(long seed) {
+        return run(ForkJoinPool.commonPool(), seed);
+    }
+
+    /**
+     * @precondition {@code pool != null}
+     * @return Returns the report of the sessions played from {@code seed}, on the threads of {@code pool}.
+     * @throws CancellationException if the calling thread is interrupted, which it stays.
+     */
+    public PlaytestReport run(ForkJoinPool pool, long seed) {
+        assert pool != null : "run: Trying to play on a null ForkJoinPool.";
+
+        SplittableRandom root = new SplittableRandom(seed);
+        SplittableRandom[] randoms = new SplittableRandom[sessions];
+        for (int session = 0; session < sessions; session++) randoms[session] = root.split();
+
+        long[] times = new long[sessions];
+        int[] outcomes = new int[sessions];
+        int[] hintCounts = new int[sessions];
+        int[] actionCounts = new int[sessions];
+        ConcurrentLinkedQueue<Simulator> simulators = new ConcurrentLinkedQueue<>();
+        simulators.add(simulator);
+        int chunk = Math.max(1, sessions / (pool.getParallelism() * 4));
+        ArrayList<ForkJoinTask<?>> tasks = new ArrayList<>();
+        for (int first = 0; first < sessions; first += chunk) {
+            int from = first;
+            int to = Math.min(sessions, first + chunk);
+            tasks.add(ForkJoinTask.adapt(() -> {
+                Simulator mine = simulators.poll();
+                if (mine == null) mine = simulator.copy();
+                try {
+                    for (int session = from; session < to; session++) {
+                        play(mine, randoms[session], session, times, outcomes, hintCounts, actionCounts);
+                    }
+                } finally {
+                    simulators.add(mine);
+                }
+            }));
+        }
+        ForkJoinTask<?> all = pool.submit(() -> ForkJoinTask.invokeAll(tasks));
+        try {
+            all.get();
+        } catch (InterruptedException e) {
+            // The chunks not started are dropped, the others are waited for, as they play on the Simulator.
+            for (ForkJoinTask<?> task : tasks) task.cancel(false);
+            all.quietlyJoin();
+            Thread.currentThread().interrupt();
+            throw new CancellationException("The Playtest was interrupted.");
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("A session of the Playtest failed.", e.getCause());
+        }
+
+        long[] completed = new long[sessions];
+        int completedCount = 0;
+        int timedOut = 0;
+        int stuck = 0;
+        long hintTotal = 0;
+        long actionTotal = 0;
+        for (int session = 0; session < sessions; session++) {
+            switch (outcomes[session]) {
+                case COMPLETED -> completed[completedCount++] = times[session];
+                case TIMED_OUT -> timedOut++;
+                default -> stuck++;
+            }
+            hintTotal += hintCounts[session];
+            actionTotal += actionCounts[session];
+        }
+        return new PlaytestReport(Arrays.copyOf(completed, completedCount), timedOut, stuck, estimated,
+                hintTotal, actionTotal);
+    }
+
+    /**
+     * @effects Plays the session of index {@code index} on {@code simulator}, drawing from {@code random}, and stores
+     * how it ended at {@code index} in the arrays.
+     */
+    private void play(Simulator simulator, SplittableRandom random, int index, long[] times, int[] outcomes,
+                      int[] hintCounts, int[] actionCounts) {
+        StateSpace space = simulator.space();
+        Simulator.Session session = simulator.new Session(List.of(), false);
+        session.runUntil(0, Simulator.DEFAULT_HAPPENINGS);
+        Situation situation = new Situation(space, required);
+        situation.players = minimumPlayers + random.nextInt(maximumPlayers - minimumPlayers + 1);
+        boolean[] given = new boolean[hints.length];
+        int hintsGiven = 0;
+        double meanDelay = (double) thinkTime / situation.players;
+
+        long time = 0;
+        long progress = 0; // The time of the last progress.
+        int met = met(session.configuration());
+        int outcome;
+        while (true) {
+            if (session.isSolved()) {
+                outcome = COMPLETED;
+                time = session.now();
+                break;
+            }
+            if (session.isOver()) {
+                outcome = STUCK;
+                break;
+            }
+            situation.observe(session.configuration());
+            situation.time = time;
+            situation.sinceProgress = time - progress;
+            situation.hintLeft = hintsGiven < hints.length;
+            if (situation.moveCount == 0 && !situation.hintLeft) {
+                outcome = STUCK;
+                break;
+            }
+
+            int choice = policy.choose(situation, random);
+            assert choice == PlayerPolicy.HINT ? situation.hintLeft : 0 <= choice && choice < situation.moveCount :
+                    "play: The PlayerPolicy chose a move which can't be played.";
+            if (choice == PlayerPolicy.HINT) {
+                int hint = nextHint(session.configuration(), given);
+                given[hint] = true;
+                hintsGiven++;
+                for (int element : hints[hint]) situation.hinted[element] = true;
+                time = plus(time, hintDelay);
+                progress = time;
+            } else {
+                time = plus(time, (long) (-meanDelay * Math.log(1 - random.nextDouble())));
+            }
+            if (time > timeLimit) {
+                outcome = TIMED_OUT;
+                break;
+            }
+            if (choice != PlayerPolicy.HINT) {
+                int move = situation.moves[choice];
+                session.act(time, space.moveElement(move), space.moveTo(move));
+                actionCounts[index]++;
+                session.runUntil(time, Simulator.DEFAULT_HAPPENINGS);
+                int now = met(session.configuration());
+                if (now > met) progress = time;
+                met = now;
+            }
+        }
+        times[index] = time;
+        outcomes[index] = outcome;
+        hintCounts[index] = hintsGiven;
+    }
+
+    /**
+     * @precondition {@code time >= 0 && delay >= 0}
+     * @return Returns {@code time + delay}, or Long.MAX_VALUE if it overflows, so that a session waiting that long
+     * still times out.
+     */
+    private static long plus(long time, long delay) {
+        return delay > Long.MAX_VALUE - time ? Long.MAX_VALUE : time + delay;
+    }
+
+    /**
+     * @return Returns the number of requirements of the Goal on a State which are met in {@code configuration}.
+     */
+    private int met(long[] configuration) {
+        StateSpace space = simulator.space();
+        int met = 0;
+        for (int element = 0; element < required.length; element++) {
+            if (required[element] >= 0 && space.stateOf(configuration, element) == required[element]) met++;
+        }
+        return met;
+    }
+
+    /**
+     * @precondition Some Hint wasn't {@code given}.
+     * @return Returns the index of the first Hint not {@code given} about a Physical Element which isn't in the State
+     * the Goal requires in {@code configuration}, or else of the first Hint not {@code given}.
+     */
+    private int nextHint(long[] configuration, boolean[] given) {
+        StateSpace space = simulator.space();
+        int first = -1;
+        for (int hint = 0; hint < hints.length; hint++) {
+            if (given[hint]) continue;
+            if (first < 0) first = hint;
+            for (int element : hints[hint]) {
+                if (required[element] >= 0 && space.stateOf(configuration, element) != required[element]) return hint;
+            }
+        }
+        return first;
+    }
+}
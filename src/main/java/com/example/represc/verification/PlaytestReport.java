@@ -0,0 +1,150 @@
+package com.example.represc.verification;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.OptionalDouble;
+
+/**
+ * @author Schmetz Arnaud
+ * @version 1.0
+ *
+ * @overview A PlaytestReport is the answer of a Playtest {@link Playtest}: how the sessions played ended, and how long
+ * the completed ones took, compared to the estimated duration of the escape game.
+ * A session is completed if the players met the Goal, timed out if they didn't before the time limit, and stuck if
+ * they had nothing left to try, no Hint left to ask for, or if Events kept triggering each other endlessly.
+ *
+ * @specfield sessions: int // The number of sessions played.
+ * @specfield completionTimes: sorted list of Duration // How long each completed session took, from the shortest.
+ * @specfield timedOut: int // The number of sessions timed out.
+ * @specfield stuck: int // The number of sessions stuck.
+ * @specfield estimated: Duration // The estimated duration of the escape game, null if it has none.
+ * @specfield hints: long // The number of Hints asked for, in every session.
+ * @specfield actions: long // The number of moves played, in every session.
+ *
+ * @invariant {@code completionTimes.size() + timedOut + stuck == sessions}
+ */
+public final class PlaytestReport {
+
+    private final int sessions;
+    private final long[] completionTimes; // In nanoseconds, sorted.
+    private final int timedOut;
+    private final int stuck;
+    private final Duration estimated;
+    private final long hints;
+    private final long actions;
+
+    PlaytestReport(long[] completionTimes, int timedOut, int stuck, Duration estimated, long hints, long actions) {
+        this.completionTimes = completionTimes.clone();
+        Arrays.sort(this.completionTimes);
+        this.sessions = completionTimes.length + timedOut + stuck;
+        this.timedOut = timedOut;
+        this.stuck = stuck;
+        this.estimated = estimated;
+        this.hints = hints;
+        this.actions = actions;
+    }
+
+    public int getSessions() {
+        return sessions;
+    }
+
+    public int getCompleted() {
+        return completionTimes.length;
+    }
+
+    public int getTimedOut() {
+        return timedOut;
+    }
+
+    public int getStuck() {
+        return stuck;
+    }
+
+    /**
+     * @return Returns how long each completed session took, from the shortest to the longest.
+     */
+    public List<Duration> getCompletionTimes() {
+        ArrayList<Duration> times = new ArrayList<>();
+        for (long time : completionTimes) times.add(Duration.ofNanos(time));
+        return Collections.unmodifiableList(times);
+    }
+
+    /**
+     * @precondition {@code 0 <= percentile <= 100}
+     * @return Returns an Optional containing the time within which {@code percentile} percent of the completed sessions
+     * were completed, or an empty Optional if none was.
+     */
+    public Optional<Duration> getPercentile(double percentile) {
+        assert percentile >= 0 && percentile <= 100 : "getPercentile: A percentile must be between 0 and 100.";
+
+        if (completionTimes.length == 0) return Optional.empty();
+        int index = (int) Math.ceil(percentile / 100 * completionTimes.length) - 1;
+        return Optional.of(Duration.ofNanos(completionTimes[Math.max(0, index)]));
+    }
+
+    /**
+     * @return Returns an Optional containing the mean time the completed sessions took, or an empty Optional if none
+     * was completed.
+     */
+    public Optional<Duration> getMean() {
+        if (completionTimes.length == 0) return Optional.empty();
+        double sum = 0;
+        for (long time : completionTimes) sum += time;
+        return Optional.of(Duration.ofNanos(Math.round(sum / completionTimes.length)));
+    }
+
+    public Optional<Duration> getEstimatedDuration() {
+        return Optional.ofNullable(estimated);
+    }
+
+    /**
+     * @return Returns the share of the sessions completed within the estimated duration of the escape game, or an
+     * empty OptionalDouble if it has none.
+     */
+    public OptionalDouble getCompletedWithinEstimate() {
+        if (estimated == null || sessions == 0) return OptionalDouble.empty();
+        long limit = estimated.toNanos();
+        int within = 0;
+        while (within < completionTimes.length && completionTimes[within] <= limit) within++;
+        return OptionalDouble.of((double) within / sessions);
+    }
+
+    /**
+     * @return Returns the mean number of Hints asked for per session.
+     */
+    public double getMeanHints() {
+        return sessions == 0 ? 0 : (double) hints / sessions;
+    }
+
+    /**
+     * @return Returns the mean number of moves played per session.
+     */
+    public double getMeanActions() {
+        return sessions == 0 ? 0 : (double) actions / sessions;
+    }
+
+    public String toString() {
+        StringBuilder s = new StringBuilder("PlaytestReport : {\n\t");
+        s.append("sessions: ").append(sessions);
+        s.append(",\n\tcompleted: ").append(completionTimes.length);
+        s.append(",\n\ttimedOut: ").append(timedOut);
+        s.append(",\n\tstuck: ").append(stuck);
+        if (completionTimes.length > 0) {
+            s.append(",\n\tp10: ").append(getPercentile(10).get());
+            s.append(",\n\tmedian: ").append(getPercentile(50).get());
+            s.append(",\n\tp90: ").append(getPercentile(90).get());
+        }
+        if (estimated != null) {
+            s.append(",\n\testimated: ").append(estimated);
+            s.append(",\n\tcompletedWithinEstimate: ").append(getCompletedWithinEstimate().getAsDouble());
+        }
+        s.append(",\n\tmeanHints: ").append(getMeanHints());
+        s.append(",\n\tmeanActions: ").append(getMeanActions());
+        s.append(" }");
+        return s.toString();
+    }
+}
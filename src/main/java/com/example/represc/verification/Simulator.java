@@ -0,0 +1,408 @@
+package com.example.represc.verification;
+
+import com.example.represc.data.Countdown;
+import com.example.represc.data.EscapeGame;
+import com.example.represc.data.Event;
+import com.example.represc.data.Trigger;
+import com.example.represc.utils.TimingWheel;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.UUID;
+import java.util.function.Consumer;
+
+/**
+ * @author Schmetz Arnaud
+ * @version 1.0
+ *
+ * @overview A Simulator plays an escape game on a virtual clock, without waiting: the actions of the players, scheduled
+ * beforehand, and the Events {@link Event} they trigger are queued by the time they happen at, and each is applied to
+ * the configuration of the game in turn, the clock jumping from one to the next; the Countdowns {@link Countdown} run on
+ * a TimingWheel {@link TimingWheel} moved along with the clock, and expire after what happens at the time they expire
+ * at. What happened is recorded in a Timeline {@link Timeline}, so that a game of an hour is replayed in
+ * milliseconds.
+ * An action of the players switches a Physical Element to one of its States, as in the verifiers {@link StateSpace}: it
+ * is refused if the Physical Element isn't accessible, if the State can't be switched to, or if the Physical Element is
+ * already in it. The Countdowns all start with the game. An Event happens, at the time of the happening which made its
+ * Trigger start to hold {@link EventNetwork}, after what was already queued for that time, and switches the Physical
+ * Elements of its Actions, which may trigger other Events. The Events whose Trigger holds from the start happen at
+ * time zero.
+ * The game ends when nothing is left to happen, when the Goal is met, or at the end asked for. The EscapeGame itself is
+ * never modified: the Simulator works on the configuration it had when the Simulator was created, and running it again
+ * replays the game from the start.
+ * A Simulator is not thread safe.
+ *
+ * @specfield game: EscapeGame // The escape game simulated, as it was when the Simulator was created.
+ * @specfield goal: Goal // The Goal ending the game. An empty Goal never ends it.
+ * @specfield actions: sequence of (Duration, UUID, UUID) // The actions of the players scheduled, as their time, the
+ * Physical Element switched and the State it is switched to.
+ */
+public class Simulator {
+
+    public static final long DEFAULT_HAPPENINGS = 1_000_000;
+
+    private static final Duration TICK = Duration.ofNanos(1);
+
+    private static final int ACTION = 0;
+    private static final int EVENT = 1;
+
+    /**
+     * @overview A Happening is something queued to happen at some time: an action of the players or an Event.
+     * Happenings at the same time happen in the order they were queued.
+     */
+    private static final class Happening {
+        private final long time; // In nanoseconds from the start of the game.
+        private final long order;
+        private final int kind;
+        private final int subject; // The index of the Physical Element or the Event.
+        private final int state; // The index of the State the players switch to.
+
+        private Happening(long time, long order, int kind, int subject, int state) {
+            this.time = time;
+            this.order = order;
+            this.kind = kind;
+            this.subject = subject;
+            this.state = state;
+        }
+    }
+
+    private final StateSpace space;
+    private final boolean hasGoal;
+    private final List<Trigger> triggers; // The Trigger of each Event, null if it never holds.
+    private final EventNetwork network;
+    private final UUID[] events;
+    private final int[][] eventElements; // The index of the Physical Element of each Action of each Event.
+    private final int[][] eventStates; // The index of the State of each Action of each Event.
+    private final UUID[] countdowns;
+    private final long[] countdownDurations;
+
+    private final ArrayList<Happening> actions = new ArrayList<>();
+
+    /**
+     * @precondition {@code game != null}, and this is called on the thread owning {@code game}.
+     * @postcondition Initialises {@code this} to simulate {@code game} as it is now, without Goal nor scheduled action.
+     */
+    public Simulator(EscapeGame game) {
+        this(game, new Goal());
+    }
+
+    /**
+     * @precondition {@code game != null && goal != null}, every Physical Element named by {@code goal} is in
+     * {@code game}, and this is called on the thread owning {@code game}.
+     * @postcondition Initialises {@code this} to simulate {@code game} as it is now until {@code goal} is met, without
+     * scheduled action.
+     */
+    public Simulator(EscapeGame game, Goal goal) {
+        assert game != null : "Simulator: Trying to simulate a null EscapeGame.";
+        assert goal != null : "Simulator: Trying to simulate an EscapeGame towards a null Goal.";
+
+        List<UUID> elements = game.getAllPhysicalElementsUUID().orElseGet(ArrayList::new);
+        this.space = new StateSpace(game, elements, goal, false, false); // The Events happen here, on the clock.
+        this.hasGoal = !goal.isEmpty();
+
+        events = game.getAllEventsUUID().orElseGet(ArrayList::new).toArray(new UUID[0]);
+        eventElements = new int[events.length][];
+        eventStates = new int[events.length][];
+        triggers = new ArrayList<>();
+        for (int e = 0; e < events.length; e++) {
+            Event event = game.getEvent(events[e]);
+            Trigger trigger = event.getTrigger().orElse(null);
+            // A Trigger reading a Physical Element which was deleted never holds.
+            if (trigger != null && !elements.containsAll(trigger.getElements())) trigger = null;
+            triggers.add(trigger);
+
+            ArrayList<int[]> switches = new ArrayList<>();
+            for (Event.Action action : event.getActions()) {
+                int element = space.indexOf(action.getElement());
+                int state = element < 0 ? -1 : space.stateIndexOf(element, action.getState());
+                if (state >= 0) switches.add(new int[]{element, state});
+            }
+            eventElements[e] = switches.stream().mapToInt(a -> a[0]).toArray();
+            eventStates[e] = switches.stream().mapToInt(a -> a[1]).toArray();
+        }
+        network = new EventNetwork(space, triggers);
+
+        countdowns = game.getAllCountdownsUUID().orElseGet(ArrayList::new).toArray(new UUID[0]);
+        countdownDurations = new long[countdowns.length];
+        for (int c = 0; c < countdowns.length; c++) {
+            countdownDurations[c] = game.getCountdown(countdowns[c]).getDuration().toNanos();
+        }
+    }
+
+    private Simulator(Simulator other) {
+        space = other.space;
+        hasGoal = other.hasGoal;
+        triggers = other.triggers;
+        network = new EventNetwork(space, triggers);
+        events = other.events;
+        eventElements = other.eventElements;
+        eventStates = other.eventStates;
+        countdowns = other.countdowns;
+        countdownDurations = other.countdownDurations;
+    }
+
+    /**
+     * @precondition {@code time != null && !time.isNegative() && element != null && state != null}, and {@code state}
+     * is one of the States of the Physical Element {@code element} of the game.
+     * @effects Schedules the players to switch the Physical Element {@code element} to its State {@code state}, at
+     * {@code time} from the start of the game.
+     */
+    public void schedule(Duration time, UUID element, UUID state) {
+        assert time != null && !time.isNegative() : "schedule: An action must be scheduled at a positive time.";
+        assert element != null && state != null : "schedule: Trying to schedule a null action.";
+        int index = space.indexOf(element);
+        assert index >= 0 : "schedule: Trying to switch a Physical Element which is not in the EscapeGame.";
+        assert space.stateIndexOf(index, state) >= 0 : "schedule: Trying to switch a Physical Element to a State " +
+                "which is not one of its own.";
+
+        actions.add(new Happening(time.toNanos(), actions.size(), ACTION, index, space.stateIndexOf(index, state)));
+    }
+
+    /**
+     * @effects Removes every action scheduled.
+     */
+    public void clearSchedule() {
+        actions.clear();
+    }
+
+    /**
+     * @return Returns the Timeline of the game, from the start until nothing is left to happen or the Goal is met.
+     */
+    public Timeline run() {
+        return run(null, DEFAULT_HAPPENINGS);
+    }
+
+    /**
+     * @precondition {@code until == null || !until.isNegative()}, {@code happenings > 0}
+     * @return Returns the Timeline of the game, from the start until nothing is left to happen, the Goal is met, or
+     * {@code until} if it isn't null. The Timeline is not complete if more than {@code happenings} things happened
+     * before.
+     */
+    public Timeline run(Duration until, long happenings) {
+        assert until == null || !until.isNegative() : "run: Trying to simulate until a negative time.";
+        assert happenings > 0 : "run: The number of happenings must be positive.";
+
+        Session session = new Session(actions, true);
+        session.runUntil(until == null ? Long.MAX_VALUE : until.toNanos(), happenings);
+        return session.finish(until);
+    }
+
+    /**
+     * @return Returns a Session of the game, started now, recording what happens, whose actions are given to it as the
+     * game goes {@link Session#act(long, UUID, UUID)}. {@code this} runs one Session at a time.
+     */
+    public Session start() {
+        return new Session(List.of(), true);
+    }
+
+    /**
+     * @return Returns true if {@code state} is one of the States of the Physical Element {@code element} of the game,
+     * which the players may ask to switch it to. Can be called by any thread.
+     */
+    public boolean isAction(UUID element, UUID state) {
+        int index = space.indexOf(element);
+        return index >= 0 && space.stateIndexOf(index, state) >= 0;
+    }
+
+    /**
+     * @return Returns a Simulator of the same game, towards the same Goal, without scheduled action, which can be used
+     * by another thread than {@code this}.
+     */
+    Simulator copy() {
+        return new Simulator(this);
+    }
+
+    StateSpace space() {
+        return space;
+    }
+
+    /**
+     * @overview A Session is one game being simulated, from its start: the actions of the players are given to it as
+     * the game goes, by the Playtests {@link Playtest} and the live sessions of the runtime package, or all at once, by
+     * {@link #run(Duration, long)}. A Simulator runs one Session at a time, the Sessions sharing its EventNetwork.
+     *
+     * @specfield configuration: long[] // The configuration of the game.
+     * @specfield now: long // The time of the last happening, in nanoseconds from the start of the game.
+     * @specfield entries: list of Entry // What happened, if recorded.
+     */
+    public final class Session {
+        private final long[] configuration = space.initial();
+        private final PriorityQueue<Happening> queue = new PriorityQueue<>(
+                Comparator.comparingLong((Happening h) -> h.time).thenComparingLong(h -> h.order));
+        private final TimingWheel<UUID> wheel = new TimingWheel<>(TICK);
+        private final ArrayList<Timeline.Entry> entries = new ArrayList<>();
+        private final boolean recorded;
+        private final Consumer<TimingWheel.Timer<UUID>> expired;
+        private long order;
+        private long now = 0;
+        private long count = 0;
+        private long solved = -1;
+        private boolean complete = true;
+
+        /**
+         * @effects Starts the game, with {@code scheduled} as actions of the players, recording what happens only if
+         * {@code recorded}: the Countdowns start, and the Events whose Trigger holds are queued.
+         */
+        Session(List<Happening> scheduled, boolean recorded) {
+            this.recorded = recorded;
+            this.expired = timer -> record(timer.getDeadline(), Timeline.Kind.COUNTDOWN, timer.getPayload(), null);
+            order = scheduled.size();
+            queue.addAll(scheduled);
+            for (int c = 0; c < countdowns.length; c++) wheel.start(countdowns[c], countdownDurations[c]);
+            network.reset(configuration);
+            trigger();
+            if (hasGoal && space.isGoal(configuration)) {
+                record(0, Timeline.Kind.GOAL, null, null);
+                solved = 0;
+            }
+        }
+
+        /**
+         * @return Returns true if the Goal is met, or if the Session reached its limit of happenings.
+         */
+        public boolean isOver() {
+            return solved >= 0 || !complete;
+        }
+
+        public boolean isSolved() {
+            return solved >= 0;
+        }
+
+        /**
+         * @return Returns the time of the last happening, in nanoseconds from the start of the game.
+         */
+        long now() {
+            return now;
+        }
+
+        /**
+         * @return Returns the configuration of the game. Not to be modified.
+         */
+        long[] configuration() {
+            return configuration;
+        }
+
+        /**
+         * @return Returns what happened, if recorded, in order. Not to be modified.
+         */
+        public List<Timeline.Entry> entries() {
+            return entries;
+        }
+
+        /**
+         * @precondition {@code time >= now}, and {@code state} is one of the States of the Physical Element of index
+         * {@code element}.
+         * @effects Queues the players switching the Physical Element of index {@code element} to its State of index
+         * {@code state} at {@code time}.
+         */
+        void act(long time, int element, int state) {
+            assert time >= now : "act: Trying to act in the past.";
+
+            queue.add(new Happening(time, order++, ACTION, element, state));
+        }
+
+        /**
+         * @precondition {@code time >= now} and {@code isAction(element, state)}.
+         * @effects Queues the players switching the Physical Element {@code element} to its State {@code state} at
+         * {@code time}, in nanoseconds from the start of the game.
+         */
+        public void act(long time, UUID element, UUID state) {
+            assert isAction(element, state) : "act: Trying to switch a Physical Element which is not in the " +
+                    "EscapeGame, or to a State which is not one of its own.";
+
+            int index = space.indexOf(element);
+            act(time, index, space.stateIndexOf(index, state));
+        }
+
+        /**
+         * @effects Applies what happens until {@code end}, unless the Session is or gets over, more than
+         * {@code happenings} things having happened since its start.
+         */
+        public void runUntil(long end, long happenings) {
+            while (!isOver() && !queue.isEmpty() && queue.peek().time <= end) {
+                if (count++ == happenings) {
+                    complete = false;
+                    return;
+                }
+                Happening happening = queue.poll();
+                // The Countdowns expire after what happens at the time they expire at.
+                if (happening.time > now) wheel.advance(happening.time - 1, expired);
+                now = happening.time;
+                if (happening.kind == ACTION) act(happening);
+                else happen(happening.subject);
+                trigger();
+                if (hasGoal && space.isGoal(configuration)) {
+                    record(now, Timeline.Kind.GOAL, null, null);
+                    solved = now;
+                }
+            }
+        }
+
+        /**
+         * @precondition Nothing is queued before {@code end}, and nothing will be.
+         * @effects Lets the Countdowns expire until {@code end}, unless the Session is over.
+         */
+        public void advance(long end) {
+            if (!isOver() && end > wheel.getNow()) wheel.advance(end, expired);
+        }
+
+        private void act(Happening happening) {
+            int element = happening.subject;
+            int from = space.stateOf(configuration, element);
+            boolean refused = !space.isAccessible(configuration, element)
+                    || !space.isSwitchable(element, happening.state) || from == happening.state;
+            if (!refused) {
+                space.setState(configuration, element, happening.state);
+                network.update(configuration, element);
+            }
+            if (recorded) {
+                Solvability.Step step = space.step(element, from, happening.state);
+                record(now, refused ? Timeline.Kind.REFUSED : Timeline.Kind.ACTION, step.getElement(), step);
+            }
+        }
+
+        private void happen(int event) {
+            record(now, Timeline.Kind.EVENT, events[event], null);
+            for (int a = 0; a < eventElements[event].length; a++) {
+                int element = eventElements[event][a];
+                int from = space.stateOf(configuration, element);
+                if (from == eventStates[event][a]) continue;
+                space.setState(configuration, element, eventStates[event][a]);
+                network.update(configuration, element);
+                if (recorded) {
+                    record(now, Timeline.Kind.SWITCH, events[event], space.step(element, from, eventStates[event][a]));
+                }
+            }
+        }
+
+        /**
+         * @effects Queues, now, the Events whose Trigger started to hold.
+         */
+        private void trigger() {
+            for (int event; (event = network.poll()) >= 0; ) queue.add(new Happening(now, order++, EVENT, event, -1));
+        }
+
+        private void record(long time, Timeline.Kind kind, UUID subject, Solvability.Step step) {
+            if (recorded) entries.add(new Timeline.Entry(Duration.ofNanos(time), kind, subject, step));
+        }
+
+        /**
+         * @precondition {@code until == null || until} is not before the last happening.
+         * @effects Lets the Countdowns expire until {@code until}, or until the last one if {@code until} is null,
+         * unless the Session is over.
+         * @return Returns the Timeline of the Session, ended at {@code until} if it isn't null and the Session isn't
+         * over.
+         */
+        public Timeline finish(Duration until) {
+            if (solved >= 0) return new Timeline(entries, true, Duration.ofNanos(solved), Duration.ofNanos(solved));
+            if (!complete) return new Timeline(entries, false, Duration.ofNanos(now), null);
+            wheel.advance(until == null ? Long.MAX_VALUE : Math.max(wheel.getNow(), until.toNanos()), expired);
+            if (until != null) return new Timeline(entries, true, until, null);
+            return new Timeline(entries, true,
+                    entries.isEmpty() ? Duration.ZERO : entries.get(entries.size() - 1).getTime(), null);
+        }
+    }
+}
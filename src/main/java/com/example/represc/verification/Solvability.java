@@ -0,0 +1,129 @@
+package com.example.represc.verification;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * @author Schmetz Arnaud
+ * @version 1.0
+ *
+ * @overview A Solvability is the answer of a SolvabilityVerifier {@link SolvabilityVerifier}: whether the Goal
+ * {@link Goal} of an escape game can be reached from its initial configuration and, if it can, a shortest sequence of
+ * Steps reaching it.
+ *
+ * @specfield verdict: Verdict // SOLVABLE, UNSOLVABLE, or UNKNOWN if the exploration stopped before its end.
+ * @specfield witness: list of Step // A shortest sequence of Steps reaching the Goal. Empty unless SOLVABLE.
+ * @specfield explored: long // The number of configurations explored.
+ *
+ * @invariant {@code verdict == SOLVABLE} <=> {@code witness != null}
+ */
+public final class Solvability {
+
+    public enum Verdict {
+        SOLVABLE,
+        UNSOLVABLE,
+        UNKNOWN // The exploration was stopped, because it reached its limit or was interrupted.
+    }
+
+    /**
+     * @overview A Step is one move of the players: switching a Physical Element from one of its States to another.
+     *
+     * @specfield element: UUID // The UUID of the Physical Element switched.
+     * @specfield from: UUID // The UUID of the State it was in.
+     * @specfield to: UUID // The UUID of the State it is switched to.
+     * @specfield events: list of UUID // The UUIDs of the Events the move triggered, in the order they happened. Empty
+     * when they are not known.
+     */
+    public static final class Step {
+        private final UUID element;
+        private final UUID from;
+        private final UUID to;
+        private final List<UUID> events;
+
+        /**
+         * @precondition {@code element != null && from != null && to != null}
+         * @postcondition Initialises {@code this} as the switch of {@code element} from {@code from} to {@code to},
+         * without the Events it triggered.
+         */
+        public Step(UUID element, UUID from, UUID to) {
+            this(element, from, to, List.of());
+        }
+
+        Step(UUID element, UUID from, UUID to, List<UUID> events) {
+            this.element = element;
+            this.from = from;
+            this.to = to;
+            this.events = Collections.unmodifiableList(events);
+        }
+
+        public UUID getElement() {
+            return element;
+        }
+
+        public UUID getFrom() {
+            return from;
+        }
+
+        public UUID getTo() {
+            return to;
+        }
+
+        /**
+         * @return Returns the UUIDs of the Events the move triggered, in the order they happened.
+         */
+        public List<UUID> getEvents() {
+            return events;
+        }
+
+        public String toString() {
+            String s = "Step : { element: " + element + ", from: " + from + ", to: " + to;
+            return events.isEmpty() ? s + " }" : s + ", events: " + events + " }";
+        }
+    }
+
+    private final Verdict verdict;
+    private final List<Step> witness;
+    private final long explored;
+
+    Solvability(Verdict verdict, List<Step> witness, long explored) {
+        assert (verdict == Verdict.SOLVABLE) == (witness != null) : "Solvability: Only a SOLVABLE answer has a witness.";
+
+        this.verdict = verdict;
+        this.witness = witness == null ? null : Collections.unmodifiableList(witness);
+        this.explored = explored;
+    }
+
+    public Verdict getVerdict() {
+        return verdict;
+    }
+
+    public boolean isSolvable() {
+        return verdict == Verdict.SOLVABLE;
+    }
+
+    /**
+     * @return Returns an Optional containing a shortest sequence of Steps reaching the Goal if it can be reached, an
+     * empty Optional otherwise. The sequence is empty if the initial configuration already meets the Goal.
+     */
+    public Optional<List<Step>> getWitness() {
+        return Optional.ofNullable(witness);
+    }
+
+    /**
+     * @return Returns the number of configurations which have been explored.
+     */
+    public long getExploredConfigurations() {
+        return explored;
+    }
+
+    public String toString() {
+        StringBuilder s = new StringBuilder("Solvability : {\n\t");
+        s.append("verdict: ").append(verdict);
+        s.append(",\n\texplored: ").append(explored);
+        if (witness != null) s.append(",\n\twitness: ").append(witness);
+        s.append(" }");
+        return s.toString();
+    }
+}
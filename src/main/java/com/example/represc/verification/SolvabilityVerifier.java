@@ -0,0 +1,163 @@
+package com.example.represc.verification;
+
+import com.example.represc.data.EscapeGame;
+import com.example.represc.verification.Solvability.Step;
+import com.example.represc.verification.Solvability.Verdict;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * @author Schmetz Arnaud
+ * @version 1.0
+ *
+ * @overview A SolvabilityVerifier tells whether the players can reach the Goal {@link Goal} of an escape game from its
+ * initial configuration, by exploring every configuration they can reach {@link StateSpace}. The configurations are
+ * explored breadth first, so the first one meeting the Goal is reached by a shortest sequence of Steps, which is
+ * given as witness. Only one configuration of each set of symmetric configurations is explored
+ * {@link StateSpace#canonicalize(long[])}, and only by the moves of its stubborn set {@link PartialOrderReduction},
+ * both keeping a shortest witness.
+ * The configurations reached are kept packed in a VisitedSet {@link VisitedSet}, on the heap or, for the biggest escape
+ * games, off the heap. They can also be explored on every thread of a ForkJoinPool {@link ParallelExplorer}, which
+ * gives a witness of the same length, not depending on the number of threads, or kept on the disk for the escape games
+ * whose configurations don't fit in memory {@link ExternalExplorer}.
+ * The StateSpace is copied out of the EscapeGame when the verifier is created; {@code verify} doesn't touch the
+ * EscapeGame anymore, and can be called on a background thread.
+ *
+ * @specfield space: StateSpace // The configurations explored.
+ * @specfield offHeap: boolean // Whether the configurations reached are kept off the heap.
+ */
+public class SolvabilityVerifier {
+
+    public static final long DEFAULT_LIMIT = 50_000_000L;
+
+    private final StateSpace space;
+    private final boolean offHeap;
+
+    /**
+     * @precondition {@code game != null && goal != null}, every Physical Element and State named by {@code goal} belongs
+     * to {@code game}, and it must be called by the thread owning {@code game}.
+     * @postcondition Initialises {@code this} to verify that {@code goal} can be reached in {@code game}, as it is now,
+     * keeping the configurations reached on the heap.
+     */
+    public SolvabilityVerifier(EscapeGame game, Goal goal) {
+        this(game, goal, false);
+    }
+
+    /**
+     * @precondition {@code game != null && goal != null}, every Physical Element and State named by {@code goal} belongs
+     * to {@code game}, and it must be called by the thread owning {@code game}.
+     * @postcondition Initialises {@code this} to verify that {@code goal} can be reached in {@code game}, as it is now,
+     * keeping the configurations reached off the heap if {@code offHeap}.
+     */
+    public SolvabilityVerifier(EscapeGame game, Goal goal, boolean offHeap) {
+        this.space = new StateSpace(game, goal);
+        this.offHeap = offHeap;
+    }
+
+    /**
+     * @return Returns the Solvability of the Goal, exploring at most DEFAULT_LIMIT configurations.
+     */
+    public Solvability verify() {
+        return verify(DEFAULT_LIMIT);
+    }
+
+    /**
+     * @precondition {@code limit > 0}
+     * @return Returns the Solvability of the Goal, exploring at most {@code limit} configurations. The verdict is
+     * UNKNOWN if the limit is reached, if there is no room left for the configurations, or if the thread is
+     * interrupted, before the exploration ends.
+     */
+    public Solvability verify(long limit) {
+        assert limit > 0 : "verify: The limit of configurations to explore must be positive.";
+
+        long[] current = space.initial();
+        if (space.isGoal(current)) return new Solvability(Verdict.SOLVABLE, new ArrayList<>(), 1);
+
+        VisitedSet visited = new VisitedSet(space.words(), offHeap);
+        space.canonicalize(current);
+        visited.add(current, VisitedSet.ROOT);
+        long[] next = new long[current.length];
+        PartialOrderReduction reduction = new PartialOrderReduction(space);
+        int[] found = {VisitedSet.ABSENT}; // The id of the first configuration meeting the Goal, FULL if none fits.
+
+        int explored = 0;
+        for (; explored < visited.size(); explored++) {
+            if (explored >= limit || (explored & 0xFFF) == 0 && Thread.currentThread().isInterrupted()) {
+                return new Solvability(Verdict.UNKNOWN, null, explored);
+            }
+            visited.get(explored, current);
+
+            int parent = explored;
+            reduction.forEachSuccessor(current, next, (successor, element, from, to) -> {
+                space.canonicalize(successor);
+                int id = visited.add(successor, parent);
+                if (id == VisitedSet.FULL || id >= 0 && space.isGoal(successor)) found[0] = id;
+                return found[0] == VisitedSet.ABSENT;
+            });
+            if (found[0] == VisitedSet.FULL) return new Solvability(Verdict.UNKNOWN, null, explored);
+            if (found[0] >= 0) return new Solvability(Verdict.SOLVABLE, witness(visited, found[0]), explored + 1);
+        }
+        return new Solvability(Verdict.UNSOLVABLE, null, explored);
+    }
+
+    /**
+     * @precondition {@code pool != null}
+     * @return Returns the Solvability of the Goal, exploring at most about DEFAULT_LIMIT configurations on the threads of
+     * {@code pool}.
+     */
+    public Solvability verifyInParallel(ForkJoinPool pool) {
+        return verifyInParallel(pool, DEFAULT_LIMIT);
+    }
+
+    /**
+     * @precondition {@code pool != null && limit > 0}
+     * @return Returns the Solvability of the Goal, exploring at most about {@code limit} configurations on the threads of
+     * {@code pool}. The verdict is UNKNOWN if the limit is reached, if there is no room left for the configurations, or
+     * if the thread is interrupted, before the exploration ends.
+     */
+    public Solvability verifyInParallel(ForkJoinPool pool, long limit) {
+        assert pool != null : "verifyInParallel: Trying to verify on a null ForkJoinPool.";
+        return new ParallelExplorer(space, pool.getParallelism(), offHeap).explore(pool, limit);
+    }
+
+    /**
+     * @precondition {@code directory != null} and it is an existing directory.
+     * @return Returns the Solvability of the Goal, exploring at most DEFAULT_LIMIT configurations, which are kept in
+     * {@code directory} instead of in memory.
+     * @throws IOException if the configurations can't be written to or read back from {@code directory}.
+     */
+    public Solvability verifyOnDisk(Path directory) throws IOException {
+        return verifyOnDisk(directory, DEFAULT_LIMIT);
+    }
+
+    /**
+     * @precondition {@code directory != null && limit > 0} and {@code directory} is an existing directory.
+     * @return Returns the Solvability of the Goal, exploring at most {@code limit} configurations, which are kept in
+     * {@code directory} instead of in memory, buffering at most a quarter of the heap of them. The verdict is UNKNOWN if
+     * the limit is reached, or if the thread is interrupted, before the exploration ends.
+     * @throws IOException if the configurations can't be written to or read back from {@code directory}.
+     */
+    public Solvability verifyOnDisk(Path directory, long limit) throws IOException {
+        return new ExternalExplorer(space, directory, Runtime.getRuntime().maxMemory() / 4).explore(limit);
+    }
+
+    /**
+     * @return Returns the Steps leading from the initial configuration to the one having {@code last} as id in
+     * {@code visited}.
+     */
+    private List<Step> witness(VisitedSet visited, int last) {
+        ArrayList<long[]> chain = new ArrayList<>();
+        for (int id = last; id != VisitedSet.ROOT; id = (int) visited.tagOf(id)) {
+            long[] configuration = new long[space.words()];
+            visited.get(id, configuration);
+            chain.add(configuration);
+        }
+        Collections.reverse(chain);
+        return space.witness(chain);
+    }
+}
@@ -0,0 +1,243 @@
+package com.example.represc.verification;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * @author Schmetz Arnaud
+ * @version 1.0
+ *
+ * @overview A SortedRun is a file of configurations {@link StateSpace}, each one at most once, in increasing order
+ * {@link StateSpace#compare(long[], long[])}, mapped in memory to be read.
+ * The configurations are cut in blocks of BLOCK configurations. The first one of a block is written whole, each other
+ * one as its difference with the previous one: the index of the first long where they differ, the difference of that
+ * long, then the longs after it. Configurations following each other in order mostly differ in their last long, by a
+ * small amount, so most of them take one or two bytes. Every number is written as a variable-length quantity, seven
+ * bits per byte.
+ * Only the first configuration of each block and where it starts are kept on the heap, so finding a configuration
+ * only decodes one block {@link #contains(long[])}.
+ * A SortedRun is not modified once written and can be read by several threads.
+ *
+ * @specfield path: Path // The file.
+ * @specfield configurations: sequence of long[] // The configurations, in increasing order.
+ */
+final class SortedRun implements Closeable {
+
+    static final int BLOCK = 64;
+    static final long MAX_BYTES = 1L << 30; // The size after which a Writer is full, a map holding at most 2 GB.
+
+    private final Path path;
+    private final int words;
+    private final long count;
+    private final long[] firstKeys; // The first configuration of each block, one after the other.
+    private final int[] offsets; // Where each block starts.
+    private MappedByteBuffer data;
+
+    private SortedRun(Path path, int words, long count, long[] firstKeys, int[] offsets) throws IOException {
+        this.path = path;
+        this.words = words;
+        this.count = count;
+        this.firstKeys = firstKeys;
+        this.offsets = offsets;
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            this.data = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+    }
+
+    /**
+     * @return Returns the number of configurations of the run.
+     */
+    long size() {
+        return count;
+    }
+
+    /**
+     * @precondition {@code configuration.length == words}
+     * @return Returns true if {@code configuration} is in the run.
+     */
+    boolean contains(long[] configuration) {
+        int low = 0;
+        int high = offsets.length - 1;
+        while (low <= high) { // The last block whose first configuration is not greater than configuration.
+            int middle = (low + high) >>> 1;
+            if (compareKey(middle, configuration) <= 0) low = middle + 1;
+            else high = middle - 1;
+        }
+        if (high < 0) return false;
+
+        Cursor cursor = new Cursor(high);
+        long[] current = new long[words];
+        while (cursor.next(current)) {
+            int order = StateSpace.compare(current, configuration);
+            if (order >= 0) return order == 0;
+            if (cursor.index % BLOCK == 0) return false;
+        }
+        return false;
+    }
+
+    /**
+     * @return Returns a Cursor giving the configurations of the run in order.
+     */
+    Cursor cursor() {
+        return new Cursor(0);
+    }
+
+    /**
+     * @overview A Cursor decodes the configurations of a SortedRun one after the other. Each thread needs its own.
+     */
+    final class Cursor {
+        private final long[] previous = new long[words];
+        private int position;
+        private long index; // The index of the next configuration.
+
+        private Cursor(int block) {
+            this.position = offsets.length == 0 ? 0 : offsets[block];
+            this.index = (long) block * BLOCK;
+        }
+
+        /**
+         * @precondition {@code into.length == words}
+         * @effects Copies the next configuration of the run into {@code into}.
+         * @return Returns false if there is none left.
+         */
+        boolean next(long[] into) {
+            if (index == count) return false;
+            if (index % BLOCK == 0) {
+                for (int word = 0; word < words; word++) previous[word] = readLong();
+            } else {
+                int first = (int) readLong();
+                previous[first] += readLong();
+                for (int word = first + 1; word < words; word++) previous[word] = readLong();
+            }
+            index++;
+            System.arraycopy(previous, 0, into, 0, words);
+            return true;
+        }
+
+        private long readLong() {
+            long value = 0;
+            for (int shift = 0; ; shift += 7) {
+                byte b = data.get(position++);
+                value |= (long) (b & 0x7F) << shift;
+                if (b >= 0) return value;
+            }
+        }
+    }
+
+    private int compareKey(int block, long[] configuration) {
+        for (int word = 0; word < words; word++) {
+            int order = Long.compareUnsigned(firstKeys[block * words + word], configuration[word]);
+            if (order != 0) return order;
+        }
+        return 0;
+    }
+
+    /**
+     * @effects Deletes the file of the run, which can't be read anymore.
+     */
+    @Override
+    public void close() throws IOException {
+        data = null;
+        try {
+            Files.deleteIfExists(path);
+        } catch (IOException e) {
+            path.toFile().deleteOnExit(); // Some systems don't delete a file which is still mapped.
+        }
+    }
+
+    /**
+     * @overview A Writer writes the configurations of a SortedRun, which must be given in increasing order, each one
+     * once.
+     */
+    static final class Writer {
+        private final Path path;
+        private final int words;
+        private final OutputStream out;
+        private final long[] previous;
+        private long count = 0;
+        private long bytes = 0;
+        private long[] firstKeys = new long[0];
+        private int[] offsets = new int[0];
+
+        /**
+         * @precondition {@code path} is not an existing file and {@code words > 0}
+         * @postcondition Initialises {@code this} to write a SortedRun of configurations of {@code words} longs at
+         * {@code path}.
+         */
+        Writer(Path path, int words) throws IOException {
+            this.path = path;
+            this.words = words;
+            this.out = new BufferedOutputStream(Files.newOutputStream(path, StandardOpenOption.CREATE_NEW), 1 << 16);
+            this.previous = new long[words];
+        }
+
+        /**
+         * @precondition {@code configuration.length == words}, and {@code configuration} is greater than the
+         * configurations already written.
+         * @effects Writes {@code configuration} at the end of the run.
+         */
+        void add(long[] configuration) throws IOException {
+            assert count == 0 || StateSpace.compare(previous, configuration) < 0 : "add: The configurations of a " +
+                    "SortedRun must be given in increasing order.";
+
+            if (count % BLOCK == 0) {
+                int block = (int) (count / BLOCK);
+                if (block == offsets.length) {
+                    offsets = Arrays.copyOf(offsets, Math.max(16, block * 2));
+                    firstKeys = Arrays.copyOf(firstKeys, offsets.length * words);
+                }
+                offsets[block] = (int) bytes;
+                System.arraycopy(configuration, 0, firstKeys, block * words, words);
+                for (int word = 0; word < words; word++) writeLong(configuration[word]);
+            } else {
+                int first = 0;
+                while (previous[first] == configuration[first]) first++;
+                writeLong(first);
+                writeLong(configuration[first] - previous[first]);
+                for (int word = first + 1; word < words; word++) writeLong(configuration[word]);
+            }
+            System.arraycopy(configuration, 0, previous, 0, words);
+            count++;
+        }
+
+        /**
+         * @return Returns true if the run should not get more configurations.
+         */
+        boolean isFull() {
+            return bytes >= MAX_BYTES;
+        }
+
+        long size() {
+            return count;
+        }
+
+        /**
+         * @effects Closes the file.
+         * @return Returns the SortedRun written.
+         */
+        SortedRun finish() throws IOException {
+            out.close();
+            int blocks = (int) ((count + BLOCK - 1) / BLOCK);
+            return new SortedRun(path, words, count, Arrays.copyOf(firstKeys, blocks * words),
+                    Arrays.copyOf(offsets, blocks));
+        }
+
+        private void writeLong(long value) throws IOException {
+            while ((value & ~0x7FL) != 0) {
+                out.write((int) (value & 0x7F) | 0x80);
+                value >>>= 7;
+                bytes++;
+            }
+            out.write((int) value);
+            bytes++;
+        }
+    }
+}
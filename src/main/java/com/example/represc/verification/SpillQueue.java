@@ -0,0 +1,140 @@
+package com.example.represc.verification;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * @author Schmetz Arnaud
+ * @version 1.0
+ *
+ * @overview A SpillQueue is a first in, first out queue of ints, like the ids of the configurations of a frontier,
+ * keeping at most two blocks of them on the heap: the oldest ones, being taken, and the newest ones, being added. The
+ * blocks in between are spilled to a temporary file, which is emptied whenever every int spilled has been taken again
+ * and deleted when the queue is closed. Small queues never touch the disk.
+ * A SpillQueue is not thread safe.
+ *
+ * @specfield ints: sequence of int // The ints in the queue, from the oldest to the newest.
+ */
+final class SpillQueue implements Closeable {
+
+    static final int BLOCK = 1 << 16; // The number of ints of a block.
+
+    private final Path directory;
+    private final ByteBuffer buffer = ByteBuffer.allocateDirect(BLOCK * Integer.BYTES).order(ByteOrder.nativeOrder());
+
+    private int[] head = new int[BLOCK]; // The oldest ints, from headStart to headEnd.
+    private int headStart = 0;
+    private int headEnd = 0;
+    private int[] tail = new int[BLOCK]; // The newest ints, from 0 to tailEnd.
+    private int tailEnd = 0;
+
+    private Path path;
+    private FileChannel file;
+    private long read = 0; // The number of blocks of the file which have been taken again.
+    private long written = 0; // The number of blocks written to the file.
+
+    /**
+     * @precondition {@code directory} is null or an existing directory.
+     * @postcondition Initialises {@code this} as an empty queue, spilling to a temporary file in {@code directory}, or
+     * in the default temporary directory if it is null.
+     */
+    SpillQueue(Path directory) {
+        this.directory = directory;
+    }
+
+    boolean isEmpty() {
+        return headStart == headEnd && read == written && tailEnd == 0;
+    }
+
+    /**
+     * @effects Adds {@code value} at the end of the queue.
+     * @throws IOException if the block in between can't be spilled.
+     */
+    void add(int value) throws IOException {
+        if (tailEnd == BLOCK) {
+            if (headStart == headEnd && read == written) swap();
+            else spill();
+        }
+        tail[tailEnd++] = value;
+    }
+
+    /**
+     * @precondition {@code !isEmpty()}
+     * @effects Removes the oldest int of the queue.
+     * @return Returns the oldest int of the queue.
+     * @throws IOException if the next block can't be read back.
+     */
+    int remove() throws IOException {
+        assert !isEmpty() : "remove: Trying to take an int out of an empty SpillQueue.";
+
+        if (headStart == headEnd) {
+            if (read < written) unspill();
+            else swap();
+        }
+        return head[headStart++];
+    }
+
+    private void swap() {
+        int[] taken = head;
+        head = tail;
+        headStart = 0;
+        headEnd = tailEnd;
+        tail = taken;
+        tailEnd = 0;
+    }
+
+    private void spill() throws IOException {
+        if (file == null) {
+            path = directory == null ? Files.createTempFile("represc", ".queue")
+                    : Files.createTempFile(directory, "represc", ".queue");
+            file = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        }
+        buffer.clear();
+        buffer.asIntBuffer().put(tail, 0, BLOCK);
+        for (long position = written * BLOCK * Integer.BYTES; buffer.hasRemaining(); ) {
+            position += file.write(buffer, position);
+        }
+        written++;
+        tailEnd = 0;
+    }
+
+    private void unspill() throws IOException {
+        buffer.clear();
+        for (long position = read * BLOCK * Integer.BYTES; buffer.hasRemaining(); ) {
+            int count = file.read(buffer, position);
+            if (count < 0) throw new IOException("The spilled queue " + path + " has been truncated.");
+            position += count;
+        }
+        buffer.flip();
+        buffer.asIntBuffer().get(head, 0, BLOCK);
+        headStart = 0;
+        headEnd = BLOCK;
+        if (++read == written) {
+            file.truncate(0);
+            read = 0;
+            written = 0;
+        }
+    }
+
+    /**
+     * @effects Empties the queue and deletes its temporary file, if it has one.
+     */
+    @Override
+    public void close() throws IOException {
+        headStart = headEnd = tailEnd = 0;
+        read = written = 0;
+        if (file == null) return;
+        try {
+            file.close();
+        } finally {
+            file = null;
+            Files.deleteIfExists(path);
+        }
+    }
+}
@@ -0,0 +1,841 @@
+package com.example.represc.verification;
+
+import com.example.represc.data.EscapeGame;
+import com.example.represc.data.Event;
+import com.example.represc.data.PhysicalElement;
+import com.example.represc.data.Trigger;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * @author Schmetz Arnaud
+ * @version 1.0
+ *
+ * @overview A StateSpace is the part of an escape game a verifier explores, copied out of the EscapeGame so that it can
+ * be explored on any thread while the EscapeGame is still being edited.
+ * A configuration of the escape game gives, for each Physical Element of the StateSpace, the index of its current State
+ * and whether it is accessible. It is packed in a long[]: each Physical Element having {@code n} States takes
+ * ceil(log2(n)) bits for the index of its State, plus one bit telling whether it is accessible, a field never being split
+ * between two longs. A Physical Element without State always has 0 as index.
+ * The players can switch an accessible Physical Element from its current State to any other State which can be
+ * switched to ({@link PhysicalElement.State#isAccessible()}). Each such switch is a move, which reads and writes the
+ * fields of some Physical Elements: two moves are independent if neither writes a Physical Element the other one reads
+ * or writes, and then playing them in either order leads to the same configuration {@link PartialOrderReduction}.
+ * The Events {@link Event} of the StateSpace happen as in a Simulator {@link Simulator}: an Event happens when its
+ * Trigger starts to hold, and switches the Physical Elements of its Actions, which may trigger other Events; the ones
+ * which start to hold during an Event happen after it, in the order they started to hold. A move is the
+ * switch of the players followed by every Event it triggers, until the game is at rest again, and the Events holding
+ * at the start happen before the initial configuration. A move then reads the Physical Element it switches and the ones
+ * read by the Triggers of the Events it may trigger, directly or not, and writes that Physical Element and the ones
+ * switched by those Events. A move whose Events keep triggering each other, more than {@code MAX_CASCADE} of them
+ * happening, leaves the game stuck: it leads nowhere. The Goal is met by a configuration at rest, not by one the Events
+ * only go through.
+ * What the players do with one Physical Element only changes what they can do with the others through the Events, so
+ * a verifier only needs the Physical Elements named by the Goal and the ones linked to them by Events
+ * {@link #linked(EscapeGame, Goal)}: the others can't help nor prevent reaching it.
+ * Physical Elements having the same type, the same States (by name, in order, and whether they can be switched to) and
+ * the same requirements in the Goal, and which no Event reads or switches, are symmetric: swapping their fields in a
+ * configuration gives a configuration which can reach the Goal as fast. The verifiers only keep the canonical
+ * configuration of each set of symmetric configurations {@link #canonicalize(long[])}, which spares them exploring
+ * the same configuration again once for each way of ordering, say, identical keys or players. The States of each Physical Element are ordered by name so that
+ * symmetric Physical Elements number their States alike.
+ *
+ * @specfield elements: array of UUID // The Physical Elements of the StateSpace.
+ * @specfield states: array of array of UUID // The States of each Physical Element.
+ * @specfield switchable: array of array of boolean // Whether each State can be switched to.
+ * @specfield initial: long[] // The initial configuration.
+ * @specfield goal: long[], long[] // The bits of a configuration the Goal looks at, and the value they must have.
+ * @specfield symmetries: array of array of int // The indexes of the Physical Elements of each set of at least two
+ * symmetric Physical Elements.
+ * @specfield events: sequence of (UUID, CompiledTrigger, sequence of (int, int)) // The UUID of each Event, its Trigger,
+ * compiled, and the Physical Element and the State of each of its Actions, by index.
+ */
+final class StateSpace {
+
+    /**
+     * @overview A Move is told about the configurations one move away from another one, by
+     * {@link #forEachSuccessor(long[], long[], Move)} and {@link #forEachPredecessor(long[], long[], Move)}.
+     */
+    @FunctionalInterface
+    interface Move {
+        /**
+         * @effects Is told that switching the Physical Element of index {@code element} from its State of index
+         * {@code from} to its State of index {@code to} leads to or from {@code configuration}. {@code configuration}
+         * is only valid during the call.
+         * @return Returns false to stop being told about the other moves.
+         */
+        boolean accept(long[] configuration, int element, int from, int to);
+    }
+
+    /**
+     * @overview The most Events a move may trigger before the game is considered stuck.
+     */
+    static final int MAX_CASCADE = 10_000;
+
+    private final UUID[] elements;
+    private final UUID[][] states;
+    private final boolean[][] switchable;
+
+    // Where the fields of each Physical Element are: the long, the first bit and the width of the index of its State,
+    // then the long and the bit of its accessibility.
+    private final int[] stateWord;
+    private final int[] stateShift;
+    private final long[] stateMask; // Not shifted.
+    private final int[] accessibleWord;
+    private final int[] accessibleShift;
+
+    private final long[] initial;
+    private final long[] goalMask;
+    private final long[] goalValue;
+
+    private final long[] elementGoalMask; // The bits of its field each Physical Element must have, in its long.
+    private final long[] elementGoalValue;
+
+    private final int[][] symmetries;
+
+    // The moves: switching the Physical Element moveElement[m] to its State moveTo[m], reading the Physical Elements
+    // moveReads[m] and writing the Physical Elements moveWrites[m].
+    private final int[] moveElement;
+    private final int[] moveTo;
+    private final int[][] moveReads;
+    private final int[][] moveWrites;
+    private final int[][] readers; // The moves reading each Physical Element.
+    private final int[][] writers; // The moves writing each Physical Element.
+
+    // The Events: the Trigger of each one, FALSE if it never holds, and the Physical Element and the State of each of
+    // its Actions.
+    private final UUID[] eventIds;
+    private final CompiledTrigger[] eventTriggers;
+    private final int[][] eventElements;
+    private final int[][] eventStates;
+    private final int[][] triggered; // The Events whose Trigger reads each Physical Element.
+    private final boolean playable; // False if the Events holding at the start keep triggering each other.
+
+    /**
+     * @precondition {@code game != null && goal != null}, every Physical Element and State named by {@code goal} belongs
+     * to {@code game}, and it must be called by the thread owning {@code game}.
+     * @postcondition Initialises {@code this} with the Physical Elements of {@code game} named by {@code goal} and the
+     * ones linked to them by Events, with those Events, the symmetric ones being reduced.
+     */
+    StateSpace(EscapeGame game, Goal goal) {
+        this(game, linked(game, goal), goal, true);
+    }
+
+    /**
+     * @precondition {@code game != null && included != null && goal != null}, every Physical Element of
+     * {@code included} belongs to {@code game} and appears once, every Physical Element named by {@code goal} is one of
+     * {@code included}, every State named by {@code goal} belongs to its Physical Element, every Physical Element of
+     * {@code game} read or switched by an Event reading or switching one of {@code included} is one of
+     * {@code included}, and it must be called by the thread owning {@code game}.
+     * @postcondition Initialises {@code this} with the Physical Elements {@code included} of {@code game}, in order,
+     * and the Events reading or switching them, the symmetric ones being reduced only if {@code symmetric}.
+     */
+    StateSpace(EscapeGame game, List<UUID> included, Goal goal, boolean symmetric) {
+        this(game, included, goal, symmetric, true);
+    }
+
+    /**
+     * @precondition {@code game != null && included != null && goal != null}, every Physical Element of
+     * {@code included} belongs to {@code game} and appears once, every Physical Element named by {@code goal} is one of
+     * {@code included}, every State named by {@code goal} belongs to its Physical Element, and it must be called by the
+     * thread owning {@code game}.
+     * @postcondition Initialises {@code this} with the Physical Elements {@code included} of {@code game}, in order,
+     * the symmetric ones being reduced only if {@code symmetric}, and with the Events reading or switching them only if
+     * {@code events}: without them, a move only switches a Physical Element, as the Simulator, which lets the Events
+     * happen itself, wants.
+     */
+    StateSpace(EscapeGame game, List<UUID> included, Goal goal, boolean symmetric, boolean events) {
+        assert game != null : "StateSpace: Trying to explore a null EscapeGame.";
+        assert included != null : "StateSpace: Trying to explore null Physical Elements.";
+        assert goal != null : "StateSpace: Trying to explore an EscapeGame towards a null Goal.";
+        assert included.containsAll(goal.getElements()) : "StateSpace: The Goal names a Physical Element which is " +
+                "not explored.";
+
+        int size = included.size();
+        elements = included.toArray(new UUID[0]);
+        states = new UUID[size][];
+        switchable = new boolean[size][];
+        stateWord = new int[size];
+        stateShift = new int[size];
+        stateMask = new long[size];
+        accessibleWord = new int[size];
+        accessibleShift = new int[size];
+
+        int word = 0;
+        int bit = 0;
+        for (int i = 0; i < size; i++) {
+            assert game.containsPhysicalElement(elements[i]) : "StateSpace: Trying to explore a Physical Element " +
+                    "which is not in the EscapeGame.";
+            PhysicalElement element = game.getPhysicalElement(elements[i]);
+
+            states[i] = element.getAllStatesUUID().orElseGet(ArrayList::new).toArray(new UUID[0]);
+            Arrays.sort(states[i], Comparator.comparing((UUID state) -> element.getState(state).getName())
+                    .thenComparing(Comparator.naturalOrder()));
+            switchable[i] = new boolean[states[i].length];
+            for (int s = 0; s < states[i].length; s++) switchable[i][s] = element.getState(states[i][s]).isAccessible();
+
+            int width = states[i].length <= 1 ? 0 : 32 - Integer.numberOfLeadingZeros(states[i].length - 1);
+            if (bit + width + 1 > Long.SIZE) {
+                word++;
+                bit = 0;
+            }
+            stateWord[i] = word;
+            stateShift[i] = bit;
+            stateMask[i] = (1L << width) - 1;
+            accessibleWord[i] = word;
+            accessibleShift[i] = bit + width;
+            bit += width + 1;
+        }
+
+        initial = new long[word + 1];
+        goalMask = new long[word + 1];
+        goalValue = new long[word + 1];
+        elementGoalMask = new long[size];
+        elementGoalValue = new long[size];
+        Map<UUID, UUID> requiredStates = goal.getRequiredStates();
+        for (int i = 0; i < size; i++) {
+            PhysicalElement element = game.getPhysicalElement(elements[i]);
+            List<UUID> stateIds = Arrays.asList(states[i]);
+            setState(initial, i, element.getInitialStateUUID().map(stateIds::indexOf).orElse(0));
+            if (element.isAccessible()) initial[accessibleWord[i]] |= 1L << accessibleShift[i];
+
+            UUID required = requiredStates.get(elements[i]);
+            if (required != null) {
+                assert element.doesContainState(required) : "StateSpace: The Goal requires a State which is not one " +
+                        "of the Physical Element.";
+                elementGoalMask[i] |= stateMask[i] << stateShift[i];
+                elementGoalValue[i] |= (long) stateIds.indexOf(required) << stateShift[i];
+            }
+            if (goal.getRequiredAccessible().contains(elements[i])) {
+                elementGoalMask[i] |= 1L << accessibleShift[i];
+                elementGoalValue[i] |= 1L << accessibleShift[i];
+            }
+            goalMask[stateWord[i]] |= elementGoalMask[i];
+            goalValue[stateWord[i]] |= elementGoalValue[i];
+        }
+
+        // The Events reading or switching the Physical Elements included.
+        ArrayList<UUID> kept = new ArrayList<>();
+        if (events) {
+            HashSet<UUID> inside = new HashSet<>(included);
+            for (UUID id : game.getAllEventsUUID().orElseGet(ArrayList::new)) {
+                if (touches(game.getEvent(id), inside)) kept.add(id);
+            }
+        }
+        eventIds = kept.toArray(new UUID[0]);
+        eventTriggers = new CompiledTrigger[kept.size()];
+        eventElements = new int[kept.size()][];
+        eventStates = new int[kept.size()][];
+        ArrayList<ArrayList<Integer>> triggering = new ArrayList<>();
+        for (int i = 0; i < size; i++) triggering.add(new ArrayList<>());
+        for (int e = 0; e < kept.size(); e++) {
+            Event event = game.getEvent(kept.get(e));
+            Trigger trigger = event.getTrigger().orElse(null);
+            // A Trigger reading a Physical Element which was deleted never holds, as in the Simulator.
+            if (trigger != null && trigger.getElements().stream().allMatch(game::containsPhysicalElement)) {
+                assert included.containsAll(trigger.getElements()) : "StateSpace: An Event reads a Physical Element " +
+                        "which is not explored.";
+                eventTriggers[e] = CompiledTrigger.compile(trigger, this);
+                for (UUID element : trigger.getElements()) triggering.get(indexOf(element)).add(e);
+            } else {
+                eventTriggers[e] = CompiledTrigger.FALSE;
+            }
+
+            ArrayList<int[]> switches = new ArrayList<>();
+            for (Event.Action action : event.getActions()) {
+                if (!game.containsPhysicalElement(action.getElement())) continue;
+                int element = indexOf(action.getElement());
+                assert element >= 0 : "StateSpace: An Event switches a Physical Element which is not explored.";
+                int state = stateIndexOf(element, action.getState());
+                if (state >= 0) switches.add(new int[]{element, state});
+            }
+            eventElements[e] = switches.stream().mapToInt(a -> a[0]).toArray();
+            eventStates[e] = switches.stream().mapToInt(a -> a[1]).toArray();
+        }
+        triggered = new int[size][];
+        for (int i = 0; i < size; i++) triggered[i] = triggering.get(i).stream().mapToInt(Integer::intValue).toArray();
+
+        ArrayList<int[]> moves = new ArrayList<>();
+        for (int i = 0; i < size; i++) {
+            for (int s = 0; s < states[i].length; s++) {
+                if (switchable[i][s]) moves.add(new int[]{i, s});
+            }
+        }
+        moveElement = new int[moves.size()];
+        moveTo = new int[moves.size()];
+        moveReads = new int[moves.size()][];
+        moveWrites = new int[moves.size()][];
+        ArrayList<ArrayList<Integer>> reading = new ArrayList<>();
+        ArrayList<ArrayList<Integer>> writing = new ArrayList<>();
+        for (int i = 0; i < size; i++) {
+            reading.add(new ArrayList<>());
+            writing.add(new ArrayList<>());
+        }
+        int[][] elementReads = new int[size][];
+        int[][] elementWrites = new int[size][];
+        for (int i = 0; i < size; i++) closure(i, elementReads, elementWrites);
+        for (int m = 0; m < moves.size(); m++) {
+            moveElement[m] = moves.get(m)[0];
+            moveTo[m] = moves.get(m)[1];
+            moveReads[m] = elementReads[moveElement[m]];
+            moveWrites[m] = elementWrites[moveElement[m]];
+            for (int element : moveReads[m]) reading.get(element).add(m);
+            for (int element : moveWrites[m]) writing.get(element).add(m);
+        }
+        readers = new int[size][];
+        writers = new int[size][];
+        for (int i = 0; i < size; i++) {
+            readers[i] = reading.get(i).stream().mapToInt(Integer::intValue).toArray();
+            writers[i] = writing.get(i).stream().mapToInt(Integer::intValue).toArray();
+        }
+
+        symmetries = symmetric ? findSymmetries(game, goal) : new int[0][];
+
+        // The Events holding at the start happen before the players do anything.
+        Cascade cascade = new Cascade();
+        for (int e = 0; e < eventTriggers.length; e++) {
+            if (eventTriggers[e].test(initial)) cascade.add(e);
+        }
+        playable = cascade.run(initial);
+    }
+
+    /**
+     * @return Returns true if {@code event} reads or switches one of the Physical Elements {@code elements}.
+     */
+    static boolean touches(Event event, Collection<UUID> elements) {
+        if (event.getTrigger().isPresent()) {
+            for (UUID element : event.getTrigger().get().getElements()) {
+                if (elements.contains(element)) return true;
+            }
+        }
+        for (Event.Action action : event.getActions()) {
+            if (elements.contains(action.getElement())) return true;
+        }
+        return false;
+    }
+
+    /**
+     * @precondition {@code game != null && goal != null}, and it must be called by the thread owning {@code game}.
+     * @return Returns the Physical Elements of {@code game} named by {@code goal}, then the ones linked to them by
+     * Events: the ones read or switched by an Event reading or switching one of them, and so on.
+     */
+    static List<UUID> linked(EscapeGame game, Goal goal) {
+        assert game != null : "linked: Trying to find the Physical Elements of a null EscapeGame.";
+        assert goal != null : "linked: Trying to find the Physical Elements linked to a null Goal.";
+
+        LinkedHashSet<UUID> linked = new LinkedHashSet<>(goal.getElements());
+        ArrayList<Event> events = new ArrayList<>();
+        for (UUID id : game.getAllEventsUUID().orElseGet(ArrayList::new)) events.add(game.getEvent(id));
+        for (boolean grown = true; grown; ) {
+            grown = false;
+            for (Event event : events) {
+                if (!touches(event, linked)) continue;
+                if (event.getTrigger().isPresent()) {
+                    for (UUID element : event.getTrigger().get().getElements()) {
+                        if (game.containsPhysicalElement(element)) grown |= linked.add(element);
+                    }
+                }
+                for (Event.Action action : event.getActions()) {
+                    if (game.containsPhysicalElement(action.getElement())) grown |= linked.add(action.getElement());
+                }
+            }
+        }
+        return new ArrayList<>(linked);
+    }
+
+    /**
+     * @effects Sets {@code reads[element]} and {@code writes[element]} to the Physical Elements a move switching the
+     * Physical Element of index {@code element} reads and writes: that Physical Element, and the ones read and switched
+     * by the Events it may trigger, directly or through other Events.
+     */
+    private void closure(int element, int[][] reads, int[][] writes) {
+        LinkedHashSet<Integer> read = new LinkedHashSet<>(List.of(element));
+        LinkedHashSet<Integer> written = new LinkedHashSet<>(List.of(element));
+        boolean[] reached = new boolean[eventTriggers.length];
+        ArrayList<Integer> pending = new ArrayList<>();
+        for (int event : triggered[element]) {
+            if (!reached[event]) pending.add(event);
+            reached[event] = true;
+        }
+        for (int next = 0; next < pending.size(); next++) {
+            int event = pending.get(next);
+            for (int other = 0; other < elements.length; other++) {
+                for (int reader : triggered[other]) {
+                    if (reader == event) read.add(other);
+                }
+            }
+            for (int switched : eventElements[event]) {
+                written.add(switched);
+                for (int other : triggered[switched]) {
+                    if (!reached[other]) pending.add(other);
+                    reached[other] = true;
+                }
+            }
+        }
+        reads[element] = read.stream().mapToInt(Integer::intValue).toArray();
+        writes[element] = written.stream().mapToInt(Integer::intValue).toArray();
+    }
+
+    /**
+     * @return Returns the sets of at least two symmetric Physical Elements, as arrays of their indexes.
+     */
+    private int[][] findSymmetries(EscapeGame game, Goal goal) {
+        LinkedHashMap<List<Object>, List<Integer>> classes = new LinkedHashMap<>();
+        boolean[] eventful = new boolean[elements.length]; // Whether an Event reads or switches each one.
+        for (int i = 0; i < elements.length; i++) eventful[i] = triggered[i].length > 0;
+        for (int[] switched : eventElements) {
+            for (int element : switched) eventful[element] = true;
+        }
+        for (int i = 0; i < elements.length; i++) {
+            if (eventful[i]) continue;
+            PhysicalElement element = game.getPhysicalElement(elements[i]);
+            ArrayList<Object> signature = new ArrayList<>();
+            signature.add(element.getType());
+            for (int s = 0; s < states[i].length; s++) {
+                signature.add(element.getState(states[i][s]).getName());
+                signature.add(switchable[i][s]);
+            }
+            UUID required = goal.getRequiredStates().get(elements[i]);
+            signature.add(required == null ? -1 : Arrays.asList(states[i]).indexOf(required));
+            signature.add(goal.getRequiredAccessible().contains(elements[i]));
+            classes.computeIfAbsent(signature, key -> new ArrayList<>()).add(i);
+        }
+
+        ArrayList<int[]> found = new ArrayList<>();
+        for (List<Integer> members : classes.values()) {
+            if (members.size() > 1) found.add(members.stream().mapToInt(Integer::intValue).toArray());
+        }
+        return found.toArray(new int[0][]);
+    }
+
+    /**
+     * @return Returns the number of Physical Elements of the StateSpace.
+     */
+    int size() {
+        return elements.length;
+    }
+
+    /**
+     * @return Returns the index of the Physical Element having the UUID {@code element}, -1 if it is not part of the
+     * StateSpace.
+     */
+    int indexOf(UUID element) {
+        return Arrays.asList(elements).indexOf(element);
+    }
+
+    /**
+     * @return Returns the index of the State having the UUID {@code state} of the Physical Element of index
+     * {@code element}, -1 if it is not one of its States.
+     */
+    int stateIndexOf(int element, UUID state) {
+        return Arrays.asList(states[element]).indexOf(state);
+    }
+
+    /**
+     * @return Returns the UUID of the Physical Element of index {@code element}.
+     */
+    UUID elementId(int element) {
+        return elements[element];
+    }
+
+    /**
+     * @return Returns the UUID of the State of index {@code state} of the Physical Element of index {@code element}.
+     */
+    UUID stateId(int element, int state) {
+        return states[element][state];
+    }
+
+    /**
+     * @return Returns the number of longs of a configuration.
+     */
+    int words() {
+        return initial.length;
+    }
+
+    /**
+     * @return Returns a copy of the initial configuration.
+     */
+    long[] initial() {
+        return initial.clone();
+    }
+
+    int stateCount(int element) {
+        return states[element].length;
+    }
+
+    boolean isSwitchable(int element, int state) {
+        return switchable[element][state];
+    }
+
+    /**
+     * @return Returns the index of the long of a configuration holding the fields of the Physical Element of index
+     * {@code element}.
+     */
+    int wordOf(int element) {
+        return stateWord[element];
+    }
+
+    /**
+     * @return Returns the first bit of the index of the State of the Physical Element of index {@code element}, in its
+     * long.
+     */
+    int stateShift(int element) {
+        return stateShift[element];
+    }
+
+    /**
+     * @return Returns the mask of the index of the State of the Physical Element of index {@code element}, not shifted.
+     */
+    long stateMask(int element) {
+        return stateMask[element];
+    }
+
+    /**
+     * @return Returns the bit telling whether the Physical Element of index {@code element} is accessible, in its long.
+     */
+    long accessibleBit(int element) {
+        return 1L << accessibleShift[element];
+    }
+
+    /**
+     * @return Returns the index of the State the Physical Element of index {@code element} is in, in
+     * {@code configuration}.
+     */
+    int stateOf(long[] configuration, int element) {
+        return (int) ((configuration[stateWord[element]] >>> stateShift[element]) & stateMask[element]);
+    }
+
+    /**
+     * @precondition {@code 0 <= state < stateCount(element)}, or {@code state == 0}.
+     * @effects Puts the Physical Element of index {@code element} in its State of index {@code state}, in
+     * {@code configuration}.
+     */
+    void setState(long[] configuration, int element, int state) {
+        int word = stateWord[element];
+        configuration[word] = (configuration[word] & ~(stateMask[element] << stateShift[element]))
+                | ((long) state << stateShift[element]);
+    }
+
+    /**
+     * @return Returns true if the Physical Element of index {@code element} is accessible in {@code configuration}.
+     */
+    boolean isAccessible(long[] configuration, int element) {
+        return (configuration[accessibleWord[element]] & (1L << accessibleShift[element])) != 0;
+    }
+
+    /**
+     * @precondition {@code next.length == words()}
+     * @effects Tells {@code move} about each configuration the players can reach from {@code configuration} in one move,
+     * using {@code next} to hold them, until it returns false.
+     */
+    void forEachSuccessor(long[] configuration, long[] next, Move move) {
+        if (!playable) return;
+        for (int element = 0; element < elements.length; element++) {
+            if (!isAccessible(configuration, element)) continue;
+            int from = stateOf(configuration, element);
+            for (int to = 0; to < states[element].length; to++) {
+                if (to == from || !switchable[element][to]) continue;
+
+                System.arraycopy(configuration, 0, next, 0, configuration.length);
+                setState(next, element, to);
+                if (!settle(next, element, from, null)) continue;
+                if (!move.accept(next, element, from, to)) return;
+            }
+        }
+    }
+
+    /**
+     * @precondition {@code previous.length == words() && !hasEvents()}: the configurations an Event cascade comes from
+     * can't be told from the one it ends in.
+     * @effects Tells {@code move} about each configuration from which the players can reach {@code configuration} in one
+     * move, using {@code previous} to hold them, until it returns false.
+     */
+    void forEachPredecessor(long[] configuration, long[] previous, Move move) {
+        assert !hasEvents() : "forEachPredecessor: Trying to go back through the Events of a StateSpace.";
+
+        for (int element = 0; element < elements.length; element++) {
+            int to = stateOf(configuration, element);
+            if (!isAccessible(configuration, element) || to >= states[element].length || !switchable[element][to]) {
+                continue;
+            }
+            for (int from = 0; from < states[element].length; from++) {
+                if (from == to) continue;
+
+                System.arraycopy(configuration, 0, previous, 0, configuration.length);
+                setState(previous, element, from);
+                if (!move.accept(previous, element, from, to)) return;
+            }
+        }
+    }
+
+    /**
+     * @return Returns true if {@code this} has Events, which a move may trigger.
+     */
+    boolean hasEvents() {
+        return eventTriggers.length > 0;
+    }
+
+    /**
+     * @precondition {@code configuration} was at rest before the Physical Element of index {@code element} was switched
+     * from its State of index {@code from}.
+     * @effects Lets the Events this switch triggers happen in {@code configuration}, until it is at rest again, adding
+     * the UUID of each one to {@code fired} unless it is null.
+     * @return Returns false if the Events keep triggering each other, {@code configuration} being then left as it was
+     * after {@code MAX_CASCADE} of them.
+     */
+    private boolean settle(long[] configuration, int element, int from, List<UUID> fired) {
+        if (triggered[element].length == 0) return true;
+        Cascade cascade = null;
+        for (int event : triggered[element]) {
+            if (!starts(configuration, event, element, from)) continue;
+            if (cascade == null) cascade = new Cascade(); // Only the moves triggering an Event pay for it.
+            cascade.add(event);
+        }
+        if (cascade == null) return true;
+        cascade.fired = fired;
+        return cascade.run(configuration);
+    }
+
+    /**
+     * @return Returns true if the Trigger of the Event of index {@code event} holds in {@code configuration}, but
+     * didn't when the Physical Element of index {@code element} was in its State of index {@code from}.
+     */
+    private boolean starts(long[] configuration, int event, int element, int from) {
+        if (!eventTriggers[event].test(configuration)) return false;
+        int to = stateOf(configuration, element);
+        setState(configuration, element, from);
+        boolean held = eventTriggers[event].test(configuration);
+        setState(configuration, element, to);
+        return !held;
+    }
+
+    /**
+     * @overview A Cascade is the queue of the Events which started to hold and didn't happen yet, in the order they
+     * did, as in the Simulator: an Event happens even if its Trigger stopped to hold meanwhile, and it is queued at
+     * most once by each happening.
+     */
+    private final class Cascade {
+        private int[] queue = new int[4];
+        private int head = 0;
+        private int tail = 0;
+        private int current = 0; // Where the Events queued by the happening going on start.
+        private List<UUID> fired; // Where the UUIDs of the Events which happen are told, if not null.
+
+        private void add(int event) {
+            for (int i = current; i < tail; i++) {
+                if (queue[i] == event) return;
+            }
+            if (tail == queue.length) queue = Arrays.copyOf(queue, 2 * tail);
+            queue[tail++] = event;
+        }
+
+        /**
+         * @effects Lets the Events queued happen in {@code configuration}, with the ones they trigger.
+         * @return Returns false if more than {@code MAX_CASCADE} of them happened.
+         */
+        private boolean run(long[] configuration) {
+            for (int happened = 0; head < tail; happened++) {
+                if (happened == MAX_CASCADE) return false;
+                int event = queue[head++];
+                if (fired != null) fired.add(eventIds[event]);
+                current = tail;
+                for (int a = 0; a < eventElements[event].length; a++) {
+                    int element = eventElements[event][a];
+                    int from = stateOf(configuration, element);
+                    if (from == eventStates[event][a]) continue;
+                    setState(configuration, element, eventStates[event][a]);
+                    for (int other : triggered[element]) {
+                        if (starts(configuration, other, element, from)) add(other);
+                    }
+                }
+            }
+            return true;
+        }
+    }
+
+    /**
+     * @effects Replaces {@code configuration} by the canonical configuration of its set of symmetric configurations:
+     * the one where the fields of each set of symmetric Physical Elements are in increasing order.
+     */
+    void canonicalize(long[] configuration) {
+        for (int[] members : symmetries) {
+            long fieldMask = (stateMask[members[0]] << 1) | 1; // The State and the accessibility, which follow each other.
+            long[] fields = new long[members.length];
+            for (int m = 0; m < members.length; m++) {
+                fields[m] = (configuration[stateWord[members[m]]] >>> stateShift[members[m]]) & fieldMask;
+            }
+            Arrays.sort(fields);
+            for (int m = 0; m < members.length; m++) {
+                int word = stateWord[members[m]];
+                configuration[word] = (configuration[word] & ~(fieldMask << stateShift[members[m]]))
+                        | (fields[m] << stateShift[members[m]]);
+            }
+        }
+    }
+
+    /**
+     * @precondition {@code chain} starts with the canonical initial configuration, and each of its configurations is the
+     * canonical configuration of one reached in one move from the previous one.
+     * @return Returns the Steps leading from the initial configuration through configurations symmetric to the ones of
+     * {@code chain}, in order, each with the Events it triggers.
+     */
+    List<Solvability.Step> witness(List<long[]> chain) {
+        ArrayList<Solvability.Step> steps = new ArrayList<>();
+        long[] current = initial();
+        long[] next = new long[current.length];
+        for (int i = 1; i < chain.size(); i++) {
+            long[] target = chain.get(i);
+            long[] canonical = new long[current.length];
+            int[] move = new int[3];
+            forEachSuccessor(current, next, (successor, element, from, to) -> {
+                System.arraycopy(successor, 0, canonical, 0, successor.length);
+                canonicalize(canonical);
+                if (!Arrays.equals(canonical, target)) return true;
+
+                move[0] = element;
+                move[1] = from;
+                move[2] = to;
+                return false;
+            });
+            // The move is played again, to tell which Events it triggers.
+            ArrayList<UUID> fired = new ArrayList<>();
+            setState(current, move[0], move[2]);
+            settle(current, move[0], move[1], fired);
+            steps.add(new Solvability.Step(elements[move[0]], states[move[0]][move[1]], states[move[0]][move[2]],
+                    fired));
+        }
+        return steps;
+    }
+
+    /**
+     * @precondition {@code target} is a canonical configuration.
+     * @return Returns true if the players can reach, in one move from {@code configuration}, a configuration whose
+     * canonical configuration is {@code target}. The explorers look for the configuration a move comes from this way
+     * when it may have triggered Events {@link #hasEvents()}.
+     */
+    boolean leadsTo(long[] configuration, long[] target) {
+        long[] next = new long[configuration.length];
+        boolean[] found = {false};
+        forEachSuccessor(configuration, next, (successor, element, from, to) -> {
+            canonicalize(successor);
+            found[0] = Arrays.equals(successor, target);
+            return !found[0];
+        });
+        return found[0];
+    }
+
+    /**
+     * @return Returns a negative int, zero, or a positive int as {@code a} comes before, is equal to, or comes after
+     * {@code b} in the order of their longs, compared as unsigned.
+     */
+    static int compare(long[] a, long[] b) {
+        for (int word = 0; word < a.length; word++) {
+            int comparison = Long.compareUnsigned(a[word], b[word]);
+            if (comparison != 0) return comparison;
+        }
+        return 0;
+    }
+
+    /**
+     * @return Returns the index of the first Physical Element whose requirements of the Goal {@code configuration}
+     * doesn't meet, -1 if it meets the Goal.
+     */
+    int firstUnsatisfied(long[] configuration) {
+        for (int element = 0; element < elements.length; element++) {
+            if ((configuration[stateWord[element]] & elementGoalMask[element]) != elementGoalValue[element]) {
+                return element;
+            }
+        }
+        return -1;
+    }
+
+    int moveCount() {
+        return moveElement.length;
+    }
+
+    /**
+     * @return Returns true if the move of index {@code move} can be played in {@code configuration}.
+     */
+    boolean isEnabled(long[] configuration, int move) {
+        if (!playable) return false;
+        int element = moveElement[move];
+        return isAccessible(configuration, element) && stateOf(configuration, element) != moveTo[move];
+    }
+
+    /**
+     * @precondition {@code isEnabled(configuration, move)}
+     * @effects Plays the move of index {@code move} in {@code configuration}, with the Events it triggers.
+     * @return Returns false if those Events keep triggering each other: the move leads nowhere.
+     */
+    boolean play(long[] configuration, int move) {
+        int element = moveElement[move];
+        int from = stateOf(configuration, element);
+        setState(configuration, element, moveTo[move]);
+        return settle(configuration, element, from, null);
+    }
+
+    int moveElement(int move) {
+        return moveElement[move];
+    }
+
+    int moveTo(int move) {
+        return moveTo[move];
+    }
+
+    /**
+     * @return Returns the indexes of the Physical Elements the move of index {@code move} reads. Not to be modified.
+     */
+    int[] reads(int move) {
+        return moveReads[move];
+    }
+
+    /**
+     * @return Returns the indexes of the Physical Elements the move of index {@code move} writes. Not to be modified.
+     */
+    int[] writes(int move) {
+        return moveWrites[move];
+    }
+
+    /**
+     * @return Returns the indexes of the moves reading the Physical Element of index {@code element}. Not to be
+     * modified.
+     */
+    int[] readers(int element) {
+        return readers[element];
+    }
+
+    /**
+     * @return Returns the indexes of the moves writing the Physical Element of index {@code element}. Not to be
+     * modified.
+     */
+    int[] writers(int element) {
+        return writers[element];
+    }
+
+    /**
+     * @return Returns true if {@code configuration} meets the Goal.
+     */
+    boolean isGoal(long[] configuration) {
+        for (int word = 0; word < goalMask.length; word++) {
+            if ((configuration[word] & goalMask[word]) != goalValue[word]) return false;
+        }
+        return true;
+    }
+
+    /**
+     * @return Returns the Step switching the Physical Element of index {@code element} from its State of index
+     * {@code from} to its State of index {@code to}.
+     */
+    Solvability.Step step(int element, int from, int to) {
+        return new Solvability.Step(elements[element], states[element][from], states[element][to]);
+    }
+}
@@ -0,0 +1,179 @@
+package com.example.represc.verification;
+
+import com.example.represc.data.EscapeGame;
+import com.example.represc.data.Event;
+import com.example.represc.data.PhysicalElement;
+import com.example.represc.data.Trigger;
+import com.example.represc.verification.Solvability.Verdict;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * @author Schmetz Arnaud
+ * @version 1.0
+ *
+ * @overview A Summary is what verifying one part of an escape game on its own, like the Physical Elements of a Problem,
+ * has found: every configuration of that part {@link StateSpace} the players can reach from the entry configuration, its
+ * initial one, each with a shortest way to reach it. It doesn't depend on any Goal, so the same Summary answers for any
+ * Goal on those Physical Elements {@link #reach(Goal)}.
+ * The configurations are kept in a VisitedSet {@link VisitedSet} in the order they were reached breadth first, each
+ * tagged with the one it was reached from. A Summary is not modified once built, and can be read by several threads.
+ *
+ * @specfield space: StateSpace // The part of the escape game summarised.
+ * @specfield reached: VisitedSet // The configurations reached from the entry one.
+ * @specfield complete: boolean // Whether every configuration which can be reached is in {@code reached}.
+ */
+final class Summary {
+
+    /**
+     * @overview A Key tells what a Summary depends on: for each Physical Element of the part, in order, its UUID,
+     * whether it is accessible, its initial State, and the UUIDs of its States with whether they can be switched to;
+     * then for each Event reading or switching one of them, in order, its UUID, its Trigger and its Actions. Two parts having equal Keys have the same Summary. Its hash is computed once.
+     */
+    static final class Key {
+        private final List<Object> description;
+        private final int hash;
+
+        /**
+         * @precondition {@code game != null && elements != null}, every Physical Element of {@code elements} belongs to
+         * {@code game}, and it must be called by the thread owning {@code game}.
+         * @postcondition Initialises {@code this} as the Key of the Physical Elements {@code elements} of {@code game}.
+         */
+        Key(EscapeGame game, List<UUID> elements) {
+            ArrayList<Object> description = new ArrayList<>();
+            for (UUID id : elements) {
+                PhysicalElement element = game.getPhysicalElement(id);
+                description.add(id);
+                description.add(element.isAccessible());
+                description.add(element.getInitialStateUUID().orElse(null));
+                ArrayList<UUID> states = element.getAllStatesUUID().orElseGet(ArrayList::new);
+                Collections.sort(states);
+                description.add(states.size());
+                for (UUID state : states) {
+                    description.add(state);
+                    description.add(element.getState(state).isAccessible());
+                }
+            }
+            for (UUID id : game.getAllEventsUUID().orElseGet(ArrayList::new)) {
+                Event event = game.getEvent(id);
+                if (!StateSpace.touches(event, elements)) continue;
+                description.add(id);
+                description.add(event.getTrigger().map(Trigger::getSource).orElse(null));
+                description.add(new ArrayList<>(event.getActions()));
+            }
+            this.description = description;
+            this.hash = description.hashCode();
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof Key && hash == ((Key) o).hash && description.equals(((Key) o).description);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+
+    private final StateSpace space;
+    private final VisitedSet reached;
+    private final boolean complete;
+
+    /**
+     * @precondition {@code space != null && limit > 0}, and {@code space} doesn't reduce symmetric configurations.
+     * @postcondition Initialises {@code this} as the Summary of {@code space}, reaching at most {@code limit}
+     * configurations. It is not complete if the limit is reached, if there is no room left for the configurations, or if
+     * the thread is interrupted, before every configuration has been reached.
+     */
+    Summary(StateSpace space, long limit) {
+        assert space != null : "Summary: Trying to summarise a null StateSpace.";
+        assert limit > 0 : "Summary: The limit of configurations to reach must be positive.";
+
+        this.space = space;
+        this.reached = new VisitedSet(space.words(), false);
+        long[] current = space.initial();
+        long[] next = new long[current.length];
+        reached.add(current, VisitedSet.ROOT);
+
+        boolean[] stopped = {false};
+        for (int id = 0; id < reached.size() && !stopped[0]; id++) {
+            if (reached.size() >= limit || (id & 0xFFF) == 0 && Thread.currentThread().isInterrupted()) break;
+            reached.get(id, current);
+            int parent = id;
+            space.forEachSuccessor(current, next, (successor, element, from, to) -> {
+                stopped[0] = reached.add(successor, parent) == VisitedSet.FULL;
+                return !stopped[0];
+            });
+        }
+        this.complete = reached.size() < limit && !stopped[0] && !Thread.currentThread().isInterrupted();
+    }
+
+    /**
+     * @return Returns the number of configurations reached.
+     */
+    int size() {
+        return reached.size();
+    }
+
+    boolean isComplete() {
+        return complete;
+    }
+
+    /**
+     * @return Returns about the number of bytes the Summary takes.
+     */
+    long weight() {
+        return (long) reached.size() * (space.words() + 2) * Long.BYTES;
+    }
+
+    /**
+     * @precondition Every Physical Element and State named by {@code goal} which is part of the Summary has the same
+     * UUID in it.
+     * @return Returns the Solvability of the requirements of {@code goal} about the Physical Elements of the Summary,
+     * the others being ignored: SOLVABLE with a shortest witness if a configuration reached meets them, UNSOLVABLE if
+     * none does and the Summary is complete, UNKNOWN otherwise. The number of configurations explored is 0, the
+     * Summary being already built.
+     */
+    Solvability reach(Goal goal) {
+        ArrayList<int[]> requirements = new ArrayList<>(); // {element, State} or {element} if it must be accessible.
+        for (Map.Entry<UUID, UUID> required : goal.getRequiredStates().entrySet()) {
+            int element = space.indexOf(required.getKey());
+            if (element >= 0) requirements.add(new int[]{element, space.stateIndexOf(element, required.getValue())});
+        }
+        for (UUID required : goal.getRequiredAccessible()) {
+            int element = space.indexOf(required);
+            if (element >= 0) requirements.add(new int[]{element});
+        }
+
+        long[] configuration = new long[space.words()];
+        for (int id = 0; id < reached.size(); id++) {
+            reached.get(id, configuration);
+            if (meets(configuration, requirements)) return new Solvability(Verdict.SOLVABLE, witness(id), 0);
+        }
+        return new Solvability(complete ? Verdict.UNSOLVABLE : Verdict.UNKNOWN, null, 0);
+    }
+
+    private boolean meets(long[] configuration, List<int[]> requirements) {
+        for (int[] requirement : requirements) {
+            if (requirement.length == 2 && space.stateOf(configuration, requirement[0]) != requirement[1]) return false;
+            if (requirement.length == 1 && !space.isAccessible(configuration, requirement[0])) return false;
+        }
+        return true;
+    }
+
+    private List<Solvability.Step> witness(int last) {
+        ArrayList<long[]> chain = new ArrayList<>();
+        for (int id = last; id != VisitedSet.ROOT; id = (int) reached.tagOf(id)) {
+            long[] configuration = new long[space.words()];
+            reached.get(id, configuration);
+            chain.add(configuration);
+        }
+        Collections.reverse(chain);
+        return space.witness(chain);
+    }
+}
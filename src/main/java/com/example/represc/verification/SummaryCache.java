@@ -0,0 +1,83 @@
+package com.example.represc.verification;
+
+import com.example.represc.utils.BoundedCache;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * @author Schmetz Arnaud
+ * @version 1.0
+ *
+ * @overview A SummaryCache keeps the Summaries {@link Summary} a CompositionalVerifier {@link CompositionalVerifier}
+ * has built, up to a maximal number of bytes, so that verifying an escape game again after an edit only builds again
+ * the Summaries of the parts which have been edited. A Summary is found again from what it depends on
+ * {@link Summary.Key}, whatever the escape game it comes from. Only complete Summaries are kept.
+ * It can be used by several threads at once.
+ *
+ * @specfield summaries: BoundedCache: Summary.Key to Summary // The Summaries kept.
+ * @specfield hits: long // The number of Summaries found in the cache.
+ * @specfield misses: long // The number of Summaries which had to be built.
+ */
+public class SummaryCache {
+
+    public static final long DEFAULT_MAXIMUM_BYTES = 64L << 20;
+
+    private final BoundedCache<Summary.Key, Summary> summaries;
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+
+    /**
+     * @postcondition Initialises {@code this} as an empty cache keeping Summaries up to DEFAULT_MAXIMUM_BYTES bytes.
+     */
+    public SummaryCache() {
+        this(DEFAULT_MAXIMUM_BYTES);
+    }
+
+    /**
+     * @precondition {@code maximumBytes > 0}
+     * @postcondition Initialises {@code this} as an empty cache keeping Summaries up to {@code maximumBytes} bytes.
+     */
+    public SummaryCache(long maximumBytes) {
+        this.summaries = new BoundedCache<>(maximumBytes);
+    }
+
+    /**
+     * @precondition {@code key != null}
+     * @return Returns the Summary kept for {@code key}, or null if it has to be built.
+     */
+    Summary find(Summary.Key key) {
+        Summary summary = summaries.get(key);
+        (summary == null ? misses : hits).incrementAndGet();
+        return summary;
+    }
+
+    /**
+     * @precondition {@code key != null && summary != null}, and {@code summary} is the Summary of the Physical Elements
+     * described by {@code key}.
+     * @effects Keeps {@code summary} for {@code key} if it is complete.
+     */
+    void keep(Summary.Key key, Summary summary) {
+        if (summary.isComplete()) summaries.put(key, summary, summary.weight());
+    }
+
+    /**
+     * @return Returns the number of Summaries found in the cache since it was created.
+     */
+    public long getHits() {
+        return hits.get();
+    }
+
+    /**
+     * @return Returns the number of Summaries which had to be built since the cache was created.
+     */
+    public long getMisses() {
+        return misses.get();
+    }
+
+    /**
+     * @return Returns about the number of bytes the Summaries kept take.
+     */
+    public long getWeight() {
+        return summaries.getWeight();
+    }
+}
@@ -0,0 +1,137 @@
+package com.example.represc.verification;
+
+import com.example.represc.verification.Solvability.Step;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * @author Schmetz Arnaud
+ * @version 1.0
+ *
+ * @overview A Timeline is the answer of a Simulator {@link Simulator}: what happened during a simulated game, in the
+ * order it happened, each Entry being dated from the start of the game.
+ *
+ * @specfield entries: list of Entry // What happened, in order.
+ * @specfield complete: boolean // Whether the simulation ran until there was nothing left to happen, the end asked for,
+ * or the Goal.
+ * @specfield end: Duration // The time the simulation stopped at.
+ * @specfield solved: Duration // The time the Goal was met at, null if it wasn't.
+ */
+public final class Timeline {
+
+    public enum Kind {
+        ACTION, // The players switched a Physical Element.
+        REFUSED, // The players tried to switch a Physical Element which can't be switched to that State.
+        EVENT, // An Event happened, its Trigger having started to hold.
+        SWITCH, // An Event switched a Physical Element.
+        COUNTDOWN, // A Countdown expired.
+        GOAL // The Goal was met, which ends the game.
+    }
+
+    /**
+     * @overview An Entry is one thing which happened during the game.
+     *
+     * @specfield time: Duration // When it happened, from the start of the game.
+     * @specfield kind: Kind // What happened.
+     * @specfield subject: UUID // The Physical Element switched by the players for ACTION and REFUSED, the Event for
+     * EVENT and SWITCH, the Countdown for COUNTDOWN, null for GOAL.
+     * @specfield step: Step // The switch, for ACTION, REFUSED and SWITCH, null otherwise. The switch refused goes from
+     * the State the Physical Element was in.
+     */
+    public static final class Entry {
+        private final Duration time;
+        private final Kind kind;
+        private final UUID subject;
+        private final Step step;
+
+        /**
+         * @precondition {@code time != null && kind != null}
+         * @postcondition Initialises {@code this} with the given time, kind, subject and step. Used to read a Timeline
+         * back, like a recorded one.
+         */
+        public Entry(Duration time, Kind kind, UUID subject, Step step) {
+            assert time != null && kind != null : "Entry: Trying to create an Entry without time or kind.";
+
+            this.time = time;
+            this.kind = kind;
+            this.subject = subject;
+            this.step = step;
+        }
+
+        public Duration getTime() {
+            return time;
+        }
+
+        public Kind getKind() {
+            return kind;
+        }
+
+        public Optional<UUID> getSubject() {
+            return Optional.ofNullable(subject);
+        }
+
+        public Optional<Step> getStep() {
+            return Optional.ofNullable(step);
+        }
+
+        public String toString() {
+            StringBuilder s = new StringBuilder("Entry : { time: " + time + ", kind: " + kind);
+            if (subject != null) s.append(", subject: ").append(subject);
+            if (step != null) s.append(", step: ").append(step);
+            return s.append(" }").toString();
+        }
+    }
+
+    private final List<Entry> entries;
+    private final boolean complete;
+    private final Duration end;
+    private final Duration solved;
+
+    Timeline(List<Entry> entries, boolean complete, Duration end, Duration solved) {
+        this.entries = Collections.unmodifiableList(entries);
+        this.complete = complete;
+        this.end = end;
+        this.solved = solved;
+    }
+
+    public List<Entry> getEntries() {
+        return entries;
+    }
+
+    /**
+     * @return Returns false if the simulation stopped because it reached its limit of happenings, which Events
+     * triggering each other endlessly do.
+     */
+    public boolean isComplete() {
+        return complete;
+    }
+
+    /**
+     * @return Returns the time the simulation stopped at, from the start of the game.
+     */
+    public Duration getEnd() {
+        return end;
+    }
+
+    /**
+     * @return Returns an Optional containing the time the Goal was met at, from the start of the game, or an empty
+     * Optional if it wasn't.
+     */
+    public Optional<Duration> getSolved() {
+        return Optional.ofNullable(solved);
+    }
+
+    public String toString() {
+        StringBuilder s = new StringBuilder("Timeline : {\n\t");
+        s.append("complete: ").append(complete);
+        s.append(",\n\tend: ").append(end);
+        if (solved != null) s.append(",\n\tsolved: ").append(solved);
+        s.append(",\n\tentries: ").append(entries);
+        s.append(" }");
+        return s.toString();
+    }
+}
@@ -0,0 +1,91 @@
+package com.example.represc.verification;
+
+import java.util.Objects;
+import java.util.UUID;
+
+/**
+ * @author Schmetz Arnaud
+ * @version 1.0
+ *
+ * @overview A Violation is one broken rule of the escape game: one invariant of the EscapeGame or of one of its elements
+ * which doesn't hold. Two Violations are equal if they have the same kind, target and subject.
+ *
+ * @specfield kind: Kind // The rule which is broken.
+ * @specfield target: UUID // The UUID of the Physical Element, Hint, Problem, Countdown or Event breaking the rule.
+ * null for the rules of the EscapeGame itself.
+ * @specfield subject: UUID // The UUID of the State (for the STATE_ kinds and EVENT_ACTION_STATE_UNKNOWN) or of the
+ * Physical Element (for the _ELEMENT_MISSING kinds and EVENT_TRIGGER_STATE_UNKNOWN) concerned. null otherwise.
+ */
+public final class Violation {
+
+    public enum Kind {
+        GAME_NAME_MISSING, GAME_PLAYERS_RANGE_INVALID,
+
+        ELEMENT_NAME_INVALID, ELEMENT_TYPE_MISSING,
+        ELEMENT_INITIAL_STATE_MISSING, // The Physical Element has States but no initial State.
+        ELEMENT_INITIAL_STATE_UNKNOWN, // The initial State is not one of the States of the Physical Element.
+        STATE_NAME_INVALID,
+
+        HINT_NAME_INVALID, HINT_POSITION_INVALID, HINT_ELEMENT_MISSING,
+
+        PROBLEM_NAME_INVALID, PROBLEM_ELEMENT_MISSING,
+
+        COUNTDOWN_NAME_INVALID, COUNTDOWN_DURATION_INVALID,
+
+        EVENT_NAME_INVALID,
+        EVENT_ACTION_ELEMENT_MISSING,
+        EVENT_ACTION_STATE_UNKNOWN, // An Action switches its Physical Element to a State it doesn't have.
+        EVENT_TRIGGER_ELEMENT_MISSING,
+        EVENT_TRIGGER_STATE_UNKNOWN // The Trigger compares the Physical Element to a constant, not one of its States.
+    }
+
+    private final Kind kind;
+    private final UUID target;
+    private final UUID subject;
+
+    /**
+     * @precondition {@code kind != null}
+     * @postcondition Initialises {@code this} with the given kind, target and subject.
+     */
+    public Violation(Kind kind, UUID target, UUID subject) {
+        assert kind != null : "Violation: Trying to create a Violation with a null kind.";
+
+        this.kind = kind;
+        this.target = target;
+        this.subject = subject;
+    }
+
+    public Kind getKind() {
+        return kind;
+    }
+
+    public UUID getTarget() {
+        return target;
+    }
+
+    public UUID getSubject() {
+        return subject;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof Violation)) return false;
+        Violation other = (Violation) o;
+        return kind == other.kind && Objects.equals(target, other.target) && Objects.equals(subject, other.subject);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(kind, target, subject);
+    }
+
+    public String toString() {
+        StringBuilder s = new StringBuilder("Violation : {\n\t");
+        s.append("kind: ").append(kind);
+        if (target != null) s.append(",\n\ttarget: ").append(target);
+        if (subject != null) s.append(",\n\tsubject: ").append(subject);
+        s.append(" }");
+        return s.toString();
+    }
+}
@@ -0,0 +1,21 @@
+package com.example.represc.verification;
+
+/**
+ * @author Schmetz Arnaud
+ * @version 1.0
+ *
+ * @overview A ViolationListener is told when the violations found by a ConsistencyChecker {@link ConsistencyChecker}
+ * change. It is called on the thread which changed the EscapeGame, right after the change was checked.
+ */
+public interface ViolationListener {
+
+    /**
+     * @effects Is told that {@code violation} has just been found.
+     */
+    void violationFound(Violation violation);
+
+    /**
+     * @effects Is told that {@code violation} has just been fixed, or that what it was about has been deleted.
+     */
+    void violationFixed(Violation violation);
+}
@@ -0,0 +1,177 @@
+package com.example.represc.verification;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.LongBuffer;
+import java.util.ArrayList;
+
+/**
+ * @author Schmetz Arnaud
+ * @version 1.0
+ *
+ * @overview A VisitedSet is the set of the configurations {@link StateSpace} a verifier has reached, each with a tag:
+ * the id of the configuration it was first reached from for the sequential verifier, its depth for the parallel one.
+ * Each configuration gets an id, the number of configurations added before it, so exploring the configurations by
+ * increasing id explores them breadth first, without any other queue.
+ * The configurations are records of longs stored one after the other in chunks, a record being the tag followed by the
+ * configuration itself. A hash table using open addressing, never more than three quarters full, gives
+ * the id of each configuration. Nothing but the records and the table is allocated per configuration.
+ * The chunks and the table are either arrays on the heap, or direct buffers off the heap, which the garbage collector
+ * doesn't have to go through. A VisitedSet is not thread safe.
+ *
+ * @specfield records: sequence of (long, long[]) // The tag and the configuration of each id.
+ */
+final class VisitedSet {
+
+    static final int ROOT = -1; // The parent of the initial configuration.
+    static final int ABSENT = -1; // Returned by find if the configuration is not there.
+    static final int PRESENT = -1; // Returned by add if the configuration was already there.
+    static final int FULL = -2; // Returned by add if there is no room left for the configuration.
+
+    private static final int CHUNK_SHIFT = 12;
+    private static final int CHUNK_RECORDS = 1 << CHUNK_SHIFT;
+    private static final int MAX_SLOTS = 1 << 28; // The most ints a direct buffer can hold, as a power of two.
+
+    private final int words;
+    private final int recordLongs;
+    private final boolean offHeap;
+
+    private final ArrayList<LongBuffer> chunks = new ArrayList<>();
+    private int size = 0;
+
+    private IntBuffer slots; // id + 1 for each used slot, 0 for the free ones.
+    private int mask;
+
+    /**
+     * @precondition {@code words > 0}
+     * @postcondition Initialises {@code this} empty, for configurations of {@code words} longs, stored off the heap if
+     * {@code offHeap}.
+     */
+    VisitedSet(int words, boolean offHeap) {
+        assert words > 0 : "VisitedSet: A configuration has at least one long.";
+
+        this.words = words;
+        this.recordLongs = words + 1;
+        this.offHeap = offHeap;
+        this.slots = newInts(1 << 10);
+        this.mask = (1 << 10) - 1;
+    }
+
+    int size() {
+        return size;
+    }
+
+    /**
+     * @precondition {@code configuration.length == words}
+     * @effects Adds {@code configuration} with {@code tag} as tag, if it isn't in the set yet.
+     * @return Returns the id of {@code configuration} if it has been added, PRESENT if it was already there, FULL if the
+     * set can't hold more configurations.
+     */
+    int add(long[] configuration, long tag) {
+        int slot = (int) hash(configuration) & mask;
+        for (int id; (id = slots.get(slot) - 1) >= 0; slot = (slot + 1) & mask) {
+            if (matches(id, configuration)) return PRESENT;
+        }
+
+        if ((size + 1L) * 4 > (mask + 1L) * 3) {
+            if (mask + 1 == MAX_SLOTS) return FULL;
+            rehash((mask + 1) * 2);
+            slot = (int) hash(configuration) & mask;
+            while (slots.get(slot) != 0) slot = (slot + 1) & mask;
+        }
+
+        int id = size++;
+        if ((id & (CHUNK_RECORDS - 1)) == 0) chunks.add(newLongs(CHUNK_RECORDS * recordLongs));
+        LongBuffer chunk = chunks.get(id >>> CHUNK_SHIFT);
+        int offset = (id & (CHUNK_RECORDS - 1)) * recordLongs;
+        chunk.put(offset, tag);
+        for (int word = 0; word < words; word++) chunk.put(offset + 1 + word, configuration[word]);
+        slots.put(slot, id + 1);
+        return id;
+    }
+
+    /**
+     * @precondition {@code configuration.length == words}
+     * @return Returns the id of {@code configuration}, ABSENT if it is not in the set.
+     */
+    int find(long[] configuration) {
+        int slot = (int) hash(configuration) & mask;
+        for (int id; (id = slots.get(slot) - 1) >= 0; slot = (slot + 1) & mask) {
+            if (matches(id, configuration)) return id;
+        }
+        return ABSENT;
+    }
+
+    /**
+     * @precondition {@code 0 <= id < size} and {@code into.length == words}
+     * @effects Copies the configuration having {@code id} as id into {@code into}.
+     */
+    void get(int id, long[] into) {
+        get(id, into, 0);
+    }
+
+    /**
+     * @precondition {@code 0 <= id < size} and {@code into.length >= offset + words}
+     * @effects Copies the configuration having {@code id} as id into {@code into}, from {@code offset} on.
+     */
+    void get(int id, long[] into, int offset) {
+        LongBuffer chunk = chunks.get(id >>> CHUNK_SHIFT);
+        int start = (id & (CHUNK_RECORDS - 1)) * recordLongs + 1;
+        for (int word = 0; word < words; word++) into[offset + word] = chunk.get(start + word);
+    }
+
+    /**
+     * @precondition {@code 0 <= id < size}
+     * @return Returns the tag of the configuration having {@code id} as id.
+     */
+    long tagOf(int id) {
+        return chunks.get(id >>> CHUNK_SHIFT).get((id & (CHUNK_RECORDS - 1)) * recordLongs);
+    }
+
+    private boolean matches(int id, long[] configuration) {
+        LongBuffer chunk = chunks.get(id >>> CHUNK_SHIFT);
+        int offset = (id & (CHUNK_RECORDS - 1)) * recordLongs + 1;
+        for (int word = 0; word < words; word++) {
+            if (chunk.get(offset + word) != configuration[word]) return false;
+        }
+        return true;
+    }
+
+    private void rehash(int capacity) {
+        IntBuffer rehashed = newInts(capacity);
+        int newMask = capacity - 1;
+        long[] configuration = new long[words];
+        for (int id = 0; id < size; id++) {
+            get(id, configuration);
+            int slot = (int) hash(configuration) & newMask;
+            while (rehashed.get(slot) != 0) slot = (slot + 1) & newMask;
+            rehashed.put(slot, id + 1);
+        }
+        slots = rehashed;
+        mask = newMask;
+    }
+
+    private LongBuffer newLongs(int count) {
+        if (!offHeap) return LongBuffer.allocate(count);
+        return ByteBuffer.allocateDirect(count * Long.BYTES).order(ByteOrder.nativeOrder()).asLongBuffer();
+    }
+
+    private IntBuffer newInts(int count) {
+        if (!offHeap) return IntBuffer.allocate(count);
+        return ByteBuffer.allocateDirect(count * Integer.BYTES).order(ByteOrder.nativeOrder()).asIntBuffer();
+    }
+
+    /**
+     * @return Returns a hash of {@code configuration}, mixing every bit of it into every bit of the result.
+     */
+    static long hash(long[] configuration) {
+        long h = configuration.length;
+        for (long word : configuration) h = (h ^ word) * 0x9E3779B97F4A7C15L;
+        h ^= h >>> 33;
+        h *= 0xFF51AFD7ED558CCDL;
+        h ^= h >>> 33;
+        h *= 0xC4CEB9FE1A85EC53L;
+        return h ^ (h >>> 33);
+    }
+}
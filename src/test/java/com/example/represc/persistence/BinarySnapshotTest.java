@@ -0,0 +1,59 @@
+package com.example.represc.persistence;
+
+import com.example.represc.data.EscapeGame;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class BinarySnapshotTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void roundTrip() throws IOException {
+        EscapeGame game = Games.sample();
+        Path file = directory.resolve("game" + BinarySnapshot.EXTENSION);
+        BinarySnapshot.save(game, file);
+
+        assertEquals(Games.json(game), Games.json(BinarySnapshot.load(file)));
+    }
+
+    @Test
+    void roundTripOfAnEmptyGame() throws IOException {
+        EscapeGame game = new EscapeGame();
+        game.setName("Empty");
+        Path file = directory.resolve("empty" + BinarySnapshot.EXTENSION);
+        BinarySnapshot.save(game, file);
+
+        assertEquals(Games.json(game), Games.json(BinarySnapshot.load(file)));
+    }
+
+    @Test
+    void truncatedSnapshotIsRejected() throws IOException {
+        Path file = directory.resolve("game" + BinarySnapshot.EXTENSION);
+        BinarySnapshot.save(Games.sample(), file);
+        byte[] bytes = Files.readAllBytes(file);
+
+        for (int length : new int[]{0, 6, 20, bytes.length / 2, bytes.length - 1}) {
+            Path torn = directory.resolve("torn-" + length + BinarySnapshot.EXTENSION);
+            Files.write(torn, Arrays.copyOf(bytes, length));
+            assertThrows(IOException.class, () -> BinarySnapshot.load(torn), "Cut at " + length);
+        }
+    }
+
+    @Test
+    void otherFilesAreRejected() throws IOException {
+        Path file = directory.resolve("game.json");
+        Files.writeString(file, "{\"Name\": \"Not a snapshot\"}");
+
+        assertThrows(IOException.class, () -> BinarySnapshot.load(file));
+    }
+}
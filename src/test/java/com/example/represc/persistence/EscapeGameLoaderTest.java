@@ -0,0 +1,98 @@
+package com.example.represc.persistence;
+
+import com.example.represc.data.EscapeGame;
+import com.example.represc.data.Event;
+import com.example.represc.data.PhysicalElement;
+import com.example.represc.data.Trigger;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.Set;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class EscapeGameLoaderTest {
+
+    /**
+     * The Events saved name the Physical Elements and States by their Ids in the file, and get back the UUIDs the
+     * loaded game gives them.
+     */
+    @Test
+    void eventsAreLoaded() throws IOException {
+        EscapeGame loaded = EscapeGameLoader.load(new StringReader(Games.json(Games.sample())));
+        UUID door = find(loaded, "Door");
+        UUID key = find(loaded, "Key");
+
+        Event event = loaded.getEvent(loaded.getAllEventsUUID().orElseThrow().get(0));
+        assertEquals("The door opens", event.getName());
+        assertEquals("The key fits.", event.getDescription().orElseThrow());
+        Trigger trigger = event.getTrigger().orElseThrow();
+        assertEquals(Set.of(door, key), trigger.getElements());
+        assertEquals("{\"and\":[{\"==\":[{\"var\":\"" + key + "\"},\"" + state(loaded, key, "Found") + "\"]},"
+                + "{\"var\":\"" + door + Trigger.ACCESSIBLE + "\"}]}", trigger.getSource());
+        assertEquals(1, event.getActions().size());
+        assertEquals(new Event.Action(door, state(loaded, door, "Open")), event.getActions().get(0));
+    }
+
+    /**
+     * A file following the specification gives the Trigger of an Event inline under "Triggers", naming the Physical
+     * Elements by their Ids in its variables and the States by their Ids in its constants.
+     */
+    @Test
+    void inlineTriggersAreLoaded() throws IOException {
+        String json = "{\"Name\": \"Room\", \"Physical elements\": {"
+                + "\"door\": {\"Name\": \"Door\", \"Shape\": \"M 0 0\", \"Accessible\": true, \"Type\": \"DOOR\", "
+                + "\"States\": {"
+                + "\"closed\": {\"Name\": \"Closed\", \"Accessible\": false}, "
+                + "\"open\": {\"Name\": \"Open\", \"Accessible\": true}}}, "
+                + "\"safe\": {\"Name\": \"Safe\", \"Shape\": \"M 0 0\", \"Accessible\": true, \"Type\": \"LOCK\", "
+                + "\"States\": {"
+                + "\"closed\": {\"Name\": \"Closed\", \"Accessible\": true}, "
+                + "\"unlocked\": {\"Name\": \"Unlocked\", \"Accessible\": true}}}}, "
+                + "\"Events\": {\"e\": {\"Name\": \"Open\", \"Triggers\": {\"and\": ["
+                + "{\"==\": [{\"var\": \"safe\"}, \"unlocked\"]}, {\"!=\": [{\"var\": \"door\"}, \"closed\"]}, "
+                + "{\"var\": \"door.accessible\"}, {\"in\": [{\"var\": \"safe\"}, [\"unlocked\", 1.5]]}]}, "
+                + "\"Actions\": [{\"Physical element\": \"door\", \"State\": \"open\"}]}}}";
+        EscapeGame loaded = EscapeGameLoader.load(new StringReader(json));
+        UUID door = find(loaded, "Door");
+        UUID safe = find(loaded, "Safe");
+        Event event = loaded.getEvent(loaded.getAllEventsUUID().orElseThrow().get(0));
+        Trigger trigger = event.getTrigger().orElseThrow();
+        assertEquals(Set.of(door, safe), trigger.getElements());
+        // "closed" is the Id of a State of both Physical Elements, it is left as it is.
+        assertEquals("{\"and\":[{\"==\":[{\"var\":\"" + safe + "\"},\"" + state(loaded, safe, "Unlocked") + "\"]},"
+                + "{\"!=\":[{\"var\":\"" + door + "\"},\"closed\"]},{\"var\":\"" + door + Trigger.ACCESSIBLE
+                + "\"},{\"in\":[{\"var\":\"" + safe + "\"},[\"" + state(loaded, safe, "Unlocked") + "\",1.5]]}]}",
+                trigger.getSource());
+    }
+
+    @Test
+    void actionsOnUnknownStatesAreRejected() {
+        String json = "{\"Name\": \"Room\", \"Physical elements\": {\"door\": {\"Shape\": \"M 0 0\", \"Accessible\": "
+                + "true, \"Type\": \"DOOR\", \"States\": {\"open\": {\"Name\": \"Open\", \"Accessible\": true}}}}, "
+                + "\"Events\": {\"e\": {\"Name\": \"Open\", \"Actions\": [{\"Physical element\": \"door\", "
+                + "\"State\": \"closed\"}]}}}";
+        assertThrows(IOException.class, () -> EscapeGameLoader.load(new StringReader(json)));
+        String trigger = json.replace("\"Actions\": [{\"Physical element\": \"door\", \"State\": \"closed\"}]",
+                "\"Triggers\": {\"var\": \"window\"}");
+        assertThrows(IOException.class, () -> EscapeGameLoader.load(new StringReader(trigger)));
+    }
+
+    private static UUID find(EscapeGame game, String name) {
+        for (UUID id : game.getAllPhysicalElementsUUID().orElseThrow()) {
+            if (game.getPhysicalElement(id).getName().equals(name)) return id;
+        }
+        throw new AssertionError("No Physical Element named " + name + ".");
+    }
+
+    private static UUID state(EscapeGame game, UUID element, String name) {
+        PhysicalElement owner = game.getPhysicalElement(element);
+        for (UUID id : owner.getAllStatesUUID().orElseThrow()) {
+            if (owner.getState(id).getName().equals(name)) return id;
+        }
+        throw new AssertionError("No State named " + name + ".");
+    }
+}
@@ -0,0 +1,83 @@
+package com.example.represc.persistence;
+
+import com.example.represc.data.EscapeGame;
+import com.example.represc.data.Geometry;
+import com.example.represc.data.Lazy;
+import com.example.represc.data.PhysicalElement;
+import com.example.represc.utils.commonPhysicalElements.ElementType;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class EscapeGameSnapshotTest {
+
+    @TempDir
+    Path directory;
+
+    /**
+     * @overview A Lazy counting how many times it is built.
+     */
+    private static final class Counted<T> extends Lazy<T> {
+        private final T value;
+        private final AtomicInteger loads;
+
+        private Counted(T value, AtomicInteger loads) {
+            this.value = value;
+            this.loads = loads;
+        }
+
+        @Override
+        protected T load() {
+            loads.incrementAndGet();
+            return value;
+        }
+
+        @Override
+        protected long size(T value) {
+            return 1;
+        }
+    }
+
+    @Test
+    void lazyValuesAreBuiltByTheWriterOnly() throws Exception {
+        AtomicInteger loads = new AtomicInteger();
+        EscapeGame game = new EscapeGame();
+        game.setName("Lazy");
+        for (int i = 0; i < 10; i++) {
+            game.addPhysicalElement(new PhysicalElement("Element " + i,
+                    new Counted<>(Geometry.parse("M 0 0 L " + i + " 1"), loads), true, ElementType.CUSTOM,
+                    new Counted<>("Description " + i, loads)));
+        }
+
+        EscapeGameSnapshot snapshot = EscapeGameSnapshot.of(game);
+        assertEquals(0, loads.get(), "Taking the snapshot builds nothing.");
+
+        Path file = directory.resolve("lazy" + BinarySnapshot.EXTENSION);
+        CompletableFuture.runAsync(() -> {
+            try {
+                BinarySnapshot.save(snapshot, file, ProgressMonitor.NONE);
+            } catch (IOException e) {
+                throw new AssertionError(e);
+            }
+        }).get();
+        assertEquals(20, loads.get());
+        assertEquals(Games.json(game), Games.json(BinarySnapshot.load(file)));
+    }
+
+    @Test
+    void lazyLoadedGameIsSavedAgain() throws IOException {
+        EscapeGame game = Games.sample();
+        Path file = directory.resolve("game" + BinarySnapshot.EXTENSION);
+        BinarySnapshot.save(game, file);
+
+        EscapeGame lazy = BinarySnapshot.load(file, ProgressMonitor.NONE, true);
+        BinarySnapshot.save(lazy, file); // Over the file it is mapped from.
+        assertEquals(Games.json(game), Games.json(BinarySnapshot.load(file)));
+    }
+}
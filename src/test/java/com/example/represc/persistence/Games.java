@@ -0,0 +1,89 @@
+package com.example.represc.persistence;
+
+import com.example.represc.data.Countdown;
+import com.example.represc.data.EscapeGame;
+import com.example.represc.data.Event;
+import com.example.represc.data.Geometry;
+import com.example.represc.data.Hint;
+import com.example.represc.data.PhysicalElement;
+import com.example.represc.data.Position;
+import com.example.represc.data.Problem;
+import com.example.represc.data.Trigger;
+import com.example.represc.utils.commonPhysicalElements.ElementType;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.UUID;
+
+/**
+ * The escape games the persistence tests save and load, and the way they compare them.
+ */
+final class Games {
+
+    private Games() {
+    }
+
+    /**
+     * @return Returns an escape game using every attribute the formats save.
+     */
+    static EscapeGame sample() {
+        EscapeGame game = new EscapeGame();
+        game.setName("The vault");
+        game.setDescription("Get out of the vault before the guards come back.");
+        game.setDifficulty("Hard");
+        game.setPlayersRange(2, 6);
+        game.setEstimatedDuration(Duration.ofMinutes(60));
+
+        PhysicalElement door = new PhysicalElement("Door", Geometry.parse("M 0 0 L 10 0 L 10 20 Z"), true,
+                ElementType.DOOR, "The only way out.");
+        UUID closed = door.addState(new PhysicalElement.State("Closed", true));
+        UUID open = door.addState(new PhysicalElement.State("Open", false, "Leads to the corridor."));
+        door.setInitialState(closed);
+        UUID doorId = game.addPhysicalElement(door);
+
+        PhysicalElement key = new PhysicalElement("Key", Geometry.parse("M 5 5 C 6 6 7 7 8 8"), false,
+                ElementType.KEY);
+        UUID hidden = key.addState(new PhysicalElement.State("Hidden", false));
+        UUID found = key.addState(new PhysicalElement.State("Found", true));
+        key.setInitialState(hidden);
+        UUID keyId = game.addPhysicalElement(key);
+
+        game.addPhysicalElement(new PhysicalElement("Room", Geometry.parse("M 0 0 H 100 V 80 H 0 Z"), true,
+                ElementType.ROOM));
+
+        Hint hint = new Hint("Look under the carpet");
+        hint.setDescription("The key isn't far.");
+        hint.setPosition(new Position(12.5, 40));
+        hint.addPhysicalElement(keyId);
+        game.addHint(hint);
+
+        Problem problem = new Problem("Open the door");
+        problem.addPhysicalElement(doorId);
+        problem.addPhysicalElement(keyId);
+        game.addProblem(problem);
+
+        game.addCountdown(new Countdown("Guards", Duration.ofMinutes(45), "The guards come back."));
+
+        Event event = new Event("The door opens", "The key fits.");
+        event.setTrigger(Trigger.parse("{\"and\": [{\"==\": [{\"var\": \"" + keyId + "\"}, \"" + found + "\"]}, "
+                + "{\"var\": \"" + doorId + Trigger.ACCESSIBLE + "\"}]}"));
+        event.addAction(new Event.Action(doorId, open));
+        game.addEvent(event);
+        return game;
+    }
+
+    /**
+     * @return Returns {@code game} as it is saved in the JSON format, which tells two games apart.
+     */
+    static String json(EscapeGame game) throws IOException {
+        Path file = Files.createTempFile("represc", ".json");
+        try {
+            EscapeGameWriter.save(game, file);
+            return Files.readString(file);
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+}
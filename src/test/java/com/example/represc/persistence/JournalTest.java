@@ -0,0 +1,148 @@
+package com.example.represc.persistence;
+
+import com.example.represc.data.Countdown;
+import com.example.represc.data.EscapeGame;
+import com.example.represc.data.Event;
+import com.example.represc.data.Geometry;
+import com.example.represc.data.Hint;
+import com.example.represc.data.PhysicalElement;
+import com.example.represc.data.Trigger;
+import com.example.represc.utils.commonPhysicalElements.ElementType;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class JournalTest {
+
+    @TempDir
+    Path directory;
+
+    private ScheduledExecutorService executor;
+    private Path snapshot;
+    private Path file;
+
+    @BeforeEach
+    void setUp() {
+        executor = Executors.newSingleThreadScheduledExecutor();
+        snapshot = directory.resolve("snapshot-1" + BinarySnapshot.EXTENSION);
+        file = directory.resolve("journal-1.log");
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * @effects Saves {@code game} as the snapshot, then journals the changes {@code edit} makes to it.
+     */
+    private void journal(EscapeGame game, Runnable edit) throws IOException {
+        BinarySnapshot.save(game, snapshot);
+        try (Journal journal = Journal.create(file, 1, executor)) {
+            game.addModelListener(journal::append);
+            edit.run();
+        }
+    }
+
+    private EscapeGame recover() throws IOException {
+        EscapeGame game = BinarySnapshot.load(snapshot);
+        assertEquals(1, Journal.replay(file, game));
+        return game;
+    }
+
+    private static void edit(EscapeGame game) {
+        game.setName("The bank");
+        game.deleteDifficulty();
+        game.setEstimatedDuration(Duration.ofMinutes(75));
+        PhysicalElement safe = new PhysicalElement("Safe", Geometry.parse("M 1 1 L 2 2"), true, ElementType.LOCK);
+        UUID locked = safe.addState(new PhysicalElement.State("Locked", false));
+        safe.addState(new PhysicalElement.State("Unlocked", true));
+        safe.setInitialState(locked);
+        UUID safeId = game.addPhysicalElement(safe);
+        safe.setName("Big safe");
+        safe.setShape(Geometry.parse("M 0 0 L 4 4 Z"));
+        safe.getState(locked).setDescription("Needs the code.");
+
+        UUID hintId = game.addHint(new Hint("Count the paintings"));
+        game.getHint(hintId).addPhysicalElement(safeId);
+        UUID countdown = game.addCountdown(new Countdown("Alarm", Duration.ofMinutes(10)));
+        game.getCountdown(countdown).setDuration(Duration.ofMinutes(12));
+        game.deleteCountdown(game.getAllCountdownsUUID().get().get(0));
+
+        Event event = game.getEvent(game.getAllEventsUUID().get().get(0));
+        event.setName("The door opens at last");
+        event.deleteDescription();
+        event.setTrigger(Trigger.parse("{\"==\": [{\"var\": \"" + safeId + "\"}, \"" + locked + "\"]}"));
+        event.addAction(new Event.Action(safeId, locked));
+        event.deleteAction(0);
+        UUID alarm = game.addEvent(new Event("Alarm"));
+        game.getEvent(alarm).setDescription("Rings.");
+        game.addEvent(new Event("Gone"));
+        game.deleteEvent(game.getAllEventsUUID().get().get(2));
+    }
+
+    @Test
+    void replayRebuildsTheGame() throws IOException {
+        EscapeGame game = Games.sample();
+        journal(game, () -> edit(game));
+
+        assertEquals(Games.json(game), Games.json(recover()));
+    }
+
+    @Test
+    void tornTailIsDropped() throws IOException {
+        EscapeGame game = Games.sample();
+        String[] beforeLast = new String[1];
+        journal(game, () -> {
+            edit(game);
+            try {
+                beforeLast[0] = Games.json(game);
+            } catch (IOException e) {
+                throw new AssertionError(e);
+            }
+            game.setName("The last change");
+        });
+        byte[] bytes = Files.readAllBytes(file);
+        Files.write(file, Arrays.copyOf(bytes, bytes.length - 3));
+
+        assertEquals(beforeLast[0], Games.json(recover()));
+        long truncated = Files.size(file);
+        assertNotEquals(bytes.length - 3, truncated, "The torn record is cut off the file.");
+        assertEquals(beforeLast[0], Games.json(recover()));
+        assertEquals(truncated, Files.size(file));
+    }
+
+    @Test
+    void corruptedRecordEndsTheJournal() throws IOException {
+        EscapeGame game = Games.sample();
+        String original = Games.json(game);
+        journal(game, () -> game.setName("Renamed"));
+        byte[] bytes = Files.readAllBytes(file);
+        bytes[bytes.length - 1] ^= 0x55; // In the payload, so the CRC doesn't match.
+        Files.write(file, bytes);
+
+        assertEquals(original, Games.json(recover()));
+        assertEquals(Journal.HEADER_SIZE, Files.size(file));
+    }
+
+    @Test
+    void otherFilesAreRejected() throws IOException {
+        Files.writeString(file, "Not a journal at all");
+
+        assertThrows(IOException.class, () -> Journal.replay(file, new EscapeGame()));
+    }
+}
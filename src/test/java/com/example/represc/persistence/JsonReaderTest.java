@@ -0,0 +1,38 @@
+package com.example.represc.persistence;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class JsonReaderTest {
+
+    private static JsonReader arrayOf(String values) throws IOException {
+        JsonReader reader = new JsonReader(new StringReader("[" + values + "]"));
+        reader.beginArray();
+        return reader;
+    }
+
+    @Test
+    void readsNumbers() throws IOException {
+        JsonReader reader = arrayOf("12, -3.5, 4e2, 7.0");
+        assertEquals(12, reader.nextInt());
+        assertEquals(-3.5, reader.nextDouble());
+        assertEquals(400, reader.nextLong());
+        assertEquals(7, reader.nextLong());
+        reader.endArray();
+    }
+
+    @Test
+    void malformedNumbersAreSyntaxErrors() throws IOException {
+        IOException e = assertThrows(IOException.class, () -> arrayOf("1-2").nextLong());
+        assertTrue(e.getMessage().contains("Malformed number 1-2"), e.getMessage());
+        assertThrows(IOException.class, () -> arrayOf("--1").nextDouble());
+        assertThrows(IOException.class, () -> arrayOf("1.5").nextLong());
+        assertThrows(IOException.class, () -> arrayOf("4294967296").nextInt());
+    }
+}
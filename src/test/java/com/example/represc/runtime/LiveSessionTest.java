@@ -0,0 +1,117 @@
+package com.example.represc.runtime;
+
+import com.example.represc.data.EscapeGame;
+import com.example.represc.data.Geometry;
+import com.example.represc.data.PhysicalElement;
+import com.example.represc.utils.commonPhysicalElements.ElementType;
+import com.example.represc.verification.Goal;
+import com.example.represc.verification.Solvability;
+import com.example.represc.verification.Timeline;
+import org.junit.jupiter.api.Test;
+
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class LiveSessionTest {
+
+    private final EscapeGame game = new EscapeGame();
+    private final List<UUID> locks = new ArrayList<>();
+    private final List<UUID[]> states = new ArrayList<>();
+
+    /**
+     * @return Returns the two players of a game where each of them has a lock of ten States to turn.
+     */
+    private List<UUID> players() {
+        game.setName("Live");
+        List<UUID> players = new ArrayList<>();
+        for (int p = 0; p < 2; p++) {
+            players.add(game.addPhysicalElement(new PhysicalElement("Player " + p, Geometry.parse("M 0 0"), true,
+                    ElementType.PLAYER)));
+            PhysicalElement lock = new PhysicalElement("Lock " + p, Geometry.parse("M 0 0"), true, ElementType.LOCK);
+            UUID[] ids = new UUID[10];
+            for (int s = 0; s < 10; s++) ids[s] = lock.addState(new PhysicalElement.State("s" + s, true));
+            locks.add(game.addPhysicalElement(lock));
+            states.add(ids);
+        }
+        return players;
+    }
+
+    /**
+     * @return Returns a feed turning the lock {@code p} through its States 1 to 9, with comments, blank lines and
+     * lines which aren't actions of the game in between.
+     */
+    private String feed(int p) {
+        StringBuilder feed = new StringBuilder("# The tablet of player " + p + "\n\n");
+        for (int s = 1; s < 10; s++) {
+            feed.append(locks.get(p)).append("  ").append(states.get(p)[s]).append('\n');
+            if (s == 3) feed.append("not an action\n");
+            if (s == 5) feed.append(locks.get(p)).append(' ').append(states.get(1 - p)[s]).append('\n');
+        }
+        return feed.toString();
+    }
+
+    /**
+     * The actions read from two feeds at once are all played, each feed in its order, and the Timeline returned by
+     * stop is the one told to the listener, in the order of time.
+     */
+    @Test
+    void twoFeedsArePlayedInOrder() throws InterruptedException {
+        List<UUID> players = players();
+        List<Timeline.Entry> told = new CopyOnWriteArrayList<>();
+        CountDownLatch actions = new CountDownLatch(18);
+        LiveSession session = new LiveSession(game, new Goal(), entry -> {
+            told.add(entry);
+            if (entry.getKind() == Timeline.Kind.ACTION) actions.countDown();
+        });
+        assertEquals(new HashSet<>(players), new HashSet<>(session.getPlayers()));
+        for (int p = 0; p < 2; p++) session.attach(players.get(p), new StringReader(feed(p)));
+        assertTrue(actions.await(10, TimeUnit.SECONDS), "The actions of the feeds weren't all played.");
+
+        Timeline timeline = session.stop();
+        assertSame(timeline, session.stop());
+        assertEquals(told, timeline.getEntries());
+        for (int e = 1; e < told.size(); e++) {
+            assertTrue(told.get(e - 1).getTime().compareTo(told.get(e).getTime()) <= 0, told.toString());
+        }
+        for (int p = 0; p < 2; p++) {
+            List<UUID> turned = new ArrayList<>();
+            for (Timeline.Entry entry : told) {
+                assertEquals(Timeline.Kind.ACTION, entry.getKind());
+                Solvability.Step step = entry.getStep().orElseThrow();
+                if (step.getElement().equals(locks.get(p))) turned.add(step.getTo());
+            }
+            assertEquals(List.of(states.get(p)).subList(1, 10), turned);
+        }
+    }
+
+    /**
+     * A listener failing with an Error fails the game, which stop reports.
+     */
+    @Test
+    void failureIsThrownByStop() throws InterruptedException {
+        List<UUID> players = players();
+        Error failure = new Error("The screen of the room broke.");
+        CountDownLatch told = new CountDownLatch(1);
+        LiveSession session = new LiveSession(game, new Goal(), entry -> {
+            told.countDown();
+            throw failure;
+        });
+        session.attach(players.get(0), new StringReader(feed(0)));
+        assertTrue(told.await(10, TimeUnit.SECONDS), "The listener wasn't told anything.");
+
+        CompletionException thrown = assertThrows(CompletionException.class, session::stop);
+        assertSame(failure, thrown.getCause());
+    }
+}
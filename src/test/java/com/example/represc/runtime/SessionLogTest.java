@@ -0,0 +1,164 @@
+package com.example.represc.runtime;
+
+import com.example.represc.data.Countdown;
+import com.example.represc.data.EscapeGame;
+import com.example.represc.data.Event;
+import com.example.represc.data.Geometry;
+import com.example.represc.data.PhysicalElement;
+import com.example.represc.data.Trigger;
+import com.example.represc.utils.commonPhysicalElements.ElementType;
+import com.example.represc.verification.Simulator;
+import com.example.represc.verification.Timeline;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SessionLogTest {
+
+    @TempDir
+    Path directory;
+
+    private final Random random = new Random(25);
+    private final EscapeGame game = new EscapeGame();
+    private final List<UUID> elements = new ArrayList<>();
+    private final List<UUID[]> states = new ArrayList<>();
+
+    /**
+     * @return Returns the Timeline of an hour of a game of 40 Physical Elements, switched by 2000 moves and by 300
+     * Events. The Events watch the first 20 Physical Elements and switch the last 20, so that none of them fires
+     * another and the session ends.
+     */
+    private Timeline play() {
+        game.setName("Log");
+        for (int i = 0; i < 40; i++) {
+            PhysicalElement element = new PhysicalElement("e" + i, Geometry.parse("M 0 0"), true, ElementType.LOCK);
+            UUID[] ids = new UUID[4];
+            for (int s = 0; s < 4; s++) ids[s] = element.addState(new PhysicalElement.State("s" + s, true));
+            elements.add(game.addPhysicalElement(element));
+            states.add(ids);
+        }
+        for (int k = 0; k < 300; k++) {
+            int watched = random.nextInt(20);
+            int switched = 20 + random.nextInt(20);
+            Event event = new Event("Event " + k);
+            event.setTrigger(Trigger.parse("{\"==\":[{\"var\":\"" + elements.get(watched) + "\"},\""
+                    + states.get(watched)[random.nextInt(4)] + "\"]}"));
+            event.addAction(new Event.Action(elements.get(switched), states.get(switched)[random.nextInt(4)]));
+            game.addEvent(event);
+        }
+        game.addCountdown(new Countdown("Guards", Duration.ofMinutes(25)));
+
+        Simulator simulator = new Simulator(game);
+        for (int k = 0; k < 2000; k++) {
+            int i = random.nextInt(40);
+            simulator.schedule(Duration.ofMillis(random.nextInt(3_600_000)), elements.get(i),
+                    states.get(i)[random.nextInt(4)]);
+        }
+        Timeline timeline = simulator.run();
+        assertTrue(timeline.isComplete());
+        return timeline;
+    }
+
+    private Path record(Timeline timeline) throws IOException {
+        Path file = directory.resolve("session.rpsl");
+        try (SessionRecorder recorder = new SessionRecorder(file, game, Duration.ofMinutes(1))) {
+            recorder.record(timeline);
+        }
+        return file;
+    }
+
+    /**
+     * Reading from the checkpoint before any time gives the States and the Entries replaying the log from its start
+     * gives.
+     */
+    @Test
+    void seekMatchesReplayFromTheStart() throws IOException {
+        Timeline timeline = play();
+        List<Timeline.Entry> all = timeline.getEntries();
+        SessionLog log = SessionLog.read(record(timeline));
+        assertEquals(all.toString(), log.getEntries().toString());
+        assertEquals(all.get(all.size() - 1).getTime(), log.getEnd());
+        assertTrue(log.getEnd().compareTo(Duration.ofMinutes(50)) > 0);
+        assertTrue(log.getCheckpointCount() > 40, "only " + log.getCheckpointCount() + " checkpoints");
+
+        Map<UUID, UUID> expected = new HashMap<>();
+        for (UUID element : elements) {
+            expected.put(element, game.getPhysicalElement(element).getInitialStateUUID().orElseThrow());
+        }
+        int next = 0;
+        for (int q = 0; q < 300; q++) {
+            // Every 12 seconds, exactly at the time of an Entry one time in seven.
+            long time = q * 12_000_000_000L + random.nextInt(1000);
+            if (q % 7 == 0 && next < all.size()) time = all.get(next).getTime().toNanos();
+            for (; next < all.size() && all.get(next).getTime().toNanos() <= time; next++) {
+                Timeline.Entry entry = all.get(next);
+                if (entry.getStep().isPresent() && entry.getKind() != Timeline.Kind.REFUSED) {
+                    expected.put(entry.getStep().get().getElement(), entry.getStep().get().getTo());
+                }
+            }
+            assertEquals(expected, log.getStatesAt(Duration.ofNanos(time)), "at " + time);
+        }
+
+        Duration from = Duration.ofMinutes(45);
+        Duration until = Duration.ofMinutes(46);
+        List<Timeline.Entry> window = new ArrayList<>();
+        for (Timeline.Entry entry : all) {
+            if (entry.getTime().compareTo(from) >= 0 && entry.getTime().compareTo(until) < 0) window.add(entry);
+        }
+        assertFalse(window.isEmpty());
+        assertEquals(window.toString(), log.getEntries(from, until).toString());
+        List<Timeline.Entry> replayed = new ArrayList<>();
+        log.replay(from, Double.POSITIVE_INFINITY, replayed::add);
+        assertEquals(all.subList(all.size() - replayed.size(), all.size()).toString(), replayed.toString());
+    }
+
+    /**
+     * A log cut anywhere after its initial checkpoint keeps the Entries before the cut, and nothing else.
+     */
+    @Test
+    void tornTailIsDropped() throws IOException {
+        Timeline timeline = play();
+        List<Timeline.Entry> all = timeline.getEntries();
+        byte[] bytes = Files.readAllBytes(record(timeline));
+        Path torn = directory.resolve("torn.rpsl");
+        for (int cut : new int[]{bytes.length - 1, bytes.length - 7, bytes.length / 2, bytes.length / 3}) {
+            Files.write(torn, Arrays.copyOf(bytes, cut));
+            List<Timeline.Entry> kept = SessionLog.read(torn).getEntries();
+            assertTrue(kept.size() < all.size());
+            assertEquals(all.subList(0, kept.size()).toString(), kept.toString(), "cut at " + cut);
+        }
+        Files.write(torn, new byte[]{1, 2, 3});
+        assertThrows(IOException.class, () -> SessionLog.read(torn));
+    }
+
+    /**
+     * Each Entry a live session tells the recorder about is in the file before the recorder is closed.
+     */
+    @Test
+    void entriesOfALiveSessionAreFlushed() throws IOException {
+        List<Timeline.Entry> all = play().getEntries();
+        Path file = directory.resolve("live.rpsl");
+        try (SessionRecorder recorder = new SessionRecorder(file, game, Duration.ofHours(1))) {
+            for (int i = 0; i < 5; i++) {
+                recorder.accept(all.get(i));
+                assertEquals(all.subList(0, i + 1).toString(), SessionLog.read(file).getEntries().toString());
+            }
+        }
+    }
+}
@@ -0,0 +1,117 @@
+package com.example.represc.utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TimingWheelTest {
+
+    /**
+     * @overview What the reference model knows of a Timer: its deadline when running, the ticks it has left when
+     * paused, and the order it was started or resumed in.
+     */
+    private static final class Expected {
+        private long deadline;
+        private long remaining;
+        private boolean paused;
+        private long sequence;
+    }
+
+    /**
+     * Random starts, cancels, pauses, resumes and advances, over spans from a few ticks to the whole clock, expire the
+     * Timers a plain list of deadlines says, in the order of their deadlines then of their starts.
+     */
+    @Test
+    void matchesAReferenceModel() {
+        Random random = new Random(22);
+        for (int run = 0; run < 300; run++) {
+            TimingWheel<Integer> wheel = new TimingWheel<>(Duration.ofMillis(1));
+            List<TimingWheel.Timer<Integer>> timers = new ArrayList<>();
+            Map<Integer, Expected> expected = new HashMap<>(); // The Timers running or paused.
+            long sequence = 0;
+            long now = 0;
+            long spread = new long[]{10, 1000, 1 << 20, Integer.MAX_VALUE}[random.nextInt(4)];
+            for (int operation = 0; operation < 400; operation++) {
+                int kind = random.nextInt(10);
+                List<Integer> alive = new ArrayList<>(expected.keySet());
+                Integer some = alive.isEmpty() ? null : alive.get(random.nextInt(alive.size()));
+                if (kind < 4) {
+                    long ticks = random.nextInt(8) == 0 ? 0 : (long) (random.nextDouble() * spread);
+                    if (random.nextInt(50) == 0) ticks = Long.MAX_VALUE / 2 + random.nextInt(1000);
+                    Expected timer = new Expected();
+                    timer.deadline = now + ticks;
+                    timer.sequence = sequence++;
+                    expected.put(timers.size(), timer);
+                    timers.add(wheel.start(timers.size(), ticks));
+                } else if (kind == 4 && some != null) {
+                    wheel.cancel(timers.get(some));
+                    expected.remove(some);
+                    assertTrue(timers.get(some).isCancelled());
+                } else if (kind == 5 && some != null) {
+                    wheel.pause(timers.get(some));
+                    Expected timer = expected.get(some);
+                    if (!timer.paused) timer.remaining = timer.deadline - now;
+                    timer.paused = true;
+                    if (timer.remaining < Long.MAX_VALUE / 1_000_000) { // Longer ones are clamped.
+                        assertEquals(Duration.ofMillis(timer.remaining), wheel.getRemaining(timers.get(some)));
+                    }
+                } else if (kind == 6 && some != null) {
+                    wheel.resume(timers.get(some));
+                    Expected timer = expected.get(some);
+                    if (timer.paused) {
+                        timer.deadline = now + timer.remaining;
+                        timer.sequence = sequence++;
+                    }
+                    timer.paused = false;
+                } else if (kind >= 7) {
+                    long to = now + (long) (random.nextDouble() * spread * (random.nextInt(5) == 0 ? 3 : 0.3));
+                    List<Integer> due = new ArrayList<>();
+                    for (Map.Entry<Integer, Expected> timer : expected.entrySet()) {
+                        if (!timer.getValue().paused && timer.getValue().deadline <= to) due.add(timer.getKey());
+                    }
+                    due.sort(Comparator.<Integer>comparingLong(id -> expected.get(id).deadline)
+                            .thenComparingLong(id -> expected.get(id).sequence));
+                    List<Integer> expired = new ArrayList<>();
+                    wheel.advance(to, timer -> {
+                        assertEquals(timer.getDeadline(), wheel.getNow());
+                        assertTrue(timer.isExpired());
+                        expired.add(timer.getPayload());
+                    });
+                    assertEquals(due, expired, "run " + run + ", operation " + operation);
+                    due.forEach(expected::remove);
+                    now = to;
+                    assertEquals(now, wheel.getNow());
+                }
+                assertEquals(expected.values().stream().filter(timer -> !timer.paused).count(), wheel.size());
+            }
+        }
+    }
+
+    /**
+     * A Timer started by the consumer of an advance, at the deadline it is told about, expires in the same advance.
+     */
+    @Test
+    void timersStartedWhileExpiringExpireInTheSameAdvance() {
+        TimingWheel<String> wheel = new TimingWheel<>(Duration.ofSeconds(1));
+        wheel.start("first", Duration.ofMinutes(2));
+        List<String> expired = new ArrayList<>();
+        wheel.advance(1000, timer -> {
+            expired.add(timer.getPayload() + "@" + wheel.getNow());
+            if (timer.getPayload().equals("first")) {
+                wheel.start("now", 0);
+                wheel.start("later", 100);
+            }
+        });
+        assertEquals(List.of("first@120", "now@120", "later@220"), expired);
+        assertEquals(0, wheel.size());
+    }
+}
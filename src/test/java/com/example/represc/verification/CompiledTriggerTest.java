@@ -0,0 +1,37 @@
+package com.example.represc.verification;
+
+import com.example.represc.data.Trigger;
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CompiledTriggerTest {
+
+    /**
+     * Random Triggers, compiled, hold in the random configurations where a plain evaluation of their JSONLogic says
+     * they do.
+     */
+    @Test
+    void matchesThePlainEvaluation() {
+        Random random = new Random(19);
+        int[] outcomes = new int[2];
+        for (int trial = 0; trial < 200; trial++) {
+            StateSpace space = RandomTriggers.space(random);
+            for (int t = 0; t < 20; t++) {
+                Trigger trigger = RandomTriggers.next(space, random, 4);
+                CompiledTrigger compiled = CompiledTrigger.compile(trigger, space);
+                for (int c = 0; c < 20; c++) {
+                    long[] configuration = RandomTriggers.configuration(space, random);
+                    boolean holds = RandomTriggers.holds(trigger, space, configuration);
+                    assertEquals(holds, compiled.test(configuration), trigger.getSource());
+                    outcomes[holds ? 1 : 0]++;
+                }
+            }
+        }
+        // Neither outcome is so rare that the Triggers drawn are mostly constant.
+        assertTrue(outcomes[0] > 20_000 && outcomes[1] > 20_000, outcomes[0] + " / " + outcomes[1]);
+    }
+}
@@ -0,0 +1,59 @@
+package com.example.represc.verification;
+
+import com.example.represc.data.EscapeGame;
+import com.example.represc.data.Event;
+import com.example.represc.data.Geometry;
+import com.example.represc.data.PhysicalElement;
+import com.example.represc.data.Trigger;
+import com.example.represc.utils.commonPhysicalElements.ElementType;
+import org.junit.jupiter.api.Test;
+
+import java.util.Set;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ConsistencyCheckerTest {
+
+    /**
+     * Deleting a Physical Element, or one of its States, which an Event switches or watches is reported on the Event,
+     * and adding it back fixes it.
+     */
+    @Test
+    void danglingEventReferencesAreReported() {
+        EscapeGame game = new EscapeGame();
+        game.setName("Room");
+        PhysicalElement safe = new PhysicalElement("Safe", Geometry.parse("M 0 0"), true, ElementType.LOCK);
+        safe.addState(new PhysicalElement.State("Closed", true));
+        UUID unlocked = safe.addState(new PhysicalElement.State("Unlocked", true));
+        UUID safeId = game.addPhysicalElement(safe);
+        PhysicalElement door = new PhysicalElement("Door", Geometry.parse("M 0 0"), true, ElementType.DOOR);
+        door.addState(new PhysicalElement.State("Closed", true));
+        UUID open = door.addState(new PhysicalElement.State("Open", true));
+        UUID doorId = game.addPhysicalElement(door);
+        Event event = new Event("The door opens");
+        event.setTrigger(Trigger.parse("{\"and\":[{\"==\":[{\"var\":\"" + safeId + "\"},\"" + unlocked + "\"]},"
+                + "{\"in\":[{\"var\":\"" + doorId + "\"},[\"" + open + "\"]]}]}"));
+        event.addAction(new Event.Action(doorId, open));
+        UUID eventId = game.addEvent(event);
+
+        ConsistencyChecker checker = new ConsistencyChecker(game);
+        assertTrue(checker.isConsistent(), checker.getViolations().toString());
+
+        door.deleteState(open);
+        assertEquals(Set.of(new Violation(Violation.Kind.EVENT_ACTION_STATE_UNKNOWN, eventId, open),
+                new Violation(Violation.Kind.EVENT_TRIGGER_STATE_UNKNOWN, eventId, doorId)), checker.getViolations());
+        door.addState(open, new PhysicalElement.State("Open", true));
+        assertTrue(checker.isConsistent(), checker.getViolations().toString());
+
+        game.deletePhysicalElement(safeId);
+        assertEquals(Set.of(new Violation(Violation.Kind.EVENT_TRIGGER_ELEMENT_MISSING, eventId, safeId)),
+                checker.getViolations());
+        game.deletePhysicalElement(doorId);
+        assertEquals(3, checker.getViolations().size());
+        game.deleteEvent(eventId);
+        assertTrue(checker.isConsistent(), checker.getViolations().toString());
+        checker.close();
+    }
+}
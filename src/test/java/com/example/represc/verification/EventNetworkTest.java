@@ -0,0 +1,72 @@
+package com.example.represc.verification;
+
+import com.example.represc.data.Trigger;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class EventNetworkTest {
+
+    /**
+     * After each change of one Physical Element, the Triggers an EventNetwork says hold are the ones a full evaluation
+     * says hold, and the ones it lets be polled are the ones which didn't hold before the change.
+     */
+    @Test
+    void matchesAFullEvaluation() {
+        Random random = new Random(20);
+        for (int trial = 0; trial < 100; trial++) {
+            StateSpace space = RandomTriggers.space(random);
+            List<Trigger> triggers = new ArrayList<>();
+            int count = 1 + random.nextInt(30);
+            for (int t = 0; t < count; t++) {
+                triggers.add(random.nextInt(10) == 0 ? null : RandomTriggers.next(space, random, 3));
+            }
+            EventNetwork network = new EventNetwork(space, triggers);
+
+            long[] configuration = RandomTriggers.configuration(space, random);
+            network.reset(configuration);
+            boolean[] before = evaluate(triggers, space, configuration);
+            List<Integer> expected = new ArrayList<>();
+            for (int t = 0; t < count; t++) {
+                if (before[t]) expected.add(t);
+            }
+            assertEquals(expected, pollAll(network), "trial " + trial);
+
+            for (int change = 0; change < 200; change++) {
+                int element = random.nextInt(space.size());
+                RandomTriggers.change(space, configuration, element, random);
+                network.update(configuration, element);
+                boolean[] after = evaluate(triggers, space, configuration);
+                Set<Integer> started = new HashSet<>();
+                for (int t = 0; t < count; t++) {
+                    assertEquals(after[t], network.holds(t), "trial " + trial + ", change " + change);
+                    if (after[t] && !before[t]) started.add(t);
+                }
+                List<Integer> polled = pollAll(network);
+                assertEquals(started, new HashSet<>(polled), "trial " + trial + ", change " + change);
+                assertEquals(polled.size(), started.size());
+                before = after;
+            }
+        }
+    }
+
+    private static boolean[] evaluate(List<Trigger> triggers, StateSpace space, long[] configuration) {
+        boolean[] holding = new boolean[triggers.size()];
+        for (int t = 0; t < holding.length; t++) {
+            holding[t] = triggers.get(t) != null && RandomTriggers.holds(triggers.get(t), space, configuration);
+        }
+        return holding;
+    }
+
+    private static List<Integer> pollAll(EventNetwork network) {
+        List<Integer> polled = new ArrayList<>();
+        for (int trigger = network.poll(); trigger >= 0; trigger = network.poll()) polled.add(trigger);
+        return polled;
+    }
+}
@@ -0,0 +1,124 @@
+package com.example.represc.verification;
+
+import com.example.represc.data.EscapeGame;
+import com.example.represc.data.Event;
+import com.example.represc.data.Geometry;
+import com.example.represc.data.PhysicalElement;
+import com.example.represc.data.Trigger;
+import com.example.represc.utils.commonPhysicalElements.ElementType;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ParallelExplorerTest {
+
+    /**
+     * Every pool size, on and off the heap, gives the verdict of the sequential search and the same shortest witness.
+     */
+    @Test
+    void matchesTheSequentialSearch() {
+        Random random = new Random(11);
+        for (int trial = 0; trial < 40; trial++) {
+            RandomGames.Case drawn = RandomGames.next(random);
+            Solvability sequential = new SolvabilityVerifier(drawn.game, drawn.goal).verify();
+            RandomGames.assertMatches(drawn, sequential);
+
+            Set<String> witnesses = new HashSet<>();
+            for (int parallelism : new int[]{1, 2, 4, 8}) {
+                ForkJoinPool pool = new ForkJoinPool(parallelism);
+                try {
+                    for (boolean offHeap : new boolean[]{false, true}) {
+                        Solvability parallel = new SolvabilityVerifier(drawn.game, drawn.goal, offHeap)
+                                .verifyInParallel(pool);
+                        assertEquals(sequential.getVerdict(), parallel.getVerdict(), "trial " + trial);
+                        RandomGames.assertMatches(drawn, parallel);
+                        parallel.getWitness().ifPresent(witness -> witnesses.add(witness.toString()));
+                    }
+                } finally {
+                    pool.shutdown();
+                }
+            }
+            assertEquals(sequential.isSolvable() ? 1 : 0, witnesses.size(), "trial " + trial);
+        }
+    }
+
+    /**
+     * A Goal met at the depth where the limit is reached is still reported.
+     */
+    @Test
+    void goalFoundAtTheLimitIsSolvable() {
+        Random random = new Random(3);
+        for (int trial = 0; trial < 40; trial++) {
+            RandomGames.Case drawn = RandomGames.next(random);
+            if (RandomGames.shortestWitness(drawn) != 1) continue;
+            Solvability parallel = new SolvabilityVerifier(drawn.game, drawn.goal)
+                    .verifyInParallel(ForkJoinPool.commonPool(), 1);
+            assertEquals(Solvability.Verdict.SOLVABLE, parallel.getVerdict(), "trial " + trial);
+            RandomGames.assertMatches(drawn, parallel);
+        }
+    }
+
+    /**
+     * A limit reached in the middle of a depth gives no witness, whatever the Goals found in the part of it expanded:
+     * the answer is UNKNOWN, or the witness the whole exploration gives. The door opens by an Event once any of four
+     * pairs of levers is pulled, which makes four configurations meeting the Goal at the same depth.
+     */
+    @Test
+    void depthStoppedMidwayGivesNoWitness() {
+        EscapeGame game = new EscapeGame();
+        game.setName("Levers");
+        StringBuilder trigger = new StringBuilder("{\"or\":[");
+        for (int pair = 0; pair < 4; pair++) {
+            trigger.append(pair > 0 ? "," : "").append("{\"and\":[");
+            for (int i = 0; i < 2; i++) {
+                PhysicalElement lever = new PhysicalElement("Lever " + pair + "." + i, Geometry.parse("M 0 0"), true,
+                        ElementType.LOCK);
+                lever.addState(new PhysicalElement.State("Down", true));
+                UUID up = lever.addState(new PhysicalElement.State("Up", true));
+                UUID id = game.addPhysicalElement(lever);
+                trigger.append(i > 0 ? "," : "").append("{\"==\":[{\"var\":\"").append(id).append("\"},\"")
+                        .append(up).append("\"]}");
+            }
+            trigger.append("]}");
+        }
+        PhysicalElement door = new PhysicalElement("Door", Geometry.parse("M 0 0"), false, ElementType.DOOR);
+        door.addState(new PhysicalElement.State("Closed", false));
+        UUID open = door.addState(new PhysicalElement.State("Open", false));
+        UUID doorId = game.addPhysicalElement(door);
+        Event event = new Event("The door opens");
+        event.setTrigger(Trigger.parse(trigger + "]}"));
+        event.addAction(new Event.Action(doorId, open));
+        game.addEvent(event);
+        Goal goal = new Goal();
+        goal.requireState(doorId, open);
+
+        String whole = new SolvabilityVerifier(game, goal).verifyInParallel(ForkJoinPool.commonPool())
+                .getWitness().orElseThrow().toString();
+        int unknown = 0;
+        for (int parallelism : new int[]{1, 2, 4}) {
+            ForkJoinPool pool = new ForkJoinPool(parallelism);
+            try {
+                for (long limit = 2; limit <= 9; limit++) {
+                    for (int run = 0; run < 10; run++) {
+                        Solvability limited = new SolvabilityVerifier(game, goal).verifyInParallel(pool, limit);
+                        if (limited.getVerdict() == Solvability.Verdict.UNKNOWN) {
+                            unknown++;
+                        } else {
+                            assertEquals(whole, limited.getWitness().orElseThrow().toString(), "limit " + limit);
+                        }
+                    }
+                }
+            } finally {
+                pool.shutdown();
+            }
+        }
+        assertTrue(unknown > 0);
+    }
+}
@@ -0,0 +1,75 @@
+package com.example.represc.verification;
+
+import com.example.represc.data.EscapeGame;
+import com.example.represc.data.Geometry;
+import com.example.represc.data.PhysicalElement;
+import com.example.represc.utils.commonPhysicalElements.ElementType;
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class PartialOrderReductionTest {
+
+    /**
+     * Exploring the stubborn sets only keeps the verdict and the witness length of the analytic check.
+     */
+    @Test
+    void randomGamesKeepTheirVerdicts() {
+        Random random = new Random(15);
+        for (int trial = 0; trial < 100; trial++) {
+            RandomGames.Case drawn = RandomGames.next(random);
+            RandomGames.assertMatches(drawn, new SolvabilityVerifier(drawn.game, drawn.goal).verify());
+            RandomGames.assertMatches(drawn, new SolvabilityVerifier(drawn.game, drawn.goal, true).verify());
+        }
+    }
+
+    /**
+     * Fourteen independent locks are opened one after the other, in a single order: the configurations explored grow
+     * with the number of locks, instead of the 3^14 configurations of every order.
+     */
+    @Test
+    void independentPuzzlesAreNotInterleaved() {
+        EscapeGame game = new EscapeGame();
+        game.setName("Locks");
+        Goal goal = new Goal();
+        for (int i = 0; i < 14; i++) {
+            PhysicalElement lock = new PhysicalElement("Lock " + i, Geometry.parse("M 0 0"), true, ElementType.LOCK);
+            lock.addState(new PhysicalElement.State("Locked", true));
+            lock.addState(new PhysicalElement.State("Jammed", true));
+            // Distinct names, so that no two locks are symmetric.
+            UUID open = lock.addState(new PhysicalElement.State("Open " + i, true));
+            goal.requireState(game.addPhysicalElement(lock), open);
+        }
+
+        Solvability solvability = new SolvabilityVerifier(game, goal).verify();
+        assertEquals(14, solvability.getWitness().orElseThrow().size());
+        assertTrue(solvability.getExploredConfigurations() <= 2 * 14, solvability.toString());
+    }
+
+    /**
+     * A configuration from which the first requirement can't be met anymore has no successor.
+     */
+    @Test
+    void unreachableRequirementPrunesTheSearch() {
+        EscapeGame game = new EscapeGame();
+        game.setName("Locks");
+        Goal goal = new Goal();
+        PhysicalElement stuck = new PhysicalElement("Stuck", Geometry.parse("M 0 0"), true, ElementType.LOCK);
+        stuck.addState(new PhysicalElement.State("Locked", true));
+        goal.requireState(game.addPhysicalElement(stuck), stuck.addState(new PhysicalElement.State("Open", false)));
+        for (int i = 0; i < 10; i++) {
+            PhysicalElement lock = new PhysicalElement("Lock " + i, Geometry.parse("M 0 0"), true, ElementType.LOCK);
+            lock.addState(new PhysicalElement.State("Locked", true));
+            UUID open = lock.addState(new PhysicalElement.State("Open " + i, true));
+            goal.requireState(game.addPhysicalElement(lock), open);
+        }
+
+        Solvability solvability = new SolvabilityVerifier(game, goal).verify();
+        assertEquals(Solvability.Verdict.UNSOLVABLE, solvability.getVerdict());
+        assertEquals(1, solvability.getExploredConfigurations());
+    }
+}
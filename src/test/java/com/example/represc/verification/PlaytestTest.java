@@ -0,0 +1,128 @@
+package com.example.represc.verification;
+
+import com.example.represc.data.EscapeGame;
+import com.example.represc.data.Event;
+import com.example.represc.data.Geometry;
+import com.example.represc.data.Hint;
+import com.example.represc.data.PhysicalElement;
+import com.example.represc.data.Trigger;
+import com.example.represc.utils.commonPhysicalElements.ElementType;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class PlaytestTest {
+
+    /**
+     * @return Returns a Playtest of 500 sessions of an escape game for 2 to 6 players where four locks of six States
+     * each open a door by an Event, with a Hint about each lock.
+     */
+    private static Playtest vault() {
+        return vault(2, 6);
+    }
+
+    /**
+     * @return Returns a Playtest of 500 sessions of the vault, for {@code minimum} to {@code maximum} players.
+     */
+    private static Playtest vault(int minimum, int maximum) {
+        EscapeGame game = new EscapeGame();
+        game.setName("Vault");
+        game.setEstimatedDuration(Duration.ofMinutes(60));
+        game.setPlayersRange(minimum, maximum);
+        Goal goal = new Goal();
+        StringBuilder trigger = new StringBuilder("{\"and\":[");
+        for (int i = 0; i < 8; i++) {
+            PhysicalElement lock = new PhysicalElement("Lock " + i, Geometry.parse("M 0 0"), true, ElementType.LOCK);
+            UUID last = null;
+            for (int s = 0; s < 6; s++) last = lock.addState(new PhysicalElement.State("c" + s, true));
+            UUID id = game.addPhysicalElement(lock);
+            if (i >= 4) continue; // The other locks open nothing.
+            trigger.append(i > 0 ? "," : "").append("{\"==\":[{\"var\":\"").append(id).append("\"},\"")
+                    .append(last).append("\"]}");
+            goal.requireState(id, last);
+            Hint hint = new Hint("Hint " + i);
+            hint.addPhysicalElement(id);
+            game.addHint(hint);
+        }
+        PhysicalElement door = new PhysicalElement("Door", Geometry.parse("M 0 0"), true, ElementType.DOOR);
+        door.addState(new PhysicalElement.State("Closed", true));
+        UUID open = door.addState(new PhysicalElement.State("Open", false));
+        UUID doorId = game.addPhysicalElement(door);
+        Event event = new Event("The door opens");
+        event.setTrigger(Trigger.parse(trigger + "]}"));
+        event.addAction(new Event.Action(doorId, open));
+        game.addEvent(event);
+        goal.requireState(doorId, open);
+
+        Playtest playtest = new Playtest(game, goal);
+        playtest.setSessions(500);
+        return playtest;
+    }
+
+    /**
+     * The same seed gives the same report, whatever the PlayerPolicy and the number of threads, and another seed
+     * another one.
+     */
+    @Test
+    void sameSeedSameReport() {
+        Playtest playtest = vault();
+        for (PlayerPolicy policy : List.of(PlayerPolicy.random(), PlayerPolicy.greedy(),
+                PlayerPolicy.hintSeeking(Duration.ofMinutes(5)))) {
+            playtest.setPolicy(policy);
+            PlaytestReport report = playtest.run(42);
+            assertEquals(500, report.getSessions());
+            for (int parallelism : new int[]{1, 4}) {
+                ForkJoinPool pool = new ForkJoinPool(parallelism);
+                try {
+                    PlaytestReport again = playtest.run(pool, 42);
+                    assertEquals(report.toString(), again.toString());
+                    assertEquals(report.getCompletionTimes(), again.getCompletionTimes());
+                } finally {
+                    pool.shutdown();
+                }
+            }
+            if (report.getCompleted() > 0) {
+                assertNotEquals(report.getCompletionTimes(), playtest.run(43).getCompletionTimes());
+            }
+        }
+    }
+
+    /**
+     * A game allowing no player is played by one, so that the players still try moves, and no session ends after the
+     * time limit, even when they ask for a Hint as soon as they can.
+     */
+    @Test
+    void gameWithoutPlayersIsPlayedByOne() {
+        Playtest playtest = vault(0, 0);
+        playtest.setPolicy(PlayerPolicy.hintSeeking(Duration.ZERO));
+        PlaytestReport report = assertTimeoutPreemptively(Duration.ofSeconds(30), () -> playtest.run(42));
+        assertEquals(500, report.getCompleted() + report.getTimedOut());
+        assertTrue(report.getCompleted() > 0, report.toString());
+        for (Duration time : report.getCompletionTimes()) {
+            assertFalse(time.isNegative() || time.compareTo(Duration.ofHours(2)) > 0, time.toString());
+        }
+    }
+
+    @Test
+    void interruptedPlaytestIsCancelled() {
+        Playtest playtest = vault();
+        Thread.currentThread().interrupt();
+        try {
+            assertThrows(CancellationException.class, () -> playtest.run(42));
+            assertTrue(Thread.currentThread().isInterrupted());
+        } finally {
+            Thread.interrupted();
+        }
+    }
+}
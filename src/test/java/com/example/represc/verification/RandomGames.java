@@ -0,0 +1,119 @@
+package com.example.represc.verification;
+
+import com.example.represc.data.EscapeGame;
+import com.example.represc.data.Geometry;
+import com.example.represc.data.PhysicalElement;
+import com.example.represc.utils.commonPhysicalElements.ElementType;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * The random escape games the verification tests explore, and the analytic verdict they are checked against.
+ */
+final class RandomGames {
+
+    private RandomGames() {
+    }
+
+    /**
+     * @overview An escape game and a Goal on its Physical Elements.
+     */
+    static final class Case {
+        final EscapeGame game = new EscapeGame();
+        final Goal goal = new Goal();
+
+        private Case() {
+            game.setName("Random");
+        }
+    }
+
+    /**
+     * @return Returns an escape game of 2 to 10 Physical Elements without Event, drawn from {@code random}: some of
+     * them, or some of their States, are not accessible, and the Goal requires a State of most of them.
+     */
+    static Case next(Random random) {
+        return next(random, false);
+    }
+
+    /**
+     * @return Returns an escape game drawn as by {@code next(random)}, where each Physical Element has an identical
+     * twin if {@code twins}, which may start in another State.
+     */
+    static Case next(Random random, boolean twins) {
+        Case drawn = new Case();
+        int count = 2 + random.nextInt(9);
+        for (int i = 0; i < count; i++) {
+            boolean accessible = random.nextInt(12) != 0;
+            int states = 1 + random.nextInt(4);
+            boolean[] switchable = new boolean[states];
+            for (int s = 0; s < states; s++) switchable[s] = random.nextInt(6) != 0;
+            int required = random.nextInt(4) != 0 ? random.nextInt(states) : -1;
+            boolean accessibleRequired = random.nextInt(10) == 0;
+            for (int copy = 0; copy < (twins ? 2 : 1); copy++) {
+                PhysicalElement element = new PhysicalElement("e" + i + "." + copy, Geometry.parse("M 0 0"),
+                        accessible, ElementType.LOCK);
+                List<UUID> ids = new ArrayList<>();
+                for (int s = 0; s < states; s++) {
+                    ids.add(element.addState(new PhysicalElement.State("s" + s, switchable[s])));
+                }
+                if (copy > 0) element.setInitialState(ids.get(random.nextInt(states)));
+                UUID id = drawn.game.addPhysicalElement(element);
+                if (required >= 0) drawn.goal.requireState(id, ids.get(required));
+                if (accessibleRequired) drawn.goal.requireAccessible(id);
+            }
+        }
+        return drawn;
+    }
+
+    /**
+     * @return Returns the length of the shortest witness of {@code drawn}, which has no Event, or -1 if it is not
+     * solvable: each Physical Element is switched on its own, straight to the State required if both are accessible.
+     */
+    static int shortestWitness(Case drawn) {
+        int length = 0;
+        for (Map.Entry<UUID, UUID> required : drawn.goal.getRequiredStates().entrySet()) {
+            PhysicalElement element = drawn.game.getPhysicalElement(required.getKey());
+            if (required.getValue().equals(element.getInitialStateUUID().orElseThrow())) continue;
+            if (!element.isAccessible() || !element.getState(required.getValue()).isAccessible()) return -1;
+            length++;
+        }
+        for (UUID element : drawn.goal.getRequiredAccessible()) {
+            if (!drawn.game.getPhysicalElement(element).isAccessible()) return -1;
+        }
+        return length;
+    }
+
+    /**
+     * @effects Checks that {@code solvability} has the verdict and the witness length of the analytic check, and that
+     * its witness, if any, can be played and meets the Goal.
+     */
+    static void assertMatches(Case drawn, Solvability solvability) {
+        int length = shortestWitness(drawn);
+        assertEquals(length >= 0, solvability.isSolvable(), solvability.toString());
+        if (length < 0) return;
+        List<Solvability.Step> witness = solvability.getWitness().orElseThrow();
+        assertEquals(length, witness.size());
+
+        Map<UUID, UUID> current = new HashMap<>();
+        for (Solvability.Step step : witness) {
+            PhysicalElement element = drawn.game.getPhysicalElement(step.getElement());
+            UUID from = current.getOrDefault(step.getElement(), element.getInitialStateUUID().orElseThrow());
+            assertEquals(from, step.getFrom());
+            assertTrue(element.isAccessible() && element.getState(step.getTo()).isAccessible());
+            current.put(step.getElement(), step.getTo());
+        }
+        for (Map.Entry<UUID, UUID> required : drawn.goal.getRequiredStates().entrySet()) {
+            PhysicalElement element = drawn.game.getPhysicalElement(required.getKey());
+            assertEquals(required.getValue(),
+                    current.getOrDefault(required.getKey(), element.getInitialStateUUID().orElseThrow()));
+        }
+    }
+}
@@ -0,0 +1,195 @@
+package com.example.represc.verification;
+
+import com.example.represc.data.EscapeGame;
+import com.example.represc.data.Geometry;
+import com.example.represc.data.PhysicalElement;
+import com.example.represc.data.Trigger;
+import com.example.represc.utils.commonPhysicalElements.ElementType;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.Random;
+import java.util.UUID;
+
+/**
+ * The random Triggers the Event tests compile, on a StateSpace of random Physical Elements, and a plain evaluation of
+ * their JSONLogic they are checked against.
+ */
+final class RandomTriggers {
+
+    private RandomTriggers() {
+    }
+
+    /**
+     * @return Returns a StateSpace of 2 to 7 Physical Elements drawn from {@code random}, of 0 to 5 States each, with
+     * no Event and no symmetry reduced.
+     */
+    static StateSpace space(Random random) {
+        EscapeGame game = new EscapeGame();
+        game.setName("Triggers");
+        List<UUID> elements = new ArrayList<>();
+        int count = 2 + random.nextInt(6);
+        for (int i = 0; i < count; i++) {
+            PhysicalElement element = new PhysicalElement("Element " + i, Geometry.parse("M 0 0"),
+                    random.nextBoolean(), ElementType.LOCK);
+            int states = random.nextInt(6);
+            for (int s = 0; s < states; s++) element.addState(new PhysicalElement.State("s" + s, true));
+            elements.add(game.addPhysicalElement(element));
+        }
+        return new StateSpace(game, elements, new Goal(), false);
+    }
+
+    /**
+     * @return Returns a configuration of {@code space} drawn from {@code random}.
+     */
+    static long[] configuration(StateSpace space, Random random) {
+        long[] configuration = space.initial();
+        for (int element = 0; element < space.size(); element++) change(space, configuration, element, random);
+        return configuration;
+    }
+
+    /**
+     * @effects Puts the Physical Element of index {@code element} in a State and an accessibility drawn from
+     * {@code random}.
+     */
+    static void change(StateSpace space, long[] configuration, int element, Random random) {
+        int states = space.stateCount(element);
+        if (states > 0) space.setState(configuration, element, random.nextInt(states));
+        long bit = space.accessibleBit(element);
+        int word = space.wordOf(element);
+        configuration[word] = random.nextBoolean() ? configuration[word] | bit : configuration[word] & ~bit;
+    }
+
+    /**
+     * @return Returns a Trigger on the Physical Elements of {@code space} drawn from {@code random}, using every
+     * operator a Trigger supports, nested at most {@code depth} times.
+     */
+    static Trigger next(StateSpace space, Random random, int depth) {
+        return Trigger.parse(rule(space, random, depth));
+    }
+
+    private static String rule(StateSpace space, Random random, int depth) {
+        if (depth == 0 || random.nextInt(4) == 0) {
+            return random.nextBoolean() ? variable(space, random) : constant(space, random);
+        }
+        return switch (random.nextInt(10)) {
+            case 0, 1 -> operation(random.nextBoolean() ? "==" : "===", space, random, depth, 2);
+            case 2 -> operation(random.nextBoolean() ? "!=" : "!==", space, random, depth, 2);
+            case 3 -> operation(random.nextBoolean() ? "!" : "!!", space, random, depth, 1);
+            case 4, 5 -> operation("and", space, random, depth, 1 + random.nextInt(4));
+            case 6 -> operation("or", space, random, depth, 1 + random.nextInt(4));
+            case 7 -> operation("if", space, random, depth, 1 + random.nextInt(5));
+            case 8 -> operation("?:", space, random, depth, 3);
+            default -> "{\"in\":[" + rule(space, random, depth - 1) + "," + container(space, random) + "]}";
+        };
+    }
+
+    private static String operation(String operator, StateSpace space, Random random, int depth, int arguments) {
+        StringBuilder s = new StringBuilder("{\"").append(operator).append("\":[");
+        for (int i = 0; i < arguments; i++) s.append(i > 0 ? "," : "").append(rule(space, random, depth - 1));
+        return s.append("]}").toString();
+    }
+
+    private static String variable(StateSpace space, Random random) {
+        int element = random.nextInt(space.size());
+        return "{\"var\":\"" + space.elementId(element) + (random.nextInt(3) == 0 ? Trigger.ACCESSIBLE : "") + "\"}";
+    }
+
+    private static String constant(StateSpace space, Random random) {
+        return switch (random.nextInt(8)) {
+            case 0 -> "true";
+            case 1 -> "false";
+            case 2 -> "null";
+            case 3 -> new String[]{"0", "1", "2.5"}[random.nextInt(3)];
+            case 4 -> "\"\"";
+            case 5 -> "\"text\"";
+            default -> "\"" + state(space, random) + "\"";
+        };
+    }
+
+    private static String container(StateSpace space, Random random) {
+        if (random.nextBoolean()) {
+            StringBuilder s = new StringBuilder("[");
+            int count = random.nextInt(4);
+            for (int i = 0; i < count; i++) s.append(i > 0 ? "," : "").append(constant(space, random));
+            return s.append("]").toString();
+        }
+        return "\"" + state(space, random) + " true " + state(space, random) + " 1\"";
+    }
+
+    private static String state(StateSpace space, Random random) {
+        int element = random.nextInt(space.size());
+        int states = space.stateCount(element);
+        return states == 0 ? "none" : space.stateId(element, random.nextInt(states)).toString();
+    }
+
+    /**
+     * @return Returns true if {@code trigger} holds in {@code configuration} of {@code space}, evaluating its JSONLogic
+     * as it is, without the conversions between types: a Physical Element gives the UUID of its State, null if it has
+     * none, {@code .accessible} a boolean, and {@code and}, {@code or} and {@code if} give booleans.
+     */
+    static boolean holds(Trigger trigger, StateSpace space, long[] configuration) {
+        return isTruthy(evaluate(trigger.getRoot(), space, configuration));
+    }
+
+    private static Object evaluate(Trigger.Node node, StateSpace space, long[] configuration) {
+        if (node instanceof Trigger.Literal) return ((Trigger.Literal) node).getValue();
+        if (node instanceof Trigger.Variable) {
+            int element = space.indexOf(((Trigger.Variable) node).getElement());
+            if (((Trigger.Variable) node).isAccessible()) return space.isAccessible(configuration, element);
+            if (space.stateCount(element) == 0) return null;
+            return space.stateId(element, space.stateOf(configuration, element)).toString();
+        }
+
+        Trigger.Operation operation = (Trigger.Operation) node;
+        List<Object> values = new ArrayList<>();
+        for (Trigger.Node argument : operation.getArguments()) values.add(evaluate(argument, space, configuration));
+        switch (operation.getOperator()) {
+            case "==", "===" -> {
+                return Objects.equals(values.get(0), values.get(1));
+            }
+            case "!=", "!==" -> {
+                return !Objects.equals(values.get(0), values.get(1));
+            }
+            case "!" -> {
+                return !isTruthy(values.get(0));
+            }
+            case "!!" -> {
+                return isTruthy(values.get(0));
+            }
+            case "and" -> {
+                return values.stream().allMatch(RandomTriggers::isTruthy);
+            }
+            case "or" -> {
+                return values.stream().anyMatch(RandomTriggers::isTruthy);
+            }
+            case "if", "?:" -> {
+                for (int pair = 0; pair + 1 < values.size(); pair += 2) {
+                    if (isTruthy(values.get(pair))) return isTruthy(values.get(pair + 1));
+                }
+                return values.size() % 2 == 1 && isTruthy(values.get(values.size() - 1));
+            }
+            default -> { // "in"
+                Object container = values.get(1);
+                if (container instanceof List) return ((List<?>) container).contains(values.get(0));
+                return values.get(0) != null && ((String) container).contains(toText(values.get(0)));
+            }
+        }
+    }
+
+    private static boolean isTruthy(Object value) {
+        if (value == null) return false;
+        if (value instanceof Boolean) return (Boolean) value;
+        if (value instanceof Double) return (Double) value != 0 && !((Double) value).isNaN();
+        if (value instanceof String) return !((String) value).isEmpty();
+        return !((List<?>) value).isEmpty();
+    }
+
+    private static String toText(Object value) {
+        if (value instanceof Double && (Double) value == Math.rint((Double) value)) {
+            return Long.toString(((Double) value).longValue());
+        }
+        return String.valueOf(value);
+    }
+}
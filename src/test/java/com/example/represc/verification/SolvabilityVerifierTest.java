@@ -0,0 +1,191 @@
+package com.example.represc.verification;
+
+import com.example.represc.data.EscapeGame;
+import com.example.represc.data.Event;
+import com.example.represc.data.Geometry;
+import com.example.represc.data.PhysicalElement;
+import com.example.represc.data.Trigger;
+import com.example.represc.utils.commonPhysicalElements.ElementType;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SolvabilityVerifierTest {
+
+    /**
+     * A door no player can open is opened by an Event once four locks are in their last State: every verifier finds
+     * the four Steps, and the Simulator, playing them, meets the Goal.
+     */
+    @Test
+    void eventsOpenTheDoor(@TempDir Path directory) throws IOException {
+        EscapeGame game = new EscapeGame();
+        game.setName("Door");
+        StringBuilder trigger = new StringBuilder("{\"and\":[");
+        for (int i = 0; i < 7; i++) {
+            PhysicalElement lock = new PhysicalElement("Lock " + i, Geometry.parse("M 0 0"), true, ElementType.LOCK);
+            UUID last = null;
+            for (int s = 0; s < 4; s++) last = lock.addState(new PhysicalElement.State("c" + s + "." + i, true));
+            UUID id = game.addPhysicalElement(lock);
+            // The last three locks open nothing.
+            if (i < 4) trigger.append(i > 0 ? "," : "").append(equal(id, last));
+        }
+        PhysicalElement door = new PhysicalElement("Door", Geometry.parse("M 0 0"), true, ElementType.LOCK);
+        door.addState(new PhysicalElement.State("Closed", true));
+        UUID open = door.addState(new PhysicalElement.State("Open", false));
+        UUID doorId = game.addPhysicalElement(door);
+        game.addEvent(event("Open the door", trigger + "]}", doorId, open));
+        Goal goal = new Goal();
+        goal.requireState(doorId, open);
+
+        Solvability sequential = new SolvabilityVerifier(game, goal).verify();
+        assertEquals(Solvability.Verdict.SOLVABLE, sequential.getVerdict(), sequential.toString());
+        List<Solvability.Step> witness = sequential.getWitness().orElseThrow();
+        assertEquals(4, witness.size());
+        assertTrue(replay(game, goal, witness));
+
+        for (int parallelism : new int[]{1, 4}) {
+            ForkJoinPool pool = new ForkJoinPool(parallelism);
+            try {
+                for (boolean offHeap : new boolean[]{false, true}) {
+                    Solvability parallel = new SolvabilityVerifier(game, goal, offHeap).verifyInParallel(pool);
+                    assertEquals(4, parallel.getWitness().orElseThrow().size());
+                    assertTrue(replay(game, goal, parallel.getWitness().orElseThrow()));
+                }
+            } finally {
+                pool.shutdown();
+            }
+        }
+        Solvability external = new SolvabilityVerifier(game, goal).verifyOnDisk(directory);
+        assertEquals(4, external.getWitness().orElseThrow().size());
+        assertTrue(replay(game, goal, external.getWitness().orElseThrow()));
+        Solvability compositional = new CompositionalVerifier(game, goal, new SummaryCache()).verify();
+        assertEquals(4, compositional.getWitness().orElseThrow().size());
+        assertTrue(replay(game, goal, compositional.getWitness().orElseThrow()));
+    }
+
+    /**
+     * An Event triggered by another one happens in the same move.
+     */
+    @Test
+    void cascadingEventsAreFollowed() {
+        EscapeGame game = new EscapeGame();
+        game.setName("Relay");
+        PhysicalElement lever = new PhysicalElement("Lever", Geometry.parse("M 0 0"), true, ElementType.LOCK);
+        lever.addState(new PhysicalElement.State("Down", true));
+        UUID up = lever.addState(new PhysicalElement.State("Up", true));
+        UUID leverId = game.addPhysicalElement(lever);
+        PhysicalElement relay = new PhysicalElement("Relay", Geometry.parse("M 0 0"), false, ElementType.LOCK);
+        relay.addState(new PhysicalElement.State("Off", false));
+        UUID on = relay.addState(new PhysicalElement.State("On", false));
+        UUID relayId = game.addPhysicalElement(relay);
+        PhysicalElement door = new PhysicalElement("Door", Geometry.parse("M 0 0"), false, ElementType.LOCK);
+        door.addState(new PhysicalElement.State("Closed", false));
+        UUID open = door.addState(new PhysicalElement.State("Open", false));
+        UUID doorId = game.addPhysicalElement(door);
+        UUID power = game.addEvent(event("Power", equal(leverId, up), relayId, on));
+        UUID opening = game.addEvent(event("Open the door", equal(relayId, on), doorId, open));
+        Goal goal = new Goal();
+        goal.requireState(doorId, open);
+
+        Solvability solvability = new SolvabilityVerifier(game, goal).verify();
+        assertEquals(1, solvability.getWitness().orElseThrow().size(), solvability.toString());
+        assertEquals(List.of(power, opening), solvability.getWitness().orElseThrow().get(0).getEvents());
+        assertTrue(replay(game, goal, solvability.getWitness().orElseThrow()));
+    }
+
+    /**
+     * Events which keep triggering each other leave the game stuck: the Goal they go through is not met.
+     */
+    @Test
+    void endlessEventsLeadNowhere() {
+        EscapeGame game = new EscapeGame();
+        game.setName("Loop");
+        PhysicalElement lever = new PhysicalElement("Lever", Geometry.parse("M 0 0"), true, ElementType.LOCK);
+        lever.addState(new PhysicalElement.State("Down", true));
+        UUID up = lever.addState(new PhysicalElement.State("Up", true));
+        UUID leverId = game.addPhysicalElement(lever);
+        PhysicalElement relay = new PhysicalElement("Relay", Geometry.parse("M 0 0"), false, ElementType.LOCK);
+        relay.addState(new PhysicalElement.State("Off", false));
+        UUID a = relay.addState(new PhysicalElement.State("A", false));
+        UUID b = relay.addState(new PhysicalElement.State("B", false));
+        UUID relayId = game.addPhysicalElement(relay);
+        game.addEvent(event("Start", equal(leverId, up), relayId, a));
+        game.addEvent(event("Flip", equal(relayId, a), relayId, b));
+        game.addEvent(event("Flop", equal(relayId, b), relayId, a));
+        Goal goal = new Goal();
+        goal.requireState(leverId, up);
+
+        Solvability solvability = new SolvabilityVerifier(game, goal).verify();
+        assertEquals(Solvability.Verdict.UNSOLVABLE, solvability.getVerdict(), solvability.toString());
+        Solvability parallel = new SolvabilityVerifier(game, goal).verifyInParallel(ForkJoinPool.commonPool());
+        assertEquals(Solvability.Verdict.UNSOLVABLE, parallel.getVerdict(), parallel.toString());
+    }
+
+    /**
+     * Pulling the lever the wrong way jams the door for good: that move is the only dead end.
+     */
+    @Test
+    void eventsMakeDeadEnds() throws IOException {
+        EscapeGame game = new EscapeGame();
+        game.setName("Jam");
+        PhysicalElement lever = new PhysicalElement("Lever", Geometry.parse("M 0 0"), true, ElementType.LOCK);
+        lever.addState(new PhysicalElement.State("Rest", true));
+        UUID left = lever.addState(new PhysicalElement.State("Left", true));
+        UUID right = lever.addState(new PhysicalElement.State("Right", true));
+        UUID leverId = game.addPhysicalElement(lever);
+        PhysicalElement door = new PhysicalElement("Door", Geometry.parse("M 0 0"), false, ElementType.LOCK);
+        UUID closed = door.addState(new PhysicalElement.State("Closed", false));
+        UUID open = door.addState(new PhysicalElement.State("Open", false));
+        UUID jammed = door.addState(new PhysicalElement.State("Jammed", false));
+        UUID doorId = game.addPhysicalElement(door);
+        game.addEvent(event("Open the door", "{\"and\":[" + equal(leverId, left) + "," + equal(doorId, closed) + "]}",
+                doorId, open));
+        UUID jam = game.addEvent(event("Jam the door", equal(leverId, right), doorId, jammed));
+        Goal goal = new Goal();
+        goal.requireState(doorId, open);
+
+        DeadEnds deadEnds = new DeadEndDetector(game, goal).detect();
+        assertTrue(deadEnds.isComplete());
+        assertEquals(3, deadEnds.getSoftLockCount(), deadEnds.toString());
+        assertEquals(1, deadEnds.getDeadEndCount(), deadEnds.toString());
+        List<Solvability.Step> trace = deadEnds.getTraces().get(0);
+        assertEquals(1, trace.size());
+        assertEquals(right, trace.get(0).getTo());
+        assertEquals(List.of(jam), trace.get(0).getEvents());
+        assertFalse(new SolvabilityVerifier(game, goal).verify().getWitness().orElseThrow().isEmpty());
+    }
+
+    private static String equal(UUID element, UUID state) {
+        return "{\"==\":[{\"var\":\"" + element + "\"},\"" + state + "\"]}";
+    }
+
+    private static Event event(String name, String trigger, UUID element, UUID state) {
+        Event event = new Event(name);
+        event.setTrigger(Trigger.parse(trigger));
+        event.addAction(new Event.Action(element, state));
+        return event;
+    }
+
+    /**
+     * @return Returns true if the Simulator, playing {@code witness} one Step per second, meets {@code goal}.
+     */
+    private static boolean replay(EscapeGame game, Goal goal, List<Solvability.Step> witness) {
+        Simulator simulator = new Simulator(game, goal);
+        List<Solvability.Step> steps = new ArrayList<>(witness);
+        for (int i = 0; i < steps.size(); i++) {
+            simulator.schedule(Duration.ofSeconds(i + 1), steps.get(i).getElement(), steps.get(i).getTo());
+        }
+        return simulator.run().getSolved().isPresent();
+    }
+}
@@ -0,0 +1,85 @@
+package com.example.represc.verification;
+
+import com.example.represc.data.EscapeGame;
+import com.example.represc.data.Geometry;
+import com.example.represc.data.PhysicalElement;
+import com.example.represc.utils.commonPhysicalElements.ElementType;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class StateSpaceTest {
+
+    /**
+     * Eight interchangeable players of four States only reach the multisets of their States, C(11, 3) of them, instead
+     * of the 4^8 configurations.
+     */
+    @Test
+    void symmetricPlayersAreReduced() {
+        EscapeGame game = new EscapeGame();
+        game.setName("Players");
+        Goal goal = new Goal();
+        for (int i = 0; i < 8; i++) {
+            PhysicalElement player = new PhysicalElement("Player " + i, Geometry.parse("M 0 0"), true,
+                    ElementType.PLAYER);
+            for (String room : new String[]{"Cell", "Corridor", "Office"}) {
+                player.addState(new PhysicalElement.State(room, true));
+            }
+            UUID out = player.addState(new PhysicalElement.State("Out", true));
+            goal.requireState(game.addPhysicalElement(player), out);
+        }
+        List<UUID> elements = new ArrayList<>(goal.getElements());
+
+        assertEquals(165, reachable(new StateSpace(game, elements, goal, true)));
+        assertEquals(65_536, reachable(new StateSpace(game, elements, goal, false)));
+    }
+
+    /**
+     * Games made of pairs of identical Physical Elements keep the verdict and the witness length of the analytic
+     * check, and their witnesses, rebuilt from canonical configurations, can be played.
+     */
+    @Test
+    void symmetricGamesKeepTheirVerdicts() {
+        Random random = new Random(14);
+        for (int trial = 0; trial < 60; trial++) {
+            RandomGames.Case drawn = RandomGames.next(random, true);
+            RandomGames.assertMatches(drawn, new SolvabilityVerifier(drawn.game, drawn.goal).verify());
+        }
+    }
+
+    /**
+     * @return Returns the number of canonical configurations of {@code space} reachable from its initial one.
+     */
+    private static int reachable(StateSpace space) {
+        Set<List<Long>> seen = new HashSet<>();
+        ArrayDeque<long[]> queue = new ArrayDeque<>();
+        long[] initial = space.initial();
+        space.canonicalize(initial);
+        seen.add(key(initial));
+        queue.add(initial);
+        long[] next = new long[space.words()];
+        while (!queue.isEmpty()) {
+            space.forEachSuccessor(queue.poll(), next, (successor, element, from, to) -> {
+                long[] canonical = successor.clone();
+                space.canonicalize(canonical);
+                if (seen.add(key(canonical))) queue.add(canonical);
+                return true;
+            });
+        }
+        return seen.size();
+    }
+
+    private static List<Long> key(long[] configuration) {
+        List<Long> key = new ArrayList<>(configuration.length);
+        for (long word : configuration) key.add(word);
+        return key;
+    }
+}